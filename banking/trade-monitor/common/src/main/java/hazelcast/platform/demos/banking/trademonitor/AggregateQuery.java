@@ -76,6 +76,10 @@ public class AggregateQuery {
     private static final int CONSTANT_KEY = Integer.valueOf(0);
     private static final long TEN_MINUTES_IN_MS = 10 * 60 * 1_000L;
     private static final long LOG_THRESHOLD = 100_000L;
+    private static final String PRICE_VELOCITY_PERCENT_PROPERTY = "my.price.velocity.percent";
+    private static final String PRICE_VELOCITY_PERCENT_DEFAULT = "1.0";
+    private static final String PRICE_VELOCITY_SECONDS_PROPERTY = "my.price.velocity.window.seconds";
+    private static final String PRICE_VELOCITY_SECONDS_DEFAULT = "10";
 
     private static ToLongFunctionEx<Object> nowTimestampFn = __ -> System.currentTimeMillis();
 
@@ -151,6 +155,7 @@ public class AggregateQuery {
 
         // Extra stages for alert generation
         AggregateQuery.addMaxVolumeAlert(aggregated);
+        AggregateQuery.addPriceVelocityAlert(inputSource);
 
         return pipeline;
     }
@@ -210,6 +215,43 @@ public class AggregateQuery {
         .writeTo(Sinks.map(MyConstants.IMAP_NAME_ALERTS_MAX_VOLUME));
     }
 
+    /**
+     * <p>Per trade, detect a symbol's price moving by more than X%
+     * within the last Y seconds, using {@link PriceVelocityState}.
+     * </p>
+     * <p>Unlike the max volume alert this uses the raw trades, not
+     * the aggregation, so a move is detected on the trade that causes it.
+     * State is per symbol, so bounded by the number of symbols and the
+     * trades in the window.
+     * </p>
+     * <p>Alerts go to a map, which has a journal for {@link AlertingToSlack},
+     * and to a topic for any other listeners.
+     * </p>
+     *
+     * @param inputSource Trades
+     */
+    private static void addPriceVelocityAlert(StreamStage<Trade> inputSource) {
+        double thresholdPercent = Double.parseDouble(
+                System.getProperty(PRICE_VELOCITY_PERCENT_PROPERTY, PRICE_VELOCITY_PERCENT_DEFAULT));
+        long windowMs = TimeUnit.SECONDS.toMillis(Long.parseLong(
+                System.getProperty(PRICE_VELOCITY_SECONDS_PROPERTY, PRICE_VELOCITY_SECONDS_DEFAULT)));
+
+        StreamStage<Entry<String, HazelcastJsonValue>> alerts =
+            inputSource
+            .groupingKey(Trade::getSymbol)
+            .mapStateful(PriceVelocityState::new,
+                    (PriceVelocityState state, String symbol, Trade trade)
+                        -> state.accept(trade, thresholdPercent, windowMs))
+            .setName("price velocity " + thresholdPercent + "% in " + windowMs + "ms");
+
+        alerts
+        .writeTo(Sinks.map(MyConstants.IMAP_NAME_ALERTS_PRICE_VELOCITY));
+
+        alerts
+        .map(entry -> entry.getValue().toString())
+        .writeTo(Sinks.reliableTopic(MyConstants.ITOPIC_NAME_ALERTS_PRICE_VELOCITY));
+    }
+
     /**
      * <p>This is similar to {@link IngestTrades#IngestTrades()} but
      * returns a different type.
@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2008-2022, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hazelcast.platform.demos.banking.trademonitor;
+
+import java.io.Serializable;
+
+/**
+ * <p>A token bucket, to limit how many alerts go to Slack. Alerts
+ * over the limit are dropped, but counted, and the count added to
+ * the next alert let through.
+ * </p>
+ */
+public class AlertRateLimiter implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final int capacity;
+    private final long refillIntervalMs;
+    private double tokens;
+    private long lastRefill;
+    private long suppressed;
+
+    /**
+     * @param arg0 Burst size
+     * @param arg1 Time to earn one more
+     */
+    public AlertRateLimiter(int arg0, long arg1) {
+        this.capacity = arg0;
+        this.refillIntervalMs = arg1;
+        this.tokens = arg0;
+        this.lastRefill = System.currentTimeMillis();
+    }
+
+    /**
+     * <p>Pass the alert through if there is capacity.
+     * </p>
+     *
+     * @param text Alert text for Slack
+     * @return The alert, possibly amended, or {@code null} if dropped
+     */
+    public String apply(String text) {
+        long now = System.currentTimeMillis();
+        this.tokens = Math.min(this.capacity,
+                this.tokens + (double) (now - this.lastRefill) / this.refillIntervalMs);
+        this.lastRefill = now;
+
+        if (this.tokens < 1d) {
+            this.suppressed++;
+            return null;
+        }
+        this.tokens--;
+
+        if (this.suppressed > 0) {
+            String result = text + " _(+" + this.suppressed + " more alert"
+                    + (this.suppressed == 1 ? "" : "s") + " suppressed)_";
+            this.suppressed = 0;
+            return result;
+        }
+        return text;
+    }
+
+}
@@ -31,22 +31,34 @@ import com.hazelcast.platform.demos.utils.UtilsConstants;
 import com.hazelcast.platform.demos.utils.UtilsSlackSink;
 
 /**
- * <p>A simple job that listens on a map and republishes to Slack.
+ * <p>A simple job that listens on the alert maps and republishes to Slack.
  * </p>
  * <pre>
- *                +------( 1 )------+
- *                | Journal Source  |
+ *     +------( 1 )------+     +------( 1 )------+
+ *     | Journal Source  |     | Journal Source  |
+ *     +-----------------+     +-----------------+
+ *              |                       |
+ *              |                       |
+ *              |                       |
+ *     +------( 2 )------+     +------( 2 )------+
+ *     | Format as text  |     | Format as text  |
+ *     +-----------------+     +-----------------+
+ *              \                       /
+ *               \                     /
+ *                \                   /
+ *                +------( 3 )------+
+ *                |   Rate limit    |
  *                +-----------------+
  *                         |
  *                         |
  *                         |
- *                +------( 2 )------+
+ *                +------( 4 )------+
  *                | Format as JSON  |
  *                +-----------------+
  *                         |
  *                         |
  *                         |
- *                +------( 3 )------+
+ *                +------( 5 )------+
  *                |   Slack Sink    |
  *                +-----------------+
  * </pre>
@@ -58,7 +70,23 @@ import com.hazelcast.platform.demos.utils.UtilsSlackSink;
  * <p>
  * Map journal source
  * </p>
- * <p>Stream changes from the "{@code alertMaxVolume}" map.
+ * <p>Stream changes from the "{@code alertMaxVolume}" and
+ * "{@code alertsPriceVelocity}" maps.
+ * </p>
+ * </li>
+ * <li>
+ * <p>
+ * Format
+ * </p>
+ * <p>Prepare the alert text for each.
+ * </p>
+ * </li>
+ * <li>
+ * <p>
+ * Rate limit
+ * </p>
+ * <p>Price velocity alerts can come in bursts when the market moves, so
+ * limit the rate sent to Slack with a single {@link AlertRateLimiter}.
  * </p>
  * </li>
  * <li>
@@ -78,6 +106,9 @@ import com.hazelcast.platform.demos.utils.UtilsSlackSink;
  * </ol>
  */
 public class AlertingToSlack {
+    private static final int CONSTANT_KEY = Integer.valueOf(0);
+    private static final int RATE_LIMIT_BURST = 10;
+    private static final long RATE_LIMIT_INTERVAL_MS = 6_000L;
 
     /**
      * <p>A republishing pipeline.
@@ -95,11 +126,25 @@ public class AlertingToSlack {
 
         Pipeline pipeline = Pipeline.create();
 
-        StreamStage<JSONObject> input = pipeline
+        StreamStage<String> maxVolume = pipeline
         .readFrom(Sources.<Long, HazelcastJsonValue>mapJournal(
                 MyConstants.IMAP_NAME_ALERTS_MAX_VOLUME,
                 JournalInitialPosition.START_FROM_OLDEST)).withoutTimestamps()
-        .map(AlertingToSlack.myMapStage()).setName("reformat-to-JSON");
+        .map(AlertingToSlack.myMapStage()).setName("reformat-max-volume");
+
+        StreamStage<String> priceVelocity = pipeline
+        .readFrom(Sources.<String, HazelcastJsonValue>mapJournal(
+                MyConstants.IMAP_NAME_ALERTS_PRICE_VELOCITY,
+                JournalInitialPosition.START_FROM_OLDEST)).withoutTimestamps()
+        .map(AlertingToSlack.myMapStagePriceVelocity()).setName("reformat-price-velocity");
+
+        StreamStage<JSONObject> input = maxVolume
+        .merge(priceVelocity)
+        .groupingKey(__ -> CONSTANT_KEY)
+        .mapStateful(() -> new AlertRateLimiter(RATE_LIMIT_BURST, RATE_LIMIT_INTERVAL_MS),
+                (AlertRateLimiter alertRateLimiter, Integer key, String text) -> alertRateLimiter.apply(text))
+        .setName("rate-limit")
+        .map(text -> new JSONObject().put(UtilsConstants.SLACK_PARAM_TEXT, text)).setName("reformat-to-JSON");
 
         input
         .writeTo(UtilsSlackSink.slackSink(accessToken, channelName, projectName));
@@ -128,10 +173,10 @@ public class AlertingToSlack {
     }
 
     /**
-     * <p>Extract the JSON from the map entry.
+     * <p>Extract the alert text from the map entry.
      * </p>
      */
-    private static FunctionEx<Map.Entry<Long, HazelcastJsonValue>, JSONObject> myMapStage() {
+    private static FunctionEx<Map.Entry<Long, HazelcastJsonValue>, String> myMapStage() {
         return entry -> {
             JSONObject input = new JSONObject(entry.getValue().toString());
 
@@ -141,10 +186,29 @@ public class AlertingToSlack {
                     + ", stock '" + input.getString("symbol")
                     + ", volume: " + input.getLong("volume") + "`";
 
-            JSONObject output = new JSONObject();
-            output.put(UtilsConstants.SLACK_PARAM_TEXT, cleanStr);
+            return cleanStr;
+        };
+    }
+
+    /**
+     * <p>Extract the alert text from the map entry.
+     * </p>
+     */
+    private static FunctionEx<Map.Entry<String, HazelcastJsonValue>, String> myMapStagePriceVelocity() {
+        return entry -> {
+            JSONObject input = new JSONObject(entry.getValue().toString());
+
+            String cleanStr =
+                    "*ALERT* `"
+                    + input.getString("timestamp")
+                    + ", stock '" + input.getString("symbol")
+                    + ", price " + input.getString("direction")
+                    + " " + input.getDouble("changePercent") + "%"
+                    + " in " + input.getLong("windowMs") + "ms"
+                    + ", low: " + input.getLong("low")
+                    + ", high: " + input.getLong("high") + "`";
 
-            return output;
+            return cleanStr;
         };
     }
 
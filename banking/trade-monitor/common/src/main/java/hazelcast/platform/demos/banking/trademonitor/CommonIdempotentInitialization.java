@@ -240,6 +240,8 @@ public class CommonIdempotentInitialization {
         ok &= defineKafka(hazelcastInstance, bootstrapServers);
         ok &= defineIMap(hazelcastInstance);
         ok &= defineIMap2(hazelcastInstance);
+        ok &= defineIMap3(hazelcastInstance);
+        ok &= defineIMap4(hazelcastInstance);
         return ok;
     }
 
@@ -393,6 +395,109 @@ public class CommonIdempotentInitialization {
     }
 
 
+    /**
+     * <p>Maps maintained by members rather than jobs.
+     * </p>
+     * @param hazelcastInstance
+     */
+    static boolean defineIMap3(HazelcastInstance hazelcastInstance) {
+        String definition1 = "CREATE MAPPING IF NOT EXISTS "
+                + MyConstants.IMAP_NAME_SYMBOLS_SNAPSHOT
+                + " ("
+                + "    __key VARCHAR,"
+                + "    symbol VARCHAR,"
+                + "    name VARCHAR,"
+                + "    \"count\" BIGINT,"
+                + "    volume BIGINT,"
+                + "    price BIGINT,"
+                + "    version BIGINT"
+                + ")"
+                + " TYPE IMap "
+                + " OPTIONS ( "
+                + " 'keyFormat' = 'java',"
+                + " 'keyJavaClass' = 'java.lang.String',"
+                + " 'valueFormat' = 'json-flat',"
+                + " 'valueJavaClass' = '" + HazelcastJsonValue.class.getCanonicalName() + "'"
+                + " )";
+
+        String definition2 = "CREATE MAPPING IF NOT EXISTS "
+                + MyConstants.IMAP_NAME_PARTITION_SKEW
+                + " ("
+                + "    __key VARCHAR,"
+                + "    \"timestamp\" VARCHAR,"
+                + "    populated INTEGER,"
+                + "    entries BIGINT,"
+                + "    cost BIGINT,"
+                + "    stddev DOUBLE,"
+                + "    \"max\" BIGINT,"
+                + "    maxPartition INTEGER,"
+                + "    skew DOUBLE"
+                + ")"
+                + " TYPE IMap "
+                + " OPTIONS ( "
+                + " 'keyFormat' = 'java',"
+                + " 'keyJavaClass' = 'java.lang.String',"
+                + " 'valueFormat' = 'json-flat',"
+                + " 'valueJavaClass' = '" + HazelcastJsonValue.class.getCanonicalName() + "'"
+                + " )";
+
+        boolean ok = true;
+        ok &= define(definition1, hazelcastInstance);
+        ok &= define(definition2, hazelcastInstance);
+        return ok;
+    }
+
+    /**
+     * <p>Alerts other than "{@code alertsMaxVolume}", and the outcome
+     * of job control requests.
+     * </p>
+     * @param hazelcastInstance
+     */
+    static boolean defineIMap4(HazelcastInstance hazelcastInstance) {
+        String definition1 = "CREATE MAPPING IF NOT EXISTS "
+                + MyConstants.IMAP_NAME_ALERTS_PRICE_VELOCITY
+                + " ("
+                + "    __key VARCHAR,"
+                + "    symbol VARCHAR,"
+                + "    \"timestamp\" VARCHAR,"
+                + "    direction VARCHAR,"
+                + "    low BIGINT,"
+                + "    high BIGINT,"
+                + "    changePercent DOUBLE,"
+                + "    windowMs BIGINT"
+                + ")"
+                + " TYPE IMap "
+                + " OPTIONS ( "
+                + " 'keyFormat' = 'java',"
+                + " 'keyJavaClass' = 'java.lang.String',"
+                + " 'valueFormat' = 'json-flat',"
+                + " 'valueJavaClass' = '" + HazelcastJsonValue.class.getCanonicalName() + "'"
+                + " )";
+
+        String definition2 = "CREATE MAPPING IF NOT EXISTS "
+                + MyConstants.IMAP_NAME_JOB_CONTROL_STATUS
+                + " ("
+                + "    __key VARCHAR,"
+                + "    verb VARCHAR,"
+                + "    outcome VARCHAR,"
+                + "    detail VARCHAR,"
+                + "    requested VARCHAR,"
+                + "    latencyMs BIGINT,"
+                + "    member VARCHAR"
+                + ")"
+                + " TYPE IMap "
+                + " OPTIONS ( "
+                + " 'keyFormat' = 'java',"
+                + " 'keyJavaClass' = 'java.lang.String',"
+                + " 'valueFormat' = 'json-flat',"
+                + " 'valueJavaClass' = '" + HazelcastJsonValue.class.getCanonicalName() + "'"
+                + " )";
+
+        boolean ok = define(definition1, hazelcastInstance);
+        ok &= define(definition2, hazelcastInstance);
+        return ok;
+    }
+
     /**
      * <p>Generic handler to loading definitions
      * </p>
@@ -446,12 +551,16 @@ public class CommonIdempotentInitialization {
                     System.getProperty("my.autostart.enabled"));
 
             // Trade ingest
-            Pipeline pipelineIngestTrades = IngestTrades.buildPipeline(bootstrapServers, pulsarList, usePulsar);
+            ProcessingGuarantee ingestProcessingGuarantee = IngestTrades.processingGuarantee();
+            Pipeline pipelineIngestTrades = IngestTrades.buildPipeline(bootstrapServers, pulsarList, usePulsar,
+                    ingestProcessingGuarantee);
 
             JobConfig jobConfigIngestTrades = new JobConfig();
-            jobConfigIngestTrades.setProcessingGuarantee(ProcessingGuarantee.EXACTLY_ONCE);
+            jobConfigIngestTrades.setProcessingGuarantee(ingestProcessingGuarantee);
             jobConfigIngestTrades.setName(IngestTrades.class.getSimpleName());
             jobConfigIngestTrades.addClass(IngestTrades.class);
+            jobConfigIngestTrades.addClass(IngestThroughput.class);
+            jobConfigIngestTrades.addClass(PutIfAbsentEntryProcessor.class);
 
             if (usePulsar && useHzCloud) {
                 //TODO Fix once supported by HZ Cloud
@@ -468,6 +577,7 @@ public class CommonIdempotentInitialization {
             jobConfigAggregateQuery.setName(AggregateQuery.class.getSimpleName());
             jobConfigAggregateQuery.addClass(AggregateQuery.class);
             jobConfigAggregateQuery.addClass(MaxVolumeAggregator.class);
+            jobConfigAggregateQuery.addClass(PriceVelocityState.class);
             jobConfigAggregateQuery.addClass(UtilsFormatter.class);
 
             if (usePulsar && useHzCloud) {
@@ -551,6 +661,7 @@ public class CommonIdempotentInitialization {
             jobConfigAlertingToSlack.setProcessingGuarantee(ProcessingGuarantee.EXACTLY_ONCE);
             jobConfigAlertingToSlack.setName(AlertingToSlack.class.getSimpleName());
             jobConfigAlertingToSlack.addClass(AlertingToSlack.class);
+            jobConfigAlertingToSlack.addClass(AlertRateLimiter.class);
             jobConfigAlertingToSlack.addClass(UtilsSlackSink.class);
 
             UtilsJobs.myNewJobIfAbsent(LOGGER, hazelcastInstance, pipelineAlertingToSlack, jobConfigAlertingToSlack);
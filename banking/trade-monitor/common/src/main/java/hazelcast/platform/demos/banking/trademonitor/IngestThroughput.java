@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2008-2022, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hazelcast.platform.demos.banking.trademonitor;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>Ingest rate on one member, shared by all processors of the
+ * stage on that member.
+ * </p>
+ * <p>Every {@code threshold} items, produces a line giving the rate
+ * since the previous line, labelled with the processing guarantee so
+ * runs in different modes can be compared from the logs.
+ * </p>
+ */
+public class IngestThroughput {
+    private static final double MS_PER_SECOND = 1_000d;
+
+    private final String label;
+    private final long threshold;
+    private final AtomicLong count = new AtomicLong();
+    private long intervalStart = System.nanoTime();
+
+    /**
+     * @param arg0 Label for output, such as the processing guarantee
+     * @param arg1 How many items between reports
+     */
+    public IngestThroughput(String arg0, long arg1) {
+        this.label = arg0;
+        this.threshold = arg1;
+    }
+
+    /**
+     * <p>Count one item.
+     * </p>
+     *
+     * @return A report if this item completes an interval, else {@code null}
+     */
+    public String increment() {
+        long total = this.count.incrementAndGet();
+        if (total % this.threshold != 0) {
+            return null;
+        }
+        return this.report(total);
+    }
+
+    /**
+     * <p>Only one thread at a time crosses the threshold, but
+     * synchronize as it's rare.
+     * </p>
+     */
+    private synchronized String report(long total) {
+        long now = System.nanoTime();
+        long elapsedMs = Math.max(1L, TimeUnit.NANOSECONDS.toMillis(now - this.intervalStart));
+        this.intervalStart = now;
+        return String.format(Locale.ROOT, "%s: %,d trades in %,d ms, %,.0f/s, %,d total",
+                this.label, this.threshold, elapsedMs, this.threshold * MS_PER_SECOND / elapsedMs, total);
+    }
+
+}
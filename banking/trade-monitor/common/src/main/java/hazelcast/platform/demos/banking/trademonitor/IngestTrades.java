@@ -21,6 +21,7 @@ import java.util.Map.Entry;
 import java.util.Properties;
 import java.util.concurrent.TimeUnit;
 
+import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.pulsar.client.api.Message;
 import org.apache.pulsar.client.api.PulsarClient;
 import org.apache.pulsar.client.api.Schema;
@@ -29,23 +30,68 @@ import com.hazelcast.core.HazelcastJsonValue;
 import com.hazelcast.function.FunctionEx;
 import com.hazelcast.function.SupplierEx;
 import com.hazelcast.jet.Util;
-import com.hazelcast.jet.accumulator.LongAccumulator;
+import com.hazelcast.jet.config.ProcessingGuarantee;
 import com.hazelcast.jet.contrib.pulsar.PulsarSources;
+import com.hazelcast.jet.core.metrics.Metrics;
 import com.hazelcast.jet.kafka.KafkaSources;
 import com.hazelcast.jet.pipeline.Pipeline;
 import com.hazelcast.jet.pipeline.ServiceFactories;
+import com.hazelcast.jet.pipeline.Sink;
 import com.hazelcast.jet.pipeline.Sinks;
 import com.hazelcast.jet.pipeline.StreamSource;
+import com.hazelcast.jet.pipeline.StreamSourceStage;
 import com.hazelcast.jet.pipeline.StreamStage;
 import com.hazelcast.platform.demos.utils.UtilsUrls;
 
 /**
  * <p>Creates a Jet pipeline to upload from a Kafka topic into a
  * Hazelcast map.
+ * </p>
+ * <p>Two modes, selected by the "{@code my.ingest.guarantee}" system property.
+ * </p>
+ * <ul>
+ * <li><b>AT_LEAST_ONCE</b> Kafka offsets are snapshotted but a restart may
+ * replay records written since the last snapshot, so the same trade may be
+ * written twice, and appear twice in the map's event journal.
+ * </li>
+ * <li><b>EXACTLY_ONCE</b> The default. Offsets are saved with the snapshot
+ * and restored on restart, only committed Kafka records are read, and trades
+ * are deduplicated by trade id for "{@code my.ingest.dedupe.window.seconds}".
+ * The dedupe state is restored from the same snapshot, so it doesn't know
+ * about trades processed after the snapshot that a restart replays. For those
+ * the map write is put-if-absent, by {@link PutIfAbsentEntryProcessor}, so
+ * a replayed trade already in the map is not written or journalled again.
+ * </li>
+ * </ul>
+ * <p>In both modes, trades are routed by trade id before the map write,
+ * so each Kafka partition's records are spread to the members owning the
+ * map partitions and the writes are local. The dedupe state is held
+ * on the same member as the trade, keyed the same way.
+ * </p>
+ * <p>Throughput per member is logged every {@link #LOG_THRESHOLD} trades,
+ * labelled with the mode, for comparison.
+ * </p>
  */
 public class IngestTrades {
 
     private static final long LOG_THRESHOLD = 100_000L;
+    private static final long ALLOWED_LAG_MS = 5_000L;
+    private static final String DEFAULT_DEDUPE_WINDOW_SECONDS = "300";
+
+    /**
+     * <p>The processing guarantee to run the ingest job with, default
+     * is exactly-once.
+     * </p>
+     *
+     * @return From the "{@code my.ingest.guarantee}" system property
+     */
+    public static ProcessingGuarantee processingGuarantee() {
+        String guarantee = System.getProperty("my.ingest.guarantee", "");
+        if (guarantee.equalsIgnoreCase(ProcessingGuarantee.AT_LEAST_ONCE.toString())) {
+            return ProcessingGuarantee.AT_LEAST_ONCE;
+        }
+        return ProcessingGuarantee.EXACTLY_ONCE;
+    }
 
     /**
      * <p>A simple ingest pipeline.
@@ -62,50 +108,93 @@ public class IngestTrades {
      * </p>
      *
      * @param bootstrapServers Kafka brokers list
+     * @param pulsarList Pulsar brokers list
+     * @param usePulsar Pulsar or Kafka
+     * @param processingGuarantee Must match the job config, dedupe if exactly-once
      * @return A pipeline to run
      */
-    public static Pipeline buildPipeline(String bootstrapServers, String pulsarList, boolean usePulsar) {
+    public static Pipeline buildPipeline(String bootstrapServers, String pulsarList, boolean usePulsar,
+            ProcessingGuarantee processingGuarantee) {
+        boolean exactlyOnce = processingGuarantee == ProcessingGuarantee.EXACTLY_ONCE;
 
         Properties properties = InitializerConfig.kafkaSourceProperties(bootstrapServers);
+        if (exactlyOnce) {
+            properties.put(ConsumerConfig.ISOLATION_LEVEL_CONFIG, "read_committed");
+        }
 
         Pipeline pipeline = Pipeline.create();
 
+        /* Timestamps are only used to expire dedupe state. Kafka's own are
+         * kept on replay, Pulsar reader's are not available so use arrival.
+         */
+        StreamSourceStage<Entry<String, HazelcastJsonValue>> sourceStage;
         StreamStage<Entry<String, HazelcastJsonValue>> inputSource;
         if (usePulsar) {
-            inputSource =
-                    pipeline.readFrom(IngestTrades.pulsarSource(pulsarList))
-                    .withoutTimestamps();
+            sourceStage = pipeline.readFrom(IngestTrades.pulsarSource(pulsarList));
+            inputSource = sourceStage.withIngestionTimestamps();
         } else {
-            inputSource =
+            sourceStage =
                     pipeline.readFrom(KafkaSources.<String, String, Entry<String, HazelcastJsonValue>>
                         kafka(properties,
                         record -> Util.entry(record.key(), new HazelcastJsonValue(record.value())),
                         MyConstants.KAFKA_TOPIC_NAME_TRADES)
-                        )
-                 .withoutTimestamps();
+                        );
+            inputSource = sourceStage.withNativeTimestamps(ALLOWED_LAG_MS);
         }
 
-        inputSource
-        .writeTo(Sinks.map(MyConstants.IMAP_NAME_TRADES));
+        StreamStage<Entry<String, HazelcastJsonValue>> trades;
+        if (exactlyOnce) {
+            long dedupeWindowMs = TimeUnit.SECONDS.toMillis(Long.parseLong(
+                    System.getProperty("my.ingest.dedupe.window.seconds", DEFAULT_DEDUPE_WINDOW_SECONDS)));
+            trades = inputSource
+                    .groupingKey(Entry::getKey)
+                    .filterStateful(dedupeWindowMs, () -> new boolean[1],
+                        (seen, entry) -> {
+                            if (seen[0]) {
+                                Metrics.metric("duplicates").increment();
+                                return false;
+                            }
+                            seen[0] = true;
+                            return true;
+                        }).setName("dedupe-by-trade-id");
+        } else {
+            trades = inputSource
+                    .rebalance(Entry::getKey).map(entry -> entry).setName("route-by-trade-id");
+        }
+
+        trades
+        .writeTo(IngestTrades.tradesSink(exactlyOnce));
 
-        /* To help with diagnostics, allow every 100,0000th item through
-         * on each node. Nulls are filtered out.
+        /* To help with diagnostics and compare modes, log the rate every
+         * 100,000th item on each node. Nulls are filtered out.
          */
-        inputSource
-        .mapUsingService(ServiceFactories.sharedService(__ -> new LongAccumulator()),
-            (counter, item) -> {
-                counter.subtract(1);
-                if (counter.get() <= 0) {
-                    counter.set(LOG_THRESHOLD);
-                    return item;
-                }
-                return null;
-        }).setName("filter_every_" + LOG_THRESHOLD)
+        String label = IngestTrades.class.getSimpleName() + " " + processingGuarantee;
+        trades
+        .mapUsingService(ServiceFactories.sharedService(__ -> new IngestThroughput(label, LOG_THRESHOLD)),
+            (ingestThroughput, item) -> ingestThroughput.increment())
+        .setName("throughput_every_" + LOG_THRESHOLD)
         .writeTo(Sinks.logger());
 
         return pipeline;
     }
 
+    /**
+     * <p>Bulk "{@code putAll}" for at-least-once, put-if-absent for
+     * exactly-once so a trade replayed after a restart isn't rewritten.
+     * </p>
+     *
+     * @param exactlyOnce Processing guarantee
+     * @return Sink for the "{@code trades}" map
+     */
+    private static Sink<Entry<String, HazelcastJsonValue>> tradesSink(boolean exactlyOnce) {
+        if (exactlyOnce) {
+            return Sinks.<Entry<String, HazelcastJsonValue>, String, HazelcastJsonValue, Boolean>mapWithEntryProcessor(
+                    MyConstants.IMAP_NAME_TRADES, Entry::getKey,
+                    entry -> new PutIfAbsentEntryProcessor<>(entry.getValue()));
+        }
+        return Sinks.map(MyConstants.IMAP_NAME_TRADES);
+    }
+
     /**
      * <p>This is similar to {@link AggregateQuery#IngestTrades()} but
      * returns a different type.
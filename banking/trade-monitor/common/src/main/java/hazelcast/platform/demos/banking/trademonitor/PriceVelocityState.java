@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2008-2022, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hazelcast.platform.demos.banking.trademonitor;
+
+import java.io.Serializable;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayDeque;
+import java.util.Locale;
+import java.util.Map.Entry;
+
+import com.hazelcast.core.HazelcastJsonValue;
+import com.hazelcast.platform.demos.utils.UtilsFormatter;
+
+/**
+ * <p>Per-symbol state to detect a price moving by more than a given
+ * percentage within a rolling time window, the pattern behind exchange
+ * circuit breakers.
+ * </p>
+ * <p>Holds two monotonic deques of (timestamp, price), one with prices
+ * ascending for the window minimum, one descending for the window maximum.
+ * Each trade is added and removed at most once, so the cost per trade is
+ * constant amortized, and the deques never hold more than the trades in
+ * the window, further capped at {@link #MAX_DEQUE_SIZE}.
+ * </p>
+ * <p>After an alert, the symbol is quiet for a window so a sustained
+ * move produces one alert not one per trade.
+ * </p>
+ */
+public class PriceVelocityState implements Serializable {
+    private static final long serialVersionUID = 1L;
+    private static final int MAX_DEQUE_SIZE = 10_000;
+    private static final double ONE_HUNDRED = 100.0d;
+
+    private final ArrayDeque<long[]> minDeque = new ArrayDeque<>();
+    private final ArrayDeque<long[]> maxDeque = new ArrayDeque<>();
+    private long latestTimestamp;
+    private long quietUntil;
+
+    /**
+     * <p>Add a trade, expire those outside the window, and test
+     * the spread between low and high.
+     * </p>
+     *
+     * @param trade Next trade for the symbol
+     * @param thresholdPercent Alert if the move is at least this
+     * @param windowMs Window duration in milliseconds
+     * @return An alert, or {@code null} if no alert
+     */
+    public Entry<String, HazelcastJsonValue> accept(Trade trade, double thresholdPercent, long windowMs) {
+        // Trades may be slightly out of order, don't let time go backwards
+        long timestamp = Math.max(trade.getTimestamp(), this.latestTimestamp);
+        this.latestTimestamp = timestamp;
+        this.add(timestamp, trade.getPrice(), windowMs);
+
+        long[] low = this.minDeque.peekFirst();
+        long[] high = this.maxDeque.peekFirst();
+        if (timestamp < this.quietUntil || low[1] <= 0) {
+            return null;
+        }
+
+        double changePercent = ONE_HUNDRED * (high[1] - low[1]) / low[1];
+        if (changePercent < thresholdPercent) {
+            return null;
+        }
+
+        this.quietUntil = timestamp + windowMs;
+        return this.alert(trade.getSymbol(), timestamp, windowMs, low, high, changePercent);
+    }
+
+    /**
+     * <p>Add to the tail of each deque, first removing anything the new
+     * price makes redundant. Then remove from the head anything too old.
+     * </p>
+     */
+    private void add(long timestamp, long price, long windowMs) {
+        while (!this.minDeque.isEmpty() && this.minDeque.peekLast()[1] >= price) {
+            this.minDeque.pollLast();
+        }
+        this.minDeque.addLast(new long[] {timestamp, price});
+        while (!this.maxDeque.isEmpty() && this.maxDeque.peekLast()[1] <= price) {
+            this.maxDeque.pollLast();
+        }
+        this.maxDeque.addLast(new long[] {timestamp, price});
+
+        long windowStart = timestamp - windowMs;
+        while (this.minDeque.peekFirst()[0] < windowStart || this.minDeque.size() > MAX_DEQUE_SIZE) {
+            this.minDeque.pollFirst();
+        }
+        while (this.maxDeque.peekFirst()[0] < windowStart || this.maxDeque.size() > MAX_DEQUE_SIZE) {
+            this.maxDeque.pollFirst();
+        }
+    }
+
+    /**
+     * <p>Format an alert, direction is up if the high came after the low.
+     * </p>
+     */
+    private Entry<String, HazelcastJsonValue> alert(String symbol, long timestamp, long windowMs,
+            long[] low, long[] high, double changePercent) {
+        StringBuilder stringBuilder = new StringBuilder();
+        stringBuilder.append("{");
+        stringBuilder.append("  \"symbol\" : \"" + symbol + "\"");
+        stringBuilder.append(", \"timestamp\" : \"" + UtilsFormatter.timestampToISO8601(timestamp) + "\"");
+        stringBuilder.append(", \"direction\" : \"" + (high[0] >= low[0] ? "UP" : "DOWN") + "\"");
+        stringBuilder.append(", \"low\" : " + low[1]);
+        stringBuilder.append(", \"high\" : " + high[1]);
+        stringBuilder.append(", \"changePercent\" : " + String.format(Locale.ROOT, "%.2f", changePercent));
+        stringBuilder.append(", \"windowMs\" : " + windowMs);
+        stringBuilder.append("}");
+        return new SimpleImmutableEntry<>(symbol + "@" + timestamp, new HazelcastJsonValue(stringBuilder.toString()));
+    }
+
+}
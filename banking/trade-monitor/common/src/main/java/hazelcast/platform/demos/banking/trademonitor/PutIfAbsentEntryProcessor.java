@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2008-2022, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package hazelcast.platform.demos.banking.trademonitor;
+
+import java.util.Map.Entry;
+
+import com.hazelcast.map.EntryProcessor;
+
+/**
+ * <p>Sets the value only if the key has none, so writing the same
+ * trade again changes nothing and adds nothing to the map's event
+ * journal.
+ * </p>
+ *
+ * @param <K> Key
+ * @param <V> Value
+ */
+public class PutIfAbsentEntryProcessor<K, V> implements EntryProcessor<K, V, Boolean> {
+    private static final long serialVersionUID = 1L;
+
+    private final V value;
+
+    public PutIfAbsentEntryProcessor(V arg0) {
+        this.value = arg0;
+    }
+
+    /**
+     * @return True if the value was set
+     */
+    @Override
+    public Boolean process(Entry<K, V> entry) {
+        if (entry.getValue() != null) {
+            return Boolean.FALSE;
+        }
+        entry.setValue(this.value);
+        return Boolean.TRUE;
+    }
+
+    /**
+     * <p>Backups get the change if there was one.
+     * </p>
+     */
+    @Override
+    public EntryProcessor<K, V, Boolean> getBackupProcessor() {
+        return this;
+    }
+}
@@ -33,17 +33,25 @@ public class MyConstants {
 
     public static final String IMAP_NAME_AGGREGATE_QUERY_RESULTS = "AggregateQuery" + "_results";
     public static final String IMAP_NAME_ALERTS_MAX_VOLUME = "alertsMaxVolume";
+    public static final String IMAP_NAME_ALERTS_PRICE_VELOCITY = "alertsPriceVelocity";
     public static final String IMAP_NAME_JOB_CONTROL = "job_control";
     public static final String IMAP_NAME_JOB_CONFIG = "job_config";
+    public static final String IMAP_NAME_JOB_CONTROL_STATUS = "job_control_status";
+    public static final String IMAP_NAME_PARTITION_SKEW = "partition_skew";
     public static final String IMAP_NAME_PYTHON_SENTIMENT = "python_sentiment";
     public static final String IMAP_NAME_SYMBOLS = "symbols";
+    public static final String IMAP_NAME_SYMBOLS_SNAPSHOT = "symbols_snapshot";
     public static final String IMAP_NAME_TRADES = "trades";
 
     public static final List<String> IMAP_NAMES =
             List.of(IMAP_NAME_AGGREGATE_QUERY_RESULTS, IMAP_NAME_ALERTS_MAX_VOLUME,
-                    IMAP_NAME_JOB_CONTROL, IMAP_NAME_JOB_CONFIG,
-                    IMAP_NAME_PYTHON_SENTIMENT,
-                    IMAP_NAME_SYMBOLS, IMAP_NAME_TRADES);
+                    IMAP_NAME_ALERTS_PRICE_VELOCITY,
+                    IMAP_NAME_JOB_CONTROL, IMAP_NAME_JOB_CONFIG, IMAP_NAME_JOB_CONTROL_STATUS,
+                    IMAP_NAME_PARTITION_SKEW, IMAP_NAME_PYTHON_SENTIMENT,
+                    IMAP_NAME_SYMBOLS, IMAP_NAME_SYMBOLS_SNAPSHOT, IMAP_NAME_TRADES);
+
+    public static final String ITOPIC_NAME_ALERTS_PRICE_VELOCITY = "alertsPriceVelocity";
+    public static final String ITOPIC_NAME_SYMBOLS_SNAPSHOT = "symbols_snapshot";
 
     public static final String WEBSOCKET_PATH_TRADES = "/trades";
 
@@ -23,6 +23,7 @@ import org.slf4j.LoggerFactory;
 
 import com.hazelcast.config.ClasspathYamlConfig;
 import com.hazelcast.config.Config;
+import com.hazelcast.config.EntryListenerConfig;
 import com.hazelcast.config.JoinConfig;
 import com.hazelcast.config.TcpIpConfig;
 
@@ -75,7 +76,25 @@ public class ApplicationConfig {
             LOGGER.info("Non-Kubernetes configuration: use port: {}", config.getNetworkConfig().getPort());
         }
 
+        addSymbolsSnapshotListener(config);
+
         return config;
     }
 
+    /**
+     * <p>Every member needs a local listener on the aggregation results
+     * to maintain its share of the symbols snapshot, so add it from
+     * configuration rather than rely on the initializer running.
+     * </p>
+     *
+     * @param config To amend
+     */
+    private static void addSymbolsSnapshotListener(Config config) {
+        EntryListenerConfig entryListenerConfig =
+                new EntryListenerConfig(new SymbolsSnapshotListener(), true, true);
+
+        config.getMapConfig(MyConstants.IMAP_NAME_AGGREGATE_QUERY_RESULTS)
+            .addEntryListenerConfig(entryListenerConfig);
+    }
+
 }
@@ -17,11 +17,15 @@
 package hazelcast.platform.demos.banking.trademonitor;
 
 import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.LifecycleEvent.LifecycleState;
 import com.hazelcast.platform.demos.utils.UtilsProperties;
 import com.hazelcast.platform.demos.utils.UtilsSlack;
 import com.hazelcast.platform.demos.utils.UtilsSlackSQLJob;
@@ -36,6 +40,8 @@ public class ApplicationInitializer {
     private static final Logger LOGGER = LoggerFactory.getLogger(ApplicationInitializer.class);
     // Local constant, never needed outside this class
     private static final String APPLICATION_PROPERTIES_FILE = "application.properties";
+    private static final String PARTITION_SKEW_INTERVAL_PROPERTY = "my.partition.skew.interval.seconds";
+    private static final long PARTITION_SKEW_INTERVAL_DEFAULT = 300L;
 
     /**
      * <p>Ensure the necessary {@link com.hazelcast.core.DistributedObject} exist to
@@ -81,20 +87,43 @@ public class ApplicationInitializer {
 
 
     /**
-     * <p>Logging listeners, and job control.
+     * <p>Logging listeners, and job control. Partition skew is reported
+     * on membership changes and also periodically, as data growth can skew
+     * partitions without the cluster changing. Every member schedules the
+     * report, but it only runs on the oldest member, so if that member leaves
+     * the next oldest takes over. The schedule stops when this member shuts down.
      * </p>
      *
      * @param hazelcastInstance
      */
     static void addListeners(HazelcastInstance hazelcastInstance, String bootstrapServers,
             String pulsarList, boolean usePulsar) {
-        MyMembershipListener myMembershipListener = new MyMembershipListener(hazelcastInstance);
+        PartitionSkewReporter partitionSkewReporter = new PartitionSkewReporter(hazelcastInstance);
+        long interval = Long.parseLong(System.getProperty(PARTITION_SKEW_INTERVAL_PROPERTY,
+                String.valueOf(PARTITION_SKEW_INTERVAL_DEFAULT)));
+        LOGGER.debug("'{}'=={}", PARTITION_SKEW_INTERVAL_PROPERTY, interval);
+        ScheduledExecutorService scheduledExecutorService = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, PartitionSkewReporter.class.getSimpleName());
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduledExecutorService
+            .scheduleAtFixedRate(partitionSkewReporter, interval, interval, TimeUnit.SECONDS);
+        hazelcastInstance.getLifecycleService().addLifecycleListener(event -> {
+            if (event.getState() == LifecycleState.SHUTTING_DOWN) {
+                scheduledExecutorService.shutdownNow();
+            }
+        });
+
+        MyMembershipListener myMembershipListener =
+                new MyMembershipListener(hazelcastInstance, partitionSkewReporter);
         hazelcastInstance.getCluster().addMembershipListener(myMembershipListener);
 
         JobControlListener jobControlListener =
                 new JobControlListener(bootstrapServers, pulsarList, usePulsar);
         hazelcastInstance.getMap(MyConstants.IMAP_NAME_JOB_CONTROL)
             .addLocalEntryListener(jobControlListener);
+        hazelcastInstance.getLifecycleService().addLifecycleListener(jobControlListener);
     }
 
 }
@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2008-2022, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package hazelcast.platform.demos.banking.trademonitor;
+
+import java.util.Objects;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.hazelcast.core.Hazelcast;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.jet.Job;
+import com.hazelcast.jet.core.JobStatus;
+
+/**
+ * <p>Suspends, resumes or exports a snapshot from the running job
+ * with the given name.
+ * </p>
+ * <p>A suspended job keeps its state in the cluster, so resuming
+ * continues where it left off. An exported snapshot is named after the
+ * job, so an {@code upgrade} or a later {@code start} can use it.
+ * Snapshot export needs Hazelcast Enterprise.
+ * </p>
+ */
+public class JobControlLifecycleRunnable implements Runnable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(JobControlLifecycleRunnable.class);
+
+    private final HazelcastInstance hazelcastInstance;
+    private final String targetJobNamePrefix;
+    private final String verb;
+
+    public JobControlLifecycleRunnable(String arg0, String arg1) {
+        this.hazelcastInstance = Hazelcast.getAllHazelcastInstances().iterator().next();
+        this.targetJobNamePrefix = arg0;
+        this.verb = arg1;
+    }
+
+    @Override
+    public void run() {
+        switch (this.verb) {
+        case "SUSPEND":
+            Job running = findJob(this.hazelcastInstance, this.targetJobNamePrefix, JobStatus.RUNNING);
+            running.suspend();
+            LOGGER.info("Suspending '{}'", running);
+            break;
+        case "RESUME":
+            Job suspended = findJob(this.hazelcastInstance, this.targetJobNamePrefix, JobStatus.SUSPENDED);
+            suspended.resume();
+            LOGGER.info("Resuming '{}'", suspended);
+            break;
+        case "SNAPSHOT":
+            Job job = findJob(this.hazelcastInstance, this.targetJobNamePrefix, JobStatus.RUNNING);
+            job.exportSnapshot(snapshotName(this.targetJobNamePrefix));
+            LOGGER.info("Exported '{}' from '{}'", snapshotName(this.targetJobNamePrefix), job);
+            break;
+        default:
+            throw new IllegalArgumentException("Unknown verb '" + this.verb + "'");
+        }
+    }
+
+    /**
+     * <p>Name for exported snapshots, one per job name prefix, so the
+     * latest replaces the previous.
+     * </p>
+     *
+     * @param jobNamePrefix Job name before any "{@code @}"
+     * @return Snapshot name
+     */
+    static String snapshotName(String jobNamePrefix) {
+        return jobNamePrefix + "_snapshot";
+    }
+
+    /**
+     * <p>Find the job with the given name prefix and status.
+     * </p>
+     *
+     * @param hazelcastInstance To search
+     * @param targetJobNamePrefix Job name before any "{@code @}"
+     * @param targetJobStatus Status wanted
+     * @return The first job that matches
+     * @throws IllegalStateException if none match
+     */
+    static Job findJob(HazelcastInstance hazelcastInstance, String targetJobNamePrefix, JobStatus targetJobStatus) {
+        for (Job job : hazelcastInstance.getJet().getJobs()) {
+            // Name may be null
+            String jobNamePrefix = Objects.toString(job.getName()).split("@")[0];
+            if (jobNamePrefix.equals(targetJobNamePrefix) && job.getStatus() == targetJobStatus) {
+                return job;
+            }
+        }
+        throw new IllegalStateException("No " + targetJobStatus + " job with prefix '" + targetJobNamePrefix + "'");
+    }
+}
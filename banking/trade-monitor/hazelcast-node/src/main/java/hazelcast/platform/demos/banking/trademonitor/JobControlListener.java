@@ -14,44 +14,99 @@
  * limitations under the License.
  */
 
+
 package hazelcast.platform.demos.banking.trademonitor;
 
 import java.util.Locale;
+import java.util.Map;
 import java.util.Objects;
-import java.util.concurrent.Executor;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
+import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.hazelcast.core.EntryEvent;
+import com.hazelcast.core.Hazelcast;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.HazelcastJsonValue;
+import com.hazelcast.core.LifecycleEvent;
+import com.hazelcast.core.LifecycleEvent.LifecycleState;
+import com.hazelcast.core.LifecycleListener;
 import com.hazelcast.map.listener.EntryAddedListener;
 import com.hazelcast.map.listener.EntryUpdatedListener;
+import com.hazelcast.platform.demos.utils.UtilsFormatter;
 
 /**
  * <p>Listens on the "{@code job-control}" map for events in the form
  * <pre>
  * start IngestTrades
  * stop AggregateQuery
+ * suspend AggregateQuery
+ * resume AggregateQuery
+ * snapshot AggregateQuery
+ * upgrade AggregateQuery
  * </pre>
  * and acts accordingly.
  * </p>
+ * <p>Each job has its own single thread per member, so requests for different
+ * jobs don't queue behind each other. Upgrade in particular can take several
+ * seconds to drain.
+ * </p>
+ * <p>This is a local listener and the map key is the verb, so a request is
+ * handled by the member owning that verb. Requests with the same verb for
+ * one job are applied in order, but requests with different verbs, such as
+ * "{@code suspend}" then "{@code resume}", may be handled on different members
+ * and are not ordered against each other. Wait for the outcome of one in
+ * "{@code job_control_status}" before sending the next.
+ * </p>
+ * <p>The outcome of each request is saved in the "{@code job_control_status}"
+ * map, keyed by job, with the time taken from receipt to completion.
+ * </p>
+ * <p>The per-job threads are shut down when this member shuts down.
+ * </p>
  */
-public class JobControlListener implements EntryAddedListener<String, String>, EntryUpdatedListener<String, String> {
+public class JobControlListener implements EntryAddedListener<String, String>, EntryUpdatedListener<String, String>,
+    LifecycleListener {
     private static final Logger LOGGER = LoggerFactory.getLogger(JobControlListener.class);
 
-    private transient Executor executor;
+    private final transient Map<String, ExecutorService> executors = new ConcurrentHashMap<>();
     private final String bootstrapServers;
     private final String pulsarList;
     private final boolean usePulsar;
+    private volatile boolean shutdown;
 
     public JobControlListener(String arg0, String arg1, boolean arg2) {
-        this.executor = Executors.newSingleThreadExecutor();
         this.bootstrapServers = arg0;
         this.pulsarList = arg1;
         this.usePulsar = arg2;
     }
 
+    /**
+     * <p>Stop accepting requests when the member is going away,
+     * letting any in progress finish.
+     * </p>
+     */
+    @Override
+    public void stateChanged(LifecycleEvent event) {
+        if (event.getState() == LifecycleState.SHUTTING_DOWN) {
+            this.shutdown();
+        }
+    }
+
+    /**
+     * <p>Shut down the per-job threads.
+     * </p>
+     */
+    public void shutdown() {
+        this.shutdown = true;
+        LOGGER.debug("shutdown(), {} executors", this.executors.size());
+        this.executors.values().forEach(ExecutorService::shutdown);
+        this.executors.clear();
+    }
+
     @Override
     public void entryUpdated(EntryEvent<String, String> event) {
         this.process(event);
@@ -75,20 +130,80 @@ public class JobControlListener implements EntryAddedListener<String, String>, E
                 entryEvent.getEventType(),
                 entryEvent.getKey(), entryEvent.getValue());
 
-        String verb = Objects.toString(entryEvent.getKey());
+        if (this.shutdown) {
+            LOGGER.warn("Ignoring '{}' '{}', shutting down", entryEvent.getKey(), entryEvent.getValue());
+            return;
+        }
+
+        long requested = System.currentTimeMillis();
+        String verb = Objects.toString(entryEvent.getKey()).toUpperCase(Locale.ROOT);
         String noun = Objects.toString(entryEvent.getValue());
 
-        if (verb.toUpperCase(Locale.ROOT).equals("START")) {
-            JobControlStartRunnable jobControlStartRunnable =
-                    new JobControlStartRunnable(noun, this.bootstrapServers, this.pulsarList, this.usePulsar);
-            this.executor.execute(jobControlStartRunnable);
-        } else {
-            if (verb.toUpperCase(Locale.ROOT).equals("STOP")) {
-                JobControlStopRunnable jobControlStopRunnable = new JobControlStopRunnable(noun);
-                this.executor.execute(jobControlStopRunnable);
-            } else {
-                LOGGER.error("Ignoring unknown verb in '{}' '{}'", verb, noun);
-            }
+        Runnable runnable;
+        switch (verb) {
+        case "START":
+            runnable = new JobControlStartRunnable(noun, this.bootstrapServers, this.pulsarList, this.usePulsar, null);
+            break;
+        case "STOP":
+            runnable = new JobControlStopRunnable(noun);
+            break;
+        case "SUSPEND":
+        case "RESUME":
+        case "SNAPSHOT":
+            runnable = new JobControlLifecycleRunnable(noun, verb);
+            break;
+        case "UPGRADE":
+            runnable = new JobControlUpgradeRunnable(noun, this.bootstrapServers, this.pulsarList, this.usePulsar);
+            break;
+        default:
+            LOGGER.error("Ignoring unknown verb in '{}' '{}'", verb, noun);
+            return;
+        }
+
+        this.executors.computeIfAbsent(noun, k -> Executors.newSingleThreadExecutor(r -> {
+                Thread thread = new Thread(r, "job-control-" + k);
+                thread.setDaemon(true);
+                return thread;
+            }))
+            .execute(() -> this.runAndRecord(verb, noun, requested, runnable));
+    }
+
+    /**
+     * <p>Run the request, and record how it went. Runnables throw
+     * an exception if they could not do what was asked.
+     * </p>
+     *
+     * @param verb What was requested
+     * @param noun Job name prefix
+     * @param requested When the request was received
+     * @param runnable To do it
+     */
+    private void runAndRecord(String verb, String noun, long requested, Runnable runnable) {
+        String outcome = "OK";
+        String detail = "";
+        try {
+            runnable.run();
+        } catch (Exception e) {
+            LOGGER.error(verb + " " + noun, e);
+            outcome = "FAILED";
+            detail = Objects.toString(e.getMessage(), e.getClass().getSimpleName());
+        }
+        long latencyMs = System.currentTimeMillis() - requested;
+        LOGGER.info("{} '{}' {} in {}ms", verb, noun, outcome, latencyMs);
+
+        try {
+            HazelcastInstance hazelcastInstance = Hazelcast.getAllHazelcastInstances().iterator().next();
+            JSONObject status = new JSONObject()
+                    .put("verb", verb)
+                    .put("outcome", outcome)
+                    .put("detail", detail)
+                    .put("requested", UtilsFormatter.timestampToISO8601(requested))
+                    .put("latencyMs", latencyMs)
+                    .put("member", hazelcastInstance.getCluster().getLocalMember().getAddress().toString());
+            hazelcastInstance.getMap(MyConstants.IMAP_NAME_JOB_CONTROL_STATUS)
+                .set(noun, new HazelcastJsonValue(status.toString()));
+        } catch (Exception e) {
+            LOGGER.error("runAndRecord()", e);
         }
     }
 }
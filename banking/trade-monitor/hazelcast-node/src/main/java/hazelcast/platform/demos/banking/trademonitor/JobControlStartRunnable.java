@@ -31,24 +31,34 @@ import com.hazelcast.jet.core.JobStatus;
 import com.hazelcast.jet.pipeline.Pipeline;
 
 /**
- * <p>Starts at most one job with the given name.
+ * <p>Starts at most one job with the given name, optionally from
+ * an exported snapshot.
  * </p>
  */
 public class JobControlStartRunnable implements Runnable {
-    private static final Logger LOGGER = LoggerFactory.getLogger(JobControlStopRunnable.class);
+    private static final Logger LOGGER = LoggerFactory.getLogger(JobControlStartRunnable.class);
 
     private final HazelcastInstance hazelcastInstance;
     private final String targetJobNamePrefix;
     private final String bootstrapServers;
     private final String pulsarList;
     private final boolean usePulsar;
+    private final String initialSnapshotName;
 
-    public JobControlStartRunnable(String arg0, String arg1, String arg2, boolean arg3) {
+    /**
+     * @param arg0 Job name prefix
+     * @param arg1 Kafka brokers
+     * @param arg2 Pulsar brokers
+     * @param arg3 Pulsar or Kafka
+     * @param arg4 Exported snapshot to start from, or {@code null} to start afresh
+     */
+    public JobControlStartRunnable(String arg0, String arg1, String arg2, boolean arg3, String arg4) {
         this.hazelcastInstance = Hazelcast.getAllHazelcastInstances().iterator().next();
         this.targetJobNamePrefix = arg0;
         this.bootstrapServers = arg1;
         this.pulsarList = arg2;
         this.usePulsar = arg3;
+        this.initialSnapshotName = arg4;
     }
 
     @Override
@@ -63,9 +73,9 @@ public class JobControlStartRunnable implements Runnable {
             String jobNamePrefix = jobName.split("@")[0];
             if (jobNamePrefix.equals(targetJobNamePrefix)) {
                 JobStatus jobStatus = job.getStatus();
-                if ((jobStatus == JobStatus.RUNNING)) {
-                    LOGGER.error("START job with prefix '{}', ignoring due to presence of '{}'",
-                            this.targetJobNamePrefix, job);
+                if (jobStatus == JobStatus.RUNNING || jobStatus == JobStatus.SUSPENDED) {
+                    throw new IllegalStateException("START job with prefix '" + this.targetJobNamePrefix
+                            + "', ignoring due to presence of '" + job + "'");
                 } else {
                     LOGGER.debug("START job with prefix '{}', ignoring '{}' due to status", this.targetJobNamePrefix, job);
                 }
@@ -73,39 +83,38 @@ public class JobControlStartRunnable implements Runnable {
         }
 
         // Actually launch
+        Pipeline pipeline;
+        JobConfig jobConfig = new JobConfig();
         if (targetJobNamePrefix.equals(IngestTrades.class.getSimpleName())) {
             // Trade ingest
-            Pipeline pipelineIngestTrades = IngestTrades.buildPipeline(this.bootstrapServers,
-                this.pulsarList, this.usePulsar);
+            ProcessingGuarantee ingestProcessingGuarantee = IngestTrades.processingGuarantee();
+            pipeline = IngestTrades.buildPipeline(this.bootstrapServers,
+                this.pulsarList, this.usePulsar, ingestProcessingGuarantee);
 
-            JobConfig jobConfigIngestTrades = new JobConfig();
-            jobConfigIngestTrades.setProcessingGuarantee(ProcessingGuarantee.EXACTLY_ONCE);
-            jobConfigIngestTrades.setName(IngestTrades.class.getSimpleName() + "@" + now);
-
-            try {
-                hazelcastInstance.getJet().newJob(pipelineIngestTrades, jobConfigIngestTrades);
-            } catch (Exception e) {
-                LOGGER.error("Failed issuing start for " + targetJobNamePrefix, e);
-            }
+            jobConfig.setProcessingGuarantee(ingestProcessingGuarantee);
+            jobConfig.setName(IngestTrades.class.getSimpleName() + "@" + now);
         } else {
             if (targetJobNamePrefix.equals(AggregateQuery.class.getSimpleName())) {
                 // Trade aggregation
-                Pipeline pipelineAggregateQuery = AggregateQuery.buildPipeline(this.bootstrapServers,
+                pipeline = AggregateQuery.buildPipeline(this.bootstrapServers,
                         this.pulsarList, this.usePulsar);
 
-                JobConfig jobConfigAggregateQuery = new JobConfig();
-                jobConfigAggregateQuery.setProcessingGuarantee(ProcessingGuarantee.EXACTLY_ONCE);
-                jobConfigAggregateQuery.setName(AggregateQuery.class.getSimpleName() + "@" + now);
-                jobConfigAggregateQuery.addClass(MaxVolumeAggregator.class);
-
-                try {
-                    hazelcastInstance.getJet().newJob(pipelineAggregateQuery, jobConfigAggregateQuery);
-                } catch (Exception e) {
-                    LOGGER.error("Failed issuing start for " + targetJobNamePrefix, e);
-                }
+                jobConfig.setProcessingGuarantee(ProcessingGuarantee.EXACTLY_ONCE);
+                jobConfig.setName(AggregateQuery.class.getSimpleName() + "@" + now);
+                jobConfig.addClass(MaxVolumeAggregator.class);
+                jobConfig.addClass(PriceVelocityState.class);
             } else {
-                LOGGER.error("Failed issuing start for '{}', unknown job", targetJobNamePrefix);
+                throw new IllegalArgumentException("Failed issuing start for '" + targetJobNamePrefix
+                        + "', unknown job");
             }
         }
+
+        if (this.initialSnapshotName != null) {
+            jobConfig.setInitialSnapshotName(this.initialSnapshotName);
+        }
+
+        Job job = hazelcastInstance.getJet().newJob(pipeline, jobConfig);
+        LOGGER.info("Started '{}'{}", job,
+                (this.initialSnapshotName == null ? "" : " from snapshot '" + this.initialSnapshotName + "'"));
     }
 }
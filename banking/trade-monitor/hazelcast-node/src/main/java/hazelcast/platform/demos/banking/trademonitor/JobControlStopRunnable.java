@@ -28,7 +28,7 @@ import com.hazelcast.jet.Job;
 import com.hazelcast.jet.core.JobStatus;
 
 /**
- * <p>Stops at most one job with the given name.
+ * <p>Stops at most one job with the given name, running or suspended.
  * </p>
  */
 public class JobControlStopRunnable implements Runnable {
@@ -53,21 +53,18 @@ public class JobControlStopRunnable implements Runnable {
             String jobNamePrefix = jobName.split("@")[0];
             if (jobNamePrefix.equals(targetJobNamePrefix)) {
                 JobStatus jobStatus = job.getStatus();
-                if ((jobStatus == JobStatus.RUNNING)) {
+                if (jobStatus == JobStatus.RUNNING || jobStatus == JobStatus.SUSPENDED) {
                     found = true;
-                    try {
-                        job.cancel();
-                        LOGGER.info("Cancelling '{}'", job);
-                    } catch (Exception e) {
-                        LOGGER.error("Failed issuing stop to " + job.getId(), e);
-                    }
+                    job.cancel();
+                    LOGGER.info("Cancelling '{}'", job);
                 } else {
                     LOGGER.debug("STOP job with prefix '{}', ignoring '{}' due to status", this.targetJobNamePrefix, job);
                 }
             }
         }
         if (!found) {
-            LOGGER.error("STOP job with prefix '{}', failed to find any matches");
+            throw new IllegalStateException("STOP job with prefix '" + this.targetJobNamePrefix
+                    + "', failed to find any matches");
         }
     }
 }
@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2008-2022, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package hazelcast.platform.demos.banking.trademonitor;
+
+import java.util.concurrent.CancellationException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.hazelcast.core.Hazelcast;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.jet.Job;
+import com.hazelcast.jet.JobStateSnapshot;
+import com.hazelcast.jet.core.JobStatus;
+
+/**
+ * <p>Replaces a running job with a new one built from the current
+ * code, carrying over the state.
+ * </p>
+ * <p>The old job is cancelled with a final snapshot exported, so input
+ * up to that point is fully processed and nothing after it is. The new job
+ * starts from that snapshot, so stateful stages such as the aggregations in
+ * {@link AggregateQuery} continue with their totals and sources continue
+ * from their offsets. Snapshot export needs Hazelcast Enterprise, without
+ * it this fails before the old job is touched.
+ * </p>
+ */
+public class JobControlUpgradeRunnable implements Runnable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(JobControlUpgradeRunnable.class);
+
+    private final HazelcastInstance hazelcastInstance;
+    private final String targetJobNamePrefix;
+    private final String bootstrapServers;
+    private final String pulsarList;
+    private final boolean usePulsar;
+
+    public JobControlUpgradeRunnable(String arg0, String arg1, String arg2, boolean arg3) {
+        this.hazelcastInstance = Hazelcast.getAllHazelcastInstances().iterator().next();
+        this.targetJobNamePrefix = arg0;
+        this.bootstrapServers = arg1;
+        this.pulsarList = arg2;
+        this.usePulsar = arg3;
+    }
+
+    @Override
+    public void run() {
+        Job job = JobControlLifecycleRunnable.findJob(this.hazelcastInstance,
+                this.targetJobNamePrefix, JobStatus.RUNNING);
+        String snapshotName = JobControlLifecycleRunnable.snapshotName(this.targetJobNamePrefix);
+
+        JobStateSnapshot jobStateSnapshot = job.cancelAndExportSnapshot(snapshotName);
+        LOGGER.info("Cancelled '{}' with snapshot '{}' size {} bytes",
+                job, jobStateSnapshot.name(), jobStateSnapshot.payloadSize());
+
+        // Wait for it to go, so the replacement isn't rejected as a duplicate
+        try {
+            job.join();
+        } catch (CancellationException expected) {
+            LOGGER.trace("'{}' {}", job, job.getStatus());
+        }
+
+        new JobControlStartRunnable(this.targetJobNamePrefix, this.bootstrapServers,
+                this.pulsarList, this.usePulsar, snapshotName).run();
+    }
+}
@@ -0,0 +1,235 @@
+/*
+ * Copyright (c) 2008-2022, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hazelcast.platform.demos.banking.trademonitor;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.hazelcast.cluster.Member;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.HazelcastJsonValue;
+import com.hazelcast.jet.datamodel.Tuple2;
+import com.hazelcast.jet.datamodel.Tuple3;
+import com.hazelcast.map.IMap;
+import com.hazelcast.platform.demos.utils.UtilsFormatter;
+
+/**
+ * <p>Assess how evenly each map's data is spread across partitions
+ * and members, from the partition-level counts of
+ * {@link PartitionStatsCallable}.
+ * </p>
+ * <p>Run periodically and on membership changes. For each map the
+ * result is logged and saved as JSON in the "{@code partition_skew}" map.
+ * Every member triggers this, but only the oldest member does the work,
+ * so each report is collected once for the cluster rather than once per
+ * member.
+ * </p>
+ * <p>Skew is the fullest partition's entry count divided by the mean across
+ * all partitions, empty ones included, so 1.0 is perfectly even. A hotspot
+ * is a partition with more than {@link #HOTSPOT_FACTOR} times the mean.
+ * </p>
+ */
+public class PartitionSkewReporter implements Runnable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PartitionSkewReporter.class);
+    private static final double HOTSPOT_FACTOR = 2.0d;
+    private static final int HOTSPOT_LIMIT = 3;
+
+    private final HazelcastInstance hazelcastInstance;
+
+    PartitionSkewReporter(final HazelcastInstance arg0) {
+        this.hazelcastInstance = arg0;
+    }
+
+    /**
+     * <p>Collect from all members, summarise each map, log and save.
+     * </p>
+     */
+    @Override
+    public void run() {
+        if (!this.isOldestMember()) {
+            LOGGER.trace("run(), not oldest member, skipping");
+            return;
+        }
+        try {
+            int partitionCount = this.hazelcastInstance.getPartitionService().getPartitions().size();
+            Map<String, Map<Integer, Tuple3<Long, Long, String>>> collatedResults = this.collate();
+
+            IMap<String, HazelcastJsonValue> skewMap =
+                    this.hazelcastInstance.getMap(MyConstants.IMAP_NAME_PARTITION_SKEW);
+            Map<String, HazelcastJsonValue> reports = new HashMap<>();
+
+            LOGGER.info("-------------------------------------");
+            for (Entry<String, Map<Integer, Tuple3<Long, Long, String>>> entry : collatedResults.entrySet()) {
+                JSONObject report = summarise(entry.getKey(), entry.getValue(), partitionCount);
+                reports.put(entry.getKey(), new HazelcastJsonValue(report.toString()));
+
+                LOGGER.info("Map '{}' - entries {} - cost {} - populated partitions {}/{}"
+                        + " - StdDev {} - Maximum {} (partition {}) - skew {}",
+                        entry.getKey(), report.getLong("entries"), report.getLong("cost"),
+                        report.getInt("populated"), partitionCount,
+                        String.format("%.2f", report.getDouble("stddev")), report.getLong("max"),
+                        report.getInt("maxPartition"), String.format("%.2f", report.getDouble("skew")));
+                JSONArray hotspots = report.getJSONArray("hotspots");
+                for (int i = 0; i < hotspots.length(); i++) {
+                    JSONObject hotspot = hotspots.getJSONObject(i);
+                    LOGGER.info("  HOTSPOT partition {} - entry count {} - cost {} - member {}",
+                            String.format("%3d", hotspot.getInt("partition")),
+                            String.format("%7d", hotspot.getLong("entries")),
+                            hotspot.getLong("cost"), hotspot.getString("member"));
+                }
+            }
+            LOGGER.info("-------------------------------------");
+
+            skewMap.putAll(reports);
+        } catch (Exception e) {
+            LOGGER.error("run()", e);
+        }
+    }
+
+    /**
+     * <p>Members are listed oldest first.
+     * </p>
+     *
+     * @return True if this member is the oldest in the cluster
+     */
+    private boolean isOldestMember() {
+        Iterator<Member> iterator = this.hazelcastInstance.getCluster().getMembers().iterator();
+        return iterator.hasNext() && iterator.next().localMember();
+    }
+
+    /**
+     * <p>Merge the results from each member. Each partition has only one
+     * owner, though if a migration is in progress a partition may be reported
+     * twice or not at all, so the report is approximate during rebalancing.
+     * </p>
+     *
+     * @return Map name to partition Id to entry count, cost and member
+     */
+    private Map<String, Map<Integer, Tuple3<Long, Long, String>>> collate() {
+        Map<String, Map<Integer, Tuple3<Long, Long, String>>> collatedResults = new TreeMap<>();
+
+        Map<Member, Future<Map<String, Map<Integer, Tuple2<Long, Long>>>>> rawResults =
+                this.hazelcastInstance.getExecutorService("default").submitToAllMembers(new PartitionStatsCallable());
+
+        for (Entry<Member, Future<Map<String, Map<Integer, Tuple2<Long, Long>>>>> memberEntry
+                : rawResults.entrySet()) {
+            try {
+                String member = memberEntry.getKey().getAddress().getHost()
+                        + ":" + memberEntry.getKey().getAddress().getPort();
+                memberEntry.getValue().get().forEach((mapName, partitions) -> {
+                    Map<Integer, Tuple3<Long, Long, String>> collated =
+                            collatedResults.computeIfAbsent(mapName, k -> new TreeMap<>());
+                    partitions.forEach((partitionId, tuple2) ->
+                        collated.put(partitionId, Tuple3.tuple3(tuple2.f0(), tuple2.f1(), member)));
+                });
+            } catch (Exception e) {
+                LOGGER.error("collate()", e);
+            }
+        }
+
+        return collatedResults;
+    }
+
+    /**
+     * <p>Distribution metrics for one map.
+     * </p>
+     *
+     * @param mapName Map to report on
+     * @param partitions Populated partitions, entry count, cost and owner
+     * @param partitionCount All partitions, including empty ones
+     * @return JSON report
+     */
+    static JSONObject summarise(String mapName, Map<Integer, Tuple3<Long, Long, String>> partitions,
+            int partitionCount) {
+        long entries = 0;
+        long cost = 0;
+        long max = 0;
+        int maxPartition = -1;
+        Map<String, Tuple2<Long, Long>> members = new TreeMap<>();
+        for (Entry<Integer, Tuple3<Long, Long, String>> entry : partitions.entrySet()) {
+            long count = entry.getValue().f0();
+            entries += count;
+            cost += entry.getValue().f1();
+            if (count > max) {
+                max = count;
+                maxPartition = entry.getKey();
+            }
+            members.merge(entry.getValue().f2(), Tuple2.tuple2(count, entry.getValue().f1()),
+                (a, b) -> Tuple2.tuple2(a.f0() + b.f0(), a.f1() + b.f1()));
+        }
+
+        double mean = (double) entries / partitionCount;
+        double total = 0d;
+        for (int i = 0; i < partitionCount; i++) {
+            Tuple3<Long, Long, String> tuple3 = partitions.get(i);
+            double diff = (tuple3 == null ? 0L : tuple3.f0()) - mean;
+            total += diff * diff;
+        }
+        double stdDev = Math.sqrt(total / partitionCount);
+
+        List<Entry<Integer, Tuple3<Long, Long, String>>> hotspots =
+                partitions.entrySet().stream()
+                .filter(entry -> entry.getValue().f0() > mean * HOTSPOT_FACTOR)
+                .sorted(Comparator.comparing(
+                        (Entry<Integer, Tuple3<Long, Long, String>> entry) -> entry.getValue().f0()).reversed())
+                .limit(HOTSPOT_LIMIT)
+                .collect(Collectors.toList());
+
+        JSONObject report = new JSONObject()
+                .put("map", mapName)
+                .put("timestamp", UtilsFormatter.timestampToISO8601(System.currentTimeMillis()))
+                .put("partitions", partitionCount)
+                .put("populated", partitions.size())
+                .put("entries", entries)
+                .put("cost", cost)
+                .put("mean", mean)
+                .put("stddev", stdDev)
+                .put("max", max)
+                .put("maxPartition", maxPartition)
+                .put("skew", (mean == 0d ? 0d : max / mean))
+                .put("hotspots", new JSONArray())
+                .put("members", new JSONArray());
+
+        for (Entry<Integer, Tuple3<Long, Long, String>> hotspot : hotspots) {
+            report.append("hotspots", new JSONObject()
+                    .put("partition", hotspot.getKey())
+                    .put("entries", hotspot.getValue().f0())
+                    .put("cost", hotspot.getValue().f1())
+                    .put("member", hotspot.getValue().f2()));
+        }
+        members.forEach((member, tuple2) ->
+            report.append("members", new JSONObject()
+                    .put("member", member)
+                    .put("entries", tuple2.f0())
+                    .put("cost", tuple2.f1())));
+
+        return report;
+    }
+
+}
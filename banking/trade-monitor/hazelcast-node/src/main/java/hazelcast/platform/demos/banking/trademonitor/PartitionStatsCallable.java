@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2008-2022, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hazelcast.platform.demos.banking.trademonitor;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.HazelcastInstanceAware;
+import com.hazelcast.instance.impl.HazelcastInstanceImpl;
+import com.hazelcast.instance.impl.HazelcastInstanceProxy;
+import com.hazelcast.internal.partition.IPartitionService;
+import com.hazelcast.jet.datamodel.Tuple2;
+import com.hazelcast.map.impl.MapService;
+import com.hazelcast.map.impl.MapServiceContext;
+import com.hazelcast.map.impl.recordstore.RecordStore;
+import com.hazelcast.spi.impl.NodeEngine;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+/**
+ * <p>Report the {@link com.hazelcast.map.IMap IMap} entry count and memory
+ * cost for each partition this member owns.
+ * </p>
+ * <p>These are the counters each partition's record store already keeps,
+ * so this is cheap whatever the data volume. No keys are read, which matters
+ * as this is run on membership changes, when the cluster is busy rebalancing.
+ * </p>
+ * <p><b>Unsupported API.</b> There is no public per-partition equivalent of
+ * {@link com.hazelcast.map.LocalMapStats}, so this reaches into Hazelcast
+ * internals: {@code HazelcastInstanceImpl} for the {@code NodeEngine}, and
+ * the map service's {@code RecordStore} for each partition. These are not
+ * public API, may change in any release without notice, and this class may
+ * need rewriting when Hazelcast is upgraded. Failures are logged and give
+ * an empty result, so at worst the skew report is empty.
+ * </p>
+ */
+public class PartitionStatsCallable implements Callable<Map<String, Map<Integer, Tuple2<Long, Long>>>>,
+    HazelcastInstanceAware, Serializable {
+    private static final long serialVersionUID = 1L;
+    private static final Logger LOGGER = LoggerFactory.getLogger(PartitionStatsCallable.class);
+
+    private transient HazelcastInstance hazelcastInstance;
+
+    /**
+     * <p>For all partitions owned here, for all maps with content in that
+     * partition, the entry count and cost in bytes.
+     * </p>
+     *
+     * @return Map name to partition Id to 2-tuple of entry count and cost
+     */
+    @Override
+    public Map<String, Map<Integer, Tuple2<Long, Long>>> call() throws Exception {
+        final Map<String, Map<Integer, Tuple2<Long, Long>>> result = new HashMap<>();
+
+        try {
+            NodeEngine nodeEngine = this.getNodeEngine();
+            IPartitionService partitionService = nodeEngine.getPartitionService();
+            MapService mapService = nodeEngine.getService(MapService.SERVICE_NAME);
+            MapServiceContext mapServiceContext = mapService.getMapServiceContext();
+
+            for (int partitionId = 0; partitionId < partitionService.getPartitionCount(); partitionId++) {
+                if (partitionService.isPartitionOwner(partitionId)) {
+                    for (RecordStore<?> recordStore
+                            : mapServiceContext.getPartitionContainer(partitionId).getAllRecordStores()) {
+                        if (!recordStore.getName().startsWith("__") && !recordStore.isEmpty()) {
+                            result.computeIfAbsent(recordStore.getName(), k -> new HashMap<>())
+                                .put(partitionId, Tuple2.tuple2((long) recordStore.size(),
+                                        recordStore.getOwnedEntryCost()));
+                        }
+                    }
+                }
+            }
+        } catch (Exception e) {
+            LOGGER.error("call()", e);
+        }
+
+        return result;
+    }
+
+    /**
+     * <p>Depending how invoked, may be given the instance or a proxy to it.
+     * </p>
+     *
+     * @return The node engine for this member
+     */
+    private NodeEngine getNodeEngine() {
+        if (this.hazelcastInstance instanceof HazelcastInstanceProxy) {
+            return ((HazelcastInstanceProxy) this.hazelcastInstance).getOriginal().node.getNodeEngine();
+        }
+        return ((HazelcastInstanceImpl) this.hazelcastInstance).node.getNodeEngine();
+    }
+
+    /**
+     * <p>Called where the callable is run to plug in the
+     * Hazelcast instance for the runner.
+     * </p>
+     */
+    @Override
+    @SuppressFBWarnings(value = "EI_EXPOSE_REP2", justification = "Hazelcast instance must be shared, not cloned")
+    public void setHazelcastInstance(HazelcastInstance arg0) {
+        this.hazelcastInstance = arg0;
+    }
+
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2008-2022, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hazelcast.platform.demos.banking.trademonitor;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.hazelcast.core.EntryEvent;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.HazelcastInstanceAware;
+import com.hazelcast.core.HazelcastJsonValue;
+import com.hazelcast.core.LifecycleEvent.LifecycleState;
+import com.hazelcast.jet.datamodel.Tuple3;
+import com.hazelcast.map.IMap;
+import com.hazelcast.map.listener.EntryAddedListener;
+import com.hazelcast.map.listener.EntryUpdatedListener;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+/**
+ * <p>Maintains the "{@code symbols_snapshot}" map, the symbol table
+ * joined with the latest aggregate from {@link AggregateQuery}, so
+ * that web clients need not scan both maps for each refresh.
+ * </p>
+ * <p>Registered as a local listener on every member, so each member
+ * only sees changes for the aggregates it owns. Changes are coalesced
+ * by symbol, as {@link AggregateQuery} updates on every trade, and
+ * flushed once a second as a single versioned delta. The delta is
+ * written to the snapshot map and published on the
+ * "{@code symbols_snapshot}" topic for clients that already hold
+ * the full snapshot.
+ * </p>
+ * <p>The version is the cluster time of the flush, so is comparable
+ * across members.
+ * </p>
+ */
+public class SymbolsSnapshotListener implements EntryAddedListener<String, Tuple3<Long, Long, Long>>,
+    EntryUpdatedListener<String, Tuple3<Long, Long, Long>>, HazelcastInstanceAware {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SymbolsSnapshotListener.class);
+    private static final long FLUSH_INTERVAL_MS = 1_000L;
+
+    private final Map<String, Tuple3<Long, Long, Long>> pending = new ConcurrentHashMap<>();
+    private final Map<String, String> securityNames = new ConcurrentHashMap<>();
+    private transient ScheduledExecutorService scheduledExecutorService;
+    private transient HazelcastInstance hazelcastInstance;
+
+    @Override
+    public void entryAdded(EntryEvent<String, Tuple3<Long, Long, Long>> event) {
+        this.pending.put(event.getKey(), event.getValue());
+    }
+
+    @Override
+    public void entryUpdated(EntryEvent<String, Tuple3<Long, Long, Long>> event) {
+        this.pending.put(event.getKey(), event.getValue());
+    }
+
+    /**
+     * <p>Drain the changes since the last flush, join with the security
+     * name and publish. Symbols arriving during the drain stay pending
+     * for the next flush.
+     * </p>
+     */
+    void flush() {
+        if (this.pending.isEmpty()) {
+            return;
+        }
+        try {
+            Map<String, Tuple3<Long, Long, Long>> changes = new HashMap<>();
+            for (String symbol : this.pending.keySet()) {
+                Tuple3<Long, Long, Long> value = this.pending.remove(symbol);
+                if (value != null) {
+                    changes.put(symbol, value);
+                }
+            }
+
+            this.resolveSecurityNames(changes.keySet());
+
+            long version = this.hazelcastInstance.getCluster().getClusterTime();
+            Map<String, HazelcastJsonValue> rows = new HashMap<>();
+            JSONArray jsonArray = new JSONArray();
+            for (Entry<String, Tuple3<Long, Long, Long>> entry : changes.entrySet()) {
+                JSONObject row = new JSONObject()
+                        .put("symbol", entry.getKey())
+                        .put("name", this.securityNames.getOrDefault(entry.getKey(), ""))
+                        .put("count", entry.getValue().f0())
+                        .put("volume", entry.getValue().f1())
+                        .put("price", entry.getValue().f2())
+                        .put("version", version);
+                rows.put(entry.getKey(), new HazelcastJsonValue(row.toString()));
+                jsonArray.put(row);
+            }
+
+            IMap<String, HazelcastJsonValue> snapshotMap =
+                    this.hazelcastInstance.getMap(MyConstants.IMAP_NAME_SYMBOLS_SNAPSHOT);
+            snapshotMap.putAll(rows);
+
+            JSONObject delta = new JSONObject()
+                    .put("version", version)
+                    .put("symbols", jsonArray);
+            this.hazelcastInstance.<String>getTopic(MyConstants.ITOPIC_NAME_SYMBOLS_SNAPSHOT)
+                .publish(delta.toString());
+
+            LOGGER.trace("Published version {} with {} symbol{}", version, rows.size(),
+                    (rows.size() == 1 ? "" : "s"));
+        } catch (Exception e) {
+            LOGGER.error("flush()", e);
+        }
+    }
+
+    /**
+     * <p>The symbols map is static once loaded, so look up each symbol's
+     * name only the first time it's seen, in one batch.
+     * </p>
+     *
+     * @param symbols Symbols in this flush
+     */
+    private void resolveSecurityNames(Set<String> symbols) {
+        Set<String> missing = new HashSet<>(symbols);
+        missing.removeAll(this.securityNames.keySet());
+        if (!missing.isEmpty()) {
+            IMap<String, SymbolInfo> symbolsMap =
+                    this.hazelcastInstance.getMap(MyConstants.IMAP_NAME_SYMBOLS);
+            symbolsMap.getAll(missing)
+                .forEach((symbol, symbolInfo) -> this.securityNames.put(symbol, symbolInfo.getSecurityName()));
+        }
+    }
+
+    /**
+     * <p>Injected when the listener is registered from configuration,
+     * so the flush can start once there is an instance to publish to.
+     * The flush runs on a daemon thread, stopped when the member shuts down.
+     * </p>
+     */
+    @Override
+    @SuppressFBWarnings(value = "EI_EXPOSE_REP2", justification = "Hazelcast instance must be shared, not cloned")
+    public void setHazelcastInstance(HazelcastInstance arg0) {
+        this.hazelcastInstance = arg0;
+        if (this.scheduledExecutorService == null) {
+            this.scheduledExecutorService = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, SymbolsSnapshotListener.class.getSimpleName());
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.scheduledExecutorService.scheduleAtFixedRate(this::flush,
+                    FLUSH_INTERVAL_MS, FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+            ScheduledExecutorService toShutdown = this.scheduledExecutorService;
+            arg0.getLifecycleService().addLifecycleListener(event -> {
+                if (event.getState() == LifecycleState.SHUTTING_DOWN) {
+                    toShutdown.shutdownNow();
+                }
+            });
+        }
+    }
+
+}
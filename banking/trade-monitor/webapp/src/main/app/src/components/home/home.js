@@ -33,21 +33,35 @@ class Home extends Component {
     }
 
     onOpen() {
-        setInterval(() => this.sendMessage("LOAD_SYMBOLS"), 1000);
+        // Full snapshot once, changed symbols pushed after
+        this.sendMessage("LOAD_SYMBOLS");
     }
 
     handleData(data) {
         let result = JSON.parse(data);
+        let previous = {};
+        for (let i = 0; i < this.state.symbols.length; i++) {
+            previous[this.state.symbols[i].symbol] = this.state.symbols[i];
+        }
+        let merged = {};
+        if (!result.snapshot) {
+            // Unchanged symbols keep their row, but no longer show a price change
+            for (let i = 0; i < this.state.symbols.length; i++) {
+                let symbol = this.state.symbols[i];
+                merged[symbol.symbol] = { ...symbol, oldPrice: symbol.price };
+            }
+        }
         for (let i = 0; i < result.symbols.length; i++) {
             let oldPrice;
-            if (typeof this.state.symbols[i] === "undefined") {
+            if (typeof previous[result.symbols[i].symbol] === "undefined") {
                 oldPrice = 0;
             } else {
-                oldPrice = this.state.symbols[i].price;
+                oldPrice = previous[result.symbols[i].symbol].price;
             }
             result.symbols[i]["oldPrice"] = oldPrice;
+            merged[result.symbols[i].symbol] = result.symbols[i];
         }
-        this.setState({ symbols: result.symbols });
+        this.setState({ symbols: Object.values(merged) });
     }
 
     render() {
@@ -27,7 +27,6 @@ import java.util.Properties;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
-import java.util.stream.Collectors;
 
 import org.json.JSONObject;
 import org.slf4j.Logger;
@@ -61,6 +60,7 @@ public class ApplicationRunner {
 
     private static Map<String, List<WsContext>> symbolsToBeUpdated = new ConcurrentHashMap<>();
     private static Map<String, WsContext> sessions = new ConcurrentHashMap<>();
+    private static SymbolsSnapshot symbolsSnapshot = new SymbolsSnapshot();
 
     private static final Logger LOGGER = LoggerFactory.getLogger(ApplicationRunner.class);
 
@@ -69,8 +69,6 @@ public class ApplicationRunner {
     private static final String LOAD_SYMBOLS = "LOAD_SYMBOLS";
 
     private final HazelcastInstance  hazelcastInstance;
-    private IMap<String, Tuple3<Long, Long, Integer>> aggregateQueryResultsMap;
-    private IMap<String, SymbolInfo> symbolsMap;
     private IMap<String, HazelcastJsonValue> tradesMap;
 
 
@@ -95,16 +93,17 @@ public class ApplicationRunner {
     public void run() throws Exception {
         boolean ok = initialize();
 
-        this.aggregateQueryResultsMap =
-                this.hazelcastInstance.getMap(MyConstants.IMAP_NAME_AGGREGATE_QUERY_RESULTS);
-        this.symbolsMap =
-                this.hazelcastInstance.getMap(MyConstants.IMAP_NAME_SYMBOLS);
         this.tradesMap =
                 this.hazelcastInstance.getMap(MyConstants.IMAP_NAME_TRADES);
 
         // Be aware of new trades
         tradesMap.addEntryListener(new TradesMapListener(), true);
 
+        // Be aware of aggregation changes, listening before loading so none are missed
+        this.hazelcastInstance.<String>getTopic(MyConstants.ITOPIC_NAME_SYMBOLS_SNAPSHOT)
+            .addMessageListener(symbolsSnapshot);
+        symbolsSnapshot.load(this.hazelcastInstance.getMap(MyConstants.IMAP_NAME_SYMBOLS_SNAPSHOT));
+
         System.out.println("");
         System.out.println("");
 
@@ -174,6 +173,7 @@ public class ApplicationRunner {
             String sessionId = wsCloseContext.getSessionId();
             LOGGER.debug("Session -> '{}', close", sessionId);
             sessions.remove(sessionId, wsCloseContext);
+            symbolsSnapshot.unsubscribe(sessionId);
 
             for (Entry<String, List<WsContext>> entry : symbolsToBeUpdated.entrySet()) {
                 List<WsContext> contexts = entry.getValue();
@@ -189,8 +189,9 @@ public class ApplicationRunner {
      * <ul>
      * <li><p>"<i>LOAD_SYMBOLS</i>"</p>
      * <p>This is for the aggregated view produced by {@link AggregateQuery}.</p>
-     * <p>A JSON object is creating holding the current results of the aggregation,
-     * with one element for each trade symbol.
+     * <p>A JSON object is sent holding the current results of the aggregation,
+     * with one element for each trade symbol. After that, the session is sent
+     * only the symbols that change, see {@link SymbolsSnapshot}.
      * </p>
      * </li>
      * <li><p>"<i>DRILL_SYMBOL</i>"</p>
@@ -203,7 +204,6 @@ public class ApplicationRunner {
      *
      * @return Callback handler
      */
-    @SuppressWarnings("unchecked")
     private WsMessageHandler onMessage() {
         return wsMessageContext -> {
             String sessionId = wsMessageContext.getSessionId();
@@ -212,24 +212,7 @@ public class ApplicationRunner {
 
             // Caller wishes an update on the AggregateQuery
             if (LOAD_SYMBOLS.equals(message)) {
-                JSONObject jsonObject = new JSONObject();
-
-                Map<String, String> allSymbols =
-                        symbolsMap.entrySet().stream().collect(
-                                Collectors.toMap(Entry::getKey, entry -> entry.getValue().getSecurityName()));
-
-                // The screen turns cents to dollars for price but not for volume
-                aggregateQueryResultsMap.forEach((key, value) -> {
-                    jsonObject.append("symbols", new JSONObject()
-                            .put("name", allSymbols.get(key))
-                            .put("symbol", key)
-                            .put("count", value.f0())
-                            .put("volume", volumeToString(value.f1()))
-                            .put("price", value.f2())
-                    );
-                });
-
-                session.send(jsonObject.toString());
+                symbolsSnapshot.subscribe(session);
             }
 
             // Caller wishes the list of trades for a particular symbol, eg. "DRILL_SYMBOL AAPL" for Apple
@@ -263,19 +246,6 @@ public class ApplicationRunner {
     }
 
 
-    /**
-     * <p>Convert trade volume (quantity * price in cents) to dollars.
-     * </p>
-     *
-     * @param Volume from Tuple3 produced by {@link AggregateQuery}
-     * @return Input divided by 100 to 2DP.
-     */
-    private static String volumeToString(long price) {
-        final double oneHundred = 100.00d;
-        return String.format("$%,.2f", price / oneHundred);
-    }
-
-
     /**
      * <p>Find which sessions have a stock symbol drilldown open.
      * </p>
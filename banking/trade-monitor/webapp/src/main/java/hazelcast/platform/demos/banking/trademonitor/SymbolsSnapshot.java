@@ -0,0 +1,210 @@
+/*
+ * Copyright (c) 2008-2022, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hazelcast.platform.demos.banking.trademonitor;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.hazelcast.core.HazelcastJsonValue;
+import com.hazelcast.map.IMap;
+import com.hazelcast.topic.Message;
+import com.hazelcast.topic.MessageListener;
+
+import io.javalin.websocket.WsContext;
+
+/**
+ * <p>A local copy of the "{@code symbols_snapshot}" map maintained
+ * serverside by {@code SymbolsSnapshotListener}.
+ * </p>
+ * <p>Read in full once at start-up, then kept current from the deltas
+ * on the "{@code symbols_snapshot}" topic. A browser session asking for
+ * "{@code LOAD_SYMBOLS}" gets the whole snapshot from here, and after
+ * that only the deltas, so there is no cluster access per browser.
+ * </p>
+ * <p>Each row carries the version it was published at, a row is only
+ * replaced by a newer one. This allows for the load and the topic
+ * overlapping, and for deltas from different members arriving out of order.
+ * </p>
+ */
+public class SymbolsSnapshot implements MessageListener<String> {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SymbolsSnapshot.class);
+
+    // Guarded by "this", ordered for a stable screen
+    private final Map<String, JSONObject> rows = new TreeMap<>();
+    private final Map<String, WsContext> subscribers = new ConcurrentHashMap<>();
+    private long version;
+
+    /**
+     * <p>Initial population, subscribe to the topic before calling so
+     * no delta is missed.
+     * </p>
+     *
+     * @param snapshotMap The "{@code symbols_snapshot}" map
+     */
+    public synchronized void load(IMap<String, HazelcastJsonValue> snapshotMap) {
+        for (HazelcastJsonValue value : snapshotMap.values()) {
+            this.merge(new JSONObject(value.toString()));
+        }
+        LOGGER.info("Loaded {} symbol{} from '{}', version {}", this.rows.size(),
+                (this.rows.size() == 1 ? "" : "s"), snapshotMap.getName(), this.version);
+    }
+
+    /**
+     * <p>Send the full snapshot, and register for deltas. Synchronized
+     * so no delta can fall between the two.
+     * </p>
+     *
+     * @param session A browser session
+     */
+    public synchronized void subscribe(WsContext session) {
+        session.send(this.format(true, this.version, this.rows.values()).toString());
+        this.subscribers.put(session.getSessionId(), session);
+    }
+
+    /**
+     * <p>Browser session has ended.
+     * </p>
+     *
+     * @param sessionId From the closing session
+     */
+    public void unsubscribe(String sessionId) {
+        this.subscribers.remove(sessionId);
+    }
+
+    /**
+     * <p>Apply a delta, and pass on whichever rows are newer than
+     * those held.
+     * </p>
+     */
+    @Override
+    public synchronized void onMessage(Message<String> message) {
+        JSONObject delta = new JSONObject(message.getMessageObject());
+        JSONArray jsonArray = delta.getJSONArray("symbols");
+
+        JSONArray applied = new JSONArray();
+        for (int i = 0; i < jsonArray.length(); i++) {
+            JSONObject row = jsonArray.getJSONObject(i);
+            if (this.merge(row)) {
+                applied.put(row);
+            }
+        }
+
+        if (!applied.isEmpty() && !this.subscribers.isEmpty()) {
+            String update = this.format(false, delta.getLong("version"), applied).toString();
+            this.sendToAll(update);
+        }
+    }
+
+    /**
+     * <p>Sends are asynchronous, so a slow browser doesn't hold up the
+     * others. A session that has gone, or fails to send, is dropped
+     * rather than stopping the deltas to the rest.
+     * </p>
+     *
+     * @param update Delta for browsers
+     */
+    private void sendToAll(String update) {
+        Iterator<Entry<String, WsContext>> iterator = this.subscribers.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Entry<String, WsContext> entry = iterator.next();
+            try {
+                if (entry.getValue().session.isOpen()) {
+                    entry.getValue().send(update);
+                } else {
+                    LOGGER.debug("Session '{}' closed, dropping", entry.getKey());
+                    iterator.remove();
+                }
+            } catch (Exception e) {
+                LOGGER.debug("Session '{}' send failed, dropping: {}", entry.getKey(), e.getMessage());
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * <p>Keep a row if it's the first for the symbol or newer than the
+     * one held.
+     * </p>
+     *
+     * @param row From the map or topic
+     * @return {@code true} if kept
+     */
+    private boolean merge(JSONObject row) {
+        String symbol = row.getString("symbol");
+        long rowVersion = row.getLong("version");
+        JSONObject previous = this.rows.get(symbol);
+        if (previous != null && previous.getLong("version") > rowVersion) {
+            return false;
+        }
+        this.rows.put(symbol, row);
+        if (rowVersion > this.version) {
+            this.version = rowVersion;
+        }
+        return true;
+    }
+
+    /**
+     * <p>Layout as expected by the ReactJS "{@code home.js}".
+     * The screen turns cents to dollars for price but not for volume.
+     * </p>
+     *
+     * @param snapshot {@code true} for everything, {@code false} for a delta
+     * @param documentVersion Version of the snapshot or delta
+     * @param symbols Rows to include
+     * @return JSON to send to the browser
+     */
+    private JSONObject format(boolean snapshot, long documentVersion, Iterable<?> symbols) {
+        JSONObject jsonObject = new JSONObject()
+                .put("snapshot", snapshot)
+                .put("version", documentVersion)
+                .put("symbols", new JSONArray());
+
+        for (Object item : symbols) {
+            JSONObject row = (JSONObject) item;
+            jsonObject.append("symbols", new JSONObject()
+                    .put("name", row.getString("name"))
+                    .put("symbol", row.getString("symbol"))
+                    .put("count", row.getLong("count"))
+                    .put("volume", volumeToString(row.getLong("volume")))
+                    .put("price", row.getLong("price"))
+            );
+        }
+
+        return jsonObject;
+    }
+
+    /**
+     * <p>Convert trade volume (quantity * price in cents) to dollars.
+     * </p>
+     *
+     * @param Volume from Tuple3 produced by {@link AggregateQuery}
+     * @return Input divided by 100 to 2DP.
+     */
+    private static String volumeToString(long price) {
+        final double oneHundred = 100.00d;
+        return String.format("$%,.2f", price / oneHundred);
+    }
+
+}
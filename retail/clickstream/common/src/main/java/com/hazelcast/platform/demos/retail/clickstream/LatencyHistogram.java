@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) 2008-2022, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.platform.demos.retail.clickstream;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * <p>A histogram of latencies in milliseconds, in the style of
+ * <a href="http://hdrhistogram.org/">HdrHistogram</a>.
+ * </p>
+ * <p>Values below {@link #SUB_BUCKET_COUNT} are counted exactly. Above this,
+ * each power of two range is split into {@link #SUB_BUCKET_HALF} buckets,
+ * so a value is reported to within 1/64th, better than 2%, whatever its
+ * magnitude. Bucket counts are only allocated up to the largest value seen,
+ * so a histogram of sub-second latencies is a few hundred longs.
+ * </p>
+ * <p>Histograms merge by adding counts, so can be combined across
+ * processors and windows without loss.
+ * </p>
+ */
+public class LatencyHistogram implements Serializable {
+    private static final long serialVersionUID = 1L;
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int SUB_BUCKET_HALF = SUB_BUCKET_COUNT / 2;
+    private static final double ONE_HUNDRED = 100.0d;
+
+    private long[] counts = new long[SUB_BUCKET_COUNT];
+    private long totalCount;
+    private long sum;
+    private long max;
+
+    public LatencyHistogram() {
+    }
+
+    /**
+     * <p>Copy, so the original can continue to change.
+     * </p>
+     *
+     * @param that Histogram to copy
+     */
+    public LatencyHistogram(LatencyHistogram that) {
+        this.counts = Arrays.copyOf(that.counts, that.counts.length);
+        this.totalCount = that.totalCount;
+        this.sum = that.sum;
+        this.max = that.max;
+    }
+
+    /**
+     * <p>Count one value, negatives are ignored.
+     * </p>
+     *
+     * @param value Latency in milliseconds
+     */
+    public void record(long value) {
+        if (value < 0) {
+            return;
+        }
+        int index = bucketIndex(value);
+        this.ensureCapacity(index + 1);
+        this.counts[index]++;
+        this.totalCount++;
+        this.sum += value;
+        this.max = Math.max(this.max, value);
+    }
+
+    /**
+     * <p>Merge another histogram into this one.
+     * </p>
+     *
+     * @param that Histogram to add
+     */
+    public void add(LatencyHistogram that) {
+        this.ensureCapacity(that.counts.length);
+        for (int i = 0; i < that.counts.length; i++) {
+            this.counts[i] += that.counts[i];
+        }
+        this.totalCount += that.totalCount;
+        this.sum += that.sum;
+        this.max = Math.max(this.max, that.max);
+    }
+
+    /**
+     * <p>The value at or below which the given percentage of values fall,
+     * reported as the top of the bucket but no more than the maximum.
+     * </p>
+     *
+     * @param percentile From 0 to 100, eg. 99.9
+     * @return A latency, or 0 if no values
+     */
+    public long valueAtPercentile(double percentile) {
+        double fraction = Math.min(percentile, ONE_HUNDRED) / ONE_HUNDRED;
+        long target = Math.max(1L, (long) Math.ceil(fraction * this.totalCount));
+        long cumulative = 0;
+        for (int i = 0; i < this.counts.length; i++) {
+            cumulative += this.counts[i];
+            if (cumulative >= target) {
+                return Math.min(highestEquivalentValue(i), this.max);
+            }
+        }
+        return this.max;
+    }
+
+    public long getTotalCount() {
+        return this.totalCount;
+    }
+
+    public long getMax() {
+        return this.max;
+    }
+
+    /**
+     * @return Average, or 0 if no values
+     */
+    public double getMean() {
+        return this.totalCount == 0 ? 0d : (double) this.sum / this.totalCount;
+    }
+
+    /**
+     * <p>Non-empty buckets as JSON pairs, "{@code [[value, count], ...]}",
+     * value being the top of the bucket.
+     * </p>
+     *
+     * @return A JSON array
+     */
+    public String bucketsToJson() {
+        StringBuilder stringBuilder = new StringBuilder("[");
+        for (int i = 0; i < this.counts.length; i++) {
+            if (this.counts[i] > 0) {
+                if (stringBuilder.length() > 1) {
+                    stringBuilder.append(",");
+                }
+                stringBuilder.append("[" + highestEquivalentValue(i) + "," + this.counts[i] + "]");
+            }
+        }
+        return stringBuilder.append("]").toString();
+    }
+
+    private void ensureCapacity(int length) {
+        if (this.counts.length < length) {
+            this.counts = Arrays.copyOf(this.counts, length);
+        }
+    }
+
+    /**
+     * <p>Exact below {@link #SUB_BUCKET_COUNT}, then {@link #SUB_BUCKET_HALF}
+     * buckets for each doubling.
+     * </p>
+     */
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int shift = Long.SIZE - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift);
+        return SUB_BUCKET_COUNT + (shift - 1) * SUB_BUCKET_HALF + (subBucket - SUB_BUCKET_HALF);
+    }
+
+    /**
+     * <p>Inverse of {@link #bucketIndex(long)}, largest value in the bucket.
+     * </p>
+     */
+    static long highestEquivalentValue(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = (index - SUB_BUCKET_COUNT) / SUB_BUCKET_HALF + 1;
+        long subBucket = (index - SUB_BUCKET_COUNT) % SUB_BUCKET_HALF + SUB_BUCKET_HALF;
+        return ((subBucket + 1) << shift) - 1;
+    }
+
+}
@@ -36,6 +36,7 @@ public class MyConstants {
     public static final String IMAP_NAME_CONFIG  = "sys.config";
     public static final String IMAP_NAME_DIGITAL_TWIN = "digital_twin";
     public static final String IMAP_NAME_HEARTBEAT = "sys.heartbeat";
+    public static final String IMAP_NAME_LATENCY_HISTOGRAM = "latency_histogram";
     public static final String IMAP_NAME_MODEL_SELECTION = "model_selection";
     public static final String IMAP_NAME_MODEL_VAULT = "model_vault";
     public static final String IMAP_NAME_ORDERED = "ordered";
@@ -44,10 +45,16 @@ public class MyConstants {
     public static final String IMAP_NAME_PREDICTION = "prediction";
     public static final List<String> IMAP_NAMES =
             List.of(IMAP_NAME_ALERT, IMAP_NAME_CHECKOUT, IMAP_NAME_CLICKSTREAM,
-                    IMAP_NAME_CONFIG, IMAP_NAME_DIGITAL_TWIN, IMAP_NAME_HEARTBEAT,
+                    IMAP_NAME_CONFIG, IMAP_NAME_DIGITAL_TWIN, IMAP_NAME_HEARTBEAT, IMAP_NAME_LATENCY_HISTOGRAM,
                     IMAP_NAME_MODEL_SELECTION, IMAP_NAME_MODEL_VAULT, IMAP_NAME_ORDERED,
                     IMAP_NAME_RETRAINING_ASSESSMENT, IMAP_NAME_RETRAINING_CONTROL, IMAP_NAME_PREDICTION);
 
+    // Checkout value is Tuple3, "f0" is publish timestamp, indexed for retraining
+    public static final String IMAP_CHECKOUT_INDEX_ATTRIBUTE = "f0";
+
+    // Model vault key suffix for a model exported for scoring in Java
+    public static final String MODEL_VAULT_SUFFIX_TREES = ".trees";
+
     // Try not to differ from map name
     public static final String CASSANDRA_TABLE_NAME_MODEL = "model";
 
@@ -62,7 +69,8 @@ public class MyConstants {
     public static final int MAX_LOGGING_LINE_LENGTH = 120;
 
     // Graphite/Grafana sink
-    public static final int GRAPHITE_PORT = 2004;
+    public static final int GRAPHITE_BATCH_SIZE = 500;
+    public static final long GRAPHITE_FLUSH_INTERVAL_MS = 1_000L;
 
     // WAN config, default batch 500, queue 10000
     public static final int WAN_BATCH_SIZE = 1_000;
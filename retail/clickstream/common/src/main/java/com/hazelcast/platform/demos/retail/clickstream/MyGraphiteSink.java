@@ -0,0 +1,358 @@
+/*
+ * Copyright (c) 2008-2022, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.platform.demos.retail.clickstream;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * <p>Sends metrics to one or more Graphite carbon receivers, using
+ * the plaintext or pickle protocol, without needing Python.
+ * </p>
+ * <p>Metrics are buffered and sent by a background thread, when
+ * {@link #maxBatchSize} are waiting or every {@link #flushIntervalMs},
+ * so the caller never waits on the network. If a receiver is
+ * unavailable, the metrics for it are dropped and the connection is
+ * retried with an increasing backoff up to {@link #MAX_BACKOFF_MS}.
+ * Each receiver is sent every metric, so several carbon relays can
+ * be used for redundancy.
+ * </p>
+ * <p>The buffer is capped, oldest metrics are dropped if it is full.
+ * </p>
+ */
+@Slf4j
+public class MyGraphiteSink implements AutoCloseable {
+
+    /**
+     * <p>Carbon's two TCP protocols, and their usual ports.
+     * </p>
+     */
+    public enum Protocol {
+        PLAINTEXT(2003),
+        PICKLE(2004);
+
+        private final int defaultPort;
+
+        Protocol(int arg0) {
+            this.defaultPort = arg0;
+        }
+
+        public int getDefaultPort() {
+            return this.defaultPort;
+        }
+    }
+
+    private static final int CONNECT_TIMEOUT_MS = 1_000;
+    private static final int MAX_BUFFERED_BATCHES = 10;
+    private static final long INITIAL_BACKOFF_MS = 100L;
+    private static final long MAX_BACKOFF_MS = 30_000L;
+    // Pickle protocol 2 opcodes
+    private static final int PICKLE_PROTO = 0x80;
+    private static final int PICKLE_EMPTY_LIST = ']';
+    private static final int PICKLE_MARK = '(';
+    private static final int PICKLE_BINUNICODE = 'X';
+    private static final int PICKLE_BININT = 'J';
+    private static final int PICKLE_BINFLOAT = 'G';
+    private static final int PICKLE_TUPLE2 = 0x86;
+    private static final int PICKLE_APPENDS = 'e';
+    private static final int PICKLE_STOP = '.';
+
+    private final Protocol protocol;
+    private final int maxBatchSize;
+    private final long flushIntervalMs;
+    private final List<Relay> relays = new ArrayList<>();
+    private final ArrayDeque<Metric> buffer = new ArrayDeque<>();
+    private final ScheduledExecutorService scheduledExecutorService;
+    private long dropped;
+
+    /**
+     * @param arg0 Comma separated "{@code host}" or "{@code host:port}"
+     * @param arg1 Protocol for all hosts
+     * @param arg2 Send when this many metrics are waiting
+     * @param arg3 Send waiting metrics at least this often
+     */
+    public MyGraphiteSink(String arg0, Protocol arg1, int arg2, long arg3) {
+        this.protocol = arg1;
+        this.maxBatchSize = arg2;
+        this.flushIntervalMs = arg3;
+        for (String hostPort : arg0.split(",")) {
+            String[] tokens = hostPort.trim().split(":");
+            int port = tokens.length > 1 ? Integer.parseInt(tokens[1]) : arg1.getDefaultPort();
+            this.relays.add(new Relay(tokens[0], port));
+        }
+        this.scheduledExecutorService = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, MyGraphiteSink.class.getSimpleName());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.scheduledExecutorService.scheduleWithFixedDelay(this::flush,
+                this.flushIntervalMs, this.flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * <p>Buffer a metric for sending, timestamped now.
+     * </p>
+     *
+     * @param name Dot separated path, eg. "{@code LATENCY.RANDOMFOREST.PUBLISH}"
+     * @param value Numeric value
+     */
+    public void add(String name, float value) {
+        this.add(name, value, System.currentTimeMillis() / TimeUnit.SECONDS.toMillis(1));
+    }
+
+    /**
+     * <p>Buffer a metric for sending, triggering a send if enough are waiting.
+     * </p>
+     *
+     * @param name Dot separated path
+     * @param value Numeric value
+     * @param epochSecond Time of the metric
+     */
+    public void add(String name, float value, long epochSecond) {
+        boolean flushNow;
+        synchronized (this.buffer) {
+            if (this.buffer.size() >= this.maxBatchSize * MAX_BUFFERED_BATCHES) {
+                this.buffer.poll();
+                this.dropped++;
+            }
+            this.buffer.add(new Metric(name, value, epochSecond));
+            flushNow = this.buffer.size() == this.maxBatchSize;
+        }
+        if (flushNow && !this.scheduledExecutorService.isShutdown()) {
+            this.scheduledExecutorService.execute(this::flush);
+        }
+    }
+
+    /**
+     * <p>Send everything waiting, in batches, to every receiver.
+     * Runs on the background thread, and once more on close, so
+     * synchronized as relays are not safe for concurrent use.
+     * </p>
+     */
+    private synchronized void flush() {
+        try {
+            List<Metric> batch = this.nextBatch();
+            while (!batch.isEmpty()) {
+                byte[] payload = this.protocol == Protocol.PICKLE ? encodePickle(batch) : encodePlaintext(batch);
+                for (Relay relay : this.relays) {
+                    relay.send(payload, batch.size());
+                }
+                batch = this.nextBatch();
+            }
+        } catch (Exception e) {
+            // Don't let an unexpected failure stop the scheduled flush
+            log.error("flush()", e);
+        }
+    }
+
+    private List<Metric> nextBatch() {
+        List<Metric> batch = new ArrayList<>();
+        synchronized (this.buffer) {
+            while (batch.size() < this.maxBatchSize && !this.buffer.isEmpty()) {
+                batch.add(this.buffer.poll());
+            }
+            if (this.dropped > 0) {
+                log.warn("Buffer full, dropped {} metrics", this.dropped);
+                this.dropped = 0;
+            }
+        }
+        return batch;
+    }
+
+    /**
+     * <p>Send anything remaining, and disconnect. If a scheduled flush
+     * is still running when the wait expires, this waits for it to
+     * finish rather than use the relays at the same time.
+     * </p>
+     */
+    @Override
+    public void close() {
+        this.scheduledExecutorService.shutdown();
+        try {
+            if (!this.scheduledExecutorService.awaitTermination(this.flushIntervalMs, TimeUnit.MILLISECONDS)) {
+                log.warn("close(): flush still running after {}ms", this.flushIntervalMs);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            this.flush();
+            this.relays.forEach(Relay::disconnect);
+        }
+    }
+
+    /**
+     * <p>One line per metric, "{@code name value timestamp}".
+     * </p>
+     *
+     * @param metrics To send
+     * @return Bytes for the socket
+     */
+    static byte[] encodePlaintext(List<Metric> metrics) {
+        StringBuilder stringBuilder = new StringBuilder();
+        for (Metric metric : metrics) {
+            stringBuilder.append(metric.name).append(' ')
+                .append(metric.value).append(' ')
+                .append(metric.epochSecond).append('\n');
+        }
+        return stringBuilder.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * <p>A length header then a pickled list of
+     * "{@code (name, (timestamp, value))}" tuples, the format Carbon's
+     * pickle receiver expects. Only the few opcodes needed are written.
+     * </p>
+     *
+     * @param metrics To send
+     * @return Bytes for the socket
+     */
+    static byte[] encodePickle(List<Metric> metrics) {
+        ByteArrayOutputStream pickle = new ByteArrayOutputStream();
+        pickle.write(PICKLE_PROTO);
+        pickle.write(2);
+        pickle.write(PICKLE_EMPTY_LIST);
+        pickle.write(PICKLE_MARK);
+        for (Metric metric : metrics) {
+            byte[] name = metric.name.getBytes(StandardCharsets.UTF_8);
+            pickle.write(PICKLE_BINUNICODE);
+            pickle.writeBytes(ByteBuffer.allocate(Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN)
+                    .putInt(name.length).array());
+            pickle.writeBytes(name);
+            pickle.write(PICKLE_BININT);
+            pickle.writeBytes(ByteBuffer.allocate(Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN)
+                    .putInt((int) metric.epochSecond).array());
+            pickle.write(PICKLE_BINFLOAT);
+            pickle.writeBytes(ByteBuffer.allocate(Double.BYTES).putDouble(metric.value).array());
+            pickle.write(PICKLE_TUPLE2);
+            pickle.write(PICKLE_TUPLE2);
+        }
+        pickle.write(PICKLE_APPENDS);
+        pickle.write(PICKLE_STOP);
+
+        byte[] payload = pickle.toByteArray();
+        return ByteBuffer.allocate(Integer.BYTES + payload.length).putInt(payload.length).put(payload).array();
+    }
+
+    /**
+     * <p>A metric waiting to be sent.
+     * </p>
+     */
+    static class Metric {
+        private final String name;
+        private final double value;
+        private final long epochSecond;
+
+        Metric(String arg0, double arg1, long arg2) {
+            this.name = arg0;
+            this.value = arg1;
+            this.epochSecond = arg2;
+        }
+    }
+
+    /**
+     * <p>A connection to one receiver, only used from the background thread.
+     * </p>
+     */
+    private static class Relay {
+        private final String host;
+        private final int port;
+        private Socket socket;
+        private OutputStream outputStream;
+        private long backoffMs;
+        private long nextAttempt;
+
+        Relay(String arg0, int arg1) {
+            this.host = arg0;
+            this.port = arg1;
+        }
+
+        /**
+         * <p>Send if connected or can connect, otherwise drop.
+         * </p>
+         */
+        void send(byte[] payload, int count) {
+            if (this.socket == null && !this.connect()) {
+                log.trace("send(): {}:{} unavailable, dropped {} metrics", this.host, this.port, count);
+                return;
+            }
+            try {
+                this.outputStream.write(payload);
+                this.outputStream.flush();
+            } catch (IOException e) {
+                log.warn("send(): {}:{} {}, dropped {} metrics", this.host, this.port, e.getMessage(), count);
+                this.disconnect();
+                this.backoff();
+            }
+        }
+
+        private boolean connect() {
+            if (System.currentTimeMillis() < this.nextAttempt) {
+                return false;
+            }
+            Socket newSocket = new Socket();
+            try {
+                newSocket.connect(new InetSocketAddress(this.host, this.port), CONNECT_TIMEOUT_MS);
+                this.outputStream = newSocket.getOutputStream();
+                this.socket = newSocket;
+                this.backoffMs = 0;
+                log.info("connect(): {}:{}", this.host, this.port);
+                return true;
+            } catch (IOException e) {
+                try {
+                    newSocket.close();
+                } catch (IOException ignored) {
+                    log.trace("connect(): close", ignored);
+                }
+                this.backoff();
+                log.warn("connect(): {}:{} {}, retry in {}ms", this.host, this.port, e.getMessage(), this.backoffMs);
+                return false;
+            }
+        }
+
+        private void backoff() {
+            this.backoffMs = this.backoffMs == 0 ? INITIAL_BACKOFF_MS : Math.min(2 * this.backoffMs, MAX_BACKOFF_MS);
+            this.nextAttempt = System.currentTimeMillis() + this.backoffMs;
+        }
+
+        void disconnect() {
+            if (this.socket != null) {
+                try {
+                    this.socket.close();
+                } catch (IOException e) {
+                    log.trace("disconnect(): {}:{}", this.host, this.port, e);
+                }
+            }
+            this.socket = null;
+            this.outputStream = null;
+        }
+    }
+}
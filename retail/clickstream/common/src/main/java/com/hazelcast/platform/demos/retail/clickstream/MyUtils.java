@@ -16,11 +16,8 @@
 
 package com.hazelcast.platform.demos.retail.clickstream;
 
-import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.InputStream;
-import java.net.Socket;
-import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -33,12 +30,6 @@ import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Properties;
 
-import org.python.core.PyFloat;
-import org.python.core.PyInteger;
-import org.python.core.PyList;
-import org.python.core.PyString;
-import org.python.modules.cPickle;
-
 import com.hazelcast.jet.accumulator.LongAccumulator;
 import com.hazelcast.jet.core.DAG;
 import com.hazelcast.jet.core.Edge;
@@ -282,29 +273,22 @@ public class MyUtils {
     /**
      * <p>Create a Sink to send to Graphite
      * </p>
+     * <p>Protocol is pickle unless "{@code my.graphite.protocol}" is "{@code plaintext}",
+     * and the host can be a comma separated list to send to several.
+     * </p>
      *
-     * @param host For socket, port is preset
+     * @param host For socket, port is preset unless given as "{@code host:port}"
      * @return
      */
     public static Sink<Entry<String, Float>> buildGraphiteSink(String host) {
+        MyGraphiteSink.Protocol protocol = getGraphiteProtocol();
         return SinkBuilder.sinkBuilder(
                 "graphite",
-                __ -> new BufferedOutputStream(new Socket(host, MyConstants.GRAPHITE_PORT).getOutputStream()))
-        .<Entry<String, Float>>receiveFn((bufferedOutputStream, entry) -> {
-
-            PyString metricName = new PyString(entry.getKey());
-            PyInteger timestamp = new PyInteger(-1);
-            PyFloat metricValue = new PyFloat(entry.getValue());
-            MyGraphiteMetric myGraphiteMetric = new MyGraphiteMetric(metricName, timestamp, metricValue);
-
-            PyString payload = cPickle.dumps(myGraphiteMetric.getAsList(), 2);
-            byte[] header = ByteBuffer.allocate(Integer.BYTES).putInt(payload.__len__()).array();
-
-            bufferedOutputStream.write(header);
-            bufferedOutputStream.write(payload.toBytes());
-        })
-        .flushFn(BufferedOutputStream::flush)
-        .destroyFn(BufferedOutputStream::close)
+                __ -> new MyGraphiteSink(host, protocol,
+                        MyConstants.GRAPHITE_BATCH_SIZE, MyConstants.GRAPHITE_FLUSH_INTERVAL_MS))
+        .<Entry<String, Float>>receiveFn((myGraphiteSink, entry) ->
+            myGraphiteSink.add(entry.getKey(), entry.getValue()))
+        .destroyFn(MyGraphiteSink::close)
         .preferredLocalParallelism(1)
         .build();
     }
@@ -313,37 +297,75 @@ public class MyUtils {
      * <p>Create a Sink to send to Graphite, as above but for multiple input items.
      * </p>
      *
-     * @param host For socket, port is preset
+     * @param host For socket, port is preset unless given as "{@code host:port}"
      * @return
      */
     public static Sink<List<Entry<String, Float>>> buildGraphiteBatchSink(String host) {
+        MyGraphiteSink.Protocol protocol = getGraphiteProtocol();
         return SinkBuilder.sinkBuilder(
                 "graphite",
-                __ -> new BufferedOutputStream(new Socket(host, MyConstants.GRAPHITE_PORT).getOutputStream()))
-        .<List<Entry<String, Float>>>receiveFn((bufferedOutputStream, list) -> {
-
-            PyList pyList = new PyList();
-            list.forEach(entry -> {
-                PyString metricName = new PyString(entry.getKey());
-                PyInteger timestamp = new PyInteger(-1);
-                PyFloat metricValue = new PyFloat(entry.getValue());
-                MyGraphiteMetric myGraphiteMetric = new MyGraphiteMetric(metricName, timestamp, metricValue);
-
-                pyList.add(myGraphiteMetric.getAsItem());
-            });
-
-            PyString payload = cPickle.dumps(pyList, 2);
-            byte[] header = ByteBuffer.allocate(Integer.BYTES).putInt(payload.__len__()).array();
-
-            bufferedOutputStream.write(header);
-            bufferedOutputStream.write(payload.toBytes());
-        })
-        .flushFn(BufferedOutputStream::flush)
-        .destroyFn(BufferedOutputStream::close)
+                __ -> new MyGraphiteSink(host, protocol,
+                        MyConstants.GRAPHITE_BATCH_SIZE, MyConstants.GRAPHITE_FLUSH_INTERVAL_MS))
+        .<List<Entry<String, Float>>>receiveFn((myGraphiteSink, list) ->
+            list.forEach(entry -> myGraphiteSink.add(entry.getKey(), entry.getValue())))
+        .destroyFn(MyGraphiteSink::close)
         .preferredLocalParallelism(1)
         .build();
     }
 
+    private static MyGraphiteSink.Protocol getGraphiteProtocol() {
+        String protocol = System.getProperty("my.graphite.protocol", "");
+        if (protocol.equalsIgnoreCase(MyGraphiteSink.Protocol.PLAINTEXT.toString())) {
+            return MyGraphiteSink.Protocol.PLAINTEXT;
+        }
+        return MyGraphiteSink.Protocol.PICKLE;
+    }
+
+    /**
+     * <p>The digital twin holds the actions as a bitset in a {@code long},
+     * bit <i>n</i> set if the {@link CsvField} with ordinal <i>n</i> has
+     * been seen. Merging is then bitwise OR, and duplicates are naturally
+     * ignored.
+     * </p>
+     *
+     * @param csvField An action
+     * @return The bit for that action
+     */
+    public static long digitalTwinBit(CsvField csvField) {
+        return 1L << csvField.ordinal();
+    }
+
+    /**
+     * <p>Test if an action is in a digital twin bitset.
+     * </p>
+     *
+     * @param bits From the digital twin
+     * @param csvField An action
+     * @return {@code true} if seen
+     */
+    public static boolean digitalTwinHas(long bits, CsvField csvField) {
+        return (bits & digitalTwinBit(csvField)) != 0;
+    }
+
+    /**
+     * <p>Convert the old text version of digital twin to a bitset.
+     * </p>
+     *
+     * @param csv Of "didB,didD,didE,didF"
+     * @return Bitset with those actions set
+     */
+    public static long digitalTwinCsvToBits(String csv) {
+        long bits = 0L;
+        if (csv != null) {
+            for (String token : csv.split(",")) {
+                if (token.length() > 0) {
+                    bits |= digitalTwinBit(CsvField.valueOf(token));
+                }
+            }
+        }
+        return bits;
+    }
+
     /**
      * <p>Convert text version of digital twin to compact for Python. 0 is false.s
      * </p>
@@ -353,36 +375,53 @@ public class MyUtils {
      * @return "0,1,0,1,1,1"
      */
     public static String[] digitalTwinCsvToBinary(String key, String csv, boolean includeOrdered) {
-        int size = CsvField.ordered.ordinal();
-        int dataOffset = 0;
-        if (key != null) {
-            size++;
-            dataOffset = 1;
-        }
-        if (!includeOrdered) {
-            size--;
-        }
-        String[] result = new String[size];
+        return digitalTwinToBinary(key, digitalTwinCsvToBits(csv), includeOrdered);
+    }
+
+    /**
+     * <p>Convert bitset digital twin to compact for Python. 0 is false.
+     * Fields 1 to 23 are actions, then "{@code ordered}" if wanted.
+     * </p>
+     *
+     * @param key Prepend if not null
+     * @param bits The digital twin actions
+     * @param includeOrdered Add the "{@code ordered}" field
+     * @return "0,1,0,1,1,1"
+     */
+    public static String[] digitalTwinToBinary(String key, long bits, boolean includeOrdered) {
+        int dataOffset = (key == null ? 0 : 1);
+        int last = includeOrdered ? CsvField.ordered.ordinal() : CsvField.ordered.ordinal() - 1;
+        String[] result = new String[last + dataOffset];
 
-        for (int i = dataOffset ; i < result.length; i++) {
-            result[i] = "0";
-        }
         if (key != null) {
             result[0] = key;
         }
+        for (int i = 1; i <= last; i++) {
+            result[i - 1 + dataOffset] = ((bits >>> i) & 1L) == 0 ? "0" : "1";
+        }
+        return result;
+    }
 
-        if (csv != null) {
-            for (String token : csv.split(",")) {
-                if (token.length() > 0) {
-                    CsvField csvField = CsvField.valueOf(token);
-                    if ((csvField == CsvField.ordered && includeOrdered)
-                            || csvField != CsvField.ordered) {
-                        result[csvField.ordinal() - 1 + dataOffset] = "1";
-                    }
-                }
+    /**
+     * <p>As {@link #digitalTwinToBinary(String, long, boolean)} but directly
+     * to the string form the Python modules expect, the same as
+     * {@link java.util.Arrays#toString(Object[])} without brackets.
+     * </p>
+     *
+     * @param bits The digital twin actions
+     * @param includeOrdered Add the "{@code ordered}" field
+     * @return "0, 1, 0, 1, 1, 1"
+     */
+    public static String digitalTwinToCsv(long bits, boolean includeOrdered) {
+        int last = includeOrdered ? CsvField.ordered.ordinal() : CsvField.ordered.ordinal() - 1;
+        StringBuilder stringBuilder = new StringBuilder();
+        for (int i = 1; i <= last; i++) {
+            if (i > 1) {
+                stringBuilder.append(", ");
             }
+            stringBuilder.append(((bits >>> i) & 1L) == 0 ? '0' : '1');
         }
-        return result;
+        return stringBuilder.toString();
     }
 
     /**
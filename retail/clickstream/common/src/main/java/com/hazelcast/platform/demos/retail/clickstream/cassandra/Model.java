@@ -16,8 +16,9 @@
 
 package com.hazelcast.platform.demos.retail.clickstream.cassandra;
 
+import org.springframework.data.cassandra.core.cql.PrimaryKeyType;
 import org.springframework.data.cassandra.core.mapping.Column;
-import org.springframework.data.cassandra.core.mapping.PrimaryKey;
+import org.springframework.data.cassandra.core.mapping.PrimaryKeyColumn;
 import org.springframework.data.cassandra.core.mapping.Table;
 
 import com.hazelcast.platform.demos.retail.clickstream.MyConstants;
@@ -26,13 +27,21 @@ import lombok.Data;
 
 /**
  * <p>Java representation of a table in Cassandra</p>
+ * <p>A model is stored as one or more rows in the same partition,
+ * "{@code chunk}" being the position of this part and "{@code chunks}"
+ * the number of parts, so no cell holds an entire large model.
+ * </p>
  */
 @Data
 @Table(value = MyConstants.CASSANDRA_TABLE_NAME_MODEL)
 public class Model {
 
-    @PrimaryKey
+    @PrimaryKeyColumn(ordinal = 0, type = PrimaryKeyType.PARTITIONED)
     private String id;
+    @PrimaryKeyColumn(ordinal = 1, type = PrimaryKeyType.CLUSTERED)
+    private int chunk;
+    @Column
+    private int chunks;
     @Column
     private String payload;
 
@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2008-2022, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.platform.demos.retail.clickstream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * <p>Junit 5
+ * </p>
+ */
+@Slf4j
+public class LatencyHistogramTest {
+
+    @Test
+    public void testEmpty(TestInfo testInfo) {
+        LatencyHistogram latencyHistogram = new LatencyHistogram();
+        log.info("{} :: buckets=='{}'", testInfo.getDisplayName(), latencyHistogram.bucketsToJson());
+
+        assertEquals(0L, latencyHistogram.getTotalCount());
+        assertEquals(0L, latencyHistogram.valueAtPercentile(99.0d));
+        assertEquals(0.0d, latencyHistogram.getMean());
+        assertEquals("[]", latencyHistogram.bucketsToJson());
+    }
+
+    @Test
+    public void testSmallValuesExact(TestInfo testInfo) {
+        LatencyHistogram latencyHistogram = new LatencyHistogram();
+        for (long i = 1; i <= 100; i++) {
+            latencyHistogram.record(i);
+        }
+        latencyHistogram.record(-1L);
+        log.info("{} :: p50=={}, p99=={}", testInfo.getDisplayName(),
+                latencyHistogram.valueAtPercentile(50.0d), latencyHistogram.valueAtPercentile(99.0d));
+
+        assertEquals(100L, latencyHistogram.getTotalCount());
+        assertEquals(50L, latencyHistogram.valueAtPercentile(50.0d));
+        assertEquals(90L, latencyHistogram.valueAtPercentile(90.0d));
+        assertEquals(99L, latencyHistogram.valueAtPercentile(99.0d));
+        assertEquals(100L, latencyHistogram.valueAtPercentile(100.0d));
+        assertEquals(100L, latencyHistogram.getMax());
+        assertEquals(50.5d, latencyHistogram.getMean());
+    }
+
+    @Test
+    public void testLargeValuesWithinPrecision(TestInfo testInfo) {
+        for (long value = 128L; value < 10_000_000L; value = value * 3 + 1) {
+            long reported = LatencyHistogram.highestEquivalentValue(LatencyHistogram.bucketIndex(value));
+            log.info("{} :: value=={}, reported=={}", testInfo.getDisplayName(), value, reported);
+
+            assertTrue(reported >= value);
+            assertTrue(reported - value <= value / 64);
+        }
+    }
+
+    @Test
+    public void testBucketsContiguous(TestInfo testInfo) {
+        int previous = LatencyHistogram.bucketIndex(0L);
+        for (long value = 1L; value < 100_000L; value++) {
+            int index = LatencyHistogram.bucketIndex(value);
+            assertTrue(index == previous || index == previous + 1, "value " + value);
+            previous = index;
+        }
+        log.info("{} :: last index=={}", testInfo.getDisplayName(), previous);
+    }
+
+    @Test
+    public void testAddIsSameAsRecordingAll(TestInfo testInfo) {
+        LatencyHistogram all = new LatencyHistogram();
+        LatencyHistogram low = new LatencyHistogram();
+        LatencyHistogram high = new LatencyHistogram();
+        for (long i = 0; i < 1_000; i++) {
+            all.record(i * i);
+            if (i < 500) {
+                low.record(i * i);
+            } else {
+                high.record(i * i);
+            }
+        }
+        LatencyHistogram merged = new LatencyHistogram(low);
+        merged.add(high);
+        log.info("{} :: p999=={}", testInfo.getDisplayName(), merged.valueAtPercentile(99.9d));
+
+        assertEquals(all.bucketsToJson(), merged.bucketsToJson());
+        assertEquals(all.valueAtPercentile(99.9d), merged.valueAtPercentile(99.9d));
+        assertEquals(all.getMax(), merged.getMax());
+        assertEquals(500L, low.getTotalCount());
+    }
+
+}
@@ -0,0 +1,246 @@
+/*
+ * Copyright (c) 2008-2022, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.platform.demos.retail.clickstream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * <p>Junit 5, with a fake Carbon receiver on a local socket.
+ * </p>
+ */
+@Slf4j
+public class MyGraphiteSinkTest {
+    private static final long NOW = 1_650_000_000L;
+    private static final int TIMEOUT_SECONDS = 10;
+
+    private ServerSocket serverSocket;
+    private BlockingQueue<String> received;
+    private Thread acceptor;
+
+    @BeforeEach
+    public void beforeEach() throws IOException {
+        this.serverSocket = new ServerSocket(0);
+        this.received = new LinkedBlockingQueue<>();
+        this.acceptor = new Thread(this::acceptPlaintext);
+        this.acceptor.setDaemon(true);
+        this.acceptor.start();
+    }
+
+    @AfterEach
+    public void afterEach() throws IOException {
+        this.serverSocket.close();
+    }
+
+    private void acceptPlaintext() {
+        try {
+            while (!this.serverSocket.isClosed()) {
+                try (Socket socket = this.serverSocket.accept();
+                        BufferedReader bufferedReader =
+                                new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));) {
+                    String line = bufferedReader.readLine();
+                    while (line != null) {
+                        this.received.add(line);
+                        line = bufferedReader.readLine();
+                    }
+                }
+            }
+        } catch (IOException e) {
+            log.trace("acceptPlaintext()", e);
+        }
+    }
+
+    private String host() {
+        return "localhost:" + this.serverSocket.getLocalPort();
+    }
+
+    @Test
+    public void testPlaintextFlushOnSize(TestInfo testInfo) throws Exception {
+        // Interval too long to trigger, so only size flushes
+        try (MyGraphiteSink myGraphiteSink =
+                new MyGraphiteSink(this.host(), MyGraphiteSink.Protocol.PLAINTEXT, 2, TimeUnit.HOURS.toMillis(1))) {
+            myGraphiteSink.add("a.b", 1.5f, NOW);
+            myGraphiteSink.add("c.d", 2.0f, NOW + 1);
+
+            String first = this.received.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            String second = this.received.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            log.info("{} :: '{}' '{}'", testInfo.getDisplayName(), first, second);
+
+            assertEquals("a.b 1.5 " + NOW, first);
+            assertEquals("c.d 2.0 " + (NOW + 1), second);
+        }
+    }
+
+    @Test
+    public void testPlaintextFlushOnTime(TestInfo testInfo) throws Exception {
+        try (MyGraphiteSink myGraphiteSink =
+                new MyGraphiteSink(this.host(), MyGraphiteSink.Protocol.PLAINTEXT, 100, 50L)) {
+            myGraphiteSink.add("e.f", 3.25f, NOW);
+
+            String line = this.received.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            log.info("{} :: '{}'", testInfo.getDisplayName(), line);
+
+            assertEquals("e.f 3.25 " + NOW, line);
+        }
+    }
+
+    @Test
+    public void testCloseFlushes(TestInfo testInfo) throws Exception {
+        MyGraphiteSink myGraphiteSink =
+                new MyGraphiteSink(this.host(), MyGraphiteSink.Protocol.PLAINTEXT, 100, TimeUnit.HOURS.toMillis(1));
+        myGraphiteSink.add("g.h", 4.0f, NOW);
+        myGraphiteSink.close();
+
+        String line = this.received.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        log.info("{} :: '{}'", testInfo.getDisplayName(), line);
+
+        assertEquals("g.h 4.0 " + NOW, line);
+    }
+
+    @Test
+    public void testUnavailableThenReconnect(TestInfo testInfo) throws Exception {
+        int port = this.serverSocket.getLocalPort();
+        this.serverSocket.close();
+        this.acceptor.join();
+
+        try (MyGraphiteSink myGraphiteSink =
+                new MyGraphiteSink("localhost:" + port, MyGraphiteSink.Protocol.PLAINTEXT, 1, 50L)) {
+            // Dropped, receiver is down
+            myGraphiteSink.add("i.j", 5.0f, NOW);
+
+            this.serverSocket = new ServerSocket(port);
+            this.acceptor = new Thread(this::acceptPlaintext);
+            this.acceptor.setDaemon(true);
+            this.acceptor.start();
+
+            // Keep sending until backoff expires and it reconnects
+            String line = null;
+            for (int i = 0; i < TIMEOUT_SECONDS * 10 && !("k.l 6.0 " + NOW).equals(line); i++) {
+                myGraphiteSink.add("k.l", 6.0f, NOW);
+                line = this.received.poll(100L, TimeUnit.MILLISECONDS);
+            }
+            log.info("{} :: '{}'", testInfo.getDisplayName(), line);
+
+            assertEquals("k.l 6.0 " + NOW, line);
+        }
+    }
+
+    @Test
+    public void testFanOut(TestInfo testInfo) throws Exception {
+        try (ServerSocket serverSocket2 = new ServerSocket(0)) {
+            String hosts = this.host() + ", localhost:" + serverSocket2.getLocalPort();
+            try (MyGraphiteSink myGraphiteSink =
+                    new MyGraphiteSink(hosts, MyGraphiteSink.Protocol.PLAINTEXT, 1, 50L);
+                    Socket socket2 = this.acceptAfter(myGraphiteSink, serverSocket2);
+                    BufferedReader bufferedReader2 =
+                            new BufferedReader(new InputStreamReader(socket2.getInputStream(), StandardCharsets.UTF_8));) {
+                String line = this.received.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                String line2 = bufferedReader2.readLine();
+                log.info("{} :: '{}' '{}'", testInfo.getDisplayName(), line, line2);
+
+                assertEquals("m.n 7.0 " + NOW, line);
+                assertEquals("m.n 7.0 " + NOW, line2);
+            }
+        }
+    }
+
+    private Socket acceptAfter(MyGraphiteSink myGraphiteSink, ServerSocket serverSocket2) throws IOException {
+        myGraphiteSink.add("m.n", 7.0f, NOW);
+        serverSocket2.setSoTimeout((int) TimeUnit.SECONDS.toMillis(TIMEOUT_SECONDS));
+        return serverSocket2.accept();
+    }
+
+    @Test
+    public void testPickleEncoding(TestInfo testInfo) {
+        byte[] bytes = MyGraphiteSink.encodePickle(List.of(new MyGraphiteSink.Metric("a", 1.0d, 2L)));
+        log.info("{} :: length=={}", testInfo.getDisplayName(), bytes.length);
+
+        // Protocol 2 for [('a', (2, 1.0))] with a big-endian length header. Not byte for byte
+        // what Python's pickle.dumps() gives, as that also memoizes, see testPickleUnpickles
+        byte[] expected = {
+            0, 0, 0, 28,
+            (byte) 0x80, 2, ']', '(',
+            'X', 1, 0, 0, 0, 'a',
+            'J', 2, 0, 0, 0,
+            'G', 0x3f, (byte) 0xf0, 0, 0, 0, 0, 0, 0,
+            (byte) 0x86, (byte) 0x86,
+            'e', '.',
+        };
+        assertArrayEquals(expected, bytes);
+    }
+
+    @Test
+    public void testPickleUnpickles(TestInfo testInfo) throws Exception {
+        byte[] bytes = MyGraphiteSink.encodePickle(List.of(
+                new MyGraphiteSink.Metric("a.b", 1.5d, NOW), new MyGraphiteSink.Metric("c", -2.0d, NOW + 1)));
+
+        String script = "import pickle, struct, sys\n"
+                + "data = sys.stdin.buffer.read()\n"
+                + "assert struct.unpack('>L', data[:4])[0] == len(data) - 4\n"
+                + "sys.stdout.write(repr(pickle.loads(data[4:])))\n";
+        Process process;
+        try {
+            process = new ProcessBuilder("python3", "-c", script).start();
+        } catch (IOException e) {
+            assumeTrue(false, "python3 not available");
+            return;
+        }
+        try (OutputStream outputStream = process.getOutputStream()) {
+            outputStream.write(bytes);
+        }
+        String stdout = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        String stderr = new String(process.getErrorStream().readAllBytes(), StandardCharsets.UTF_8);
+        assertTrue(process.waitFor(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        log.info("{} :: '{}'", testInfo.getDisplayName(), stdout);
+
+        assertEquals(0, process.exitValue(), stderr);
+        assertEquals("[('a.b', (" + NOW + ", 1.5)), ('c', (" + (NOW + 1) + ", -2.0))]", stdout);
+    }
+
+    @Test
+    public void testPlaintextEncoding(TestInfo testInfo) {
+        byte[] bytes = MyGraphiteSink.encodePlaintext(List.of(
+                new MyGraphiteSink.Metric("x.y", 0.5d, NOW), new MyGraphiteSink.Metric("x.z", 10.0d, NOW)));
+        String text = new String(bytes, StandardCharsets.UTF_8);
+        log.info("{} :: '{}'", testInfo.getDisplayName(), text);
+
+        assertTrue(text.endsWith("\n"));
+        assertEquals("x.y 0.5 " + NOW + "\nx.z 10.0 " + NOW + "\n", text);
+    }
+
+}
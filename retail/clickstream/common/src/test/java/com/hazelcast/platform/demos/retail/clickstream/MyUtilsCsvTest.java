@@ -17,7 +17,9 @@
 package com.hazelcast.platform.demos.retail.clickstream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.util.Arrays;
 
@@ -329,4 +331,37 @@ public class MyUtilsCsvTest {
         assertEquals(expected, output);
     }
 
+    @Test
+    public void testBitsMatchCsv(TestInfo testInfo) throws Exception {
+        String input = "basket_add_list,"
+                + "sort_by,"
+                + "saw_checkout,"
+                + "returning_user,"
+                + "ordered";
+        long bits = MyUtils.digitalTwinCsvToBits(input);
+        String output = MyUtils.digitalTwinToCsv(bits, true);
+        String expected = "0, 1, 0, 1, 0, 0, 0, 0, 0, 0, 0, 0, 0, 1, 0, 0, 0, 0, 0, 0, 0, 1, 0, 1";
+        log.info("{} :: input=='{}', output=='{}'", testInfo.getDisplayName(), input, output);
+
+        assertEquals(expected, output);
+        String arrPrint = Arrays.toString(MyUtils.digitalTwinCsvToBinary(null, input, true));
+        assertEquals(arrPrint.substring(1, arrPrint.length() - 1), output);
+        arrPrint = Arrays.toString(MyUtils.digitalTwinCsvToBinary(null, input, false));
+        assertEquals(arrPrint.substring(1, arrPrint.length() - 1), MyUtils.digitalTwinToCsv(bits, false));
+    }
+
+    @Test
+    public void testBitsMergeIsOr(TestInfo testInfo) throws Exception {
+        long bits = MyUtils.digitalTwinBit(CsvField.sort_by);
+        bits |= MyUtils.digitalTwinBit(CsvField.loc_uk);
+        bits |= MyUtils.digitalTwinBit(CsvField.sort_by);
+        log.info("{} :: output=='{}'", testInfo.getDisplayName(), Long.toBinaryString(bits));
+
+        assertEquals(2, Long.bitCount(bits));
+        assertTrue(MyUtils.digitalTwinHas(bits, CsvField.sort_by));
+        assertTrue(MyUtils.digitalTwinHas(bits, CsvField.loc_uk));
+        assertFalse(MyUtils.digitalTwinHas(bits, CsvField.ordered));
+        assertEquals(MyUtils.digitalTwinCsvToBits("loc_uk,sort_by"), bits);
+    }
+
 }
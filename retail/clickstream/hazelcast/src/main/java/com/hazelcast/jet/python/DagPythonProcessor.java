@@ -21,6 +21,8 @@ import java.io.File;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.Collections;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.CountDownLatch;
@@ -30,7 +32,12 @@ import java.util.Queue;
 
 import com.hazelcast.jet.JetException;
 import com.hazelcast.jet.core.AbstractProcessor;
+import com.hazelcast.jet.core.Inbox;
 import com.hazelcast.jet.core.ProcessorSupplier;
+import com.hazelcast.jet.core.Watermark;
+import com.hazelcast.jet.core.metrics.Metric;
+import com.hazelcast.jet.core.metrics.Metrics;
+import com.hazelcast.jet.core.metrics.Unit;
 import com.hazelcast.jet.grpc.impl.GrpcUtil;
 import com.hazelcast.jet.python.impl.grpc.InputMessage;
 import com.hazelcast.jet.python.impl.grpc.InputMessage.Builder;
@@ -58,14 +65,38 @@ import lombok.extern.slf4j.Slf4j;
  * as this would otherwise make a static reference to {@link PythonServiceContext}
  * not {@link DagPythonServiceContext}.
  * </p>
+ * <p>Items from the inbox are sent to Python in batches of up to
+ * {@link #MAX_BATCH_SIZE} per gRPC message, with up to {@link #MAX_IN_FLIGHT}
+ * batches awaiting a reply. Python replies in order with one output per input,
+ * so results are emitted in input order as replies arrive, without blocking.
+ * If the outbox is full, emission resumes on the next call, and no more is
+ * taken from the inbox until the in-flight batches clear.
+ * </p>
+ * <p>Metrics "{@code pythonInFlightBatches}", "{@code pythonInFlightItems}",
+ * "{@code pythonBatches}", "{@code pythonItems}", "{@code pythonLatencyLastMs}"
+ * and "{@code pythonLatencyTotalMs}" are available per processor, the last
+ * two being the round trip time for a batch.
+ * </p>
  */
 @Slf4j
 public class DagPythonProcessor extends AbstractProcessor {
     private static final int CREATE_CONTEXT_RETRY_COUNT = 2;
     private static final int CREATE_CONTEXT_RETRY_SLEEP_TIME_MILLIS = 10_000;
+    private static final int MAX_BATCH_SIZE = 256;
+    private static final int MAX_IN_FLIGHT = 4;
 
     private final CountDownLatch completionLatch = new CountDownLatch(1);
-    private final Queue<CompletableFuture<List<String>>> futureQueue = new ConcurrentLinkedQueue<>();
+    // Awaiting reply, in order sent. Shared with gRPC thread
+    private final Queue<InFlightBatch> futureQueue = new ConcurrentLinkedQueue<>();
+    // Awaiting reply or emission, in order sent. Processor thread only
+    private final ArrayDeque<InFlightBatch> inFlight = new ArrayDeque<>();
+    private int inFlightItems;
+    private Metric batchesMetric;
+    private Metric itemsMetric;
+    private Metric inFlightBatchesMetric;
+    private Metric inFlightItemsMetric;
+    private Metric latencyLastMetric;
+    private Metric latencyTotalMetric;
     private final ILogger iLogger;
     private final DagJetToPythonServer jetToPythonServer;
     private final ManagedChannel managedChannel;
@@ -172,29 +203,149 @@ public class DagPythonProcessor extends AbstractProcessor {
     }
 
     /**
-     * <p>Call Python</p>
+     * <p>Metrics must be created on the processor's thread.
+     * </p>
+     */
+    @Override
+    protected void init(Context context) throws Exception {
+        this.batchesMetric = Metrics.metric("pythonBatches");
+        this.itemsMetric = Metrics.metric("pythonItems");
+        this.inFlightBatchesMetric = Metrics.metric("pythonInFlightBatches");
+        this.inFlightItemsMetric = Metrics.metric("pythonInFlightItems");
+        this.latencyLastMetric = Metrics.metric("pythonLatencyLastMs", Unit.MS);
+        this.latencyTotalMetric = Metrics.metric("pythonLatencyTotalMs", Unit.MS);
+    }
+
+    /**
+     * <p>Call Python, emitting results first so capacity is freed.
+     * </p>
      */
     @Override
-    protected boolean tryProcess(int ordinal, Object item) {
+    public void process(int ordinal, Inbox inbox) {
         checkForServerError();
-        Builder requestBuilder = InputMessage.newBuilder();
-        requestBuilder.addInputValue(item.toString());
-        CompletableFuture<List<String>> future = new CompletableFuture<>();
-        futureQueue.add(future);
+        this.emitCompleted();
+        while (this.inFlight.size() < MAX_IN_FLIGHT && !inbox.isEmpty()) {
+            Builder requestBuilder = InputMessage.newBuilder();
+            while (requestBuilder.getInputValueCount() < MAX_BATCH_SIZE && !inbox.isEmpty()) {
+                requestBuilder.addInputValue(inbox.poll().toString());
+            }
+            this.send(requestBuilder);
+        }
+    }
+
+    /**
+     * <p>Register the batch for the reply before sending it.
+     * </p>
+     *
+     * @param requestBuilder Containing one or more items
+     */
+    private void send(Builder requestBuilder) {
+        InFlightBatch inFlightBatch = new InFlightBatch(requestBuilder.getInputValueCount());
+        this.futureQueue.add(inFlightBatch);
+        this.inFlight.add(inFlightBatch);
+        this.inFlightItems += inFlightBatch.size;
         this.streamObserver.onNext(requestBuilder.build());
+
+        this.batchesMetric.increment();
+        this.itemsMetric.increment(inFlightBatch.size);
+        this.updateInFlightMetrics();
+    }
+
+    /**
+     * <p>Emit results from batches that have replies, in the order the
+     * batches were sent, until one without a reply or the outbox is full.
+     * </p>
+     *
+     * @return {@code true} if nothing left to emit
+     */
+    private boolean emitCompleted() {
+        InFlightBatch inFlightBatch;
+        while ((inFlightBatch = this.inFlight.peek()) != null) {
+            if (inFlightBatch.results == null) {
+                if (!inFlightBatch.future.isDone()) {
+                    return false;
+                }
+                inFlightBatch.results = this.results(inFlightBatch);
+            }
+            while (inFlightBatch.emitted < inFlightBatch.results.size()) {
+                if (!super.tryEmit(inFlightBatch.results.get(inFlightBatch.emitted))) {
+                    return false;
+                }
+                inFlightBatch.emitted++;
+            }
+            this.inFlight.remove();
+            this.inFlightItems -= inFlightBatch.size;
+            this.updateInFlightMetrics();
+        }
+        return true;
+    }
+
+    /**
+     * <p>Unpack a completed reply, logging problems but continuing.
+     * </p>
+     *
+     * @param inFlightBatch With completed future
+     * @return Results to emit, possibly none
+     */
+    private List<String> results(InFlightBatch inFlightBatch) {
+        long latencyMs = TimeUnit.NANOSECONDS.toMillis(inFlightBatch.repliedNanos - inFlightBatch.sentNanos);
+        this.latencyLastMetric.set(latencyMs);
+        this.latencyTotalMetric.increment(latencyMs);
         try {
-            List<String> l = future.get();
-            if (l.size() == 1) {
-                String s = l.get(0);
-                super.tryEmit(s);
-            } else {
-                log.error("tryProcess({}, '{}') -> Python returned {} items", ordinal, item, l.size());
+            List<String> l = inFlightBatch.future.join();
+            if (l.size() != inFlightBatch.size) {
+                log.error("emitCompleted() -> Python returned {} items for {}", l.size(), inFlightBatch.size);
             }
+            return l;
         } catch (Exception e) {
-            String message = String.format("tryProcess(%d, '%s')", ordinal, item);
+            String message = String.format("emitCompleted() for batch of %d", inFlightBatch.size);
             log.error(message, e);
+            return Collections.emptyList();
         }
-        return true;
+    }
+
+    private void updateInFlightMetrics() {
+        this.inFlightBatchesMetric.set(this.inFlight.size());
+        this.inFlightItemsMetric.set(this.inFlightItems);
+    }
+
+    /**
+     * <p>Called when the inbox is empty, so results still flow.
+     * </p>
+     */
+    @Override
+    public boolean tryProcess() {
+        checkForServerError();
+        return this.emitCompleted();
+    }
+
+    /**
+     * <p>Don't let a watermark overtake items in flight.
+     * </p>
+     */
+    @Override
+    public boolean tryProcessWatermark(Watermark watermark) {
+        return this.emitCompleted() && super.tryProcessWatermark(watermark);
+    }
+
+    /**
+     * <p>Nothing is saved, so have nothing in flight.
+     * </p>
+     */
+    @Override
+    public boolean saveToSnapshot() {
+        checkForServerError();
+        return this.emitCompleted();
+    }
+
+    /**
+     * <p>For batch input, finish when all replies emitted.
+     * </p>
+     */
+    @Override
+    public boolean complete() {
+        checkForServerError();
+        return this.emitCompleted();
     }
 
     private void checkForServerError() {
@@ -231,7 +382,9 @@ public class DagPythonProcessor extends AbstractProcessor {
         @Override
         public void onNext(OutputMessage outputItem) {
             try {
-                futureQueue.remove().complete(outputItem.getOutputValueList());
+                InFlightBatch inFlightBatch = futureQueue.remove();
+                inFlightBatch.repliedNanos = System.nanoTime();
+                inFlightBatch.future.complete(outputItem.getOutputValueList());
             } catch (Throwable e) {
                 log.error("onNext()", e);
                 exceptionInOutputObserver = e;
@@ -245,9 +398,10 @@ public class DagPythonProcessor extends AbstractProcessor {
                 e = GrpcUtil.translateGrpcException(e);
 
                 exceptionInOutputObserver = e;
-                CompletableFuture<List<String>> future;
-                while ((future = futureQueue.poll()) != null) {
-                    future.completeExceptionally(e);
+                InFlightBatch inFlightBatch;
+                while ((inFlightBatch = futureQueue.poll()) != null) {
+                    inFlightBatch.repliedNanos = System.nanoTime();
+                    inFlightBatch.future.completeExceptionally(e);
                 }
             } finally {
                 completionLatch.countDown();
@@ -256,11 +410,30 @@ public class DagPythonProcessor extends AbstractProcessor {
 
         @Override
         public void onCompleted() {
-            CompletableFuture<List<String>> future;
-            while ((future = futureQueue.poll()) != null) {
-                future.completeExceptionally(new JetException("Completion signaled before the future was completed"));
+            InFlightBatch inFlightBatch;
+            while ((inFlightBatch = futureQueue.poll()) != null) {
+                inFlightBatch.repliedNanos = System.nanoTime();
+                inFlightBatch.future.completeExceptionally(
+                        new JetException("Completion signaled before the future was completed"));
             }
             completionLatch.countDown();
         }
     }
+
+    /**
+     * <p>One gRPC message's worth of input, and its reply when it comes.
+     * </p>
+     */
+    private static class InFlightBatch {
+        private final CompletableFuture<List<String>> future = new CompletableFuture<>();
+        private final long sentNanos = System.nanoTime();
+        private final int size;
+        private volatile long repliedNanos;
+        private List<String> results;
+        private int emitted;
+
+        InFlightBatch(int arg0) {
+            this.size = arg0;
+        }
+    }
 }
@@ -26,6 +26,8 @@ import com.hazelcast.config.ClasspathYamlConfig;
 import com.hazelcast.config.Config;
 import com.hazelcast.config.DiscoveryStrategyConfig;
 import com.hazelcast.config.EventJournalConfig;
+import com.hazelcast.config.IndexConfig;
+import com.hazelcast.config.IndexType;
 import com.hazelcast.config.MapConfig;
 import com.hazelcast.config.MapStoreConfig;
 import com.hazelcast.config.NetworkConfig;
@@ -258,9 +260,11 @@ public class ApplicationConfig {
         mapStoreConfig.setInitialLoadMode(MapStoreConfig.InitialLoadMode.EAGER);
         mapStoreConfig.setFactoryImplementation(myMapStoreFactory);
 
-        // Checkout is journalled
+        // Checkout is journalled, and range searched by time for retraining
         MapConfig checkoutMapConfig = new MapConfig(MyConstants.IMAP_NAME_CHECKOUT);
         checkoutMapConfig.setEventJournalConfig(eventJournalConfig);
+        checkoutMapConfig.addIndexConfig(
+                new IndexConfig(IndexType.SORTED, MyConstants.IMAP_CHECKOUT_INDEX_ATTRIBUTE));
 
         // Clickstream is journalled
         MapConfig clickstreamMapConfig = new MapConfig(MyConstants.IMAP_NAME_CLICKSTREAM);
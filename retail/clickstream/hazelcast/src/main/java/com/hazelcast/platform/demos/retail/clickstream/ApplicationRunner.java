@@ -48,7 +48,10 @@ import com.hazelcast.platform.demos.retail.clickstream.job.ModelProcessor;
 import com.hazelcast.platform.demos.retail.clickstream.job.ModelSupplier;
 import com.hazelcast.platform.demos.retail.clickstream.job.MyMergeProcessor;
 import com.hazelcast.platform.demos.retail.clickstream.job.PulsarIngest;
+import com.hazelcast.platform.demos.retail.clickstream.job.RandomForestJavaPredictionProcessor;
+import com.hazelcast.platform.demos.retail.clickstream.job.RandomForestModel;
 import com.hazelcast.platform.demos.retail.clickstream.job.RandomForestPrediction;
+import com.hazelcast.platform.demos.retail.clickstream.job.RandomForestPredictionProcessor;
 import com.hazelcast.platform.demos.retail.clickstream.job.RetrainingAssessmentListener;
 import com.hazelcast.platform.demos.retail.clickstream.job.RetrainingControl;
 import com.hazelcast.platform.demos.retail.clickstream.job.RetrainingLaunchListener;
@@ -156,6 +159,7 @@ public class ApplicationRunner {
         // Prediction on "blue"
         if (clusterName.equals(cluster1Name)) {
             this.launchRandomForestPredictionJob();
+            this.launchRandomForestJavaPredictionJob();
             this.launchSlackSQLJob();
             this.launchStatisticsAccuracyByOrderJob(clusterName, graphiteHost);
             this.launchStatisticsLatencyJob(clusterName, graphiteHost);
@@ -238,6 +242,29 @@ public class ApplicationRunner {
         this.launchDAGJob(dagRandomForestPrediction, jobConfigRandomForestPrediction);
     }
 
+    /**
+     * <p>ML evaluation using Random Forest mechanism, in Java, for comparison
+     */
+    private void launchRandomForestJavaPredictionJob() {
+        DAG dagRandomForestJavaPrediction = RandomForestPrediction.buildDAG(true);
+
+        JobConfig jobConfigRandomForestJavaPrediction = new JobConfig();
+        String jobNameRandomForestJavaPrediction = RandomForestPrediction.ALGORITHM_JAVA + "Prediction";
+        jobConfigRandomForestJavaPrediction.addClass(RandomForestPrediction.class);
+        jobConfigRandomForestJavaPrediction.addClass(DigitalTwinMetaSupplier.class);
+        jobConfigRandomForestJavaPrediction.addClass(DigitalTwinProcessor.class);
+        jobConfigRandomForestJavaPrediction.addClass(DigitalTwinSupplier.class);
+        jobConfigRandomForestJavaPrediction.addClass(ModelMetaSupplier.class);
+        jobConfigRandomForestJavaPrediction.addClass(ModelProcessor.class);
+        jobConfigRandomForestJavaPrediction.addClass(ModelSupplier.class);
+        jobConfigRandomForestJavaPrediction.addClass(RandomForestJavaPredictionProcessor.class);
+        jobConfigRandomForestJavaPrediction.addClass(RandomForestModel.class);
+        jobConfigRandomForestJavaPrediction.addClass(RandomForestPredictionProcessor.class);
+        jobConfigRandomForestJavaPrediction.setName(jobNameRandomForestJavaPrediction);
+
+        this.launchDAGJob(dagRandomForestJavaPrediction, jobConfigRandomForestJavaPrediction);
+    }
+
     /**
      * <p>SQL to/from Slack.
      * </p>
@@ -38,6 +38,7 @@ public class MapDefinitions {
         addMappingConfig(hazelcastInstance);
         addMappingDigitalTwin(hazelcastInstance);
         addMappingHeartbeat(hazelcastInstance);
+        addMappingLatencyHistogram(hazelcastInstance);
         addMappingModelSelection(hazelcastInstance);
         addMappingModelVault(hazelcastInstance);
         addMappingOrdered(hazelcastInstance);
@@ -137,6 +138,38 @@ public class MapDefinitions {
         addMapping(hazelcastInstance, mapping);
     }
 
+    private static void addMappingLatencyHistogram(HazelcastInstance hazelcastInstance) {
+        String mapping = "CREATE OR REPLACE MAPPING \""
+                + MyConstants.IMAP_NAME_LATENCY_HISTOGRAM
+                + "\" ("
+                + "  __key VARCHAR,"
+                + "    \"windowStart\" BIGINT,"
+                + "    \"windowEnd\" BIGINT,"
+                + "    \"publishCount\" BIGINT,"
+                + "    \"publishMean\" DOUBLE,"
+                + "    \"publishP50\" BIGINT,"
+                + "    \"publishP90\" BIGINT,"
+                + "    \"publishP99\" BIGINT,"
+                + "    \"publishP999\" BIGINT,"
+                + "    \"publishMax\" BIGINT,"
+                + "    \"ingestCount\" BIGINT,"
+                + "    \"ingestMean\" DOUBLE,"
+                + "    \"ingestP50\" BIGINT,"
+                + "    \"ingestP90\" BIGINT,"
+                + "    \"ingestP99\" BIGINT,"
+                + "    \"ingestP999\" BIGINT,"
+                + "    \"ingestMax\" BIGINT"
+                + ") "
+                + "TYPE IMap "
+                + " OPTIONS ( "
+                + " 'keyFormat' = 'java',"
+                + " 'keyJavaClass' = '" + String.class.getCanonicalName() + "',"
+                + " 'valueFormat' = 'json-flat',"
+                + " 'valueJavaClass' = '" + HazelcastJsonValue.class.getCanonicalName() + "'"
+                + " )";
+        addMapping(hazelcastInstance, mapping);
+    }
+
     private static void addMappingModelSelection(HazelcastInstance hazelcastInstance) {
         // IMap is <String, String>
         addMappingStringString(hazelcastInstance, MyConstants.IMAP_NAME_MODEL_SELECTION);
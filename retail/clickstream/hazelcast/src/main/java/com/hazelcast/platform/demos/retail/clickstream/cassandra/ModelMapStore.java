@@ -16,30 +16,79 @@
 
 package com.hazelcast.platform.demos.retail.clickstream.cassandra;
 
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.NoSuchElementException;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
 
+import org.springframework.data.cassandra.core.query.CassandraPageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.map.MapLoaderLifecycleSupport;
 import com.hazelcast.map.MapStore;
 import com.hazelcast.platform.demos.retail.clickstream.MyUtils;
 
 import lombok.extern.slf4j.Slf4j;
 
 /**
- * <p>Model storage, no pre-loading.
+ * <p>Saves trained models to Cassandra, and reloads them on start-up.
+ * </p>
+ * <p>A model can be large, so is split into rows of at most {@link #CHUNK_BYTES}
+ * bytes of UTF-8 in the same partition. Each row is a separate insert, so no
+ * single mutation holds the whole model. The first row has the number of rows
+ * so is written last, then any rows beyond that left from a larger earlier
+ * version are deleted. Several models are written in parallel. Reads fetch
+ * several models per query, and model names are paged so the table can grow.
+ * </p>
+ * <p>Rewriting a model is not atomic, a concurrent read may see a mix of
+ * old and new rows. Model names include their training time so are
+ * written once in practice.
  * </p>
  */
 @Slf4j
-public class ModelMapStore implements MapStore<String, String> {
+public class ModelMapStore implements MapStore<String, String>, MapLoaderLifecycleSupport {
+
+    static final int CHUNK_BYTES = 256 * 1024;
+    static final int KEY_PAGE_SIZE = 1_000;
+    static final int LOAD_BATCH_SIZE = 10;
+    private static final int STORE_PARALLELISM = 4;
 
     private final ModelRepository modelRepository;
+    private final ExecutorService executorService;
 
+    /**
+     * @param arg0 For reads and writes
+     * @param arg1 Cassandra address, for logging
+     */
     public ModelMapStore(ModelRepository arg0, String arg1) {
         this.modelRepository = arg0;
+        this.executorService = Executors.newFixedThreadPool(STORE_PARALLELISM, runnable -> {
+            Thread thread = new Thread(runnable, ModelMapStore.class.getSimpleName());
+            thread.setDaemon(true);
+            return thread;
+        });
         log.trace("ModelVaultMapStore({}) to {}", this.modelRepository, arg1);
     }
 
+    @Override
+    public void init(HazelcastInstance hazelcastInstance, Properties properties, String mapName) {
+        log.trace("init('{}')", mapName);
+    }
+
+    @Override
+    public void destroy() {
+        this.executorService.shutdown();
+    }
+
     /**
      * <p>Load one key. Should only be called on demand.
      * </p>
@@ -50,13 +99,7 @@ public class ModelMapStore implements MapStore<String, String> {
 
         String result = null;
         try {
-            Model model = this.modelRepository.findById(arg0).get();
-
-            if (model != null) {
-                result = model.getPayload();
-            }
-        } catch (NoSuchElementException nsse) {
-            // Not found is ok, shouldn't be an exception
+            result = assemble(this.modelRepository.findByIdIn(List.of(arg0))).get(arg0);
         } catch (Exception exception) {
             log.error("load('{}'), EXCEPTION({}): {}", arg0,
                     exception.getClass().getSimpleName(),
@@ -68,27 +111,44 @@ public class ModelMapStore implements MapStore<String, String> {
     }
 
     /**
-     * <p>Per-partition pre-loader helper, should not be called
-     * since pre-loading is deactivated.
+     * <p>Per-partition pre-loader helper, a few models per query.
      * </p>
      */
     @Override
     public Map<String, String> loadAll(Collection<String> arg0) {
-        int expectedSize = arg0.size();
-        log.error("loadAll({})", expectedSize);
-        return Collections.emptyMap();
+        log.debug("loadAll({})", arg0.size());
+        Map<String, String> result = new HashMap<>();
+        List<String> keys = new ArrayList<>(arg0);
+        for (int i = 0; i < keys.size(); i += LOAD_BATCH_SIZE) {
+            List<String> batch = keys.subList(i, Math.min(i + LOAD_BATCH_SIZE, keys.size()));
+            try {
+                result.putAll(assemble(this.modelRepository.findByIdIn(batch)));
+            } catch (Exception exception) {
+                log.error("loadAll({}), EXCEPTION({}): {}", batch,
+                        exception.getClass().getSimpleName(),
+                        exception.getMessage());
+            }
+        }
+        return result;
     }
 
     /**
-     * <p>Models are paged in on demand, not pre-loaded.
+     * <p>Model names, a page at a time, so all are pre-loaded on start-up.
      * </p>
      */
     @Override
     public Iterable<String> loadAllKeys() {
-        log.trace("loadAllKeys()");
-        return Collections.emptyList();
+        List<String> result = new ArrayList<>();
+        Pageable pageable = CassandraPageRequest.first(KEY_PAGE_SIZE);
+        Slice<Model> slice;
+        do {
+            slice = this.modelRepository.findDistinctIds(pageable);
+            slice.forEach(model -> result.add(model.getId()));
+            pageable = slice.nextPageable();
+        } while (slice.hasNext());
+        log.debug("loadAllKeys() -> {}", result.size());
+        return result;
     }
-
     /**
      * <p>Individual delete, deliberately not implemented, models
      * should not be deleted via the MapStore.
@@ -110,32 +170,122 @@ public class ModelMapStore implements MapStore<String, String> {
     }
 
     /**
-     * <p>Individual save.
+     * <p>Individual save, first row last as it has the row count, then
+     * remove any rows beyond the new count.
      * </p>
      */
     @Override
     public void store(String arg0, String arg1) {
         log.debug("store('{}')", arg0);
         try {
-            Model model = new Model();
-            model.setId(arg0);
-            model.setPayload(arg1);
-
-            this.modelRepository.save(model);
+            List<Model> rows = split(arg0, arg1);
+            for (int i = rows.size() - 1; i >= 0; i--) {
+                this.modelRepository.insert(rows.get(i));
+            }
+            this.modelRepository.deleteChunksFrom(arg0, rows.size());
         } catch (Exception exception) {
             log.error("store('{}'), EXCEPTION: {}", arg0, exception.getMessage());
         }
     }
 
     /**
-     * <p>Bulk store, not expected to be called for model store.
+     * <p>Bulk store, several models in parallel.
      * </p>
      */
     @Override
     public void storeAll(Map<String, String> arg0) {
-        int size = arg0.size();
-        log.error("storeAll({})", size);
-        arg0.entrySet().stream().forEach(entry -> this.store(entry.getKey(), entry.getValue()));
+        log.debug("storeAll({})", arg0.size());
+        CompletableFuture.allOf(
+                arg0.entrySet().stream()
+                .map(entry -> CompletableFuture.runAsync(() -> this.store(entry.getKey(), entry.getValue()),
+                        this.executorService))
+                .toArray(CompletableFuture[]::new))
+        .join();
+    }
+
+    /**
+     * <p>Split a model into rows by encoded size, each at most {@link #CHUNK_BYTES}
+     * bytes of UTF-8 and not breaking a character.
+     * </p>
+     *
+     * @param id Model name
+     * @param payload Model
+     * @return At least one row
+     */
+    static List<Model> split(String id, String payload) {
+        List<String> parts = new ArrayList<>();
+        int start = 0;
+        do {
+            int end = start;
+            int bytes = 0;
+            while (end < payload.length()) {
+                int codePoint = payload.codePointAt(end);
+                int width = utf8Bytes(codePoint);
+                if (bytes + width > CHUNK_BYTES) {
+                    break;
+                }
+                bytes += width;
+                end += Character.charCount(codePoint);
+            }
+            parts.add(payload.substring(start, end));
+            start = end;
+        } while (start < payload.length());
+
+        List<Model> result = new ArrayList<>();
+        for (int i = 0; i < parts.size(); i++) {
+            Model model = new Model();
+            model.setId(id);
+            model.setChunk(i);
+            model.setChunks(parts.size());
+            model.setPayload(parts.get(i));
+            result.add(model);
+        }
+        return result;
+    }
+
+    /**
+     * <p>Encoded length, an unpaired surrogate is written as one
+     * replacement byte "{@code ?}".
+     * </p>
+     */
+    @SuppressWarnings("checkstyle:magicnumber")
+    private static int utf8Bytes(int codePoint) {
+        if (codePoint < 0x80) {
+            return 1;
+        }
+        if (codePoint < 0x800) {
+            return 2;
+        }
+        if (Character.isSurrogate((char) codePoint)) {
+            return 1;
+        }
+        return codePoint < 0x10000 ? 3 : 4;
+    }
+
+    /**
+     * <p>Rejoin rows into models. The first row has the number of rows, so
+     * rows left from a larger earlier version are ignored. Incomplete
+     * models are skipped.
+     * </p>
+     *
+     * @param rows From one or more models
+     * @return Model name to model
+     */
+    static Map<String, String> assemble(List<Model> rows) {
+        Map<String, List<Model>> byId = rows.stream().collect(Collectors.groupingBy(Model::getId));
+        Map<String, String> result = new HashMap<>();
+        byId.forEach((id, models) -> {
+            models.sort(Comparator.comparingInt(Model::getChunk));
+            int chunks = models.get(0).getChunk() == 0 ? models.get(0).getChunks() : -1;
+            if (chunks < 1 || models.size() < chunks || models.get(chunks - 1).getChunk() != chunks - 1) {
+                log.warn("assemble(): '{}' incomplete, {} of {} chunks", id, models.size(), chunks);
+            } else {
+                StringBuilder stringBuilder = new StringBuilder();
+                models.subList(0, chunks).forEach(model -> stringBuilder.append(model.getPayload()));
+                result.put(id, stringBuilder.toString());
+            }
+        });
+        return result;
     }
 
 }
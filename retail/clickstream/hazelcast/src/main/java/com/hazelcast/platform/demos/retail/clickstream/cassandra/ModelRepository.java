@@ -16,15 +16,56 @@
 
 package com.hazelcast.platform.demos.retail.clickstream.cassandra;
 
+import java.util.Collection;
+import java.util.List;
+
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.data.cassandra.core.CassandraTemplate;
+import org.springframework.data.cassandra.core.mapping.MapId;
 import org.springframework.data.cassandra.repository.CassandraRepository;
+import org.springframework.data.cassandra.repository.Query;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Repository;
 
+import com.hazelcast.platform.demos.retail.clickstream.MyConstants;
+
 /**
  * <p>Spring Data accessor</p>
  */
 @Repository
 @ConditionalOnBean(CassandraTemplate.class)
-public interface ModelRepository extends CassandraRepository<Model, String> {
+public interface ModelRepository extends CassandraRepository<Model, MapId> {
+
+    /**
+     * <p>All chunks for the given models.
+     * </p>
+     *
+     * @param ids Model names
+     * @return Rows in any order
+     */
+    List<Model> findByIdIn(Collection<String> ids);
+
+    /**
+     * <p>Model names one page at a time, only "{@code id}" is populated.
+     * </p>
+     *
+     * @param pageable Use {@link org.springframework.data.cassandra.core.query.CassandraPageRequest}
+     * @return A page of names
+     */
+    @Query("SELECT DISTINCT id FROM " + MyConstants.CASSANDRA_TABLE_NAME_MODEL)
+    Slice<Model> findDistinctIds(Pageable pageable);
+
+    /**
+     * <p>Remove rows left from a larger earlier version of a model,
+     * one range tombstone rather than one per row.
+     * </p>
+     *
+     * @param id Model name
+     * @param chunk First chunk to delete
+     * @return Whether applied
+     */
+    @Query("DELETE FROM " + MyConstants.CASSANDRA_TABLE_NAME_MODEL + " WHERE id = ?0 AND chunk >= ?1")
+    boolean deleteChunksFrom(String id, int chunk);
+
 }
@@ -18,6 +18,7 @@ package com.hazelcast.platform.demos.retail.clickstream.job;
 
 import java.io.Serializable;
 import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.Map;
 import java.util.Map.Entry;
 
 import com.hazelcast.jet.aggregate.AggregateOperation;
@@ -62,6 +63,36 @@ public class AccuracyAggregator implements Serializable {
                 .andExportFinish(AccuracyAggregator::exportFinish);
     }
 
+    /**
+     * <p>As {@link #builAccuracyAggregation(String)} but from a record holding
+     * the predictions of all algorithms for a customer, so one aggregator per
+     * algorithm can be run on the same input.
+     * </p>
+     * @return
+     */
+    public static AggregateOperation1<Entry<String, Map<String, Integer>>,
+        AccuracyAggregator,
+        Entry<String, Float>> buildAccuracyByAlgorithmAggregation(String algorithm) {
+        return AggregateOperation
+                .withCreate(() -> new AccuracyAggregator(algorithm))
+                .andAccumulate((AccuracyAggregator accuracyAggregator, Entry<String, Map<String, Integer>> entry)
+                        -> accuracyAggregator.accumulateByAlgorithm(entry))
+                .andCombine(AccuracyAggregator::combine)
+                // Not an error, algorithm may not be running
+                .andExportFinish(accuracyAggregator ->
+                    accuracyAggregator.getCount() == 0 ? null : accuracyAggregator.exportFinish());
+    }
+
+    /**
+     * <p>Accumulate this algorithm's prediction, if it made one.
+     * </p>
+     */
+    public void accumulateByAlgorithm(Entry<String, Map<String, Integer>> entry) {
+        if (entry.getValue().containsKey(this.algorithm)) {
+            this.accumulate(new SimpleImmutableEntry<>(entry.getKey(), entry.getValue().get(this.algorithm)));
+        }
+    }
+
     /**
      * <p>Accumulate the accuracies.
      * </p>
@@ -29,6 +29,7 @@ import com.hazelcast.jet.pipeline.StreamStage;
 import com.hazelcast.platform.demos.retail.clickstream.ClickstreamKey;
 import com.hazelcast.platform.demos.retail.clickstream.CsvField;
 import com.hazelcast.platform.demos.retail.clickstream.MyConstants;
+import com.hazelcast.platform.demos.retail.clickstream.MyUtils;
 
 /**
  * <p>Takes the raw clickstream and routes event by type to one
@@ -74,20 +75,15 @@ public class ClickstreamHandler {
         .setName(CsvField.ordered.toString())
         .writeTo(Sinks.map(MyConstants.IMAP_NAME_ORDERED));
 
-        // Value is now a tuple of 2 * Timestamp and *concatenated* Action Text. Note: includes "ordered"
+        // Value is now a tuple of 2 * Timestamp and a bitset of Actions. Note: includes "ordered"
         reformatted
         .filter(tuple4 -> tuple4.f3() != CsvField.checkout)
         .map(tuple4 -> Tuple2.tuple2(tuple4.f0(),
-                Tuple3.tuple3(tuple4.f1(), tuple4.f2(), tuple4.f3().toString())))
+                Tuple3.tuple3(tuple4.f1(), tuple4.f2(), MyUtils.digitalTwinBit(tuple4.f3()))))
         .writeTo(Sinks.mapWithMerging(MyConstants.IMAP_NAME_DIGITAL_TWIN,
                 (oldValue, newValue) -> {
-                    // No field is substring of another. Ignore duplicates, we don't count how often each button is clicked.
-                    if (oldValue.f2().contains(newValue.f2())) {
-                        return Tuple3.tuple3(newValue.f0(), newValue.f1(), oldValue.f2());
-                    }
-                    // Timestamp from newest
-                    return Tuple3.tuple3(newValue.f0(), newValue.f1(),
-                            oldValue.f2() + "," + newValue.f2());
+                    // Timestamp from newest. Duplicates ignored, we don't count how often each button is clicked.
+                    return Tuple3.tuple3(newValue.f0(), newValue.f1(), oldValue.f2() | newValue.f2());
                 }));
 
         return pipeline;
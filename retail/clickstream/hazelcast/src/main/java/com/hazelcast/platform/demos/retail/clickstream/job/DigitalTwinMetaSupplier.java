@@ -29,9 +29,23 @@ import com.hazelcast.jet.core.ProcessorSupplier;
 public class DigitalTwinMetaSupplier implements ProcessorMetaSupplier {
     private static final long serialVersionUID = 1L;
 
+    private final boolean csv;
+
+    public DigitalTwinMetaSupplier() {
+        this(true);
+    }
+
+    /**
+     * @param arg0 CSV for Python, or the twin as a tuple for Java
+     */
+    public DigitalTwinMetaSupplier(boolean arg0) {
+        this.csv = arg0;
+    }
+
     @Override
     public Function<? super Address, ? extends ProcessorSupplier> get(List<Address> arg0) {
-        return __ -> new DigitalTwinSupplier();
+        boolean csvCopy = this.csv;
+        return __ -> new DigitalTwinSupplier(csvCopy);
     }
 
     @Override
@@ -16,11 +16,18 @@
 
 package com.hazelcast.platform.demos.retail.clickstream.job;
 
-import java.util.Arrays;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayDeque;
+import java.util.Map.Entry;
+import java.util.concurrent.CompletableFuture;
 
 import com.hazelcast.core.HazelcastInstance;
 import com.hazelcast.jet.core.AbstractProcessor;
+import com.hazelcast.jet.core.Inbox;
+import com.hazelcast.jet.core.metrics.Metric;
+import com.hazelcast.jet.core.metrics.Metrics;
 import com.hazelcast.jet.datamodel.Tuple3;
+import com.hazelcast.jet.datamodel.Tuple4;
 import com.hazelcast.map.IMap;
 import com.hazelcast.platform.demos.retail.clickstream.MyConstants;
 import com.hazelcast.platform.demos.retail.clickstream.MyUtils;
@@ -38,13 +45,54 @@ import lombok.extern.slf4j.Slf4j;
  * </p>
  * <p>Prefix "data", then key, publish time, ingest time, and observed actions.
  * </p>
+ * <p>Or, for scoring in Java, the same as a {@link Tuple4} with the actions
+ * left as a bitset, so there is nothing to format or parse.
+ * </p>
+ * <p>Lookups are asynchronous, so the cooperative thread is not stalled
+ * waiting on each. Keys are taken from the inbox and looked up together,
+ * up to {@link #MAX_PENDING} at once, and results are emitted in input
+ * order as they complete. The "{@code checkout}" and "{@code digital_twin}"
+ * maps have the same keys so the same partitioning, and the journal
+ * source reads the local partitions, so lookups are normally served on
+ * this member without a network hop.
+ * </p>
  */
 @Slf4j
 public class DigitalTwinProcessor extends AbstractProcessor {
-    private final IMap<String, Tuple3<Long, Long, String>> digitalTwinMap;
+    private static final int MAX_PENDING = 1024;
 
-    public DigitalTwinProcessor(HazelcastInstance hazelcastInstance) {
+    private final IMap<String, Tuple3<Long, Long, Long>> digitalTwinMap;
+    private final boolean csv;
+    private final ArrayDeque<Entry<String, CompletableFuture<Tuple3<Long, Long, Long>>>> pending =
+            new ArrayDeque<>();
+    private Metric pendingMetric;
+    private Metric missingMetric;
+
+    public DigitalTwinProcessor(HazelcastInstance hazelcastInstance, boolean arg1) {
         this.digitalTwinMap = hazelcastInstance.getMap(MyConstants.IMAP_NAME_DIGITAL_TWIN);
+        this.csv = arg1;
+    }
+
+    @Override
+    protected void init(Context context) throws Exception {
+        this.pendingMetric = Metrics.metric("digitalTwinPending");
+        this.missingMetric = Metrics.metric("digitalTwinMissing");
+    }
+
+    /**
+     * <p>Emit what has completed, then start lookups for as many keys
+     * from the inbox as there is room for.
+     * </p>
+     */
+    @Override
+    public void process(int ordinal, Inbox inbox) {
+        this.emitCompleted();
+        while (this.pending.size() < MAX_PENDING && !inbox.isEmpty()) {
+            String key = inbox.poll().toString();
+            this.pending.add(new SimpleImmutableEntry<>(key,
+                    this.digitalTwinMap.getAsync(key).toCompletableFuture()));
+        }
+        this.pendingMetric.set(this.pending.size());
     }
 
     /**
@@ -53,19 +101,59 @@ public class DigitalTwinProcessor extends AbstractProcessor {
      * to the "{@code digital_twin}" map, especially if checkout is the
      * only action. Log this but ignore it.
      * </p>
+     *
+     * @return {@code true} if nothing left pending
      */
-    @Override
-    protected boolean tryProcess(int ordinal, Object item) {
-        String key = item.toString();
-        Tuple3<Long, Long, String> value = this.digitalTwinMap.get(key);
-        if (value == null) {
-            log.trace("tryProcess({}, '{}') -> null", ordinal, item);
-            return true;
+    private boolean emitCompleted() {
+        Entry<String, CompletableFuture<Tuple3<Long, Long, Long>>> entry;
+        while ((entry = this.pending.peek()) != null) {
+            if (!entry.getValue().isDone()) {
+                return false;
+            }
+            String key = entry.getKey();
+            Tuple3<Long, Long, Long> value = entry.getValue().join();
+            if (value == null) {
+                log.trace("emitCompleted() -> '{}' null", key);
+                this.missingMetric.increment();
+            } else {
+                Object result;
+                if (this.csv) {
+                    result = "data," + key + "," + value.f0() + "," + value.f1() + ","
+                            + MyUtils.digitalTwinToCsv(value.f2(), false);
+                } else {
+                    result = Tuple4.tuple4(key, value.f0(), value.f1(), value.f2());
+                }
+                if (!super.tryEmit(result)) {
+                    return false;
+                }
+            }
+            this.pending.remove();
         }
-        String arrPrint =
-                Arrays.toString(MyUtils.digitalTwinCsvToBinary(null, value.f2(), false));
-        String result = "data," + key + "," + value.f0() + "," + value.f1() + "," + arrPrint.substring(1, arrPrint.length() - 1);
-        return super.tryEmit(result);
+        this.pendingMetric.set(0);
+        return true;
+    }
+
+    /**
+     * <p>Called when the inbox is empty, so results still flow.
+     * </p>
+     */
+    @Override
+    public boolean tryProcess() {
+        return this.emitCompleted();
+    }
+
+    /**
+     * <p>Nothing is saved, so have nothing pending.
+     * </p>
+     */
+    @Override
+    public boolean saveToSnapshot() {
+        return this.emitCompleted();
+    }
+
+    @Override
+    public boolean complete() {
+        return this.emitCompleted();
     }
 
 }
@@ -30,8 +30,13 @@ import com.hazelcast.jet.core.ProcessorSupplier;
 public class DigitalTwinSupplier implements ProcessorSupplier {
     private static final long serialVersionUID = 1L;
 
+    private final boolean csv;
     private transient HazelcastInstance hazelcastInstance;
 
+    public DigitalTwinSupplier(boolean arg0) {
+        this.csv = arg0;
+    }
+
     @Override
     public void init(Context context) {
         this.hazelcastInstance = context.hazelcastInstance();
@@ -41,7 +46,7 @@ public class DigitalTwinSupplier implements ProcessorSupplier {
     public Collection<? extends Processor> get(int arg0) {
         List<DigitalTwinProcessor> l = new ArrayList<>();
         for (int i = 0 ; i < arg0; i++) {
-            l.add(new DigitalTwinProcessor(this.hazelcastInstance));
+            l.add(new DigitalTwinProcessor(this.hazelcastInstance, this.csv));
         }
         return l;
     }
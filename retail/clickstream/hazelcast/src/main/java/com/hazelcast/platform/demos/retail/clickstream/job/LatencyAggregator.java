@@ -24,6 +24,7 @@ import com.hazelcast.jet.aggregate.AggregateOperation;
 import com.hazelcast.jet.aggregate.AggregateOperation1;
 import com.hazelcast.jet.datamodel.Tuple2;
 import com.hazelcast.jet.datamodel.Tuple3;
+import com.hazelcast.platform.demos.retail.clickstream.LatencyHistogram;
 
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
@@ -33,6 +34,8 @@ import lombok.extern.slf4j.Slf4j;
  * through to predicted, and from ingested from Pulsar through
  * to predicted.
  * </p>
+ * <p>Either as averages, or as histograms for percentiles.
+ * </p>
  */
 @Slf4j
 @Getter
@@ -43,6 +46,8 @@ public class LatencyAggregator implements Serializable {
     private long count;
     private long sumPublishDiff;
     private long sumIngestDiff;
+    private LatencyHistogram publishHistogram = new LatencyHistogram();
+    private LatencyHistogram ingestHistogram = new LatencyHistogram();
 
     /**
      * <p>Accumulate prediction and derive the average latencies.
@@ -60,6 +65,22 @@ public class LatencyAggregator implements Serializable {
                 .andExportFinish(LatencyAggregator::exportFinish);
     }
 
+    /**
+     * <p>Accumulate prediction and export the latency distributions.
+     * </p>
+     * @return
+     */
+    public static AggregateOperation1<Entry<String, Tuple3<Long, Long, Long>>,
+        LatencyAggregator,
+        Entry<String, Tuple2<LatencyHistogram, LatencyHistogram>>> buildLatencyHistogramAggregation() {
+        return AggregateOperation
+                .withCreate(() -> new LatencyAggregator())
+                .andAccumulate((LatencyAggregator latencyAggregator, Entry<String, Tuple3<Long, Long, Long>> entry)
+                        -> latencyAggregator.accumulate(entry))
+                .andCombine(LatencyAggregator::combine)
+                .andExportFinish(LatencyAggregator::exportFinishHistograms);
+    }
+
     /**
      * <p>Accumulate the latencies
      * </p>
@@ -78,6 +99,8 @@ public class LatencyAggregator implements Serializable {
         }
         this.sumIngestDiff = this.sumIngestDiff + ingestDiff;
         this.sumPublishDiff = this.sumPublishDiff + publishDiff;
+        this.publishHistogram.record(publishDiff);
+        this.ingestHistogram.record(ingestDiff);
     }
 
     /**
@@ -96,6 +119,8 @@ public class LatencyAggregator implements Serializable {
         this.count += that.getCount();
         this.sumIngestDiff += that.getSumIngestDiff();
         this.sumPublishDiff += that.getSumPublishDiff();
+        this.publishHistogram.add(that.getPublishHistogram());
+        this.ingestHistogram.add(that.getIngestHistogram());
     }
 
     /**
@@ -114,4 +139,19 @@ public class LatencyAggregator implements Serializable {
         return new SimpleImmutableEntry<>(this.algorithm, tuple2);
     }
 
+    /**
+     * <p>Copies of the histograms, as sliding windows reuse accumulators.
+     * </p>
+     */
+    public Entry<String, Tuple2<LatencyHistogram, LatencyHistogram>> exportFinishHistograms() {
+        if (this.algorithm == null || this.count == 0) {
+            log.error("exportFinishHistograms() this.algorithm=='{}', this.count=={}", this.algorithm, this.count);
+            return null;
+        }
+        Tuple2<LatencyHistogram, LatencyHistogram> tuple2 =
+                Tuple2.<LatencyHistogram, LatencyHistogram>tuple2(
+                        new LatencyHistogram(this.publishHistogram), new LatencyHistogram(this.ingestHistogram));
+        return new SimpleImmutableEntry<>(this.algorithm, tuple2);
+    }
+
 }
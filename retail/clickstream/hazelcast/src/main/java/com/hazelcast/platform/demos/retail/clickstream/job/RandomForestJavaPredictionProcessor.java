@@ -0,0 +1,191 @@
+/*
+ * Copyright (c) 2008-2022, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.platform.demos.retail.clickstream.job;
+
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.Map.Entry;
+
+import com.hazelcast.jet.core.AbstractProcessor;
+import com.hazelcast.jet.core.Inbox;
+import com.hazelcast.jet.core.metrics.Metric;
+import com.hazelcast.jet.core.metrics.Metrics;
+import com.hazelcast.jet.datamodel.Tuple4;
+import com.hazelcast.jet.datamodel.Tuple5;
+import com.hazelcast.platform.demos.retail.clickstream.MyConstants;
+import com.hazelcast.platform.demos.retail.clickstream.PredictionKey;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * <p>Scores digital twins with a {@link RandomForestModel} in this JVM,
+ * the alternative to passing them to Python.
+ * </p>
+ * <p>Input ordinal 0 is models, "{@code RandomForest-1630000123456.trees}"
+ * and the exported trees, broadcast to every instance. Input ordinal 1 is
+ * digital twins, as "{@code (key, publish, ingest, bitset)}".
+ * </p>
+ * <p>Twins are taken from the inbox up to {@link #MAX_BATCH_SIZE} at a
+ * time and scored together. Output is the same map entry as
+ * {@link RandomForestPredictionProcessor} produces from Python's output.
+ * Until the first model arrives twins are counted but not scored.
+ * </p>
+ */
+@Slf4j
+public class RandomForestJavaPredictionProcessor extends AbstractProcessor {
+    private static final int MAX_BATCH_SIZE = 256;
+
+    private final String algorithm;
+    private final String[] keys = new String[MAX_BATCH_SIZE];
+    private final long[] publishTimestamps = new long[MAX_BATCH_SIZE];
+    private final long[] ingestTimestamps = new long[MAX_BATCH_SIZE];
+    private final long[] bitsets = new long[MAX_BATCH_SIZE];
+    private final int[] predictions = new int[MAX_BATCH_SIZE];
+    private final Object[] outputs = new Object[MAX_BATCH_SIZE];
+    private int outputSize;
+    private int emitted;
+    private RandomForestModel randomForestModel;
+    private String version;
+    private Metric batchesMetric;
+    private Metric itemsMetric;
+    private Metric scoreNanosLastMetric;
+    private Metric scoreNanosTotalMetric;
+    private Metric unscoredMetric;
+
+    public RandomForestJavaPredictionProcessor(String arg0) {
+        this.algorithm = arg0;
+    }
+
+    @Override
+    protected void init(Context context) throws Exception {
+        this.batchesMetric = Metrics.metric("javaScoreBatches");
+        this.itemsMetric = Metrics.metric("javaScoreItems");
+        this.scoreNanosLastMetric = Metrics.metric("javaScoreNanosLast");
+        this.scoreNanosTotalMetric = Metrics.metric("javaScoreNanosTotal");
+        this.unscoredMetric = Metrics.metric("javaUnscored");
+    }
+
+    /**
+     * <p>Finish emitting the last batch before taking more input.
+     * </p>
+     */
+    @Override
+    public void process(int ordinal, Inbox inbox) {
+        if (!this.emitOutputs()) {
+            return;
+        }
+        if (ordinal == 0) {
+            while (!inbox.isEmpty()) {
+                this.updateModel(inbox.poll());
+            }
+        } else {
+            this.score(inbox);
+            this.emitOutputs();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void updateModel(Object item) {
+        Entry<String, String> entry = (Entry<String, String>) item;
+        String modelName = entry.getKey();
+        if (modelName.endsWith(MyConstants.MODEL_VAULT_SUFFIX_TREES)) {
+            modelName = modelName.substring(0, modelName.length() - MyConstants.MODEL_VAULT_SUFFIX_TREES.length());
+        }
+        try {
+            this.randomForestModel = new RandomForestModel(entry.getValue());
+            this.version = RandomForestPredictionProcessor.deriveVersion(modelName);
+            log.debug("updateModel('{}') -> {}", modelName, this.randomForestModel);
+        } catch (Exception e) {
+            log.error("updateModel('" + modelName + "')", e);
+        }
+    }
+
+    /**
+     * <p>Score a batch from the inbox, forming the output entries.
+     * </p>
+     */
+    @SuppressWarnings("unchecked")
+    private void score(Inbox inbox) {
+        if (this.randomForestModel == null) {
+            this.unscoredMetric.increment(inbox.size());
+            inbox.clear();
+            return;
+        }
+        int size = 0;
+        while (size < MAX_BATCH_SIZE && !inbox.isEmpty()) {
+            Tuple4<String, Long, Long, Long> twin = (Tuple4<String, Long, Long, Long>) inbox.poll();
+            this.keys[size] = twin.f0();
+            this.publishTimestamps[size] = twin.f1();
+            this.ingestTimestamps[size] = twin.f2();
+            this.bitsets[size] = twin.f3();
+            size++;
+        }
+
+        long before = System.nanoTime();
+        this.randomForestModel.predict(this.bitsets, size, this.predictions);
+        long elapsed = System.nanoTime() - before;
+        this.batchesMetric.increment();
+        this.itemsMetric.increment(size);
+        this.scoreNanosLastMetric.set(elapsed);
+        this.scoreNanosTotalMetric.increment(elapsed);
+
+        Long predictionTimestamp = System.currentTimeMillis();
+        for (int i = 0; i < size; i++) {
+            PredictionKey predictionKey = new PredictionKey();
+            predictionKey.setAlgorithm(this.algorithm);
+            predictionKey.setKey(this.keys[i]);
+
+            Tuple5<String, Long, Long, Long, Integer> predictionValue
+                = Tuple5.<String, Long, Long, Long, Integer>tuple5(this.version,
+                        this.publishTimestamps[i], this.ingestTimestamps[i], predictionTimestamp, this.predictions[i]);
+
+            this.outputs[i] = new SimpleImmutableEntry<>(predictionKey, predictionValue);
+        }
+        this.outputSize = size;
+        this.emitted = 0;
+    }
+
+    /**
+     * @return {@code true} if all of the last batch has been emitted
+     */
+    private boolean emitOutputs() {
+        while (this.emitted < this.outputSize) {
+            if (!super.tryEmit(this.outputs[this.emitted])) {
+                return false;
+            }
+            this.outputs[this.emitted] = null;
+            this.emitted++;
+        }
+        this.outputSize = 0;
+        this.emitted = 0;
+        return true;
+    }
+
+    /**
+     * <p>Called when the inbox is empty, so output still flows.
+     * </p>
+     */
+    @Override
+    public boolean tryProcess() {
+        return this.emitOutputs();
+    }
+
+    @Override
+    public boolean saveToSnapshot() {
+        return this.emitOutputs();
+    }
+
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2008-2022, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.platform.demos.retail.clickstream.job;
+
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ * <p>A Random Forest in the plain text format written by
+ * "{@code randomforest_export.py}", scored in Java.
+ * </p>
+ * <p>Each tree is held as parallel arrays, one element per node, so
+ * walking a tree is array lookups. Features are the bits of the digital
+ * twin, feature 0 being bit 1, as "{@link com.hazelcast.platform.demos.retail.clickstream.MyUtils#digitalTwinToCsv}"
+ * would give to Python.
+ * </p>
+ * <p>A batch of twins is scored one tree at a time, so each tree's
+ * arrays stay in cache while every twin in the batch walks it. The
+ * prediction is the class with the highest average probability over
+ * all trees, the first if tied, as sklearn does.
+ * </p>
+ */
+public class RandomForestModel {
+    private static final int LEAF = -1;
+
+    private final int[] labels;
+    private final int[][] features;
+    private final double[][] thresholds;
+    private final int[][] lefts;
+    private final int[][] rights;
+    private final double[][] probabilities;
+
+    /**
+     * <p>Parse the exported text.
+     * </p>
+     *
+     * @param exported From "{@code randomforest_export.py}"
+     * @throws IllegalArgumentException If not the expected format
+     */
+    public RandomForestModel(String exported) {
+        Iterator<String> tokens = Arrays.asList(exported.trim().split("\\s+")).iterator();
+        expect(tokens, "classes");
+        int classes = nextInt(tokens);
+        this.labels = new int[classes];
+        for (int i = 0; i < classes; i++) {
+            this.labels[i] = nextInt(tokens);
+        }
+        expect(tokens, "trees");
+        int trees = nextInt(tokens);
+        this.features = new int[trees][];
+        this.thresholds = new double[trees][];
+        this.lefts = new int[trees][];
+        this.rights = new int[trees][];
+        this.probabilities = new double[trees][];
+        for (int tree = 0; tree < trees; tree++) {
+            this.parseTree(tokens, tree);
+        }
+        if (tokens.hasNext()) {
+            throw new IllegalArgumentException("Unexpected '" + tokens.next() + "' after last tree");
+        }
+    }
+
+    private void parseTree(Iterator<String> tokens, int tree) {
+        int classes = this.labels.length;
+        expect(tokens, "tree");
+        int nodes = nextInt(tokens);
+        this.features[tree] = new int[nodes];
+        this.thresholds[tree] = new double[nodes];
+        this.lefts[tree] = new int[nodes];
+        this.rights[tree] = new int[nodes];
+        this.probabilities[tree] = new double[nodes * classes];
+        for (int node = 0; node < nodes; node++) {
+            this.features[tree][node] = nextInt(tokens);
+            this.thresholds[tree][node] = Double.parseDouble(next(tokens));
+            this.lefts[tree][node] = nextInt(tokens);
+            this.rights[tree][node] = nextInt(tokens);
+            for (int c = 0; c < classes; c++) {
+                this.probabilities[tree][node * classes + c] = Double.parseDouble(next(tokens));
+            }
+        }
+    }
+
+    private static String next(Iterator<String> tokens) {
+        if (!tokens.hasNext()) {
+            throw new IllegalArgumentException("Unexpected end");
+        }
+        return tokens.next();
+    }
+
+    private static int nextInt(Iterator<String> tokens) {
+        return Integer.parseInt(next(tokens));
+    }
+
+    private static void expect(Iterator<String> tokens, String expected) {
+        String token = next(tokens);
+        if (!token.equals(expected)) {
+            throw new IllegalArgumentException("Expected '" + expected + "' not '" + token + "'");
+        }
+    }
+
+    public int getTreeCount() {
+        return this.features.length;
+    }
+
+    /**
+     * <p>Score a batch.
+     * </p>
+     *
+     * @param bitsets Digital twins
+     * @param size How many of the array to use
+     * @param predictions Output, class label for each twin
+     */
+    public void predict(long[] bitsets, int size, int[] predictions) {
+        int classes = this.labels.length;
+        double[] totals = new double[size * classes];
+        for (int tree = 0; tree < this.features.length; tree++) {
+            int[] feature = this.features[tree];
+            double[] threshold = this.thresholds[tree];
+            int[] left = this.lefts[tree];
+            int[] right = this.rights[tree];
+            double[] probability = this.probabilities[tree];
+            for (int i = 0; i < size; i++) {
+                long bitset = bitsets[i];
+                int node = 0;
+                while (left[node] != LEAF) {
+                    long value = (bitset >>> (feature[node] + 1)) & 1L;
+                    node = value <= threshold[node] ? left[node] : right[node];
+                }
+                for (int c = 0; c < classes; c++) {
+                    totals[i * classes + c] += probability[node * classes + c];
+                }
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            int best = 0;
+            for (int c = 1; c < classes; c++) {
+                if (totals[i * classes + c] > totals[i * classes + best]) {
+                    best = c;
+                }
+            }
+            predictions[i] = this.labels[best];
+        }
+    }
+
+    /**
+     * <p>Score one, for convenience.
+     * </p>
+     *
+     * @param bitset Digital twin
+     * @return Class label
+     */
+    public int predict(long bitset) {
+        int[] prediction = new int[1];
+        this.predict(new long[] { bitset }, 1, prediction);
+        return prediction[0];
+    }
+
+    @Override
+    public String toString() {
+        return "RandomForestModel [labels=" + Arrays.toString(this.labels) + ", trees=" + this.features.length + "]";
+    }
+
+}
@@ -45,11 +45,17 @@ import lombok.extern.slf4j.Slf4j;
  * <p>Include a timestamp in the output, so can measure end-to-end
  * latency
  * </p>
+ * <p>Alternatively, score in this JVM with {@link RandomForestModel}
+ * using the model as exported by retraining, saving predictions as
+ * algorithm "{@code RandomForestJava}" so latency and accuracy can be
+ * compared with Python.
+ * </p>
  */
 @Slf4j
 public class RandomForestPrediction {
     private static final String ALGORITHM =
             RandomForestPrediction.class.getSimpleName().replaceFirst("Prediction", "");
+    public static final String ALGORITHM_JAVA = ALGORITHM + "Java";
     private static final String PYTHON_MODULE = "randomforest_predict";
     private static final String PYTHON_HANDLER_FN = "predict";
     private static final int SIDE_OUTPUT = 1;
@@ -64,23 +70,40 @@ public class RandomForestPrediction {
      * </p>
      */
     public static DAG buildDAG() {
+        return buildDAG(false);
+    }
+
+    /**
+     * <p>Prediction in Python, or Java.
+     * </p>
+     *
+     * @param inJvm Use Java instead of Python
+     * @return
+     */
+    public static DAG buildDAG(boolean inJvm) {
         DAG dag = new DAG();
 
         try {
             // Build the left input leg, model, returns the last stage
-            Vertex inputLeftCsv = buildLeftInput(dag);
+            Vertex inputLeft = buildLeftInput(dag, inJvm);
 
             // Build the right input leg, data, returns the last stage
-            Vertex inputRightCsv = buildInputRight(dag);
+            Vertex inputRight = buildInputRight(dag, inJvm);
 
-            // Interleave left left, model, with right leg, data
-            Vertex myMerge = buildMerge(dag, inputLeftCsv, inputRightCsv);
+            Vertex outputFormatted;
+            if (inJvm) {
+                // Model and data into Java, as a map entry
+                outputFormatted = buildJavaOutput(dag, inputLeft, inputRight);
+            } else {
+                // Interleave left left, model, with right leg, data
+                Vertex myMerge = buildMerge(dag, inputLeft, inputRight);
 
-            // Pass merged model and data into Python
-            Vertex pythonOutput = buildPythonOutput(dag, myMerge);
+                // Pass merged model and data into Python
+                Vertex pythonOutput = buildPythonOutput(dag, myMerge);
 
-            // Turn into a map entry
-            Vertex outputFormatted = buildOutputFormatted(dag, pythonOutput);
+                // Turn into a map entry
+                outputFormatted = buildOutputFormatted(dag, pythonOutput);
+            }
 
             // And save
             Vertex mapSink = dag.newVertex(MyConstants.IMAP_NAME_PREDICTION + "!sink",
@@ -106,11 +129,14 @@ public class RandomForestPrediction {
      * </p>
      * <p>Prefix "data", then model name, then the model.
      * </p>
+     * <p>For Java, the exported model is used, and left as a map entry.
+     * </p>
      *
      * @param dag
+     * @param inJvm For Java not Python
      * @return
      */
-    private static Vertex buildLeftInput(DAG dag) {
+    private static Vertex buildLeftInput(DAG dag, boolean inJvm) {
         // A continuous stream, updating as new models are published, which is infrequent
         Vertex inputLeft = dag.newVertex(MyConstants.IMAP_NAME_MODEL_SELECTION + "!journal",
                 SourceProcessors.streamMapP(MyConstants.IMAP_NAME_MODEL_SELECTION,
@@ -122,22 +148,27 @@ public class RandomForestPrediction {
                 Processors.filterP((Entry<?, ?> entry) -> entry.getKey().toString().equals(ALGORITHM)));
 
         // Get the model key to lookup from Cassandra
+        String suffix = inJvm ? MyConstants.MODEL_VAULT_SUFFIX_TREES : "";
         Vertex inputLeftKey = dag.newVertex(MyConstants.IMAP_NAME_MODEL_SELECTION + "!key",
-                Processors.mapP(Functions.entryValue()));
+                Processors.mapP((Entry<?, ?> entry) -> entry.getValue() + suffix));
 
         // Get from map, via MapLoader
         Vertex inputLeftEntry = dag.newVertex(MyConstants.IMAP_NAME_MODEL_SELECTION + "!entry",
                 new ModelMetaSupplier());
 
+        dag.edge(Edge.between(inputLeft, inputLeftFilter));
+        dag.edge(Edge.between(inputLeftFilter, inputLeftKey));
+        dag.edge(Edge.between(inputLeftKey, inputLeftEntry));
+        if (inJvm) {
+            return inputLeftEntry;
+        }
+
         // Prepare CSV input for Python
         Vertex inputLeftCsv = dag.newVertex(MyConstants.IMAP_NAME_MODEL_SELECTION + "!csv",
                 Processors.mapP((Entry<String, String> entry) -> {
                     return "model," + entry.getKey() + "," + entry.getValue();
                 }));
 
-        dag.edge(Edge.between(inputLeft, inputLeftFilter));
-        dag.edge(Edge.between(inputLeftFilter, inputLeftKey));
-        dag.edge(Edge.between(inputLeftKey, inputLeftEntry));
         dag.edge(Edge.between(inputLeftEntry, inputLeftCsv));
 
         return inputLeftCsv;
@@ -152,11 +183,14 @@ public class RandomForestPrediction {
      * </p>
      * <p>Prefix "data", then key, publish time, ingest time, and observed actions.
      * </p>
+     * <p>For Java, the same fields as a tuple, actions still a bitset.
+     * </p>
      *
      * @param dag
+     * @param inJvm For Java not Python
      * @return
      */
-    private static Vertex buildInputRight(DAG dag) {
+    private static Vertex buildInputRight(DAG dag, boolean inJvm) {
         // A continuous stream, when the customer goes to the checkout is the trigger to prediction
         Vertex inputRight = dag.newVertex(MyConstants.IMAP_NAME_CHECKOUT + "!journal",
                 SourceProcessors.streamMapP(MyConstants.IMAP_NAME_CHECKOUT,
@@ -167,9 +201,9 @@ public class RandomForestPrediction {
         Vertex inputRightKey = dag.newVertex(MyConstants.IMAP_NAME_CHECKOUT + "!key",
                 Processors.mapP(Functions.entryKey()));
 
-        // Get from map, as CSV
-        Vertex inputRightCsv = dag.newVertex(MyConstants.IMAP_NAME_DIGITAL_TWIN + "!csv",
-                new DigitalTwinMetaSupplier());
+        // Get from map, as CSV for Python
+        Vertex inputRightCsv = dag.newVertex(MyConstants.IMAP_NAME_DIGITAL_TWIN + (inJvm ? "!tuple" : "!csv"),
+                new DigitalTwinMetaSupplier(!inJvm));
 
         dag.edge(Edge.between(inputRight, inputRightKey));
         dag.edge(Edge.between(inputRightKey, inputRightCsv));
@@ -216,6 +250,25 @@ public class RandomForestPrediction {
         return pythonOutput;
     }
 
+    /**
+     * <p>Score in Java. Models are broadcast to all, as for Python.
+     * </p>
+     *
+     * @param dag
+     * @param inputLeftModel
+     * @param inputRightTwin
+     * @return
+     */
+    private static Vertex buildJavaOutput(DAG dag, Vertex inputLeftModel, Vertex inputRightTwin) {
+        Vertex javaOutput = dag.newVertex(RandomForestJavaPredictionProcessor.class.getSimpleName(),
+                () -> new RandomForestJavaPredictionProcessor(ALGORITHM_JAVA));
+
+        dag.edge(Edge.from(inputLeftModel, 0).to(javaOutput, 0).broadcast().distributed());
+        dag.edge(Edge.from(inputRightTwin, 0).to(javaOutput, 1));
+
+        return javaOutput;
+    }
+
     /**
      * <p>Reformat Python's output string to a map entry. Do this as
      * a separate stage so could log.
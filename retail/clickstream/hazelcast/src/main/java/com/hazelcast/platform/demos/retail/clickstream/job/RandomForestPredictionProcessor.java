@@ -16,10 +16,11 @@
 
 package com.hazelcast.platform.demos.retail.clickstream.job;
 
-import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
 import java.util.AbstractMap.SimpleImmutableEntry;
 import java.util.Arrays;
-import java.util.Date;
 import java.util.List;
 import java.util.Map.Entry;
 
@@ -48,9 +49,12 @@ public class RandomForestPredictionProcessor extends AbstractProcessor {
     private static final int THIRD_INGEST_TIMESTAMP = 2;
     private static final int FOURTH_MODEL_VERSION = 3;
     private static final int FIFTH_PREDICTION = 4;
+    private static final DateTimeFormatter ISO8601 =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss").withZone(ZoneId.systemDefault());
 
     private final String algorithm;
-    private final SimpleDateFormat iso8601 = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss");
+    private String lastVersionInput;
+    private String lastVersionOutput;
 
     public RandomForestPredictionProcessor(String arg0) {
         this.algorithm = arg0;
@@ -77,7 +81,13 @@ public class RandomForestPredictionProcessor extends AbstractProcessor {
         Long predictionTimestamp = System.currentTimeMillis();
         String version = "?";
         try {
-            version = this.deriveVersion(tokenList.get(FOURTH_MODEL_VERSION));
+            String versionInput = tokenList.get(FOURTH_MODEL_VERSION);
+            // Changes only when the model does
+            if (!versionInput.equals(this.lastVersionInput)) {
+                this.lastVersionOutput = deriveVersion(versionInput);
+                this.lastVersionInput = versionInput;
+            }
+            version = this.lastVersionOutput;
         } catch (Exception e) {
             log.error("tryProcess(" + ordinal + ", '" + item + "') : derive version", e);
         }
@@ -107,7 +117,7 @@ public class RandomForestPredictionProcessor extends AbstractProcessor {
      * @param string One of two input formats
      * @return CCYY-MM-DDTHH:MM:SS
      */
-    private String deriveVersion(String version) {
+    static String deriveVersion(String version) {
         // Remove trailing "Z"
         if (version.endsWith("Z")) {
             version = version.substring(0, version.length() - 1);
@@ -115,8 +125,7 @@ public class RandomForestPredictionProcessor extends AbstractProcessor {
         String[] versionTokens = version.split("-");
         if (versionTokens.length == 2) {
             long timestamp = Long.parseLong(versionTokens[1]);
-            Date date = new Date(timestamp);
-            version = iso8601.format(date);
+            version = ISO8601.format(Instant.ofEpochMilli(timestamp));
         }
         return version;
     }
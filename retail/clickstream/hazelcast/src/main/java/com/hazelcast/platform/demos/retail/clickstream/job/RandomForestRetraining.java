@@ -16,7 +16,7 @@
 
 package com.hazelcast.platform.demos.retail.clickstream.job;
 
-import java.util.Arrays;
+import java.util.AbstractMap.SimpleImmutableEntry;
 import java.util.Map.Entry;
 
 import com.hazelcast.function.BiFunctionEx;
@@ -31,6 +31,9 @@ import com.hazelcast.jet.pipeline.Sources;
 import com.hazelcast.jet.python.PythonTransforms;
 import com.hazelcast.platform.demos.retail.clickstream.MyConstants;
 import com.hazelcast.platform.demos.retail.clickstream.MyUtils;
+import com.hazelcast.projection.Projections;
+import com.hazelcast.query.Predicate;
+import com.hazelcast.query.Predicates;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -38,6 +41,18 @@ import lombok.extern.slf4j.Slf4j;
  * <p>Pass a block of input to the training algorithm to produce
  * a model.
  * </p>
+ * <p>The block is found using the index on the checkout time, each member
+ * selecting from its own partitions. The digital twin has the same key so
+ * is on the same member. Training is spread across several Python
+ * workers per member, each producing a model from their share, and these
+ * models are merged into one by a single Python worker.
+ * </p>
+ * <p>The merged model is also exported as plain text trees, saved
+ * alongside with suffix {@link MyConstants#MODEL_VAULT_SUFFIX_TREES},
+ * so it can be scored in Java by {@link RandomForestModel}. The text is
+ * bigger than the pickle, so is size checked again by the export, and
+ * an over-size export is dropped leaving Java with its previous model.
+ * </p>
  * TODO: Difficult to stop RandomForest model exceeding 4MB, but
  * see https://github.com/hazelcast/hazelcast/issues/19503 and
  * model size threshold in Python code.
@@ -46,51 +61,77 @@ import lombok.extern.slf4j.Slf4j;
 public class RandomForestRetraining {
     private static final String PYTHON_MODULE = "randomforest_train";
     private static final String PYTHON_HANDLER_FN = "train_model";
+    private static final String PYTHON_MODULE_MERGE = "randomforest_merge";
+    private static final String PYTHON_HANDLER_FN_MERGE = "merge_models";
+    private static final String PYTHON_MODULE_EXPORT = "randomforest_export";
+    private static final String PYTHON_HANDLER_FN_EXPORT = "export_models";
+    private static final int PYTHON_TRAINERS_PER_MEMBER = 2;
 
     public static Pipeline buildPipeline(long start, long end, String modelName) {
         Pipeline pipeline = Pipeline.create();
 
         try {
-            BatchStage<Entry<String, Tuple3<Long, Long, String>>> input =
-                    pipeline
-                    .readFrom(Sources.<String, Tuple3<Long, Long, String>>map(
-                            MyConstants.IMAP_NAME_CHECKOUT));
+            Predicate<String, Tuple3<Long, Long, String>> inRange =
+                    Predicates.between(MyConstants.IMAP_CHECKOUT_INDEX_ATTRIBUTE, start, end);
 
             BatchStage<String> inputRange =
-                    input
-                    .filter(entry -> entry.getValue().f0() >= start && entry.getValue().f0() <= end)
-                    .map(Entry::getKey);
+                    pipeline
+                    .readFrom(Sources.<String, String, Tuple3<Long, Long, String>>map(
+                            MyConstants.IMAP_NAME_CHECKOUT,
+                            inRange,
+                            Projections.singleAttribute("__key")));
 
             // Convert words to 0 or 1 for actions. Training doesn't need the key but needs to know buy or not
             BatchStage<String> inputRangeReformatted =
                     inputRange
                     .mapUsingIMap(MyConstants.IMAP_NAME_DIGITAL_TWIN,
                             FunctionEx.identity(),
-                            RandomForestRetraining.formatDigitalTwin())
-                    .map(arr -> Arrays.toString(arr));
+                            RandomForestRetraining.formatDigitalTwin());
 
-            // Group all onto any one node, only run training once per cluster
-            BatchStage<String> inputRangeReformattedSingleton =
+            // Input looks like "[0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 1, 0, 0, 1, 0]"
+            // Spread evenly, identical rows are common so can't use as a key
+            BatchStage<String> pythonOutput =
                     inputRangeReformatted
+                    .rebalance()
+                    .apply(PythonTransforms.mapUsingPythonBatch(
+                            MyUtils.getPythonServiceConfig(PYTHON_MODULE, PYTHON_HANDLER_FN)))
+                                .setLocalParallelism(PYTHON_TRAINERS_PER_MEMBER)
+                                .setName(PYTHON_MODULE)
+                    .filter(line -> line.length() > 0);
+
+            // Group all onto any one node, only run merge once per cluster
+            BatchStage<String> pythonOutputSingleton =
+                    pythonOutput
                     .groupingKey(__ -> "")
                     .mapUsingService(ServiceFactories.sharedService(__ -> null),
                             (unusedService, unusedKey, value) -> value);
 
-            // Input looks like "[0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 1, 0, 0, 1, 0]"
-            BatchStage<String> pythonOutput =
-                    inputRangeReformattedSingleton
+            BatchStage<String> pythonMergeOutput =
+                    pythonOutputSingleton
                     .apply(PythonTransforms.mapUsingPythonBatch(
-                            MyUtils.getPythonServiceConfig(PYTHON_MODULE, PYTHON_HANDLER_FN)))
+                            MyUtils.getPythonServiceConfig(PYTHON_MODULE_MERGE, PYTHON_HANDLER_FN_MERGE)))
                                 .setLocalParallelism(1)
-                                .setName(PYTHON_MODULE)
+                                .setName(PYTHON_MODULE_MERGE)
                     .filter(line -> line.length() > 0);
 
             AggregateOperation1<String, ModelAggregator, Entry<String, String>>
                 modelAggregator = ModelAggregator.buildModelAggregation(modelName);
 
             // "Take latest" aggregation
-            pythonOutput
-            .aggregate(modelAggregator)
+            BatchStage<Entry<String, String>> model =
+                    pythonMergeOutput
+                    .aggregate(modelAggregator);
+
+            model.writeTo(Sinks.map(MyConstants.IMAP_NAME_MODEL_VAULT));
+
+            // Export the same model for Java
+            model
+            .map(entry -> entry.getKey() + "," + entry.getValue())
+            .apply(PythonTransforms.mapUsingPythonBatch(
+                    MyUtils.getPythonServiceConfig(PYTHON_MODULE_EXPORT, PYTHON_HANDLER_FN_EXPORT)))
+                        .setLocalParallelism(1)
+                        .setName(PYTHON_MODULE_EXPORT)
+            .map(RandomForestRetraining::exportedToEntry)
             .writeTo(Sinks.map(MyConstants.IMAP_NAME_MODEL_VAULT));
 
             //MyUtils.addExponentialLogger(pythonOutput, "pythonOutput", FIVE);
@@ -102,17 +143,33 @@ public class RandomForestRetraining {
         return pipeline;
     }
 
+    /**
+     * <p>Python's output is "{@code name,trees}" or "{@code failure,name,reason}".
+     * </p>
+     *
+     * @param line From "{@code randomforest_export.py}"
+     * @return Map entry, or null to drop failures
+     */
+    private static Entry<String, String> exportedToEntry(String line) {
+        String[] tokens = line.split(",", 2);
+        if (tokens.length != 2 || tokens[0].equals("failure")) {
+            log.error("exportedToEntry('{}')", MyUtils.truncateToString(line));
+            return null;
+        }
+        return new SimpleImmutableEntry<>(tokens[0] + MyConstants.MODEL_VAULT_SUFFIX_TREES, tokens[1]);
+    }
+
     /**
      * <p>Can't inline as a lambda as SpotBugs can't suppress correctly.
      * </p>
      */
     //@SuppressFBWarnings(value = "PZLA_PREFER_ZERO_LENGTH_ARRAYS", justification = "null drops from pipeline")
-    private static BiFunctionEx<String, Tuple3<Long, Long, String>, String[]> formatDigitalTwin() {
-        return (String key, Tuple3<Long, Long, String> digitalTwin) -> {
+    private static BiFunctionEx<String, Tuple3<Long, Long, Long>, String> formatDigitalTwin() {
+        return (String key, Tuple3<Long, Long, Long> digitalTwin) -> {
             if (digitalTwin == null) {
-                return MyUtils.digitalTwinCsvToBinary(null, "", true);
+                return "[" + MyUtils.digitalTwinToCsv(0L, true) + "]";
             }
-            return MyUtils.digitalTwinCsvToBinary(null, digitalTwin.f2(), true);
+            return "[" + MyUtils.digitalTwinToCsv(digitalTwin.f2(), true) + "]";
         };
     }
 
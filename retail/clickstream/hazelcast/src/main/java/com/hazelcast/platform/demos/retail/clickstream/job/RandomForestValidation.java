@@ -16,7 +16,6 @@
 
 package com.hazelcast.platform.demos.retail.clickstream.job;
 
-import java.util.Arrays;
 import java.util.Map.Entry;
 
 import com.hazelcast.jet.aggregate.AggregateOperation1;
@@ -95,14 +94,12 @@ public class RandomForestValidation {
             BatchStage<String> inputRightFormatted = inputRightRange
                     .mapUsingIMap(MyConstants.IMAP_NAME_DIGITAL_TWIN,
                             checkoutTrio -> checkoutTrio.f0(),
-                            (Tuple3<String, Long, Long> checkoutTrio, Tuple3<Long, Long, String> digitalTwin) -> {
+                            (Tuple3<String, Long, Long> checkoutTrio, Tuple3<Long, Long, Long> digitalTwin) -> {
                                 if (digitalTwin == null) {
                                     return null;
                                 }
-                                String arrPrint =
-                                        Arrays.toString(MyUtils.digitalTwinCsvToBinary(null, digitalTwin.f2(), false));
                                 return "data," + checkoutTrio.f0() + "," + checkoutTrio.f1() + ","
-                                                + checkoutTrio.f2() + "," + arrPrint.substring(1, arrPrint.length() - 1);
+                                                + checkoutTrio.f2() + "," + MyUtils.digitalTwinToCsv(digitalTwin.f2(), false);
                             });
 
             // Combine new model input and data input
@@ -16,21 +16,33 @@
 
 package com.hazelcast.platform.demos.retail.clickstream.job;
 
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 
 import com.hazelcast.jet.aggregate.AggregateOperation1;
+import com.hazelcast.jet.aggregate.AggregateOperations;
+import com.hazelcast.jet.aggregate.AllOfAggregationBuilder;
+import com.hazelcast.jet.datamodel.ItemsByTag;
+import com.hazelcast.jet.datamodel.Tag;
 import com.hazelcast.jet.datamodel.Tuple2;
 import com.hazelcast.jet.datamodel.Tuple3;
 import com.hazelcast.jet.datamodel.Tuple5;
 import com.hazelcast.jet.pipeline.JournalInitialPosition;
 import com.hazelcast.jet.pipeline.Pipeline;
+import com.hazelcast.jet.pipeline.ServiceFactories;
 import com.hazelcast.jet.pipeline.Sinks;
 import com.hazelcast.jet.pipeline.Sources;
 import com.hazelcast.jet.pipeline.StreamSourceStage;
 import com.hazelcast.jet.pipeline.StreamStage;
 import com.hazelcast.jet.pipeline.WindowDefinition;
+import com.hazelcast.map.IMap;
 import com.hazelcast.platform.demos.retail.clickstream.MyConstants;
 import com.hazelcast.platform.demos.retail.clickstream.MyUtils;
 import com.hazelcast.platform.demos.retail.clickstream.PredictionKey;
@@ -48,13 +60,18 @@ import lombok.extern.slf4j.Slf4j;
  * <p>But see also {@link RandomForestValidation} which does a different
  * variation of the calculation.
  * </p>
+ * <p>The prediction key is partitioned by customer, so the predictions
+ * of all algorithms for an order are in the same partition, and are
+ * fetched together with one "{@code getAll()}". The combined record
+ * is aggregated once for all algorithms.
+ * </p>
  * <p>TODO: Stats go to Graphite. Upgrading to Prometheus would be better.
  * More in line with Grafana 8 onwards.
  * </p>
  */
 @Slf4j
 public class StatisticsAccuracyByOrder {
-    private static final String[] ALGORITHMS = { "DecisionTree", "Gaussian", "RandomForest" };
+    private static final String[] ALGORITHMS = { "DecisionTree", "Gaussian", "RandomForest", "RandomForestJava" };
     private static final long ONE_MINUTE_IN_MS = 1 * 60 * 1_000L;
     private static final long FIVE = 5L;
 
@@ -74,23 +91,15 @@ public class StatisticsAccuracyByOrder {
                     input
                     .withIngestionTimestamps();
 
-            // 3 way repeat for the possible algorithms
-            for (String algorithm : ALGORITHMS) {
-                StreamStage<Tuple2<String, Integer>> inputReduced =
-                    inputTimestamped
-                    .mapUsingIMap(MyConstants.IMAP_NAME_PREDICTION,
-                        entry -> new PredictionKey(entry.getKey(), algorithm),
-                        (Entry<String, Tuple3<Long, Long, String>> entry,
-                                Tuple5<String, Long, Long, Long, Integer> predictionValue) -> {
-                                    if (predictionValue == null) {
-                                        return null;
-                                    }
-                                    return Tuple2.<String, Integer>tuple2(entry.getKey(), predictionValue.f4());
-                                }
-                                ).setName("prediction-" + algorithm);
-
-                StatisticsAccuracyByOrder.addAggregation(inputReduced, algorithm, graphiteHost);
-            }
+            // All algorithms at once, customers with no predictions are dropped
+            StreamStage<Entry<String, Map<String, Integer>>> inputReduced =
+                inputTimestamped
+                .mapUsingService(ServiceFactories.<PredictionKey, Tuple5<String, Long, Long, Long, Integer>>
+                    iMapService(MyConstants.IMAP_NAME_PREDICTION).toNonCooperative(),
+                    StatisticsAccuracyByOrder::getPredictions)
+                .setName("predictions");
+
+            StatisticsAccuracyByOrder.addAggregation(inputReduced, graphiteHost);
         } catch (Exception e) {
             log.error("buildPipeline()", e);
             return null;
@@ -99,51 +108,87 @@ public class StatisticsAccuracyByOrder {
         return pipeline;
     }
 
+    /**
+     * <p>Find the predictions for all algorithms.
+     * </p>
+     *
+     * @param predictionMap
+     * @param entry An order
+     * @return Customer and prediction by algorithm, or null if none
+     */
+    private static Entry<String, Map<String, Integer>> getPredictions(
+            IMap<PredictionKey, Tuple5<String, Long, Long, Long, Integer>> predictionMap,
+            Entry<String, Tuple3<Long, Long, String>> entry) {
+        Set<PredictionKey> keys = new HashSet<>();
+        for (String algorithm : ALGORITHMS) {
+            keys.add(new PredictionKey(entry.getKey(), algorithm));
+        }
+
+        Map<String, Integer> predictions = new HashMap<>();
+        predictionMap.getAll(keys).forEach((predictionKey, predictionValue)
+                -> predictions.put(predictionKey.getAlgorithm(), predictionValue.f4()));
+
+        if (predictions.isEmpty()) {
+            return null;
+        }
+        return new SimpleImmutableEntry<>(entry.getKey(), predictions);
+    }
+
     /**
      * <p>Split off standard coding to stop method size being too huge.
      * Aggregate by accuracy, format and send to Graphite for Grafana.
      * </p>
      *
      * @param inputReduced
-     * @param algorithm
      * @param graphiteHost
      */
-    private static void addAggregation(StreamStage<Tuple2<String, Integer>> inputReduced,
-            String algorithm, String graphiteHost) {
-
-        AggregateOperation1<
-            Entry<String, Integer>,
-            AccuracyAggregator,
-            Entry<String, Float>>
-                accuracyAggregator =
-                    AccuracyAggregator.builAccuracyAggregation(algorithm);
-
-        // Grouping key is constant, all keys counted together
-        StreamStage<Entry<String, Float>> aggregated
+    private static void addAggregation(StreamStage<Entry<String, Map<String, Integer>>> inputReduced,
+            String graphiteHost) {
+
+        AllOfAggregationBuilder<Entry<String, Map<String, Integer>>> allOfAggregationBuilder =
+                AggregateOperations.allOfBuilder();
+        List<Tag<Entry<String, Float>>> tags = new ArrayList<>();
+        for (String algorithm : ALGORITHMS) {
+            tags.add(allOfAggregationBuilder.add(AccuracyAggregator.buildAccuracyByAlgorithmAggregation(algorithm)));
+        }
+        AggregateOperation1<Entry<String, Map<String, Integer>>, ?, ItemsByTag>
+            accuracyAggregator = allOfAggregationBuilder.build();
+
+        // Grouping key is constant, all keys counted together. Algorithms with no predictions are dropped
+        StreamStage<List<Entry<String, Float>>> aggregated
             = inputReduced
             .groupingKey(__ -> "")
             .window(WindowDefinition.tumbling(ONE_MINUTE_IN_MS))
-            .aggregate(accuracyAggregator).setName("aggregate-" + algorithm)
-            .map(keyedWindowResult -> keyedWindowResult.getValue()).setName("getAccuracy-" + algorithm);
+            .aggregate(accuracyAggregator).setName("aggregate")
+            .map(keyedWindowResult -> {
+                List<Entry<String, Float>> accuracies = new ArrayList<>();
+                for (Tag<Entry<String, Float>> tag : tags) {
+                    Entry<String, Float> accuracy = keyedWindowResult.getValue().get(tag);
+                    if (accuracy != null) {
+                        accuracies.add(accuracy);
+                    }
+                }
+                return accuracies.isEmpty() ? null : accuracies;
+            }).setName("getAccuracy");
 
         if (graphiteHost.length() > 0) {
             // Key is algorithm
             StreamStage<List<Entry<String, Float>>> formattedStats = aggregated
-            .map(entry -> {
-                Tuple2<String, Float> accuracy =
-                        Tuple2.tuple2("ACCURACY." + entry.getKey().toUpperCase(Locale.ROOT),
-                                entry.getValue());
-                List<Entry<String, Float>> stats = List.of(accuracy);
+            .map(accuracies -> {
+                List<Entry<String, Float>> stats = new ArrayList<>();
+                for (Entry<String, Float> entry : accuracies) {
+                    stats.add(Tuple2.tuple2("ACCURACY." + entry.getKey().toUpperCase(Locale.ROOT),
+                                entry.getValue()));
+                }
                 return stats;
-             }).setName("accuracy-" + algorithm);
+             }).setName("accuracy");
 
             formattedStats.writeTo(MyUtils.buildGraphiteBatchSink(graphiteHost));
-            MyUtils.addExponentialLogger(formattedStats, "formattedStats-" + algorithm, FIVE);
+            MyUtils.addExponentialLogger(formattedStats, "formattedStats", FIVE);
         } else {
             log.warn("buildPipeline(), no graphite host, using Sinks.logger()");
-            aggregated.writeTo(Sinks.logger()).setName("logger-" + algorithm);
+            aggregated.writeTo(Sinks.logger()).setName("logger");
         }
     }
 
-
 }
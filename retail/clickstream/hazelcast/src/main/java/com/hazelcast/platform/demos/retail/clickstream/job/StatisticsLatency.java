@@ -17,13 +17,16 @@
 package com.hazelcast.platform.demos.retail.clickstream.job;
 
 import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map.Entry;
 
+import com.hazelcast.core.HazelcastJsonValue;
 import com.hazelcast.function.Functions;
 import com.hazelcast.function.ToLongFunctionEx;
 import com.hazelcast.jet.aggregate.AggregateOperation1;
+import com.hazelcast.jet.datamodel.KeyedWindowResult;
 import com.hazelcast.jet.datamodel.Tuple2;
 import com.hazelcast.jet.datamodel.Tuple3;
 import com.hazelcast.jet.datamodel.Tuple5;
@@ -34,6 +37,7 @@ import com.hazelcast.jet.pipeline.Sources;
 import com.hazelcast.jet.pipeline.StreamSourceStage;
 import com.hazelcast.jet.pipeline.StreamStage;
 import com.hazelcast.jet.pipeline.WindowDefinition;
+import com.hazelcast.platform.demos.retail.clickstream.LatencyHistogram;
 import com.hazelcast.platform.demos.retail.clickstream.MyConstants;
 import com.hazelcast.platform.demos.retail.clickstream.MyUtils;
 import com.hazelcast.platform.demos.retail.clickstream.PredictionKey;
@@ -43,6 +47,11 @@ import lombok.extern.slf4j.Slf4j;
 /**
  * <p>Produce statistics on the latency of predictions.
  * </p>
+ * <p>Latencies are collected as histograms, over a one minute window
+ * that advances every ten seconds. Percentiles as well as the average
+ * go to Graphite, and the latest histogram for each algorithm is saved
+ * as JSON to the "{@code latency_histogram}" map for closer inspection.
+ * </p>
  * <p>TODO: Stats go to Graphite. Upgrading to Prometheus would be better.
  * More in line with Grafana 8 onwards.
  * </p>
@@ -50,6 +59,9 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class StatisticsLatency {
     private static final long ONE_MINUTE_IN_MS = 1 * 60 * 1_000L;
+    private static final long TEN_SECONDS_IN_MS = 10 * 1_000L;
+    private static final double[] PERCENTILES = { 50.0d, 90.0d, 99.0d, 99.9d };
+    private static final String[] PERCENTILE_NAMES = { "P50", "P90", "P99", "P999" };
     private static final float THRESHOLD_1SEC_IN_MS = 1 * 1000.0F;
     private static final long FIVE = 5L;
 
@@ -79,40 +91,29 @@ public class StatisticsLatency {
                                     entry.getValue().f1(), entry.getValue().f2(), entry.getValue().f3())
                             ));
 
-            // Aggregate per minute, capturing latency from first two timestamps to third
+            // Aggregate per minute, sliding, capturing latency from first two timestamps to third
             AggregateOperation1<
                 Entry<String, Tuple3<Long, Long, Long>>,
                 LatencyAggregator,
-                Entry<String, Tuple2<Float, Float>>>
+                Entry<String, Tuple2<LatencyHistogram, LatencyHistogram>>>
                     latencyAggregator =
-                        LatencyAggregator.buildLatencyAggregation();
+                        LatencyAggregator.buildLatencyHistogramAggregation();
 
-            StreamStage<Entry<String, Tuple2<Float, Float>>> aggregated
-                = inputReduced
+            StreamStage<KeyedWindowResult<String, Entry<String, Tuple2<LatencyHistogram, LatencyHistogram>>>>
+                aggregated = inputReduced
                 .groupingKey(Functions.entryKey())
-                .window(WindowDefinition.tumbling(ONE_MINUTE_IN_MS))
+                .window(WindowDefinition.sliding(ONE_MINUTE_IN_MS, TEN_SECONDS_IN_MS))
                 .aggregate(latencyAggregator)
-                .map(keyedWindowResult -> keyedWindowResult.getValue());
+                .filter(keyedWindowResult -> keyedWindowResult.getValue() != null);
+
+            aggregated
+            .map(StatisticsLatency::histogramsToJson)
+            .writeTo(Sinks.map(MyConstants.IMAP_NAME_LATENCY_HISTOGRAM));
 
             if (graphiteHost.length() > 0) {
-                // Two outputs, key is algorithm
+                // Several outputs, key is algorithm
                 StreamStage<List<Entry<String, Float>>> formattedStats = aggregated
-                .map(entry -> {
-                    Tuple2<String, Float> publish =
-                            Tuple2.tuple2("LATENCY." + entry.getKey().toUpperCase(Locale.ROOT) + ".PUBLISH",
-                                    entry.getValue().f0());
-                    Tuple2<String, Float> ingest =
-                            Tuple2.tuple2("LATENCY." + entry.getKey().toUpperCase(Locale.ROOT) + ".INGEST",
-                                    entry.getValue().f1());
-                    // Latency huge until everything warmed up.
-                    if (publish.f1() > THRESHOLD_1SEC_IN_MS || ingest.f1() > THRESHOLD_1SEC_IN_MS) {
-                        log.warn("Ignore above threshold {}ms, stats pair {} {}", THRESHOLD_1SEC_IN_MS, publish, ingest);
-                        return null;
-                    } else {
-                        List<Entry<String, Float>> stats = List.of(publish, ingest);
-                        return stats;
-                    }
-                });
+                        .map(StatisticsLatency::graphiteStats);
 
                 formattedStats.writeTo(MyUtils.buildGraphiteBatchSink(graphiteHost));
                 MyUtils.addExponentialLogger(formattedStats, "formattedStats", FIVE);
@@ -129,4 +130,81 @@ public class StatisticsLatency {
         return pipeline;
     }
 
+    /**
+     * <p>Several outputs, key is algorithm
+     * </p>
+     *
+     * @param keyedWindowResult Histograms for a window and algorithm
+     * @return Name value pairs for Graphite, or null to skip
+     */
+    private static List<Entry<String, Float>> graphiteStats(
+            KeyedWindowResult<String, Entry<String, Tuple2<LatencyHistogram, LatencyHistogram>>> keyedWindowResult) {
+        String prefix = "LATENCY." + keyedWindowResult.getKey().toUpperCase(Locale.ROOT);
+        LatencyHistogram publish = keyedWindowResult.getValue().getValue().f0();
+        LatencyHistogram ingest = keyedWindowResult.getValue().getValue().f1();
+        // Latency huge until everything warmed up.
+        if (publish.getMean() > THRESHOLD_1SEC_IN_MS || ingest.getMean() > THRESHOLD_1SEC_IN_MS) {
+            log.warn("Ignore above threshold {}ms, averages {} {}", THRESHOLD_1SEC_IN_MS,
+                    publish.getMean(), ingest.getMean());
+            return null;
+        }
+        List<Entry<String, Float>> stats = new ArrayList<>();
+        stats.addAll(StatisticsLatency.formatStats(prefix + ".PUBLISH", publish));
+        stats.addAll(StatisticsLatency.formatStats(prefix + ".INGEST", ingest));
+        return stats;
+    }
+
+    /**
+     * <p>Average under the plain name, as before, then percentiles
+     * and maximum as sub-names.
+     * </p>
+     *
+     * @param name Eg. "{@code LATENCY.RANDOMFOREST.PUBLISH}"
+     * @param latencyHistogram For a window
+     * @return Name value pairs for Graphite
+     */
+    private static List<Entry<String, Float>> formatStats(String name, LatencyHistogram latencyHistogram) {
+        List<Entry<String, Float>> stats = new ArrayList<>();
+        stats.add(Tuple2.tuple2(name, (float) latencyHistogram.getMean()));
+        for (int i = 0; i < PERCENTILES.length; i++) {
+            stats.add(Tuple2.tuple2(name + "." + PERCENTILE_NAMES[i],
+                    (float) latencyHistogram.valueAtPercentile(PERCENTILES[i])));
+        }
+        stats.add(Tuple2.tuple2(name + ".MAX", (float) latencyHistogram.getMax()));
+        return stats;
+    }
+
+    /**
+     * <p>Flat JSON, so can be queried with SQL. The buckets are arrays
+     * so are not visible to SQL but available to a client.
+     * </p>
+     *
+     * @param keyedWindowResult Histograms for a window and algorithm
+     * @return Keyed by algorithm, only latest kept
+     */
+    private static Entry<String, HazelcastJsonValue> histogramsToJson(
+            KeyedWindowResult<String, Entry<String, Tuple2<LatencyHistogram, LatencyHistogram>>> keyedWindowResult) {
+        StringBuilder stringBuilder = new StringBuilder();
+        stringBuilder.append("{");
+        stringBuilder.append("  \"algorithm\" : \"" + keyedWindowResult.getKey() + "\"");
+        stringBuilder.append(", \"windowStart\" : " + keyedWindowResult.start());
+        stringBuilder.append(", \"windowEnd\" : " + keyedWindowResult.end());
+        histogramToJson(stringBuilder, "publish", keyedWindowResult.getValue().getValue().f0());
+        histogramToJson(stringBuilder, "ingest", keyedWindowResult.getValue().getValue().f1());
+        stringBuilder.append("}");
+        return new SimpleImmutableEntry<>(keyedWindowResult.getKey(), new HazelcastJsonValue(stringBuilder.toString()));
+    }
+
+    private static void histogramToJson(StringBuilder stringBuilder, String prefix, LatencyHistogram latencyHistogram) {
+        stringBuilder.append(", \"" + prefix + "Count\" : " + latencyHistogram.getTotalCount());
+        stringBuilder.append(", \"" + prefix + "Mean\" : "
+                + String.format(Locale.ROOT, "%.2f", latencyHistogram.getMean()));
+        for (int i = 0; i < PERCENTILES.length; i++) {
+            stringBuilder.append(", \"" + prefix + PERCENTILE_NAMES[i] + "\" : "
+                    + latencyHistogram.valueAtPercentile(PERCENTILES[i]));
+        }
+        stringBuilder.append(", \"" + prefix + "Max\" : " + latencyHistogram.getMax());
+        stringBuilder.append(", \"" + prefix + "Buckets\" : " + latencyHistogram.bucketsToJson());
+    }
+
 }
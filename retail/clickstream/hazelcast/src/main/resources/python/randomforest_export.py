@@ -0,0 +1,103 @@
+#
+# Copyright (c) 2008-2022, Hazelcast, Inc. All Rights Reserved.
+#
+# Licensed under the Apache License, Version 2.0 (the "License");
+# you may not use this file except in compliance with the License.
+# You may obtain a copy of the License at
+#
+# http://www.apache.org/licenses/LICENSE-2.0
+#
+# Unless required by applicable law or agreed to in writing, software
+# distributed under the License is distributed on an "AS IS" BASIS,
+# WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+# See the License for the specific language governing permissions and
+# limitations under the License.
+#
+########################################################################
+#
+# Random Forest export mechanism.
+#
+# ----------------------------------------------------------------------
+# Input:
+#  Expects a batch of lines, each of the format "name,model", the model
+# being Base64 encoded from "randomforest_merge.py".
+# ----------------------------------------------------------------------
+# Output:
+#  For each input, "name,trees" with the trees in a plain text format
+# that Java can score without Python, or "failure,name,reason".
+# ----------------------------------------------------------------------
+# Note:
+#  The text format is whitespace separated, so has no commas:
+#   "classes" then the number of classes and their labels,
+#   "trees" then the number of trees, then for each tree
+#   "tree" then the number of nodes, then for each node
+#   feature, threshold, left child, right child, and the probability of
+#   each class. Leaves have feature -2 and children -1, as in sklearn.
+#  A sample goes to the left child if its feature is <= threshold.
+#  Text is larger than the pickled model, so is checked against the same
+# size limit as "randomforest_merge.py" and fails rather than being sent.
+########################################################################
+import codecs
+import pickle
+
+def export_models(input_list):
+    result = []
+    for entry in input_list:
+        name, model = entry.split(",", 1)
+        try:
+            forest = pickle.loads(codecs.decode(model.encode(), "base64"))
+            output = name + "," + export(forest)
+            # 4MB, max https://github.com/hazelcast/hazelcast/issues/19503. Allow headroom from 4194304 for meta-data.
+            if len(output) < 4160000:
+                result.append(output)
+            else:
+                result.append("failure," + name + ",len==" + str(len(output)))
+        except Exception as e:
+            result.append("failure," + name + "," + str(e).replace(",", ";"))
+    return result
+
+
+def export(forest):
+    n_classes = len(forest.classes_)
+    labels = " ".join(str(int(label)) for label in forest.classes_)
+    lines = ["classes " + str(n_classes) + " " + labels, "trees " + str(len(forest.estimators_))]
+    for estimator in forest.estimators_:
+        tree = estimator.tree_
+        lines.append("tree " + str(tree.node_count))
+        for node in range(tree.node_count):
+            counts = tree.value[node][0]
+            total = sum(counts)
+            probabilities = [repr(float(count / total)) for count in counts]
+            lines.append(" ".join([str(tree.feature[node]), repr(float(tree.threshold[node])),
+                                   str(tree.children_left[node]), str(tree.children_right[node])]
+                                  + probabilities))
+    return "\n".join(lines)
+
+
+def predict(exported, features):
+    """Score as Java does, for parity testing"""
+    tokens = exported.split()
+    n_classes = int(tokens[1])
+    labels = [int(label) for label in tokens[2:2 + n_classes]]
+    n_trees = int(tokens[3 + n_classes])
+    position = 4 + n_classes
+    totals = [0.0] * n_classes
+    for _ in range(n_trees):
+        node_count = int(tokens[position + 1])
+        position += 2
+        width = 4 + n_classes
+        nodes = [tokens[position + i * width:position + (i + 1) * width] for i in range(node_count)]
+        position += node_count * width
+        node = 0
+        while int(nodes[node][0]) >= 0:
+            if features[int(nodes[node][0])] <= float(nodes[node][1]):
+                node = int(nodes[node][2])
+            else:
+                node = int(nodes[node][3])
+        for c in range(n_classes):
+            totals[c] += float(nodes[node][4 + c])
+    best = 0
+    for c in range(1, n_classes):
+        if totals[c] > totals[best]:
+            best = c
+    return labels[best]
@@ -0,0 +1,96 @@
+#
+# Copyright (c) 2008-2021, Hazelcast, Inc. All Rights Reserved.
+#
+# Licensed under the Apache License, Version 2.0 (the "License");
+# you may not use this file except in compliance with the License.
+# You may obtain a copy of the License at
+#
+# http://www.apache.org/licenses/LICENSE-2.0
+#
+# Unless required by applicable law or agreed to in writing, software
+# distributed under the License is distributed on an "AS IS" BASIS,
+# WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+# See the License for the specific language governing permissions and
+# limitations under the License.
+#
+########################################################################
+########################################################################
+#
+# Random Forest merge mechanism.
+#
+# ----------------------------------------------------------------------
+# Input:
+#  Expects a batch of lines from "randomforest_train.py", each of the format
+# "timestamp,model" or "failure,timestamp,reason"
+# ----------------------------------------------------------------------
+# Output:
+#  A timestamp and one model combining the latest model from each trainer
+# ----------------------------------------------------------------------
+# Note:
+#  Trees in a random forest are independent, so forests trained on
+# different shares of the input can be combined by pooling their trees.
+#  Each trainer gives a share of "max_estimators" trees, so the merged
+# model is no bigger than one trainer's.
+#  Failures are passed through. To give as many outputs as inputs, the
+# rest are dummy strings.
+########################################################################
+import codecs
+import copy
+import pickle
+from datetime import datetime
+
+max_estimators = 100
+latest_by_worker: dict = None
+
+def merge_models(input_list):
+    global latest_by_worker
+    if latest_by_worker is None:
+        latest_by_worker = {}
+
+    # Keep the model from each trainer that has seen the most input
+    result = []
+    for entry in input_list:
+        if entry.startswith("failure,"):
+            result.append(entry)
+        else:
+            model = entry.split(",", 1)[1]
+            tree = pickle.loads(codecs.decode(model.encode(), "base64"))
+            worker = getattr(tree, "worker_", "")
+            previous = latest_by_worker.get(worker)
+            if previous is None or getattr(previous, "samples_", 0) <= getattr(tree, "samples_", 0):
+                latest_by_worker[worker] = tree
+            result.append("")
+
+    if "" not in result:
+        return result
+
+    now = str(datetime.utcnow().timestamp())
+    now = now.split('.')[0] + now.split('.')[1][:3]
+    try:
+        merged = merge(list(latest_by_worker.values()))
+    except Exception as e:
+        result[result.index("")] = "failure," + now + ",diagnostic==" + str(e).replace(",", ";")
+        return result
+
+    model_dump = codecs.encode(pickle.dumps(merged), "base64").decode()
+    output = now + "," + model_dump
+    # 4MB, max https://github.com/hazelcast/hazelcast/issues/19503. Allow headroom from 4194304 for meta-data.
+    if len(output) < 4160000:
+        result[result.index("")] = output
+    else:
+        result[result.index("")] = "failure," + now + ",len==" + str(len(output))
+
+    return result
+
+
+def merge(trees):
+    # A trainer that only saw one outcome can't vote alongside the rest
+    n_classes = max(len(tree.classes_) for tree in trees)
+    trees = [tree for tree in trees if len(tree.classes_) == n_classes]
+
+    share = max(1, max_estimators // len(trees))
+    merged = copy.copy(trees[0])
+    merged.estimators_ = [estimator for tree in trees for estimator in tree.estimators_[:share]]
+    merged.n_estimators = len(merged.estimators_)
+    merged.samples_ = sum(tree.samples_ for tree in trees)
+    return merged
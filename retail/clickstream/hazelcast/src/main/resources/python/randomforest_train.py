@@ -29,10 +29,15 @@
 # Note:
 #  One model is produced. To give as many outputs as inputs, the
 # rest are dummy strings.
+#  Several of these may run, each on a share of the input. The model
+# is tagged with which, and how much input it has seen, so the models
+# can be combined by "randomforest_merge.py".
 ########################################################################
 import numpy as np
 import pandas as pd
 import codecs
+import os
+import socket
 from sklearn.model_selection  import train_test_split
 from sklearn.ensemble import RandomForestClassifier
 
@@ -40,6 +45,7 @@ import pickle
 from datetime import datetime
 
 features_and_label: list = None
+worker = socket.gethostname() + ":" + str(os.getpid())
 
 def train_model(input_list):
     global features_and_label
@@ -76,6 +82,8 @@ def train_model(input_list):
     try:
         tree = RandomForestClassifier()
         tree.fit(predictors, targets)
+        tree.worker_ = worker
+        tree.samples_ = len(features_and_label)
     except Exception as e:
         diagnostic = "Exception: RandomForestClassifier() for " + str(input_list)
         raise RuntimeError(diagnostic) from None
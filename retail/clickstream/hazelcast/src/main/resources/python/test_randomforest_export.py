@@ -0,0 +1,72 @@
+#
+# Copyright (c) 2008-2022, Hazelcast, Inc. All Rights Reserved.
+#
+# Licensed under the Apache License, Version 2.0 (the "License");
+# you may not use this file except in compliance with the License.
+# You may obtain a copy of the License at
+#
+# http://www.apache.org/licenses/LICENSE-2.0
+#
+# Unless required by applicable law or agreed to in writing, software
+# distributed under the License is distributed on an "AS IS" BASIS,
+# WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+# See the License for the specific language governing permissions and
+# limitations under the License.
+#
+########################################################################
+#
+# Manual way to test randomforest_export.py, checks the exported trees
+# predict the same as sklearn for random input, and writes a file of
+# the exported model and sklearn's predictions for the Java parity test.
+#
+# Optional argument, file to write, nothing is written if omitted.
+# RandomForestModelTest runs this itself if "-Dpython.sklearn=true".
+#
+########################################################################
+import codecs
+import pickle
+import random
+import sys
+import randomforest_export
+from sklearn.ensemble import RandomForestClassifier
+
+random.seed(1)
+features = 23
+rows = []
+labels = []
+for i in range(2000):
+    row = [random.randint(0, 1) for _ in range(features)]
+    rows.append(row)
+    # Outcome depends on a few features, with noise
+    labels.append(1 if (row[13] + row[10] + row[0] >= 2) != (random.random() < 0.1) else 0)
+
+forest = RandomForestClassifier(n_estimators=20, random_state=1)
+forest.fit(rows, labels)
+model = codecs.encode(pickle.dumps(forest), "base64").decode()
+
+result = randomforest_export.export_models(["RandomForest-123," + model])[0]
+name, exported = result.split(",", 1)
+print("TEST :NAME " + name + " :EXPORTED " + str(len(exported)) + " bytes")
+
+samples = [[random.randint(0, 1) for _ in range(features)] for _ in range(1000)]
+expected = forest.predict(samples)
+mismatches = 0
+for sample, prediction in zip(samples, expected):
+    if randomforest_export.predict(exported, sample) != prediction:
+        mismatches += 1
+print("TEST :SAMPLES " + str(len(samples)) + " :MISMATCHES " + str(mismatches))
+if mismatches > 0:
+    raise RuntimeError("Exported model differs from sklearn")
+
+# For RandomForestModelTest, one line per sample "bits,prediction" then the model
+if len(sys.argv) > 1:
+    parity_file = sys.argv[1]
+    with open(parity_file, "w") as parity:
+        for sample, prediction in zip(samples, expected):
+            bits = sum(value << (i + 1) for i, value in enumerate(sample))
+            parity.write(str(bits) + "," + str(prediction) + "\n")
+        parity.write(exported + "\n")
+    print("TEST :WROTE " + parity_file)
+
+failure = randomforest_export.export_models(["RandomForest-456,bad"])[0]
+print("TEST :FAILURE '" + failure + "'")
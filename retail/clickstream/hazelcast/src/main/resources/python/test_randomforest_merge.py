@@ -0,0 +1,66 @@
+#
+# Copyright (c) 2008-2021, Hazelcast, Inc. All Rights Reserved.
+#
+# Licensed under the Apache License, Version 2.0 (the "License");
+# you may not use this file except in compliance with the License.
+# You may obtain a copy of the License at
+#
+# http://www.apache.org/licenses/LICENSE-2.0
+#
+# Unless required by applicable law or agreed to in writing, software
+# distributed under the License is distributed on an "AS IS" BASIS,
+# WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+# See the License for the specific language governing permissions and
+# limitations under the License.
+#
+########################################################################
+#
+# Manual way to test randomforest_merge.py
+# 
+########################################################################
+import randomforest_merge
+import randomforest_train
+
+# 24 features, last is outcome
+item1 = '[0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 1, 0, 0, 0, 0, 0, 0, 0, 1, 0, 0, 0, 1, 0]'
+item2 = '[0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 1, 0, 0, 0, 0, 0, 0, 0, 1, 0, 0, 0, 1, 1]'
+item3 = '[1, 0, 0, 0, 0, 0, 0, 0, 0, 0, 1, 0, 0, 0, 0, 0, 0, 0, 1, 0, 0, 0, 1, 1]'
+
+# Train twice, second model has seen more input and replaces the first
+model1 = randomforest_train.train_model([item1, item2])[0]
+model2 = randomforest_train.train_model([item3])[0]
+# Pass through
+failure = 'failure,123,len==5000000'
+
+batch0 = []
+
+batch1 = []
+batch1.append(model1)
+
+batch2 = []
+batch2.append(failure)
+batch2.append(model2)
+
+batch3 = []
+batch3.append(failure)
+
+def testit(test, batch):
+    lenIn = len(batch)
+    print("TEST " + str(test) + ":INPUT SIZE " + str(lenIn))
+    results = randomforest_merge.merge_models(batch)
+    lenOut = len(results)
+    if lenIn != lenOut:
+        print("lenIn=" + str(lenIn))
+        print("lenOut=" + str(lenOut))
+        raise RuntimeError("Input/Output length mismatch")
+    print("TEST " + str(test) + ":OUTPUT SIZE " + str(lenOut))
+    for result in results:
+        l = len(str(result))
+        print("TEST " + str(test) + ":RANDOMFOREST: returned " + str(l) + " bytes, '" + str(result)[:20] + "'")
+    print("TEST " + str(test) + ":TRAINERS " + str(len(randomforest_merge.latest_by_worker)))
+
+# TESTS
+testit(0, batch0)
+testit(1, batch1)
+testit(2, batch2)
+testit(3, batch3)
@@ -0,0 +1,107 @@
+#
+# Copyright (c) 2008-2022, Hazelcast, Inc. All Rights Reserved.
+#
+# Licensed under the Apache License, Version 2.0 (the "License");
+# you may not use this file except in compliance with the License.
+# You may obtain a copy of the License at
+#
+# http://www.apache.org/licenses/LICENSE-2.0
+#
+# Unless required by applicable law or agreed to in writing, software
+# distributed under the License is distributed on an "AS IS" BASIS,
+# WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+# See the License for the specific language governing permissions and
+# limitations under the License.
+#
+########################################################################
+#
+# Manual way to test randomforest_export.py without sklearn. Builds a
+# random forest with the same attributes as sklearn's, exports it, and
+# writes a file of the exported model and the reference tree walker's
+# predictions for RandomForestModelTest. This is how the checked in
+# "randomforest_walker.txt" is made:
+#
+#   cd hazelcast/src/main/resources/python
+#   python3 test_randomforest_walker.py
+#
+# Optional argument, file to write, default the checked in test resource.
+# Also checks an export too big for gRPC fails rather than being sent.
+#
+########################################################################
+import codecs
+import os
+import pickle
+import random
+import sys
+import randomforest_export
+
+features = 23
+
+
+class Tree:
+    """The parts of sklearn's Tree that are exported"""
+    def __init__(self, depth):
+        self.feature = []
+        self.threshold = []
+        self.children_left = []
+        self.children_right = []
+        self.value = []
+        self.add(depth)
+        self.node_count = len(self.feature)
+
+    def add(self, depth):
+        node = len(self.feature)
+        self.feature.append(-2)
+        self.threshold.append(-2.0)
+        self.children_left.append(-1)
+        self.children_right.append(-1)
+        self.value.append([[random.randint(1, 50), random.randint(1, 50)]])
+        if depth > 0 and random.random() < 0.9:
+            self.feature[node] = random.randint(0, features - 1)
+            self.threshold[node] = 0.5
+            self.children_left[node] = self.add(depth - 1)
+            self.children_right[node] = self.add(depth - 1)
+        return node
+
+
+class Estimator:
+    def __init__(self, depth):
+        self.tree_ = Tree(depth)
+
+
+class Forest:
+    def __init__(self, trees, depth):
+        self.classes_ = [0, 1]
+        self.estimators_ = [Estimator(depth) for _ in range(trees)]
+
+
+def export(forest):
+    model = codecs.encode(pickle.dumps(forest), "base64").decode()
+    return randomforest_export.export_models(["RandomForest-123," + model])[0]
+
+
+random.seed(1)
+result = export(Forest(20, 8))
+name, exported = result.split(",", 1)
+print("TEST :NAME " + name + " :EXPORTED " + str(len(exported)) + " bytes")
+if name == "failure":
+    raise RuntimeError(exported)
+
+# For RandomForestModelTest, one line per sample "bits,prediction" then the model
+if len(sys.argv) > 1:
+    walker_file = sys.argv[1]
+else:
+    walker_file = os.path.join(os.path.dirname(os.path.abspath(__file__)),
+                               "..", "..", "..", "test", "resources", "randomforest_walker.txt")
+with open(walker_file, "w") as walker:
+    for _ in range(1000):
+        sample = [random.randint(0, 1) for _ in range(features)]
+        bits = sum(value << (i + 1) for i, value in enumerate(sample))
+        walker.write(str(bits) + "," + str(randomforest_export.predict(exported, sample)) + "\n")
+    walker.write(exported + "\n")
+print("TEST :WROTE " + walker_file)
+
+too_big = export(Forest(5, 18))
+print("TEST :TOO BIG '" + too_big[:60] + "'")
+if not too_big.startswith("failure,RandomForest-123,len=="):
+    raise RuntimeError("Export over 4MB was not rejected")
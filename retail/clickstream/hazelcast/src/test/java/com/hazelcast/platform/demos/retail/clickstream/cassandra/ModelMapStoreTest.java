@@ -0,0 +1,242 @@
+/*
+ * Copyright (c) 2008-2022, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.platform.demos.retail.clickstream.cassandra;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+import org.springframework.data.cassandra.core.query.CassandraPageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * <p>Junit 5, with an in-memory stand-in for the Cassandra table,
+ * id to chunk to row.
+ * </p>
+ */
+@Slf4j
+public class ModelMapStoreTest {
+
+    private TreeMap<String, TreeMap<Integer, Model>> table;
+    private List<Integer> inserted;
+    private AtomicInteger deletes;
+    private AtomicInteger queries;
+    private ModelMapStore modelMapStore;
+
+    @BeforeEach
+    public void beforeEach() {
+        this.table = new TreeMap<>();
+        this.inserted = new ArrayList<>();
+        this.deletes = new AtomicInteger();
+        this.queries = new AtomicInteger();
+        this.modelMapStore = new ModelMapStore(this.repository(), "test");
+    }
+
+    @AfterEach
+    public void afterEach() {
+        this.modelMapStore.destroy();
+    }
+
+    private ModelRepository repository() {
+        return (ModelRepository) Proxy.newProxyInstance(this.getClass().getClassLoader(),
+                new Class<?>[] { ModelRepository.class },
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                    case "findByIdIn":
+                        this.queries.incrementAndGet();
+                        return this.findByIdIn((Collection<?>) args[0]);
+                    case "findDistinctIds":
+                        this.queries.incrementAndGet();
+                        return this.findDistinctIds((Pageable) args[0]);
+                    case "insert":
+                        return this.insert((Model) args[0]);
+                    case "deleteChunksFrom":
+                        return this.deleteChunksFrom((String) args[0], (Integer) args[1]);
+                    default:
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    private List<Model> findByIdIn(Collection<?> ids) {
+        List<Model> result = new ArrayList<>();
+        synchronized (this.table) {
+            ids.forEach(id -> result.addAll(this.table.getOrDefault(id, new TreeMap<>()).values()));
+        }
+        return result;
+    }
+
+    /**
+     * <p>Paging state is the offset of the next page.
+     * </p>
+     */
+    private SliceImpl<Model> findDistinctIds(Pageable pageable) {
+        ByteBuffer pagingState = ((CassandraPageRequest) pageable).getPagingState();
+        int offset = pagingState == null ? 0 : pagingState.getInt(0);
+        List<String> ids = new ArrayList<>(this.table.keySet());
+        int end = Math.min(offset + pageable.getPageSize(), ids.size());
+        List<Model> content = new ArrayList<>();
+        ids.subList(offset, end).forEach(id -> {
+            Model model = new Model();
+            model.setId(id);
+            content.add(model);
+        });
+        boolean hasNext = end < ids.size();
+        Pageable current = hasNext
+                ? CassandraPageRequest.of(pageable, ByteBuffer.allocate(Integer.BYTES).putInt(0, end)) : pageable;
+        return new SliceImpl<>(content, current, hasNext);
+    }
+
+    private Model insert(Model row) {
+        synchronized (this.table) {
+            this.inserted.add(row.getChunk());
+            this.table.computeIfAbsent(row.getId(), k -> new TreeMap<>()).put(row.getChunk(), row);
+        }
+        return row;
+    }
+
+    private boolean deleteChunksFrom(String id, int chunk) {
+        this.deletes.incrementAndGet();
+        synchronized (this.table) {
+            this.table.getOrDefault(id, new TreeMap<>()).tailMap(chunk).clear();
+        }
+        return true;
+    }
+
+    private static String payload(char c, int length) {
+        StringBuilder stringBuilder = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            stringBuilder.append((char) (c + i % 10));
+        }
+        return stringBuilder.toString();
+    }
+
+    @Test
+    public void testStoreLoadSmall(TestInfo testInfo) {
+        this.modelMapStore.store("small", "abc");
+        String output = this.modelMapStore.load("small");
+        log.info("{} :: rows=={}, output=='{}'", testInfo.getDisplayName(), this.table.get("small").size(), output);
+
+        assertEquals(1, this.table.get("small").size());
+        assertEquals("abc", output);
+        assertNull(this.modelMapStore.load("missing"));
+    }
+
+    @Test
+    public void testStoreLoadChunked(TestInfo testInfo) {
+        String input = payload('a', ModelMapStore.CHUNK_BYTES * 2 + 1);
+        this.modelMapStore.store("large", input);
+        String output = this.modelMapStore.load("large");
+        log.info("{} :: rows=={}, inserted=={}", testInfo.getDisplayName(), this.table.get("large").size(), this.inserted);
+
+        assertEquals(3, this.table.get("large").size());
+        // One insert per row, the row with the count last
+        assertEquals(List.of(2, 1, 0), this.inserted);
+        assertEquals(input, output);
+    }
+
+    @Test
+    public void testChunkedByEncodedBytes(TestInfo testInfo) {
+        // Two bytes each in UTF-8
+        String input = payload('\u00e0', ModelMapStore.CHUNK_BYTES);
+        List<Model> rows = ModelMapStore.split("accents", input);
+        log.info("{} :: rows=={}", testInfo.getDisplayName(), rows.size());
+
+        assertEquals(2, rows.size());
+        for (Model row : rows) {
+            assertEquals(ModelMapStore.CHUNK_BYTES, row.getPayload().getBytes(StandardCharsets.UTF_8).length);
+        }
+        assertEquals(input, ModelMapStore.assemble(rows).get("accents"));
+    }
+
+    @Test
+    public void testShrunkModelDeletesOldChunks(TestInfo testInfo) {
+        this.modelMapStore.store("model", payload('a', ModelMapStore.CHUNK_BYTES * 2));
+        this.modelMapStore.store("model", "smaller");
+        String output = this.modelMapStore.load("model");
+        log.info("{} :: rows=={}, output=='{}'", testInfo.getDisplayName(), this.table.get("model").size(), output);
+
+        assertEquals(1, this.table.get("model").size());
+        assertEquals(2, this.deletes.get());
+        assertEquals("smaller", output);
+    }
+
+    @Test
+    public void testIncompleteSkipped(TestInfo testInfo) {
+        this.modelMapStore.store("model", payload('a', ModelMapStore.CHUNK_BYTES * 2));
+        this.table.get("model").remove(1);
+        String output = this.modelMapStore.load("model");
+        log.info("{} :: output=='{}'", testInfo.getDisplayName(), output);
+
+        assertNull(output);
+    }
+
+    @Test
+    public void testSurrogatePairNotSplit(TestInfo testInfo) {
+        // Pair is four bytes, one short of room in the first row
+        String input = payload('a', ModelMapStore.CHUNK_BYTES - 3) + "\uD83D\uDE00" + "z";
+        List<Model> rows = ModelMapStore.split("emoji", input);
+        log.info("{} :: rows=={}", testInfo.getDisplayName(), rows.size());
+
+        assertEquals(2, rows.size());
+        assertEquals(ModelMapStore.CHUNK_BYTES - 3, rows.get(0).getPayload().length());
+        assertEquals("\uD83D\uDE00" + "z", rows.get(1).getPayload());
+        assertEquals(input, ModelMapStore.assemble(rows).get("emoji"));
+    }
+
+    @Test
+    public void testStoreAllLoadAllKeysLoadAll(TestInfo testInfo) {
+        int count = ModelMapStore.KEY_PAGE_SIZE * 2 + 3;
+        Map<String, String> input = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            input.put("model-" + i, "payload-" + i);
+        }
+        this.modelMapStore.storeAll(input);
+
+        List<String> keys = new ArrayList<>();
+        this.modelMapStore.loadAllKeys().forEach(keys::add);
+        int keyQueries = this.queries.getAndSet(0);
+
+        Map<String, String> output = this.modelMapStore.loadAll(keys);
+        log.info("{} :: inserts=={}, keys=={}, keyQueries=={}, loadQueries=={}", testInfo.getDisplayName(),
+                this.inserted.size(), keys.size(), keyQueries, this.queries);
+
+        assertEquals(count, this.inserted.size());
+        assertEquals(count, keys.size());
+        assertEquals(3, keyQueries);
+        assertEquals((count + ModelMapStore.LOAD_BATCH_SIZE - 1) / ModelMapStore.LOAD_BATCH_SIZE, this.queries.get());
+        assertEquals(input, output);
+    }
+
+}
@@ -21,6 +21,7 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 
 import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.Map;
 import java.util.Map.Entry;
 
 import org.junit.jupiter.api.Test;
@@ -204,4 +205,33 @@ public class AccuracyAggregatorTest {
         assertEquals(expectedAverage, output.getValue());
     }
 
+    @Test
+    public void testSomeRightByAlgorithm(TestInfo testInfo) {
+        Entry<String, Map<String, Integer>> input1
+            = new SimpleImmutableEntry<String, Map<String, Integer>>(
+                "input1", Map.of(ALGORITHM, 1, "OTHER", 0));
+        Entry<String, Map<String, Integer>> input2
+            = new SimpleImmutableEntry<String, Map<String, Integer>>(
+                "input2", Map.of("OTHER", 1));
+        Entry<String, Map<String, Integer>> input3
+            = new SimpleImmutableEntry<String, Map<String, Integer>>(
+                "input3", Map.of(ALGORITHM, 0));
+
+        AccuracyAggregator accuracyAggregator = new AccuracyAggregator(ALGORITHM);
+        accuracyAggregator.accumulateByAlgorithm(input1);
+        accuracyAggregator.accumulateByAlgorithm(input2);
+        accuracyAggregator.accumulateByAlgorithm(input3);
+        Entry<String, Float> output = accuracyAggregator.exportFinish();
+
+        log.info("{} :: input1=='{}', input2=='{}', input3=='{}', output=='{}'", testInfo.getDisplayName(),
+            input1, input2, input3, output);
+
+        Float expectedAverage = 0.5F;
+
+        assertNotNull(output);
+        assertEquals(2L, accuracyAggregator.getCount());
+        assertEquals(ALGORITHM, output.getKey());
+        assertEquals(expectedAverage, output.getValue());
+    }
+
 }
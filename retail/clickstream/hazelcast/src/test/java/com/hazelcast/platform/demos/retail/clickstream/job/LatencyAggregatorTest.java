@@ -28,6 +28,7 @@ import org.junit.jupiter.api.TestInfo;
 
 import com.hazelcast.jet.datamodel.Tuple2;
 import com.hazelcast.jet.datamodel.Tuple3;
+import com.hazelcast.platform.demos.retail.clickstream.LatencyHistogram;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -161,4 +162,38 @@ public class LatencyAggregatorTest {
         assertEquals(expectedIngestToPredictAverage, output.getValue().f1());
     }
 
+    @Test
+    public void testHistogramCombine(TestInfo testInfo) {
+        LatencyAggregator latencyAggregator1 = new LatencyAggregator();
+        LatencyAggregator latencyAggregator2 = new LatencyAggregator();
+        for (long i = 1; i <= 100; i++) {
+            Entry<String, Tuple3<Long, Long, Long>> input
+                = new SimpleImmutableEntry<String, Tuple3<Long, Long, Long>>(
+                    "junit5", Tuple3.<Long, Long, Long>tuple3(0L, i - 1L, i));
+            if (i % 2 == 0) {
+                latencyAggregator1.accumulate(input);
+            } else {
+                latencyAggregator2.accumulate(input);
+            }
+        }
+        latencyAggregator1.combine(latencyAggregator2);
+        Entry<String, Tuple2<LatencyHistogram, LatencyHistogram>> output =
+                latencyAggregator1.exportFinishHistograms();
+
+        log.info("{} :: output=='{}'", testInfo.getDisplayName(), output);
+
+        assertNotNull(output);
+        assertEquals("junit5", output.getKey());
+        assertEquals(100L, output.getValue().f0().getTotalCount());
+        assertEquals(50L, output.getValue().f0().valueAtPercentile(50.0d));
+        assertEquals(99L, output.getValue().f0().valueAtPercentile(99.0d));
+        assertEquals(100L, output.getValue().f0().getMax());
+        assertEquals(1L, output.getValue().f1().valueAtPercentile(99.9d));
+
+        // Export is a copy
+        latencyAggregator1.accumulate(new SimpleImmutableEntry<String, Tuple3<Long, Long, Long>>(
+                    "junit5", Tuple3.<Long, Long, Long>tuple3(0L, 0L, 1_000L)));
+        assertEquals(100L, output.getValue().f0().getMax());
+    }
+
 }
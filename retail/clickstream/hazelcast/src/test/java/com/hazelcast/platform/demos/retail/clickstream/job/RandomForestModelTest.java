@@ -0,0 +1,267 @@
+/*
+ * Copyright (c) 2008-2022, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.platform.demos.retail.clickstream.job;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * <p>Junit 5
+ * </p>
+ * <p>"{@code randomforest_walker.txt}" has lines of digital twin bitset
+ * and expected prediction, then the exported model. It is <i>not</i> from
+ * sklearn, it is a random 20-tree forest made by
+ * "{@code test_randomforest_walker.py}" with predictions from the reference
+ * tree walker in "{@code randomforest_export.py}", so only checks the Java
+ * walker agrees with the Python one.
+ * </p>
+ * <p>{@link #testParitySklearn} checks against sklearn itself, but needs
+ * "{@code python3}" with sklearn so only runs with
+ * "{@code -Dpython.sklearn=true}", and then fails rather than skips if
+ * sklearn is missing.
+ * </p>
+ */
+@Slf4j
+public class RandomForestModelTest {
+    private static final String WALKER_FILE = "randomforest_walker.txt";
+    private static final String EXPORT_SCRIPT = "python/test_randomforest_export.py";
+    private static final long PYTHON_TIMEOUT_MINUTES = 5L;
+    private static final int REPEATS = 200;
+
+    private static long[] bitsets;
+    private static int[] expected;
+    private static String exported;
+
+    @BeforeAll
+    public static void beforeAll() throws Exception {
+        try (InputStream inputStream = RandomForestModelTest.class.getClassLoader().getResourceAsStream(WALKER_FILE)) {
+            assertNotNull(inputStream, WALKER_FILE);
+            Parity parity = Parity.read(
+                    new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8)));
+            bitsets = parity.bitsets;
+            expected = parity.expected;
+            exported = parity.exported;
+        }
+    }
+
+    @Test
+    public void testParityBatch(TestInfo testInfo) {
+        RandomForestModel randomForestModel = new RandomForestModel(exported);
+        int[] predictions = new int[bitsets.length];
+        randomForestModel.predict(bitsets, bitsets.length, predictions);
+        log.info("{} :: model=={}, samples=={}", testInfo.getDisplayName(), randomForestModel, bitsets.length);
+
+        assertArrayEquals(expected, predictions);
+    }
+
+    @Test
+    public void testParitySingle(TestInfo testInfo) {
+        RandomForestModel randomForestModel = new RandomForestModel(exported);
+        int mismatches = 0;
+        for (int i = 0; i < bitsets.length; i++) {
+            if (randomForestModel.predict(bitsets[i]) != expected[i]) {
+                mismatches++;
+            }
+        }
+        log.info("{} :: mismatches=={}", testInfo.getDisplayName(), mismatches);
+
+        assertEquals(0, mismatches);
+    }
+
+    /**
+     * <p>Train a real sklearn forest and check Java predicts the same as
+     * sklearn's "{@code predict()}", rather than the Python tree walker.
+     * </p>
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "python.sklearn", matches = "true")
+    public void testParitySklearn(TestInfo testInfo) throws Exception {
+        assertEquals(0, runPython(null, "-c", "import sklearn"), "python3 with sklearn");
+        URL script = RandomForestModelTest.class.getClassLoader().getResource(EXPORT_SCRIPT);
+        assertNotNull(script, EXPORT_SCRIPT);
+        File scriptFile = new File(script.toURI());
+
+        Path output = Files.createTempFile(RandomForestModelTest.class.getSimpleName(), ".txt");
+        try {
+            assertEquals(0, runPython(scriptFile.getParentFile(), scriptFile.getName(), output.toString()));
+            Parity parity;
+            try (BufferedReader bufferedReader = Files.newBufferedReader(output, StandardCharsets.UTF_8)) {
+                parity = Parity.read(bufferedReader);
+            }
+            RandomForestModel randomForestModel = new RandomForestModel(parity.exported);
+            int[] predictions = new int[parity.bitsets.length];
+            randomForestModel.predict(parity.bitsets, parity.bitsets.length, predictions);
+            log.info("{} :: model=={}, samples=={}", testInfo.getDisplayName(), randomForestModel,
+                    parity.bitsets.length);
+
+            assertArrayEquals(parity.expected, predictions);
+        } finally {
+            Files.deleteIfExists(output);
+        }
+    }
+
+    @Test
+    public void testOneClass(TestInfo testInfo) {
+        String oneClass = "classes 1 1\ntrees 1\ntree 3\n3 0.5 1 2 1.0\n-2 -2.0 -1 -1 1.0\n-2 -2.0 -1 -1 1.0\n";
+        RandomForestModel randomForestModel = new RandomForestModel(oneClass);
+        log.info("{} :: model=={}", testInfo.getDisplayName(), randomForestModel);
+
+        assertEquals(1, randomForestModel.predict(0L));
+        assertEquals(1, randomForestModel.predict(-1L));
+    }
+
+    @Test
+    public void testBadFormat(TestInfo testInfo) {
+        log.info("{}", testInfo.getDisplayName());
+        assertThrows(IllegalArgumentException.class, () -> new RandomForestModel("trees 1"));
+        assertThrows(IllegalArgumentException.class, () -> new RandomForestModel(exported + " 0"));
+    }
+
+    /**
+     * <p>Not an assertion, as depends on the machine, but a comparison
+     * of Java scoring one at a time against Java scoring in a batch.
+     * This doesn't time the Python path, which is compared with Java
+     * on Grafana when the jobs run.
+     * </p>
+     */
+    @Test
+    public void testLatency(TestInfo testInfo) {
+        RandomForestModel randomForestModel = new RandomForestModel(exported);
+        int[] predictions = new int[bitsets.length];
+        int checksum = 0;
+
+        long before = System.nanoTime();
+        for (int repeat = 0; repeat < REPEATS; repeat++) {
+            for (int i = 0; i < bitsets.length; i++) {
+                checksum += randomForestModel.predict(bitsets[i]);
+            }
+        }
+        long single = System.nanoTime() - before;
+
+        before = System.nanoTime();
+        for (int repeat = 0; repeat < REPEATS; repeat++) {
+            randomForestModel.predict(bitsets, bitsets.length, predictions);
+            checksum -= sum(predictions);
+        }
+        long batch = System.nanoTime() - before;
+
+        long count = (long) REPEATS * bitsets.length;
+        log.info("{} :: {} trees, {} predictions, Java single {}ns each, Java batch {}ns each, total {}ms",
+                testInfo.getDisplayName(), randomForestModel.getTreeCount(), count,
+                single / count, batch / count, TimeUnit.NANOSECONDS.toMillis(single + batch));
+
+        assertEquals(0, checksum);
+    }
+
+    /**
+     * <p>Run "{@code python3}", logging its output.
+     * </p>
+     *
+     * @param directory Working directory, null for current
+     * @param args Arguments for "{@code python3}"
+     * @return Exit code, -1 if it couldn't be run
+     */
+    private static int runPython(File directory, String... args) throws InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add("python3");
+        command.addAll(List.of(args));
+        try {
+            Process process = new ProcessBuilder(command).directory(directory).redirectErrorStream(true).start();
+            try (BufferedReader bufferedReader = new BufferedReader(
+                    new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+                String line = bufferedReader.readLine();
+                while (line != null) {
+                    log.debug("{} :: {}", command, line);
+                    line = bufferedReader.readLine();
+                }
+            }
+            if (!process.waitFor(PYTHON_TIMEOUT_MINUTES, TimeUnit.MINUTES)) {
+                process.destroyForcibly();
+                return -1;
+            }
+            return process.exitValue();
+        } catch (IOException e) {
+            log.debug("{} :: {}", command, e.getMessage());
+            return -1;
+        }
+    }
+
+    private static int sum(int[] values) {
+        int total = 0;
+        for (int value : values) {
+            total += value;
+        }
+        return total;
+    }
+
+    /**
+     * <p>Samples, predictions and model, from a fixture file.
+     * </p>
+     */
+    private static class Parity {
+        private long[] bitsets;
+        private int[] expected;
+        private String exported;
+
+        static Parity read(BufferedReader bufferedReader) throws IOException {
+            List<String> samples = new ArrayList<>();
+            StringBuilder model = new StringBuilder();
+            String line = bufferedReader.readLine();
+            while (line != null) {
+                if (line.contains(",")) {
+                    samples.add(line);
+                } else {
+                    model.append(line).append('\n');
+                }
+                line = bufferedReader.readLine();
+            }
+            Parity parity = new Parity();
+            parity.bitsets = new long[samples.size()];
+            parity.expected = new int[samples.size()];
+            for (int i = 0; i < samples.size(); i++) {
+                String[] tokens = samples.get(i).split(",");
+                parity.bitsets[i] = Long.parseLong(tokens[0]);
+                parity.expected[i] = Integer.parseInt(tokens[1]);
+            }
+            parity.exported = model.toString();
+            return parity;
+        }
+    }
+
+}
@@ -16,9 +16,10 @@
 
 package com.hazelcast.platform.demos.retail.clickstream;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
-import org.apache.pulsar.client.api.ClientBuilder;
 import org.apache.pulsar.client.api.Producer;
 import org.apache.pulsar.client.api.PulsarClient;
 import org.apache.pulsar.client.api.Schema;
@@ -30,34 +31,62 @@ import lombok.extern.slf4j.Slf4j;
 /**
  * <p>Create Pulsar connection.
  * </p>
+ * <p>Use "{@code -Dmy.pulsar.list=localhost}" for a local standalone Pulsar.
+ * </p>
  */
 @Configuration
 @Slf4j
 public class ApplicationConfig {
+    private static final int DEFAULT_PRODUCERS = 4;
+    private static final int BATCHING_MAX_MESSAGES = 1_000;
+    private static final long BATCHING_MAX_PUBLISH_DELAY_MS = 5L;
+    private static final int MAX_PENDING_MESSAGES = 10_000;
 
     /**
-     * <p>Wrap producer and connectivity in one bean.
+     * <p>Connectivity, one connection per producer so they don't
+     * queue behind each other.
      * </p>
      */
     @Bean
-    public Producer<String> producer() throws Exception {
+    public PulsarClient pulsarClient() throws Exception {
         String serviceUrl = MyUtils.getPulsarServiceUrl();
         log.info("serviceUrl='{}'", serviceUrl);
 
-        ClientBuilder clientBuilder =
-                PulsarClient
+        return PulsarClient
                 .builder()
                 .connectionTimeout(1, TimeUnit.SECONDS)
-                .serviceUrl(serviceUrl);
-
-        PulsarClient pulsarClient = clientBuilder.build();
+                .connectionsPerBroker(getProducerCount())
+                .ioThreads(getProducerCount())
+                .serviceUrl(serviceUrl)
+                .build();
+    }
 
-        Producer<String> producer = pulsarClient.newProducer(Schema.STRING)
-                .topic(MyConstants.PULSAR_TOPIC)
-                .create();
+    /**
+     * <p>Several producers on the same topic, set by "{@code my.feed.producers}",
+     * batching asynchronous sends. Values are pre-encoded bytes, checked against
+     * the topic's string schema.
+     * </p>
+     */
+    @Bean
+    public List<Producer<byte[]>> producers(PulsarClient pulsarClient) throws Exception {
+        List<Producer<byte[]>> producers = new ArrayList<>();
+        for (int i = 0; i < getProducerCount(); i++) {
+            Producer<byte[]> producer = pulsarClient.newProducer(Schema.AUTO_PRODUCE_BYTES(Schema.STRING))
+                    .topic(MyConstants.PULSAR_TOPIC)
+                    .enableBatching(true)
+                    .batchingMaxMessages(BATCHING_MAX_MESSAGES)
+                    .batchingMaxPublishDelay(BATCHING_MAX_PUBLISH_DELAY_MS, TimeUnit.MILLISECONDS)
+                    .maxPendingMessages(MAX_PENDING_MESSAGES)
+                    .blockIfQueueFull(true)
+                    .create();
+            log.info("{}", producer);
+            producers.add(producer);
+        }
+        return producers;
+    }
 
-        log.info("{}", producer);
-        return producer;
+    private static int getProducerCount() {
+        return Math.max(1, Integer.parseInt(System.getProperty("my.feed.producers", String.valueOf(DEFAULT_PRODUCERS))));
     }
 
 }
@@ -16,7 +16,11 @@
 
 package com.hazelcast.platform.demos.retail.clickstream;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.apache.pulsar.client.api.Producer;
+import org.apache.pulsar.client.api.PulsarClient;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Bean;
@@ -27,7 +31,8 @@ import com.hazelcast.jet.datamodel.Tuple2;
 import lombok.extern.slf4j.Slf4j;
 
 /**
- * <p>Wrap the actual writing with logging.
+ * <p>Wrap the actual writing with logging. All input is read before
+ * publishing starts, so file reading doesn't limit the publish rate.
  * </p>
  */
 @Slf4j
@@ -39,7 +44,11 @@ public class ApplicationRunner {
     @Autowired
     private MyProperties myProperties;
     @Autowired
-    private Producer<String> producer;
+    private PulsarClient pulsarClient;
+    @Autowired
+    private List<Producer<byte[]>> producers;
+    @Autowired
+    private ReplayService replayService;
 
     @Bean
     public CommandLineRunner commandLineRunner() {
@@ -53,9 +62,10 @@ public class ApplicationRunner {
             String[] files = new String[] { MyConstants.CSV_INPUT_FILE2 };
             @SuppressWarnings("unchecked")
             Tuple2<Integer, String>[] counts = new Tuple2[files.length];
+            List<FeedRecord> records = new ArrayList<>();
 
             for (int i = 0 ; i < files.length ; i++) {
-                counts[i] = this.loaderService.readCsvWritePulsar(files[i], this.producer);
+                counts[i] = this.loaderService.readCsv(files[i], records);
             }
 
             long elapsed = System.currentTimeMillis() - before;
@@ -67,9 +77,17 @@ public class ApplicationRunner {
                         this.loaderService.getClass().getSimpleName(), counts[i].f1());
             }
 
-            log.info("{}, wrote {} in {}ms",
+            log.info("{}, loaded {} in {}ms",
                     this.loaderService.getClass().getSimpleName(), total, elapsed);
 
+            log.info("{}, {} producers: {}", this.replayService.getClass().getSimpleName(),
+                    this.producers.size(), this.replayService.replay(records, this.producers));
+
+            for (Producer<byte[]> producer : this.producers) {
+                producer.close();
+            }
+            this.pulsarClient.close();
+
             log.info("-=-=-=-=-  END  build '{}' by '{}'  END  -=-=-=-=-=-",
                     this.myProperties.getBuildTimestamp(), this.myProperties.getBuildUserName());
        };
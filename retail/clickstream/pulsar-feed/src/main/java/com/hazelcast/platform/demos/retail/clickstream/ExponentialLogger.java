@@ -38,9 +38,9 @@ public class ExponentialLogger {
         this.prefix = arg0 + ":" + tmp.substring(0, TEN) + ":";
     }
 
-    public void log(int read, int written, String key, String value) {
+    public void log(int read, int loaded, String key, String value) {
         if (this.count % this.binaryLoggingInterval == 0) {
-            log.debug("{} input line {} write {} -> key '{}', value '{}'", prefix, read, written, key, value);
+            log.debug("{} input line {} load {} -> key '{}', value '{}'", prefix, read, loaded, key, value);
             if (2 * this.binaryLoggingInterval <= MyConstants.MAX_LOGGING_INTERVAL) {
                 this.binaryLoggingInterval = 2 * this.binaryLoggingInterval;
             }
@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2008-2022, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.platform.demos.retail.clickstream;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+/**
+ * <p>One clickstream event, ready to publish. The value is already
+ * encoded, so publishing does no conversion.
+ * </p>
+ */
+public final class FeedRecord {
+
+    private final String key;
+    private final byte[] value;
+
+    /**
+     * @param arg0 User, the Pulsar message key
+     * @param arg1 Action, UTF-8 encoded and shared between records for the same action
+     */
+    public FeedRecord(String arg0, byte[] arg1) {
+        this.key = arg0;
+        this.value = arg1;
+    }
+
+    public String getKey() {
+        return this.key;
+    }
+
+    @SuppressFBWarnings(value = "EI_EXPOSE_REP",
+            justification = "Pre-encoded to avoid a copy per send")
+    public byte[] getValue() {
+        return this.value;
+    }
+
+}
@@ -23,11 +23,11 @@ import java.io.IOException;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
 
-import org.apache.pulsar.client.api.Producer;
-import org.apache.pulsar.client.api.Schema;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationContext;
 import org.springframework.core.io.Resource;
@@ -39,7 +39,8 @@ import com.hazelcast.jet.datamodel.Tuple4;
 import lombok.extern.slf4j.Slf4j;
 
 /**
- * <p>Writes a CSV file to Pulsar.
+ * <p>Reads a CSV file into events to publish to Pulsar, so the
+ * file reading and encoding is done before publishing starts.
  * </p>
  * <p>CSV looks like:
  * <pre>
@@ -67,28 +68,30 @@ public class LoaderService {
     private int errors;
     private int read;
     private int skipped;
-    private int written;
+    private int loaded;
     private ExponentialLogger[] exponentialLoggers = new ExponentialLogger[3];
     private Random random = new Random();
+    private Map<String, byte[]> encoded = new HashMap<>();
 
     private void init(String fileName) {
         this.errors = 0;
         this.read = 0;
         this.skipped = 0;
-        this.written = 0;
+        this.loaded = 0;
         this.exponentialLoggers[0] = new ExponentialLogger(fileName, "action");
         this.exponentialLoggers[1]  = new ExponentialLogger(fileName, "checkout");
         this.exponentialLoggers[2]  = new ExponentialLogger(fileName, "buy");
     }
 
     /**
-     * <p>Write scan for input file, with periodic logging.
+     * <p>Scan input file, with periodic logging, appending the events
+     * in the order they should be published.
      * </p>
      *
      * @param fileName In "src/main/resources"
-     * @param producer An existing connection to Pulsar
+     * @param records To append to
      */
-    public Tuple2<Integer, String> readCsvWritePulsar(String fileName, Producer<String> producer) {
+    public Tuple2<Integer, String> readCsv(String fileName, List<FeedRecord> records) {
         // Reset for multiple invocations.
         this.init(fileName);
 
@@ -100,7 +103,7 @@ public class LoaderService {
             List<Tuple4<String, List<String>, List<String>, List<String>>> data =
                     this.readDataBlock(bufferedReader);
             while (!data.isEmpty()) {
-                this.processDataBlock(data, producer);
+                this.processDataBlock(data, records);
                 data = this.readDataBlock(bufferedReader);
             }
         } catch (Exception e) {
@@ -111,13 +114,13 @@ public class LoaderService {
 
         String message;
         if (this.errors == 0) {
-            message = String.format("File '%s', read %d lines, skipped %d, wrote %d entries",
-                    fileName, this.read, this.skipped, this.written);
+            message = String.format("File '%s', read %d lines, skipped %d, loaded %d entries",
+                    fileName, this.read, this.skipped, this.loaded);
         } else {
-            message = String.format("File '%s', read %d lines, skipped %d, wrote %d entries *** with %d errors ***",
-                    fileName, this.read, this.skipped, this.written, this.errors);
+            message = String.format("File '%s', read %d lines, skipped %d, loaded %d entries *** with %d errors ***",
+                    fileName, this.read, this.skipped, this.loaded, this.errors);
         }
-        return Tuple2.tuple2(this.written, message);
+        return Tuple2.tuple2(this.loaded, message);
     }
 
     /**
@@ -203,19 +206,19 @@ public class LoaderService {
      * </p>
      *
      * @param block
-     * @param producer
+     * @param records
      */
     @SuppressFBWarnings(value = "DMI_RANDOM_USED_ONLY_ONCE",
             justification = "Wish single random sequence, each time fillBuffernFn() is called")
     private void processDataBlock(List<Tuple4<String, List<String>, List<String>, List<String>>> block,
-            Producer<String> producer) throws Exception {
+            List<FeedRecord> records) {
         int size = block.size();
         while (size > 0) {
             int i = random.nextInt(size);
             Tuple4<String, List<String>, List<String>, List<String>> tuple4 =
                     block.get(i);
-            processDataRow(tuple4, producer);
-            // Remove when all rows written
+            processDataRow(tuple4, records);
+            // Remove when all rows taken
             if (tuple4.f1().size() == 0 && tuple4.f2().size() == 0 && tuple4.f3().size() == 0) {
                 block.remove(i);
             }
@@ -228,18 +231,18 @@ public class LoaderService {
      * </p>
      *
      * @param tuple4
-     * @param producer
+     * @param records
      */
     private void processDataRow(Tuple4<String, List<String>, List<String>, List<String>> tuple4,
-            Producer<String> producer) throws Exception {
+            List<FeedRecord> records) {
         if (tuple4.f1().size() > 0) {
-            processDataItem(tuple4.f0(), tuple4.f1(), this.exponentialLoggers[0], producer);
+            processDataItem(tuple4.f0(), tuple4.f1(), this.exponentialLoggers[0], records);
         } else {
             if (tuple4.f2().size() > 0) {
-                processDataItem(tuple4.f0(), tuple4.f2(), this.exponentialLoggers[1], producer);
+                processDataItem(tuple4.f0(), tuple4.f2(), this.exponentialLoggers[1], records);
             } else {
                 if (tuple4.f3().size() > 0) {
-                    processDataItem(tuple4.f0(), tuple4.f3(), this.exponentialLoggers[2], producer);
+                    processDataItem(tuple4.f0(), tuple4.f3(), this.exponentialLoggers[2], records);
                 }
             }
         }
@@ -247,18 +250,19 @@ public class LoaderService {
 
 
     /**
-     * <p>Write any one value from the list of actions, randomly if more than one available
+     * <p>Take any one value from the list of actions, randomly if more than one available.
+     * Values are encoded once per action name and shared.
      * </p>
      *
      * @param key
      * @param actions
      * @param exponentialLogger
-     * @param producer
+     * @param records
      */
     @SuppressFBWarnings(value = "DMI_RANDOM_USED_ONLY_ONCE",
             justification = "Wish single random sequence, each time fillBuffernFn() is called")
     private void processDataItem(String key, List<String> actions, ExponentialLogger exponentialLogger,
-            Producer<String> producer) throws Exception {
+            List<FeedRecord> records) {
         int size = actions.size();
         String value;
         if (size == 1) {
@@ -270,13 +274,10 @@ public class LoaderService {
             actions.remove(i);
         }
 
-        producer
-        .newMessage(Schema.STRING)
-        .key(key)
-        .value(value)
-        .send();
+        byte[] bytes = this.encoded.computeIfAbsent(value, k -> k.getBytes(StandardCharsets.UTF_8));
+        records.add(new FeedRecord(key, bytes));
 
-        this.written++;
-        exponentialLogger.log(this.read, this.written, key, value);
+        this.loaded++;
+        exponentialLogger.log(this.read, this.loaded, key, value);
     }
 }
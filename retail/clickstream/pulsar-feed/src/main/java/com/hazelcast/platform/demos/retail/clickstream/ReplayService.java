@@ -0,0 +1,288 @@
+/*
+ * Copyright (c) 2008-2022, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.platform.demos.retail.clickstream;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.pulsar.client.api.MessageId;
+import org.apache.pulsar.client.api.Producer;
+import org.springframework.stereotype.Service;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * <p>Publishes preloaded events to Pulsar on several producers, each
+ * on its own thread sending asynchronously so Pulsar can batch.
+ * </p>
+ * <p>Events for the same user always go to the same producer, so
+ * their order is kept, "<i>checkout</i>" after the other actions
+ * and "<i>buy</i>" last.
+ * </p>
+ * <p>The pace is set by system properties:
+ * <ul>
+ * <li>"{@code my.feed.rate}" - events per second, overrides compression if set</li>
+ * <li>"{@code my.feed.compression}" - speed up of the original replay, which
+ * spreads the events over {@link #ORIGINAL_REPLAY_MINUTES}. Default 1,
+ * use 0 to publish as fast as possible.</li>
+ * </ul>
+ * </p>
+ * <p>The achieved rate and publish latency, from send to acknowledgement,
+ * are logged every {@link #REPORT_INTERVAL_SECONDS} and at the end.
+ * </p>
+ */
+@Service
+@Slf4j
+public class ReplayService {
+
+    // The original single-threaded feed took about this long
+    private static final long ORIGINAL_REPLAY_MINUTES = 60L;
+    private static final long REPORT_INTERVAL_SECONDS = 5L;
+    private static final double NANOS_PER_SECOND = 1E9;
+    private static final double P50 = 50d;
+    private static final double P99 = 99d;
+
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong acked = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final Object lock = new Object();
+    private LatencyHistogram intervalLatency;
+    private LatencyHistogram totalLatency;
+    private long lastReportNanos;
+    private long lastReportAcked;
+
+    /**
+     * <p>Publish all records, returning once all are acknowledged or failed.
+     * </p>
+     *
+     * @param records Events in the order to publish
+     * @param producers One thread per producer
+     * @return Summary for logging
+     */
+    public String replay(List<FeedRecord> records, List<Producer<byte[]>> producers) throws Exception {
+        this.init();
+        double nanosPerRecord = nanosPerRecord(records.size());
+        int[][] lanes = lanes(records, producers.size());
+
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, ReplayService.class.getSimpleName() + "-reporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ExecutorService executorService = Executors.newFixedThreadPool(producers.size(), runnable -> {
+            Thread thread = new Thread(runnable, ReplayService.class.getSimpleName());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            reporter.scheduleAtFixedRate(this::report, REPORT_INTERVAL_SECONDS, REPORT_INTERVAL_SECONDS, TimeUnit.SECONDS);
+
+            long start = System.nanoTime();
+            List<Future<CompletableFuture<Void>>> futures = new ArrayList<>();
+            for (int i = 0; i < producers.size(); i++) {
+                int[] lane = lanes[i];
+                Producer<byte[]> producer = producers.get(i);
+                futures.add(executorService.submit(() -> this.publish(records, lane, producer, start, nanosPerRecord)));
+            }
+            for (int i = 0; i < producers.size(); i++) {
+                CompletableFuture<Void> last = futures.get(i).get();
+                producers.get(i).flush();
+                if (last != null) {
+                    last.exceptionally(throwable -> null).join();
+                }
+            }
+            long elapsed = System.nanoTime() - start;
+
+            this.report();
+            return this.summary(elapsed);
+        } finally {
+            executorService.shutdownNow();
+            reporter.shutdownNow();
+        }
+    }
+
+    private void init() {
+        this.sent.set(0);
+        this.acked.set(0);
+        this.failed.set(0);
+        this.intervalLatency = new LatencyHistogram();
+        this.totalLatency = new LatencyHistogram();
+        this.lastReportNanos = System.nanoTime();
+        this.lastReportAcked = 0;
+    }
+
+    /**
+     * <p>Gap between sends, from the system properties.
+     * </p>
+     *
+     * @param count How many records
+     * @return Nanoseconds per record, 0 for unthrottled
+     */
+    private static double nanosPerRecord(int count) {
+        return nanosPerRecord(count,
+                Double.parseDouble(System.getProperty("my.feed.rate", "0")),
+                Double.parseDouble(System.getProperty("my.feed.compression", "1")));
+    }
+
+    /**
+     * <p>Gap between sends, a rate if given, otherwise the original
+     * replay duration divided by compression.
+     * </p>
+     *
+     * @param count How many records
+     * @param rate Events per second, 0 if not set
+     * @param compression Speed up of the original replay, 0 for unthrottled
+     * @return Nanoseconds per record, 0 for unthrottled
+     */
+    static double nanosPerRecord(int count, double rate, double compression) {
+        if (rate > 0) {
+            log.info("Target rate {} per second", rate);
+            return NANOS_PER_SECOND / rate;
+        }
+        if (compression > 0 && count > 0) {
+            double nanosPerRecord = TimeUnit.MINUTES.toNanos(ORIGINAL_REPLAY_MINUTES) / compression / count;
+            log.info("Replay {} minutes compressed {} times, rate {} per second",
+                    ORIGINAL_REPLAY_MINUTES, compression, (long) (NANOS_PER_SECOND / nanosPerRecord));
+            return nanosPerRecord;
+        }
+        log.info("Unthrottled");
+        return 0;
+    }
+
+    /**
+     * <p>Split record positions by producer, by key.
+     * </p>
+     */
+    static int[][] lanes(List<FeedRecord> records, int count) {
+        int[] sizes = new int[count];
+        int[] owner = new int[records.size()];
+        for (int i = 0; i < records.size(); i++) {
+            owner[i] = Math.floorMod(records.get(i).getKey().hashCode(), count);
+            sizes[owner[i]]++;
+        }
+        int[][] lanes = new int[count][];
+        for (int i = 0; i < count; i++) {
+            lanes[i] = new int[sizes[i]];
+            sizes[i] = 0;
+        }
+        for (int i = 0; i < owner.length; i++) {
+            lanes[owner[i]][sizes[owner[i]]++] = i;
+        }
+        return lanes;
+    }
+
+    /**
+     * <p>Send one producer's share, each record at its due time
+     * from the start. Sends that fall behind are sent at once to catch up.
+     * </p>
+     *
+     * @return The last send, which completes after all others for this producer
+     */
+    private CompletableFuture<Void> publish(List<FeedRecord> records, int[] lane, Producer<byte[]> producer,
+            long start, double nanosPerRecord) {
+        CompletableFuture<Void> last = null;
+        for (int index : lane) {
+            if (nanosPerRecord > 0) {
+                pace(due(start, index, nanosPerRecord));
+            }
+            FeedRecord record = records.get(index);
+            long before = System.nanoTime();
+            last = producer.newMessage().key(record.getKey()).value(record.getValue()).sendAsync()
+                    .thenAccept(messageId -> this.acknowledged(before, messageId));
+            last.exceptionally(throwable -> this.failed(throwable));
+            this.sent.incrementAndGet();
+        }
+        return last;
+    }
+
+    /**
+     * <p>When a record should be sent, its position in the whole replay
+     * rather than in its lane, so lanes keep pace with each other.
+     * </p>
+     */
+    static long due(long start, int index, double nanosPerRecord) {
+        return start + (long) (index * nanosPerRecord);
+    }
+
+    static void pace(long due) {
+        long wait = due - System.nanoTime();
+        while (wait > 0) {
+            LockSupport.parkNanos(wait);
+            wait = due - System.nanoTime();
+        }
+    }
+
+    private void acknowledged(long before, MessageId messageId) {
+        long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - before);
+        this.acked.incrementAndGet();
+        synchronized (this.lock) {
+            this.intervalLatency.record(micros);
+        }
+    }
+
+    private Void failed(Throwable throwable) {
+        if (this.failed.getAndIncrement() == 0) {
+            log.error("First send failure", throwable);
+        }
+        return null;
+    }
+
+    /**
+     * <p>Rate and latency since the last report.
+     * </p>
+     */
+    private void report() {
+        LatencyHistogram latency;
+        long ackedNow;
+        long rate;
+        synchronized (this.lock) {
+            latency = this.intervalLatency;
+            this.intervalLatency = new LatencyHistogram();
+            this.totalLatency.add(latency);
+            long now = System.nanoTime();
+            ackedNow = this.acked.get();
+            rate = (long) ((ackedNow - this.lastReportAcked) * NANOS_PER_SECOND
+                    / Math.max(1, now - this.lastReportNanos));
+            this.lastReportNanos = now;
+            this.lastReportAcked = ackedNow;
+        }
+
+        log.info("Sent {}, acked {}, failed {}, rate {}/second, publish latency us p50 {} p99 {} max {}",
+                this.sent.get(), ackedNow, this.failed.get(), rate,
+                latency.valueAtPercentile(P50), latency.valueAtPercentile(P99), latency.getMax());
+    }
+
+    private String summary(long elapsed) {
+        long rate = (long) (this.acked.get() * NANOS_PER_SECOND / Math.max(1, elapsed));
+        synchronized (this.lock) {
+            return String.format("Sent %d, acked %d, failed %d in %dms, rate %d/second,"
+                    + " publish latency us p50 %d p99 %d max %d",
+                    this.sent.get(), this.acked.get(), this.failed.get(), TimeUnit.NANOSECONDS.toMillis(elapsed), rate,
+                    this.totalLatency.valueAtPercentile(P50), this.totalLatency.valueAtPercentile(P99),
+                    this.totalLatency.getMax());
+        }
+    }
+
+}
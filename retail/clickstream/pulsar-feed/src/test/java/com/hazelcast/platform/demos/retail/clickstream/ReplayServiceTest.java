@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2008-2022, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.platform.demos.retail.clickstream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * <p>Junit 5
+ * </p>
+ */
+@Slf4j
+public class ReplayServiceTest {
+    private static final int USERS = 50;
+    private static final int ACTIONS = 7;
+    private static final int PRODUCERS = 4;
+
+    @Test
+    public void testNanosPerRecordRate(TestInfo testInfo) {
+        double nanosPerRecord = ReplayService.nanosPerRecord(1_000, 2_000d, 5d);
+        log.info("{} :: nanosPerRecord=={}", testInfo.getDisplayName(), nanosPerRecord);
+
+        // Rate overrides compression
+        assertEquals(500_000d, nanosPerRecord);
+    }
+
+    @Test
+    public void testNanosPerRecordCompression(TestInfo testInfo) {
+        double nanosPerRecord = ReplayService.nanosPerRecord(3_600, 0d, 60d);
+        log.info("{} :: nanosPerRecord=={}", testInfo.getDisplayName(), nanosPerRecord);
+
+        // 60 minutes compressed to 1, for 3,600 records
+        assertEquals((double) TimeUnit.MILLISECONDS.toNanos(1_000L) / 60, nanosPerRecord);
+    }
+
+    @Test
+    public void testNanosPerRecordUnthrottled(TestInfo testInfo) {
+        log.info("{}", testInfo.getDisplayName());
+
+        assertEquals(0d, ReplayService.nanosPerRecord(1_000, 0d, 0d));
+        assertEquals(0d, ReplayService.nanosPerRecord(0, 0d, 1d));
+    }
+
+    @Test
+    public void testDue(TestInfo testInfo) {
+        log.info("{}", testInfo.getDisplayName());
+
+        assertEquals(100L, ReplayService.due(100L, 0, 2.5d));
+        assertEquals(125L, ReplayService.due(100L, 10, 2.5d));
+        assertEquals(100L + 2_500_000_000L, ReplayService.due(100L, 1_000_000_000, 2.5d));
+    }
+
+    @Test
+    public void testPace(TestInfo testInfo) {
+        long due = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(20L);
+        ReplayService.pace(due);
+        long now = System.nanoTime();
+        log.info("{} :: late by {}ns", testInfo.getDisplayName(), now - due);
+
+        assertTrue(now >= due);
+        // Past due returns at once, no wait
+        ReplayService.pace(due);
+    }
+
+    @Test
+    public void testLanesCoverAll(TestInfo testInfo) {
+        List<FeedRecord> records = makeRecords();
+        int[][] lanes = ReplayService.lanes(records, PRODUCERS);
+
+        boolean[] seen = new boolean[records.size()];
+        int total = 0;
+        for (int[] lane : lanes) {
+            for (int index : lane) {
+                assertTrue(!seen[index], "index " + index);
+                seen[index] = true;
+                total++;
+            }
+        }
+        log.info("{} :: lanes=={}, total=={}", testInfo.getDisplayName(), lanes.length, total);
+
+        assertEquals(PRODUCERS, lanes.length);
+        assertEquals(records.size(), total);
+    }
+
+    @Test
+    public void testLanesKeepUserOrder(TestInfo testInfo) {
+        List<FeedRecord> records = makeRecords();
+        int[][] lanes = ReplayService.lanes(records, PRODUCERS);
+
+        Map<String, Integer> laneForUser = new HashMap<>();
+        for (int i = 0; i < lanes.length; i++) {
+            int previous = -1;
+            for (int index : lanes[i]) {
+                // Ascending, so the original order within a lane
+                assertTrue(index > previous, "lane " + i + " index " + index);
+                previous = index;
+                // One lane per user
+                Integer lane = laneForUser.putIfAbsent(records.get(index).getKey(), i);
+                assertTrue(lane == null || lane == i, records.get(index).getKey());
+            }
+        }
+        log.info("{} :: users=={}", testInfo.getDisplayName(), laneForUser.size());
+
+        assertEquals(USERS, laneForUser.size());
+    }
+
+    @Test
+    public void testLanesOneProducer(TestInfo testInfo) {
+        List<FeedRecord> records = makeRecords();
+        int[][] lanes = ReplayService.lanes(records, 1);
+        log.info("{} :: lane size=={}", testInfo.getDisplayName(), lanes[0].length);
+
+        assertEquals(records.size(), lanes[0].length);
+        for (int i = 0; i < lanes[0].length; i++) {
+            assertEquals(i, lanes[0][i]);
+        }
+    }
+
+    /**
+     * <p>Actions for several users, interleaved as in the real feed.
+     * </p>
+     */
+    private static List<FeedRecord> makeRecords() {
+        List<FeedRecord> records = new ArrayList<>();
+        for (int action = 0; action < ACTIONS; action++) {
+            byte[] value = ("action" + action).getBytes(StandardCharsets.UTF_8);
+            for (int user = 0; user < USERS; user++) {
+                records.add(new FeedRecord("user" + user, value));
+            }
+        }
+        return records;
+    }
+}
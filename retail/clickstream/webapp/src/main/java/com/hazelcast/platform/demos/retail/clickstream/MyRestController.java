@@ -16,21 +16,30 @@
 
 package com.hazelcast.platform.demos.retail.clickstream;
 
+import java.util.stream.Collectors;
+
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.HazelcastJsonValue;
+import com.hazelcast.map.IMap;
+
 import lombok.extern.slf4j.Slf4j;
 
 /**
- * <p>For Kubernetes liveness/readiness probes.</p>
+ * <p>For Kubernetes liveness/readiness probes, and latency detail.</p>
  */
 @RestController
 @RequestMapping("/rest")
 @Slf4j
 public class MyRestController {
 
+    @Autowired
+    private HazelcastInstance hazelcastInstance;
     @Autowired
     private MyProperties myProperties;
 
@@ -46,4 +55,22 @@ public class MyRestController {
         return this.myProperties.getBuildTimestamp();
     }
 
+    /**
+     * <p>The latest latency histogram for each algorithm, with percentiles
+     * and bucket counts, from whichever cluster the client is connected to.
+     * </p>
+     *
+     * @return A JSON array
+     */
+    @GetMapping(value = "/latency", produces = MediaType.APPLICATION_JSON_VALUE)
+    public String latency() {
+        IMap<String, HazelcastJsonValue> latencyHistogramMap =
+                this.hazelcastInstance.getMap(MyConstants.IMAP_NAME_LATENCY_HISTOGRAM);
+        String result = latencyHistogramMap.values().stream()
+                .map(HazelcastJsonValue::toString)
+                .collect(Collectors.joining(",", "[", "]"));
+        log.trace("latency() -> {}", result);
+        return result;
+    }
+
 }
@@ -29,6 +29,9 @@ public class MyConstants {
     public static final int CLASS_ID_MYPORTABLEFACTORY = 2000;
     public static final int CLASS_ID_MYCREDENTIALS = 1;
     public static final int CLASS_ID_SENTIMENT = 1 + CLASS_ID_MYCREDENTIALS;
+    public static final int CLASS_ID_CALLDATARECORDKEY = 1 + CLASS_ID_SENTIMENT;
+    // Compact serialization, must match "hazelcast*.yml" and SQL mapping
+    public static final String COMPACT_TYPE_NAME_CALLDATARECORD = "CallDataRecord";
 
     // Map names, for eager creation
     public static final String IMAP_NAME_CDR  = "cdr";
@@ -17,6 +17,7 @@
 package com.hazelcast.platform.demos.telco.churn;
 
 import com.hazelcast.core.HazelcastJsonValue;
+import com.hazelcast.platform.demos.telco.churn.domain.CallDataRecordValue;
 import com.hazelcast.platform.demos.telco.churn.domain.Sentiment;
 
 import org.json.JSONObject;
@@ -32,47 +33,28 @@ public class MyCsvUtils {
     private static final Logger LOGGER = LoggerFactory.getLogger(MyCsvUtils.class);
 
     /**
-     * <p>Takes a JSON format CallDataRecord</p>
+     * <p>Takes a typed CallDataRecord, no parsing needed</p>
      */
-    public static String toCSVCallDataRecord(HazelcastJsonValue hazelcastJsonValue) {
+    public static String toCSVCallDataRecord(CallDataRecordValue callDataRecordValue) {
         String empty = ",,,,,,,,,,,";
-        if (hazelcastJsonValue == null) {
+        if (callDataRecordValue == null) {
             LOGGER.error("CallDataRecord is null");
             return empty;
         } else {
-            try {
-                JSONObject json = new JSONObject(hazelcastJsonValue.toString());
-                String calleeMastId = json.getString("calleeMastId");
-                String calleeTelno = json.getString("calleeTelno");
-                String callerMastId = json.getString("callerMastId");
-                String callerTelno = json.getString("callerTelno");
-                String callSuccessful = String.valueOf(json.getBoolean("callSuccessful"));
-                String createdBy = json.getString("createdBy");
-                String createdDate = String.valueOf(json.getLong("createdDate"));
-                String durationSeconds = String.valueOf(json.getInt("durationSeconds"));
-                String id = json.getString("id");
-                String lastModifiedBy = json.getString("lastModifiedBy");
-                String lastModifiedDate = String.valueOf(json.getLong("lastModifiedDate"));
-                String startTimestamp = String.valueOf(json.getLong("startTimestamp"));
-
-                // Alphabetical order on field name
-                return calleeMastId + ","
-                        + calleeTelno + ","
-                        + callerMastId + ","
-                        + callerTelno + ","
-                        + callSuccessful + ","
-                        + createdBy + ","
-                        + createdDate + ","
-                        + durationSeconds + ","
-                        + id + ","
-                        + lastModifiedBy + ","
-                        + lastModifiedDate + ","
-                        + startTimestamp
-                        ;
-            } catch (Exception e) {
-                LOGGER.error(hazelcastJsonValue.toString(), e);
-                return empty;
-            }
+            // Alphabetical order on field name
+            return callDataRecordValue.getCalleeMastId() + ","
+                    + callDataRecordValue.getCalleeTelno() + ","
+                    + callDataRecordValue.getCallerMastId() + ","
+                    + callDataRecordValue.getCallerTelno() + ","
+                    + callDataRecordValue.isCallSuccessful() + ","
+                    + callDataRecordValue.getCreatedBy() + ","
+                    + callDataRecordValue.getCreatedDate() + ","
+                    + callDataRecordValue.getDurationSeconds() + ","
+                    + callDataRecordValue.getId() + ","
+                    + callDataRecordValue.getLastModifiedBy() + ","
+                    + callDataRecordValue.getLastModifiedDate() + ","
+                    + callDataRecordValue.getStartTimestamp()
+                    ;
         }
     }
 
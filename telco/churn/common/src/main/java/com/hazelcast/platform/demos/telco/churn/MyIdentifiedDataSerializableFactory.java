@@ -21,6 +21,7 @@ import org.slf4j.LoggerFactory;
 
 import com.hazelcast.nio.serialization.DataSerializableFactory;
 import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
+import com.hazelcast.platform.demos.telco.churn.domain.CallDataRecordKey;
 import com.hazelcast.platform.demos.telco.churn.security.MyCredentials;
 
 /**
@@ -28,8 +29,8 @@ import com.hazelcast.platform.demos.telco.churn.security.MyCredentials;
  * {@link com.hazelcast.nio.serialization.IdentifiedDataSerializable IdentifiedDataSerializable}
  * based on the type code received.
  * </p>
- * <p>This is not currently used. It is present to demonstrate how credentials could
- * be provided from non-Java clients.
+ * <p>Used for the call data record key. Credentials are not currently used,
+ * they are present to demonstrate how credentials could be provided from non-Java clients.
  * </p>
  */
 public class MyIdentifiedDataSerializableFactory implements DataSerializableFactory {
@@ -40,6 +41,8 @@ public class MyIdentifiedDataSerializableFactory implements DataSerializableFact
         switch (typeId) {
             case MyConstants.CLASS_ID_MYCREDENTIALS:
                 return new MyCredentials();
+            case MyConstants.CLASS_ID_CALLDATARECORDKEY:
+                return new CallDataRecordKey();
             default:
                 LOGGER.error("Unknown typeId: {}", typeId);
                 return null;
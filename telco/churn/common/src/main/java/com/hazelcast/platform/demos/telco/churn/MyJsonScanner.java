@@ -0,0 +1,399 @@
+/*
+ * Copyright (c) 2008-2022, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.platform.demos.telco.churn;
+
+import org.json.JSONException;
+
+/**
+ * <p>Find fields in a JSON string without parsing it into objects.
+ * </p>
+ * <p>A parser such as {@link org.json.JSONObject} builds a map of every
+ * field to read one. Here the string is walked once, skipping over
+ * values that aren't wanted, and positions are returned so the caller
+ * can compare or replace a value in place. Nothing is allocated.
+ * </p>
+ * <p>Only fields of the given object are matched, not those of
+ * any nested objects or text inside string values. Malformed JSON
+ * gives {@link #NOT_FOUND}.
+ * </p>
+ * <p>Values can also be read, allocating only the result. The
+ * "{@code require}" methods throw the same {@link JSONException}
+ * as {@link org.json.JSONObject} would for a missing field, so can
+ * replace it without changing error handling.
+ * </p>
+ */
+public class MyJsonScanner {
+    public static final int NOT_FOUND = -1;
+
+    private static final int HEX = 16;
+    private static final int UNICODE_DIGITS = 4;
+
+    /**
+     * <p>Find a field in the outermost object.
+     * </p>
+     *
+     * @param json A JSON object
+     * @param key Field name, containing nothing that would need escaped
+     * @return Position of the first character of the value, or {@link #NOT_FOUND}
+     */
+    public static int valueStart(String json, String key) {
+        return valueStart(json, skipWhitespace(json, 0), key);
+    }
+
+    /**
+     * <p>Find a field in the object starting at the given position, which
+     * may be nested.
+     * </p>
+     *
+     * @param json Containing a JSON object
+     * @param objectStart Position of the object's "<code>{</code>"
+     * @param key Field name, containing nothing that would need escaped
+     * @return Position of the first character of the value, or {@link #NOT_FOUND}
+     */
+    @SuppressWarnings("checkstyle:CyclomaticComplexity")
+    public static int valueStart(String json, int objectStart, String key) {
+        if (objectStart < 0 || objectStart >= json.length() || json.charAt(objectStart) != '{') {
+            return NOT_FOUND;
+        }
+        int i = skipWhitespace(json, objectStart + 1);
+        while (i < json.length() && json.charAt(i) == '"') {
+            int keyEnd = stringEnd(json, i);
+            boolean match = (keyEnd - i - 2) == key.length() && json.regionMatches(i + 1, key, 0, key.length());
+
+            i = skipWhitespace(json, keyEnd);
+            if (i >= json.length() || json.charAt(i) != ':') {
+                return NOT_FOUND;
+            }
+            i = skipWhitespace(json, i + 1);
+            if (match) {
+                return i < json.length() ? i : NOT_FOUND;
+            }
+
+            i = skipWhitespace(json, valueEnd(json, i));
+            if (i < json.length() && json.charAt(i) == ',') {
+                i = skipWhitespace(json, i + 1);
+            } else {
+                return NOT_FOUND;
+            }
+        }
+        return NOT_FOUND;
+    }
+
+    /**
+     * <p>Find a field that must be present.
+     * </p>
+     *
+     * @param json Containing a JSON object
+     * @param objectStart Position of the object's "<code>{</code>"
+     * @param key Field name, containing nothing that would need escaped
+     * @return Position of the first character of the value
+     * @throws JSONException If the field isn't found
+     */
+    public static int requireValueStart(String json, int objectStart, String key) {
+        int start = valueStart(json, objectStart, key);
+        if (start == NOT_FOUND) {
+            throw new JSONException("JSONObject[\"" + key + "\"] not found.");
+        }
+        return start;
+    }
+
+    /**
+     * <p>A string field that must be present, unescaped.
+     * </p>
+     *
+     * @param json Containing a JSON object
+     * @param objectStart Position of the object's "<code>{</code>"
+     * @param key Field name
+     * @return The value, null if JSON null, text as is if not a string
+     */
+    public static String requireString(String json, int objectStart, String key) {
+        return stringValue(json, requireValueStart(json, objectStart, key));
+    }
+
+    /**
+     * <p>A numeric field that must be present, which may be quoted.
+     * </p>
+     *
+     * @param json Containing a JSON object
+     * @param objectStart Position of the object's "<code>{</code>"
+     * @param key Field name
+     * @return The value
+     */
+    public static long requireLong(String json, int objectStart, String key) {
+        return Long.parseLong(unquoted(json, requireValueStart(json, objectStart, key)));
+    }
+
+    /**
+     * <p>A numeric field that must be present, which may be quoted.
+     * </p>
+     *
+     * @param json Containing a JSON object
+     * @param objectStart Position of the object's "<code>{</code>"
+     * @param key Field name
+     * @return The value
+     */
+    public static double requireDouble(String json, int objectStart, String key) {
+        return Double.parseDouble(unquoted(json, requireValueStart(json, objectStart, key)));
+    }
+
+    /**
+     * <p>A boolean field that must be present, which may be quoted.
+     * </p>
+     *
+     * @param json Containing a JSON object
+     * @param objectStart Position of the object's "<code>{</code>"
+     * @param key Field name
+     * @return The value
+     * @throws JSONException If not "{@code true}" or "{@code false}"
+     */
+    public static boolean requireBoolean(String json, int objectStart, String key) {
+        String value = unquoted(json, requireValueStart(json, objectStart, key));
+        if ("true".equalsIgnoreCase(value)) {
+            return true;
+        }
+        if ("false".equalsIgnoreCase(value)) {
+            return false;
+        }
+        throw new JSONException("JSONObject[\"" + key + "\"] is not a Boolean.");
+    }
+
+    /**
+     * <p>The text of a value as it appears in the JSON, so a string
+     * value keeps its quotes and escaping, ready to copy into other JSON.
+     * </p>
+     *
+     * @param json Containing a JSON value
+     * @param start Position of the first character of the value
+     * @return The value's text
+     */
+    public static String rawValue(String json, int start) {
+        return json.substring(start, valueEnd(json, start));
+    }
+
+    /**
+     * <p>A string value, with escapes decoded.
+     * </p>
+     *
+     * @param json Containing a JSON value
+     * @param start Position of the first character of the value
+     * @return The value, null if JSON null, text as is if not a string
+     */
+    public static String stringValue(String json, int start) {
+        int end = valueEnd(json, start);
+        if (json.charAt(start) != '"') {
+            String raw = json.substring(start, end);
+            return "null".equals(raw) ? null : raw;
+        }
+        int close = end - 1;
+        int backslash = json.indexOf('\\', start + 1);
+        if (backslash < 0 || backslash >= close) {
+            return json.substring(start + 1, close);
+        }
+        return unescape(json, start + 1, close);
+    }
+
+    /**
+     * <p>First element of an array.
+     * </p>
+     *
+     * @param json Containing a JSON array
+     * @param arrayStart Position of the array's "<code>[</code>"
+     * @return Position of the first element, or {@link #NOT_FOUND} if empty
+     */
+    public static int firstElement(String json, int arrayStart) {
+        if (arrayStart < 0 || arrayStart >= json.length() || json.charAt(arrayStart) != '[') {
+            return NOT_FOUND;
+        }
+        int i = skipWhitespace(json, arrayStart + 1);
+        return (i < json.length() && json.charAt(i) != ']') ? i : NOT_FOUND;
+    }
+
+    /**
+     * <p>Next element of an array.
+     * </p>
+     *
+     * @param json Containing a JSON array
+     * @param elementStart Position of the current element
+     * @return Position of the next element, or {@link #NOT_FOUND} if no more
+     */
+    public static int nextElement(String json, int elementStart) {
+        int i = skipWhitespace(json, valueEnd(json, elementStart));
+        if (i < json.length() && json.charAt(i) == ',') {
+            i = skipWhitespace(json, i + 1);
+            return i < json.length() ? i : NOT_FOUND;
+        }
+        return NOT_FOUND;
+    }
+
+    /**
+     * <p>Find the end of a value, whatever its type.
+     * </p>
+     *
+     * @param json Containing a JSON value
+     * @param start Position of the first character of the value
+     * @return Position after the last character of the value
+     */
+    public static int valueEnd(String json, int start) {
+        if (start >= json.length()) {
+            return json.length();
+        }
+        char c = json.charAt(start);
+        if (c == '"') {
+            return stringEnd(json, start);
+        }
+        if (c == '{' || c == '[') {
+            return containerEnd(json, start);
+        }
+        // Number, true, false or null
+        int i = start;
+        while (i < json.length() && ",}] \t\r\n".indexOf(json.charAt(i)) < 0) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * <p>Compare a string value without extracting it.
+     * </p>
+     *
+     * @param json Containing a JSON value
+     * @param start Position of the first character of the value
+     * @param expected Containing nothing that would need escaped
+     * @return True if the value is a string with this content
+     */
+    public static boolean stringValueEquals(String json, int start, String expected) {
+        int close = start + 1 + expected.length();
+        return start >= 0
+                && close < json.length()
+                && json.charAt(start) == '"'
+                && json.charAt(close) == '"'
+                && json.regionMatches(start + 1, expected, 0, expected.length());
+    }
+
+    /**
+     * <p>Skip to the matching close of an object or array, stepping
+     * over any nested and over strings that may contain brackets.
+     * </p>
+     *
+     * @param json Containing a JSON object or array
+     * @param start Position of the opening "<code>{</code>" or "<code>[</code>"
+     * @return Position after the closing "<code>}</code>" or "<code>]</code>"
+     */
+    private static int containerEnd(String json, int start) {
+        int depth = 0;
+        int i = start;
+        while (i < json.length()) {
+            char c = json.charAt(i);
+            if (c == '"') {
+                i = stringEnd(json, i);
+                continue;
+            }
+            if (c == '{' || c == '[') {
+                depth++;
+            } else if (c == '}' || c == ']') {
+                depth--;
+                if (depth == 0) {
+                    return i + 1;
+                }
+            }
+            i++;
+        }
+        return json.length();
+    }
+
+    /**
+     * <p>Skip to the closing quote, stepping over escaped characters.
+     * </p>
+     *
+     * @param json Containing a JSON string
+     * @param start Position of the opening quote
+     * @return Position after the closing quote
+     */
+    private static int stringEnd(String json, int start) {
+        int i = start + 1;
+        while (i < json.length()) {
+            char c = json.charAt(i);
+            if (c == '\\') {
+                i += 2;
+            } else if (c == '"') {
+                return i + 1;
+            } else {
+                i++;
+            }
+        }
+        return json.length();
+    }
+
+    private static String unquoted(String json, int start) {
+        int end = valueEnd(json, start);
+        if (json.charAt(start) == '"') {
+            return json.substring(start + 1, end - 1);
+        }
+        return json.substring(start, end);
+    }
+
+    /**
+     * <p>Decode the escapes JSON allows in a string.
+     * </p>
+     */
+    @SuppressWarnings("checkstyle:CyclomaticComplexity")
+    private static String unescape(String json, int from, int to) {
+        StringBuilder stringBuilder = new StringBuilder(to - from);
+        int i = from;
+        while (i < to) {
+            char c = json.charAt(i++);
+            if (c != '\\' || i >= to) {
+                stringBuilder.append(c);
+                continue;
+            }
+            char escaped = json.charAt(i++);
+            switch (escaped) {
+                case 'b':
+                    stringBuilder.append('\b');
+                    break;
+                case 'f':
+                    stringBuilder.append('\f');
+                    break;
+                case 'n':
+                    stringBuilder.append('\n');
+                    break;
+                case 'r':
+                    stringBuilder.append('\r');
+                    break;
+                case 't':
+                    stringBuilder.append('\t');
+                    break;
+                case 'u':
+                    stringBuilder.append((char) Integer.parseInt(json.substring(i, i + UNICODE_DIGITS), HEX));
+                    i += UNICODE_DIGITS;
+                    break;
+                default:
+                    // Quote, backslash and slash are themselves
+                    stringBuilder.append(escaped);
+            }
+        }
+        return stringBuilder.toString();
+    }
+
+    private static int skipWhitespace(String json, int start) {
+        int i = start;
+        while (i < json.length() && Character.isWhitespace(json.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+}
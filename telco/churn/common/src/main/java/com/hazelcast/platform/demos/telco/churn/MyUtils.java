@@ -16,7 +16,6 @@
 
 package com.hazelcast.platform.demos.telco.churn;
 
-import java.text.DecimalFormat;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
@@ -52,8 +51,8 @@ public class MyUtils {
     private static final String[] ALPHABETS = { ALPHABET_UC, ALPHABET_LC };
     private static final int ALPHABET_LENGTH = ALPHABET_UC.length();
     private static final int HALF_ALPHABET_LENGTH = ALPHABET_LENGTH / 2;
-    private static final DecimalFormat PADDED_SIX_ZEROES = new DecimalFormat("000000");
-    private static final DecimalFormat PADDED_TEN_ZEROES = new DecimalFormat("0000000000");
+    private static final int PADDED_SIX = 6;
+    private static final int PADDED_TEN = 10;
 
     /**
      * <p>The classic 13 character rotation encryption.
@@ -242,7 +241,7 @@ public class MyUtils {
      * @return Same, formatted
      */
     public static String getAccountId(int i) {
-        return "AC" + PADDED_SIX_ZEROES.format(i);
+        return "AC" + zeroPad(i, PADDED_SIX);
     }
 
     /**
@@ -302,7 +301,30 @@ public class MyUtils {
         long l = Integer.toUnsignedLong(String.valueOf(Integer.MAX_VALUE - (i * i)).hashCode());
         l = Math.abs((l * l) + l);
 
-        return PADDED_TEN_ZEROES.format(l);
+        return zeroPad(l, PADDED_TEN);
+    }
+
+    /**
+     * <p>Left pad with zeroes to a minimum number of digits, as
+     * "{@code DecimalFormat("000000")}" would but safe for use
+     * by several threads at once.
+     * </p>
+     *
+     * @param value Any
+     * @param width Minimum digits
+     * @return Padded, with sign if negative
+     */
+    private static String zeroPad(long value, int width) {
+        String digits = Long.toString(value);
+        String sign = "";
+        if (value < 0) {
+            sign = "-";
+            digits = digits.substring(1);
+        }
+        if (digits.length() >= width) {
+            return sign + digits;
+        }
+        return sign + "0".repeat(width - digits.length()) + digits;
     }
 
     /**
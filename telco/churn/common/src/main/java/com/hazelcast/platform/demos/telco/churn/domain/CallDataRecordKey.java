@@ -16,9 +16,18 @@
 
 package com.hazelcast.platform.demos.telco.churn.domain;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
+import java.util.Objects;
 
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
 import com.hazelcast.partition.PartitionAware;
+import com.hazelcast.platform.demos.telco.churn.MyConstants;
 
 /**
  * <p>The primary key for call data record in Hazelcast is
@@ -27,21 +36,38 @@ import com.hazelcast.partition.PartitionAware;
  * <p>This enables all data records for the same caller id
  * to be hosted together.
  * </p>
- * <p>Although classes such as {@link Tuple2} exist for
- * this purpose, we use CSV format for simplicity.
+ * <p>The two parts are held separately, so the partition key
+ * is a field rather than derived each time it is needed,
+ * which is on every put, get, migration and Jet partitioning
+ * decision. The CSV form remains available for SQL and
+ * for the legacy databases.
+ * </p>
+ * <p>Serialized with {@link IdentifiedDataSerializable}, two strings
+ * without class metadata. Earlier versions used Java serialization
+ * with a single "{@code csv}" field, this form can still be read.
  * </p>
  */
-public class CallDataRecordKey implements PartitionAware<String>, Serializable {
+public class CallDataRecordKey implements PartitionAware<String>, IdentifiedDataSerializable, Serializable {
     private static final long serialVersionUID = 1L;
+    // Java serialization form, as before, for existing data
+    private static final ObjectStreamField[] serialPersistentFields = {
+        new ObjectStreamField("csv", String.class),
+    };
 
-    private String csv;
+    private String callerTelno;
+    private String id;
 
-    // No arg constructor needed for java.io.Serializable
+    // No arg constructor needed for IdentifiedDataSerializable
     public CallDataRecordKey() {
-        this.csv = ",";
+        this.callerTelno = "";
+        this.id = "";
     }
     public CallDataRecordKey(String arg0) {
-        this.csv = arg0;
+        this.setCsv(arg0);
+    }
+    public CallDataRecordKey(String arg0, String arg1) {
+        this.callerTelno = arg0;
+        this.id = arg1;
     }
 
     /**
@@ -51,21 +77,87 @@ public class CallDataRecordKey implements PartitionAware<String>, Serializable {
      */
     @Override
     public String getPartitionKey() {
-        return this.csv.split(",")[0];
+        return this.callerTelno;
     }
 
-    // Generated code below
+    @Override
+    public void writeData(ObjectDataOutput out) throws IOException {
+        out.writeString(this.callerTelno);
+        out.writeString(this.id);
+    }
+    @Override
+    public void readData(ObjectDataInput in) throws IOException {
+        this.callerTelno = in.readString();
+        this.id = in.readString();
+    }
+    @Override
+    public int getFactoryId() {
+        return MyConstants.CLASS_ID_MYDATASERIALIZABLEFACTORY;
+    }
+    @Override
+    public int getClassId() {
+        return MyConstants.CLASS_ID_CALLDATARECORDKEY;
+    }
 
+    /**
+     * <p>Read the earlier Java serialization form.
+     * </p>
+     */
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        this.setCsv((String) in.readFields().get("csv", ","));
+    }
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.putFields().put("csv", this.getCsv());
+        out.writeFields();
+    }
+
+    /**
+     * <p>"{@code callerTelno,id}", as used in SQL and by earlier versions.
+     * </p>
+     */
     public String getCsv() {
-        return csv;
+        return this.callerTelno + "," + this.id;
     }
     public void setCsv(String csv) {
-        this.csv = csv;
+        int comma = csv.indexOf(',');
+        if (comma < 0) {
+            this.callerTelno = csv;
+            this.id = "";
+        } else {
+            this.callerTelno = csv.substring(0, comma);
+            this.id = csv.substring(comma + 1);
+        }
+    }
+
+    // Generated code below
+
+    public String getCallerTelno() {
+        return callerTelno;
+    }
+    public String getId() {
+        return id;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(callerTelno, id);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        CallDataRecordKey other = (CallDataRecordKey) obj;
+        return Objects.equals(callerTelno, other.callerTelno) && Objects.equals(id, other.id);
     }
 
     @Override
     public String toString() {
-        return "CallDataRecordKey [csv=" + csv + "]";
+        return "CallDataRecordKey [callerTelno=" + callerTelno + ", id=" + id + "]";
     }
 
 }
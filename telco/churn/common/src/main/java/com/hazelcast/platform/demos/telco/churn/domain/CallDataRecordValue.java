@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) 2008-2022, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.platform.demos.telco.churn.domain;
+
+import java.util.Objects;
+
+/**
+ * <p>A call data record as held in Hazelcast, the value for the
+ * "{@code cdr}" map with {@link CallDataRecordKey} as the key.
+ * </p>
+ * <p>Stored with Compact serialization by {@link CallDataRecordValueSerializer},
+ * so Jet jobs use the fields directly rather than parsing JSON, and
+ * SQL can still select the fields by name. JSON only arrives from
+ * Kafka and the database, and is converted on the way in.
+ * </p>
+ */
+public class CallDataRecordValue {
+
+    private String id;
+    private String callerTelno;
+    private String callerMastId;
+    private String calleeTelno;
+    private String calleeMastId;
+    private long startTimestamp;
+    private int durationSeconds;
+    private boolean callSuccessful;
+    private String createdBy;
+    private long createdDate;
+    private String lastModifiedBy;
+    private long lastModifiedDate;
+
+    // Generated code below
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getCallerTelno() {
+        return callerTelno;
+    }
+
+    public void setCallerTelno(String callerTelno) {
+        this.callerTelno = callerTelno;
+    }
+
+    public String getCallerMastId() {
+        return callerMastId;
+    }
+
+    public void setCallerMastId(String callerMastId) {
+        this.callerMastId = callerMastId;
+    }
+
+    public String getCalleeTelno() {
+        return calleeTelno;
+    }
+
+    public void setCalleeTelno(String calleeTelno) {
+        this.calleeTelno = calleeTelno;
+    }
+
+    public String getCalleeMastId() {
+        return calleeMastId;
+    }
+
+    public void setCalleeMastId(String calleeMastId) {
+        this.calleeMastId = calleeMastId;
+    }
+
+    public long getStartTimestamp() {
+        return startTimestamp;
+    }
+
+    public void setStartTimestamp(long startTimestamp) {
+        this.startTimestamp = startTimestamp;
+    }
+
+    public int getDurationSeconds() {
+        return durationSeconds;
+    }
+
+    public void setDurationSeconds(int durationSeconds) {
+        this.durationSeconds = durationSeconds;
+    }
+
+    public boolean isCallSuccessful() {
+        return callSuccessful;
+    }
+
+    public void setCallSuccessful(boolean callSuccessful) {
+        this.callSuccessful = callSuccessful;
+    }
+
+    public String getCreatedBy() {
+        return createdBy;
+    }
+
+    public void setCreatedBy(String createdBy) {
+        this.createdBy = createdBy;
+    }
+
+    public long getCreatedDate() {
+        return createdDate;
+    }
+
+    public void setCreatedDate(long createdDate) {
+        this.createdDate = createdDate;
+    }
+
+    public String getLastModifiedBy() {
+        return lastModifiedBy;
+    }
+
+    public void setLastModifiedBy(String lastModifiedBy) {
+        this.lastModifiedBy = lastModifiedBy;
+    }
+
+    public long getLastModifiedDate() {
+        return lastModifiedDate;
+    }
+
+    public void setLastModifiedDate(long lastModifiedDate) {
+        this.lastModifiedDate = lastModifiedDate;
+    }
+
+    @Override
+    public int hashCode() {
+        final int prime = 31;
+        int result = 1;
+        result = prime * result + ((id == null) ? 0 : id.hashCode());
+        result = prime * result + ((callerTelno == null) ? 0 : callerTelno.hashCode());
+        result = prime * result + (int) (lastModifiedDate ^ (lastModifiedDate >>> 32));
+        return result;
+    }
+
+    @SuppressWarnings("checkstyle:CyclomaticComplexity")
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        CallDataRecordValue other = (CallDataRecordValue) obj;
+        return startTimestamp == other.startTimestamp
+                && durationSeconds == other.durationSeconds
+                && callSuccessful == other.callSuccessful
+                && createdDate == other.createdDate
+                && lastModifiedDate == other.lastModifiedDate
+                && Objects.equals(id, other.id)
+                && Objects.equals(callerTelno, other.callerTelno)
+                && Objects.equals(callerMastId, other.callerMastId)
+                && Objects.equals(calleeTelno, other.calleeTelno)
+                && Objects.equals(calleeMastId, other.calleeMastId)
+                && Objects.equals(createdBy, other.createdBy)
+                && Objects.equals(lastModifiedBy, other.lastModifiedBy);
+    }
+
+    @Override
+    public String toString() {
+        return "CallDataRecordValue [id=" + id + ", callerTelno=" + callerTelno + ", callerMastId=" + callerMastId
+                + ", calleeTelno=" + calleeTelno + ", calleeMastId=" + calleeMastId + ", startTimestamp="
+                + startTimestamp + ", durationSeconds=" + durationSeconds + ", callSuccessful=" + callSuccessful
+                + ", createdBy=" + createdBy + ", createdDate=" + createdDate + ", lastModifiedBy=" + lastModifiedBy
+                + ", lastModifiedDate=" + lastModifiedDate + "]";
+    }
+
+}
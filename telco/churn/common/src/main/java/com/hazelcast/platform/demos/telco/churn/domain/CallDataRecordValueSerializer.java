@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2008-2022, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.platform.demos.telco.churn.domain;
+
+import com.hazelcast.nio.serialization.compact.CompactReader;
+import com.hazelcast.nio.serialization.compact.CompactSerializer;
+import com.hazelcast.nio.serialization.compact.CompactWriter;
+
+/**
+ * <p>Compact serialization for {@link CallDataRecordValue}, field names
+ * are those in {@link CallDataRecordMetadata} so are the same as the
+ * JSON and as the columns for SQL.
+ * </p>
+ * <p>An explicit serializer rather than reflection, so there is no
+ * reflective access per field. Registered in the "{@code hazelcast*.yml}"
+ * files under the type name
+ * {@link com.hazelcast.platform.demos.telco.churn.MyConstants#COMPACT_TYPE_NAME_CALLDATARECORD}.
+ * </p>
+ */
+public class CallDataRecordValueSerializer implements CompactSerializer<CallDataRecordValue> {
+
+    /**
+     * <p>Read fields, use defined order.</p>
+     */
+    @Override
+    public CallDataRecordValue read(CompactReader reader) {
+        CallDataRecordValue callDataRecordValue = new CallDataRecordValue();
+        callDataRecordValue.setId(reader.readString(CallDataRecordMetadata.ID));
+        callDataRecordValue.setCallerTelno(reader.readString(CallDataRecordMetadata.CALLER_TELNO));
+        callDataRecordValue.setCallerMastId(reader.readString(CallDataRecordMetadata.CALLER_MAST_ID));
+        callDataRecordValue.setCalleeTelno(reader.readString(CallDataRecordMetadata.CALLEE_TELNO));
+        callDataRecordValue.setCalleeMastId(reader.readString(CallDataRecordMetadata.CALLEE_MAST_ID));
+        callDataRecordValue.setStartTimestamp(reader.readInt64(CallDataRecordMetadata.START_TIMESTAMP));
+        callDataRecordValue.setDurationSeconds(reader.readInt32(CallDataRecordMetadata.DURATION_SECONDS));
+        callDataRecordValue.setCallSuccessful(reader.readBoolean(CallDataRecordMetadata.CALL_SUCCESSFUL));
+        callDataRecordValue.setCreatedBy(reader.readString(CallDataRecordMetadata.CREATED_BY));
+        callDataRecordValue.setCreatedDate(reader.readInt64(CallDataRecordMetadata.CREATED_DATE));
+        callDataRecordValue.setLastModifiedBy(reader.readString(CallDataRecordMetadata.LAST_MODIFIED_BY));
+        callDataRecordValue.setLastModifiedDate(reader.readInt64(CallDataRecordMetadata.LAST_MODIFIED_DATE));
+        return callDataRecordValue;
+    }
+
+    /**
+     * <p>Write fields, use defined order.</p>
+     */
+    @Override
+    public void write(CompactWriter writer, CallDataRecordValue callDataRecordValue) {
+        writer.writeString(CallDataRecordMetadata.ID, callDataRecordValue.getId());
+        writer.writeString(CallDataRecordMetadata.CALLER_TELNO, callDataRecordValue.getCallerTelno());
+        writer.writeString(CallDataRecordMetadata.CALLER_MAST_ID, callDataRecordValue.getCallerMastId());
+        writer.writeString(CallDataRecordMetadata.CALLEE_TELNO, callDataRecordValue.getCalleeTelno());
+        writer.writeString(CallDataRecordMetadata.CALLEE_MAST_ID, callDataRecordValue.getCalleeMastId());
+        writer.writeInt64(CallDataRecordMetadata.START_TIMESTAMP, callDataRecordValue.getStartTimestamp());
+        writer.writeInt32(CallDataRecordMetadata.DURATION_SECONDS, callDataRecordValue.getDurationSeconds());
+        writer.writeBoolean(CallDataRecordMetadata.CALL_SUCCESSFUL, callDataRecordValue.isCallSuccessful());
+        writer.writeString(CallDataRecordMetadata.CREATED_BY, callDataRecordValue.getCreatedBy());
+        writer.writeInt64(CallDataRecordMetadata.CREATED_DATE, callDataRecordValue.getCreatedDate());
+        writer.writeString(CallDataRecordMetadata.LAST_MODIFIED_BY, callDataRecordValue.getLastModifiedBy());
+        writer.writeInt64(CallDataRecordMetadata.LAST_MODIFIED_DATE, callDataRecordValue.getLastModifiedDate());
+    }
+
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2008-2022, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.platform.demos.telco.churn;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.json.JSONException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>Test {@link MyJsonScanner} finds only the fields of the intended object.
+ * </p>
+ */
+public class MyJsonScannerTest {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MyJsonScannerTest.class);
+
+    private static final String JSON = "{ \"id\" : \"abc\", \"notes\" : [ \"a \\\"lastModifiedBy\\\": x\", { \"b\" : [1] } ],"
+            + " \"nested\": {\"lastModifiedBy\":\"inner\"}, \"lastModifiedDate\":1600000000000,"
+            + "\"lastModifiedBy\" : \"churn-data-feed\", \"flag\": true }";
+
+    @Test
+    public void testTopLevel(TestInfo testInfo) throws Exception {
+        int start = MyJsonScanner.valueStart(JSON, "lastModifiedBy");
+        int end = MyJsonScanner.valueEnd(JSON, start);
+        String output = JSON.substring(start, end);
+        LOGGER.info("{} :: output=='{}'", testInfo.getDisplayName(), output);
+
+        assertThat(output).isEqualTo("\"churn-data-feed\"");
+        assertThat(MyJsonScanner.stringValueEquals(JSON, start, "churn-data-feed")).isTrue();
+        assertThat(MyJsonScanner.stringValueEquals(JSON, start, "churn-data")).isFalse();
+        assertThat(MyJsonScanner.stringValueEquals(JSON, start, "churn-update-legacy")).isFalse();
+    }
+
+    @Test
+    public void testTypes(TestInfo testInfo) throws Exception {
+        int dateStart = MyJsonScanner.valueStart(JSON, "lastModifiedDate");
+        int flagStart = MyJsonScanner.valueStart(JSON, "flag");
+        int notesStart = MyJsonScanner.valueStart(JSON, "notes");
+        String date = JSON.substring(dateStart, MyJsonScanner.valueEnd(JSON, dateStart));
+        String flag = JSON.substring(flagStart, MyJsonScanner.valueEnd(JSON, flagStart));
+        String notes = JSON.substring(notesStart, MyJsonScanner.valueEnd(JSON, notesStart));
+        LOGGER.info("{} :: date=='{}', flag=='{}', notes=='{}'", testInfo.getDisplayName(), date, flag, notes);
+
+        assertThat(date).isEqualTo("1600000000000");
+        assertThat(flag).isEqualTo("true");
+        assertThat(notes).isEqualTo("[ \"a \\\"lastModifiedBy\\\": x\", { \"b\" : [1] } ]");
+        assertThat(MyJsonScanner.stringValueEquals(JSON, dateStart, "1600000000000")).isFalse();
+    }
+
+    @Test
+    public void testNested(TestInfo testInfo) throws Exception {
+        int nestedStart = MyJsonScanner.valueStart(JSON, "nested");
+        int start = MyJsonScanner.valueStart(JSON, nestedStart, "lastModifiedBy");
+        LOGGER.info("{} :: nestedStart=={}, start=={}", testInfo.getDisplayName(), nestedStart, start);
+
+        assertThat(MyJsonScanner.stringValueEquals(JSON, start, "inner")).isTrue();
+    }
+
+    @Test
+    public void testNotFound(TestInfo testInfo) throws Exception {
+        int missing = MyJsonScanner.valueStart(JSON, "missing");
+        int empty = MyJsonScanner.valueStart("{}", "id");
+        int malformed = MyJsonScanner.valueStart("{\"id\" \"abc\"}", "id");
+        int notObject = MyJsonScanner.valueStart("[\"id\"]", "id");
+        LOGGER.info("{} :: missing=={}, empty=={}, malformed=={}, notObject=={}",
+                testInfo.getDisplayName(), missing, empty, malformed, notObject);
+
+        assertThat(missing).isEqualTo(MyJsonScanner.NOT_FOUND);
+        assertThat(empty).isEqualTo(MyJsonScanner.NOT_FOUND);
+        assertThat(malformed).isEqualTo(MyJsonScanner.NOT_FOUND);
+        assertThat(notObject).isEqualTo(MyJsonScanner.NOT_FOUND);
+        assertThat(MyJsonScanner.stringValueEquals(JSON, MyJsonScanner.NOT_FOUND, "x")).isFalse();
+    }
+
+    @Test
+    public void testValues(TestInfo testInfo) throws Exception {
+        String json = "{ \"s\" : \"a\\\"b\\\\c\\u0041\", \"n\" : null, \"l\" : \"123\", \"d\" : 9.5,"
+                + " \"b\" : true, \"o\" : { \"value\" : 7 } }";
+        int objectStart = MyJsonScanner.requireValueStart(json, 0, "o");
+        LOGGER.info("{} :: s=='{}'", testInfo.getDisplayName(), MyJsonScanner.requireString(json, 0, "s"));
+
+        assertThat(MyJsonScanner.requireString(json, 0, "s")).isEqualTo("a\"b\\cA");
+        assertThat(MyJsonScanner.rawValue(json, MyJsonScanner.valueStart(json, "s"))).isEqualTo("\"a\\\"b\\\\c\\u0041\"");
+        assertThat(MyJsonScanner.requireString(json, 0, "n")).isNull();
+        assertThat(MyJsonScanner.requireLong(json, 0, "l")).isEqualTo(123L);
+        assertThat(MyJsonScanner.requireDouble(json, 0, "d")).isEqualTo(9.5d);
+        assertThat(MyJsonScanner.requireBoolean(json, 0, "b")).isTrue();
+        assertThat(MyJsonScanner.requireLong(json, objectStart, "value")).isEqualTo(7L);
+
+        JSONException e = assertThrows(JSONException.class, () -> MyJsonScanner.requireString(json, 0, "missing"));
+        assertThat(e.getMessage()).isEqualTo("JSONObject[\"missing\"] not found.");
+    }
+
+    @Test
+    public void testArray(TestInfo testInfo) throws Exception {
+        int notesStart = MyJsonScanner.valueStart(JSON, "notes");
+        List<String> elements = new ArrayList<>();
+        for (int i = MyJsonScanner.firstElement(JSON, notesStart); i != MyJsonScanner.NOT_FOUND;
+                i = MyJsonScanner.nextElement(JSON, i)) {
+            elements.add(MyJsonScanner.rawValue(JSON, i));
+        }
+        LOGGER.info("{} :: elements=={}", testInfo.getDisplayName(), elements);
+
+        assertThat(elements).isEqualTo(List.of("\"a \\\"lastModifiedBy\\\": x\"", "{ \"b\" : [1] }"));
+        assertThat(MyJsonScanner.firstElement("[ ]", 0)).isEqualTo(MyJsonScanner.NOT_FOUND);
+        assertThat(MyJsonScanner.firstElement(JSON, 0)).isEqualTo(MyJsonScanner.NOT_FOUND);
+    }
+}
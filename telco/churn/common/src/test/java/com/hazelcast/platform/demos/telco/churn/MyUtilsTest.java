@@ -18,6 +18,13 @@ package com.hazelcast.platform.demos.telco.churn;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInfo;
 import org.slf4j.Logger;
@@ -195,4 +202,37 @@ public class MyUtilsTest {
         assertThat(output).isEqualTo(expected);
     }
 
+    @Test
+    public void testTelnoThreadSafe(TestInfo testInfo) throws Exception {
+        int count = 20_000;
+        String[] expected = new String[count];
+        for (int i = 0; i < count; i++) {
+            expected[i] = MyUtils.getTelno(i) + MyUtils.getMastId(i, i % 10) + MyUtils.getAccountId(i);
+        }
+
+        List<Callable<Integer>> tasks = new ArrayList<>();
+        for (int thread = 0; thread < 4; thread++) {
+            tasks.add(() -> {
+                int wrong = 0;
+                for (int i = 0; i < count; i++) {
+                    String actual = MyUtils.getTelno(i) + MyUtils.getMastId(i, i % 10) + MyUtils.getAccountId(i);
+                    if (!actual.equals(expected[i])) {
+                        wrong++;
+                    }
+                }
+                return wrong;
+            });
+        }
+        ExecutorService executorService = Executors.newFixedThreadPool(tasks.size());
+        int wrong = 0;
+        for (Future<Integer> future : executorService.invokeAll(tasks)) {
+            wrong += future.get();
+        }
+        executorService.shutdown();
+        LOGGER.info("{} :: '{}', {} wrong", testInfo.getDisplayName(), expected[1], wrong);
+
+        assertThat(MyUtils.getAccountId(7)).isEqualTo("AC000007");
+        assertThat(wrong).isEqualTo(0);
+    }
+
 }
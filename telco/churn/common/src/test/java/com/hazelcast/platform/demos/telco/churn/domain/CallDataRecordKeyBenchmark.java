@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2008-2022, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.platform.demos.telco.churn.domain;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.hazelcast.internal.serialization.Data;
+import com.hazelcast.internal.serialization.InternalSerializationService;
+import com.hazelcast.internal.serialization.impl.DefaultSerializationServiceBuilder;
+import com.hazelcast.partition.strategy.DefaultPartitioningStrategy;
+import com.hazelcast.platform.demos.telco.churn.MyConstants;
+import com.hazelcast.platform.demos.telco.churn.MyIdentifiedDataSerializableFactory;
+
+/**
+ * <p>Not a precise benchmark, but enough to show the difference. Compare Java
+ * serialization and splitting for the partition key, as previously,
+ * against {@link com.hazelcast.nio.serialization.IdentifiedDataSerializable}
+ * and a field.
+ * </p>
+ * <p>Depends on the machine, so is a "{@code main()}" to run by hand rather
+ * than a test, for example from the IDE.
+ * </p>
+ */
+public class CallDataRecordKeyBenchmark {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CallDataRecordKeyBenchmark.class);
+    private static final String CALLER_TELNO = "447700900123";
+    private static final String ID = "5f3e8a2c";
+    private static final int WARMUP = 50_000;
+    private static final int REPEAT = 200_000;
+
+    private static InternalSerializationService serializationService;
+
+    public static void main(String[] args) throws Exception {
+        serializationService = new DefaultSerializationServiceBuilder()
+                .addDataSerializableFactory(MyConstants.CLASS_ID_MYDATASERIALIZABLEFACTORY,
+                        new MyIdentifiedDataSerializableFactory())
+                .build();
+
+        CallDataRecordKey[] keys = new CallDataRecordKey[REPEAT];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = new CallDataRecordKey(CALLER_TELNO.substring(0, 6) + (i % 1_000), ID + i);
+        }
+
+        for (int pass = 0; pass < 2; pass++) {
+            int count = pass == 0 ? WARMUP : REPEAT;
+            long javaNanos = timeJava(keys, count);
+            long idsNanos = timeIdentifiedDataSerializable(keys, count);
+            long splitNanos = timePartitionKeySplit(keys, count);
+            long fieldNanos = timePartitionKeyField(keys, count);
+            LOGGER.info("pass {}, ns per key: round trip Java {} IdentifiedDataSerializable {},"
+                    + " partition key split {} field {}",
+                    pass, javaNanos / count, idsNanos / count, splitNanos / count, fieldNanos / count);
+        }
+
+        serializationService.dispose();
+    }
+
+    private static long timeJava(CallDataRecordKey[] keys, int count) throws Exception {
+        int hash = 0;
+        long before = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            hash += CallDataRecordKeyTest.javaDeserialize(CallDataRecordKeyTest.javaSerialize(keys[i])).hashCode();
+        }
+        long elapsed = System.nanoTime() - before;
+        LOGGER.trace("timeJava() hash=={}", hash);
+        return elapsed;
+    }
+
+    private static long timeIdentifiedDataSerializable(CallDataRecordKey[] keys, int count) {
+        DefaultPartitioningStrategy partitioningStrategy = new DefaultPartitioningStrategy();
+        int hash = 0;
+        long before = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            Data data = serializationService.toData(keys[i], partitioningStrategy);
+            hash += serializationService.toObject(data).hashCode();
+        }
+        long elapsed = System.nanoTime() - before;
+        LOGGER.trace("timeIdentifiedDataSerializable() hash=={}", hash);
+        return elapsed;
+    }
+
+    private static long timePartitionKeySplit(CallDataRecordKey[] keys, int count) {
+        String[] csvs = new String[count];
+        for (int i = 0; i < count; i++) {
+            csvs[i] = keys[i].getCsv();
+        }
+        int hash = 0;
+        long before = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            hash += csvs[i].split(",")[0].hashCode();
+        }
+        long elapsed = System.nanoTime() - before;
+        LOGGER.trace("timePartitionKeySplit() hash=={}", hash);
+        return elapsed;
+    }
+
+    private static long timePartitionKeyField(CallDataRecordKey[] keys, int count) {
+        int hash = 0;
+        long before = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            hash += keys[i].getPartitionKey().hashCode();
+        }
+        long elapsed = System.nanoTime() - before;
+        LOGGER.trace("timePartitionKeyField() hash=={}", hash);
+        return elapsed;
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2008-2022, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.platform.demos.telco.churn.domain;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Base64;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.hazelcast.internal.serialization.Data;
+import com.hazelcast.internal.serialization.InternalSerializationService;
+import com.hazelcast.internal.serialization.impl.DefaultSerializationServiceBuilder;
+import com.hazelcast.platform.demos.telco.churn.MyConstants;
+import com.hazelcast.platform.demos.telco.churn.MyIdentifiedDataSerializableFactory;
+
+/**
+ * <p>Test {@link CallDataRecordKey} serialization, including reading
+ * the earlier Java serialized form. Timings are in
+ * {@link CallDataRecordKeyBenchmark}, which isn't run as a test.
+ * </p>
+ */
+public class CallDataRecordKeyTest {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CallDataRecordKeyTest.class);
+    private static final String CALLER_TELNO = "447700900123";
+    private static final String ID = "5f3e8a2c";
+    // Java serialized by the earlier version, "csv" field only
+    private static final String EARLIER_JAVA_SERIALIZED =
+            "rO0ABXNyAEFjb20uaGF6ZWxjYXN0LnBsYXRmb3JtLmRlbW9zLnRlbGNvLmNodXJuLmRvbWFpbi5DYWxsRGF0YVJlY29yZEtleQAA"
+            + "AAAAAAABAgABTAADY3N2dAASTGphdmEvbGFuZy9TdHJpbmc7eHB0ABU0NDc3MDA5MDAxMjMsNWYzZThhMmM=";
+
+    private static InternalSerializationService serializationService;
+
+    @BeforeAll
+    public static void beforeAll() {
+        serializationService = new DefaultSerializationServiceBuilder()
+                .addDataSerializableFactory(MyConstants.CLASS_ID_MYDATASERIALIZABLEFACTORY,
+                        new MyIdentifiedDataSerializableFactory())
+                .build();
+    }
+
+    @Test
+    public void testFields(TestInfo testInfo) throws Exception {
+        CallDataRecordKey key = new CallDataRecordKey(CALLER_TELNO + "," + ID);
+        LOGGER.info("{} :: key=='{}'", testInfo.getDisplayName(), key);
+
+        assertThat(key.getCallerTelno()).isEqualTo(CALLER_TELNO);
+        assertThat(key.getId()).isEqualTo(ID);
+        assertThat(key.getPartitionKey()).isEqualTo(CALLER_TELNO);
+        assertThat(key.getCsv()).isEqualTo(CALLER_TELNO + "," + ID);
+        assertThat(key).isEqualTo(new CallDataRecordKey(CALLER_TELNO, ID));
+        assertThat(key.hashCode()).isEqualTo(new CallDataRecordKey(CALLER_TELNO, ID).hashCode());
+    }
+
+    @Test
+    public void testIdentifiedDataSerializable(TestInfo testInfo) throws Exception {
+        CallDataRecordKey key = new CallDataRecordKey(CALLER_TELNO, ID);
+        Data data = serializationService.toData(key);
+        CallDataRecordKey output = serializationService.toObject(data);
+        LOGGER.info("{} :: bytes=={}, output=='{}'", testInfo.getDisplayName(), data.totalSize(), output);
+
+        assertThat(data.isPortable()).isFalse();
+        assertThat(output).isEqualTo(key);
+    }
+
+    @Test
+    public void testReadEarlierJavaSerialized(TestInfo testInfo) throws Exception {
+        byte[] bytes = Base64.getDecoder().decode(EARLIER_JAVA_SERIALIZED);
+        Object output = javaDeserialize(bytes);
+        LOGGER.info("{} :: output=='{}'", testInfo.getDisplayName(), output);
+
+        assertThat(output).isEqualTo(new CallDataRecordKey(CALLER_TELNO, ID));
+    }
+
+    @Test
+    public void testJavaSerialized(TestInfo testInfo) throws Exception {
+        CallDataRecordKey key = new CallDataRecordKey(CALLER_TELNO, ID);
+        Object output = javaDeserialize(javaSerialize(key));
+        LOGGER.info("{} :: output=='{}'", testInfo.getDisplayName(), output);
+
+        assertThat(output).isEqualTo(key);
+    }
+
+    @Test
+    public void testSize(TestInfo testInfo) throws Exception {
+        CallDataRecordKey key = new CallDataRecordKey(CALLER_TELNO, ID);
+        int javaSize = javaSerialize(key).length;
+        int idsSize = serializationService.toData(key).totalSize();
+        LOGGER.info("{} :: serialized bytes, Java {}, IdentifiedDataSerializable {}",
+                testInfo.getDisplayName(), javaSize, idsSize);
+
+        assertThat(idsSize).isLessThan(javaSize);
+    }
+
+    static byte[] javaSerialize(Object object) throws IOException {
+        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+        try (ObjectOutputStream objectOutputStream = new ObjectOutputStream(byteArrayOutputStream)) {
+            objectOutputStream.writeObject(object);
+        }
+        return byteArrayOutputStream.toByteArray();
+    }
+
+    static Object javaDeserialize(byte[] bytes) throws Exception {
+        try (ObjectInputStream objectInputStream = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return objectInputStream.readObject();
+        }
+    }
+
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2008-2022, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.platform.demos.telco.churn.domain;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.json.JSONObject;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.hazelcast.config.SerializationConfig;
+import com.hazelcast.core.HazelcastJsonValue;
+import com.hazelcast.internal.serialization.Data;
+import com.hazelcast.internal.serialization.InternalSerializationService;
+import com.hazelcast.internal.serialization.impl.DefaultSerializationServiceBuilder;
+import com.hazelcast.internal.serialization.impl.compact.Schema;
+import com.hazelcast.internal.serialization.impl.compact.SchemaService;
+import com.hazelcast.platform.demos.telco.churn.MyConstants;
+import com.hazelcast.platform.demos.telco.churn.MyCsvUtils;
+
+/**
+ * <p>Test {@link CallDataRecordValue} Compact serialization, and compare
+ * its size against JSON as the value was previously held.
+ * </p>
+ */
+public class CallDataRecordValueTest {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CallDataRecordValueTest.class);
+
+    private static InternalSerializationService serializationService;
+
+    @BeforeAll
+    public static void beforeAll() {
+        SerializationConfig serializationConfig = new SerializationConfig();
+        serializationConfig.getCompactSerializationConfig().setEnabled(true)
+            .register(CallDataRecordValue.class, MyConstants.COMPACT_TYPE_NAME_CALLDATARECORD,
+                    new CallDataRecordValueSerializer());
+
+        serializationService = new DefaultSerializationServiceBuilder()
+                .setConfig(serializationConfig)
+                .setSchemaService(new LocalSchemaService())
+                .build();
+    }
+
+    @Test
+    public void testCompact(TestInfo testInfo) throws Exception {
+        CallDataRecordValue value = makeCallDataRecordValue(0);
+        Data data = serializationService.toData(value);
+        CallDataRecordValue output = serializationService.toObject(data);
+        LOGGER.info("{} :: bytes=={}, output=='{}'", testInfo.getDisplayName(), data.totalSize(), output);
+
+        assertThat(data.isPortable()).isFalse();
+        assertThat(output).isEqualTo(value);
+    }
+
+    @Test
+    public void testCsv(TestInfo testInfo) throws Exception {
+        CallDataRecordValue value = makeCallDataRecordValue(0);
+        String csv = MyCsvUtils.toCSVCallDataRecord(value);
+        LOGGER.info("{} :: csv=='{}'", testInfo.getDisplayName(), csv);
+
+        // Alphabetical order, five commas to "callSuccessful"
+        assertThat(csv).isEqualTo("m2,447700900456,m1,447700900123,true,churn-data-feed,1600000000000,"
+                + "61,id0,churn-data-feed,1600000000000,1599999930000");
+        assertThat(MyCsvUtils.toCSVCallDataRecord(null)).isEqualTo(",,,,,,,,,,,");
+    }
+
+    @Test
+    public void testSize(TestInfo testInfo) throws Exception {
+        CallDataRecordValue value = makeCallDataRecordValue(0);
+        int compactSize = serializationService.toData(value).totalSize();
+        int jsonSize = serializationService.toData(new HazelcastJsonValue(toJson(value))).totalSize();
+        LOGGER.info("{} :: serialized bytes, JSON {}, Compact {}",
+                testInfo.getDisplayName(), jsonSize, compactSize);
+
+        assertThat(compactSize).isLessThan(jsonSize);
+    }
+
+    private static CallDataRecordValue makeCallDataRecordValue(int i) {
+        CallDataRecordValue value = new CallDataRecordValue();
+        value.setId("id" + i);
+        value.setCallerTelno("447700900123");
+        value.setCallerMastId("m1");
+        value.setCalleeTelno("447700900456");
+        value.setCalleeMastId("m2");
+        value.setStartTimestamp(1599999930000L);
+        value.setDurationSeconds(61);
+        value.setCallSuccessful(true);
+        value.setCreatedBy("churn-data-feed");
+        value.setCreatedDate(1600000000000L);
+        value.setLastModifiedBy("churn-data-feed");
+        value.setLastModifiedDate(1600000000000L);
+        return value;
+    }
+
+    /**
+     * <p>As the value was previously held.
+     * </p>
+     */
+    private static String toJson(CallDataRecordValue value) {
+        JSONObject json = new JSONObject();
+        json.put(CallDataRecordMetadata.ID, value.getId());
+        json.put(CallDataRecordMetadata.CALLER_TELNO, value.getCallerTelno());
+        json.put(CallDataRecordMetadata.CALLER_MAST_ID, value.getCallerMastId());
+        json.put(CallDataRecordMetadata.CALLEE_TELNO, value.getCalleeTelno());
+        json.put(CallDataRecordMetadata.CALLEE_MAST_ID, value.getCalleeMastId());
+        json.put(CallDataRecordMetadata.START_TIMESTAMP, value.getStartTimestamp());
+        json.put(CallDataRecordMetadata.DURATION_SECONDS, value.getDurationSeconds());
+        json.put(CallDataRecordMetadata.CALL_SUCCESSFUL, value.isCallSuccessful());
+        json.put(CallDataRecordMetadata.CREATED_BY, value.getCreatedBy());
+        json.put(CallDataRecordMetadata.CREATED_DATE, value.getCreatedDate());
+        json.put(CallDataRecordMetadata.LAST_MODIFIED_BY, value.getLastModifiedBy());
+        json.put(CallDataRecordMetadata.LAST_MODIFIED_DATE, value.getLastModifiedDate());
+        return json.toString();
+    }
+
+    /**
+     * <p>Schemas would be shared across the cluster, here there is only one JVM.
+     * </p>
+     */
+    private static class LocalSchemaService implements SchemaService {
+        private final Map<Long, Schema> schemas = new ConcurrentHashMap<>();
+
+        @Override
+        public Schema get(long schemaId) {
+            return this.schemas.get(schemaId);
+        }
+
+        @Override
+        public void put(Schema schema) {
+            this.schemas.put(schema.getSchemaId(), schema);
+        }
+
+        @Override
+        public void putLocal(Schema schema) {
+            this.put(schema);
+        }
+    }
+}
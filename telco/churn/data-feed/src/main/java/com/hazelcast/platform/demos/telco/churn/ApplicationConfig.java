@@ -34,6 +34,8 @@ import org.springframework.kafka.core.ProducerFactory;
  */
 @Configuration
 public class ApplicationConfig {
+    private static final int DEFAULT_LINGER_MS = 5;
+    private static final int DEFAULT_BATCH_SIZE = 64 * 1024;
 
     @Autowired
     private MyProperties myProperties;
@@ -41,6 +43,11 @@ public class ApplicationConfig {
     /**
      * <p>Use string key and string value.
      * </p>
+     * <p>Sends are asynchronous and batched by the producer, waiting up to
+     * "{@code my.feed.linger.ms}" (default 5) to fill a batch of
+     * "{@code my.feed.batch.size}" bytes (default 64KB), compressed with
+     * "{@code my.feed.compression.type}" (default "{@code none}").
+     * </p>
      */
     @Bean
     public KafkaTemplate<String, String> kafkaTemplate() {
@@ -49,6 +56,12 @@ public class ApplicationConfig {
         producerConfigs.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, this.myProperties.getBootstrapServers());
         producerConfigs.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
         producerConfigs.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        producerConfigs.put(ProducerConfig.LINGER_MS_CONFIG,
+                Integer.getInteger("my.feed.linger.ms", DEFAULT_LINGER_MS));
+        producerConfigs.put(ProducerConfig.BATCH_SIZE_CONFIG,
+                Integer.getInteger("my.feed.batch.size", DEFAULT_BATCH_SIZE));
+        producerConfigs.put(ProducerConfig.COMPRESSION_TYPE_CONFIG,
+                System.getProperty("my.feed.compression.type", "none"));
 
         ProducerFactory<String, String> producerFactory = new DefaultKafkaProducerFactory<>(producerConfigs);
 
@@ -16,9 +16,10 @@
 
 package com.hazelcast.platform.demos.telco.churn;
 
-import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicLong;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -27,30 +28,38 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.core.KafkaTemplate;
-import org.springframework.kafka.support.SendResult;
-import org.springframework.util.concurrent.ListenableFuture;
-import org.springframework.util.concurrent.ListenableFutureCallback;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.hazelcast.platform.demos.telco.churn.domain.CallDataRecord;
 import com.hazelcast.platform.demos.telco.churn.testdata.CustomerTestdata;
 
 /**
- * <p>Every second, a different customer attempts a call, and some calls are dropped.
+ * <p>Customers make calls, and some calls are dropped. By default one call
+ * per second, but rates of hundreds of thousands per second are possible.
+ * </p>
+ * <p>Set by system properties:
+ * <ul>
+ * <li>"{@code my.feed.rate}" - calls per second, default 1</li>
+ * <li>"{@code my.feed.producers}" - producer threads, default 1</li>
+ * <li>"{@code my.feed.failure.rate}" - share of calls dropped, default 0.2</li>
+ * <li>"{@code my.feed.hot.callers}" - customers given a fixed share of calls, default 0</li>
+ * <li>"{@code my.feed.hot.share}" - share of calls made by hot callers, default 0.5</li>
+ * <li>"{@code my.feed.burst.every.seconds}" - seconds between bursts, default 0 for none</li>
+ * <li>"{@code my.feed.burst.seconds}" - seconds a burst lasts, default 5</li>
+ * <li>"{@code my.feed.burst.multiplier}" - rate multiplier in a burst, default 10</li>
+ * <li>"{@code my.feed.seed}" - for repeatable calls, default 1</li>
+ * </ul>
+ * </p>
+ * <p>Achieved rate and send latency are logged every {@link #REPORT_INTERVAL_SECONDS}.
  * </p>
  */
 @Configuration
 public class ApplicationRunner implements CommandLineRunner {
     private static final Logger LOGGER = LoggerFactory.getLogger(ApplicationRunner.class);
-    private static final long LOG_THRESHOLD = 60L;
-    private static final int FIVE = 5;
-    private static final int TEN = 10;
-    private static final long MILLIS_TO_SECONDS = 1000L;
-
-    private static AtomicLong onSuccessCount = new AtomicLong(0);
-    private static AtomicLong onFailureCount = new AtomicLong(0);
+    private static final long REPORT_INTERVAL_SECONDS = 10L;
+    private static final long DEFAULT_BURST_SECONDS = 5L;
 
-    private final MyCallback myCallback = new MyCallback();
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     @Value("${spring.application.name}")
@@ -60,8 +69,7 @@ public class ApplicationRunner implements CommandLineRunner {
     private KafkaTemplate<String, String> kafkaTemplate;
 
     /**
-     * <p>Create a CDR for a customer, then loop round the next customer,
-     * forever.
+     * <p>Create CDRs at the configured rate, forever.
      * </p>
      */
     @Override
@@ -70,144 +78,59 @@ public class ApplicationRunner implements CommandLineRunner {
 
         int accounts = CustomerTestdata.getFirstNames().length
                 * CustomerTestdata.getLastNames().length;
+        long seed = Long.getLong("my.feed.seed", 1L);
+
+        CdrGenerator cdrGenerator = new CdrGenerator(accounts,
+                Integer.getInteger("my.feed.hot.callers", 0),
+                Double.parseDouble(System.getProperty("my.feed.hot.share", "0.5")),
+                Double.parseDouble(System.getProperty("my.feed.failure.rate", "0.2")),
+                this.springApplicationName, seed, TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis()));
+        CdrFeed cdrFeed = new CdrFeed(cdrGenerator,
+                Double.parseDouble(System.getProperty("my.feed.rate", "1")),
+                Integer.getInteger("my.feed.producers", 1),
+                seed,
+                Long.getLong("my.feed.burst.every.seconds", 0L),
+                Long.getLong("my.feed.burst.seconds", DEFAULT_BURST_SECONDS),
+                Double.parseDouble(System.getProperty("my.feed.burst.multiplier", "10")));
+
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor();
+        reporter.scheduleAtFixedRate(() -> LOGGER.info(cdrFeed.report()),
+                REPORT_INTERVAL_SECONDS, REPORT_INTERVAL_SECONDS, TimeUnit.SECONDS);
 
-        LOGGER.info("Producing one call record per second");
-
-        int insert = 0;
-        long reportEvery = 1;
-
-        // create some CDRs, wait, repeat
         try {
-            while (true) {
-                int account = insert % accounts;
-                long now = System.currentTimeMillis();
-
-                CallDataRecord cdr = makeCallDataRecord(account, accounts, now, insert);
-
-                // Report 0, 2, 4, 8, 16... until every 60
-                if (insert == 0 || insert % reportEvery == 0) {
-                    if (reportEvery < LOG_THRESHOLD) {
-                        reportEvery += reportEvery;
-                    }
-                    this.write(cdr, insert, true);
-                } else {
-                    this.write(cdr, insert, false);
-                }
-
-                insert++;
-                TimeUnit.SECONDS.sleep(1L);
-            }
+            cdrFeed.run(this::write);
         } catch (InterruptedException exception) {
-            long good = onSuccessCount.get();
-            long bad = onFailureCount.get();
-            if (bad != 0) {
-                LOGGER.error("Interrupted, {} bad from {}", bad, insert);
-            } else {
-                if ((bad + good) != insert) {
-                    // Could be some in-flight
-                    LOGGER.warn("Interrupted, {} bad {} good, from {} inserts",
-                            bad, good, insert);
-                } else {
-                    LOGGER.info("Interrupted, {} inserts", insert);
-                }
-            }
-
+            cdrFeed.stop();
+            this.kafkaTemplate.flush();
+            LOGGER.info("Interrupted");
+        } finally {
+            reporter.shutdownNow();
+            LOGGER.info(cdrFeed.summary());
         }
 
         LOGGER.info("-=-=-=-=-  END  '{}'  END  -=-=-=-=-=-", this.springApplicationName);
     }
 
-
     /**
-     * <p>Create a "<i>random</i>" (but actually deterministic) call.
+     * <p>Write a single object to Kafka, asynchronously. The Kafka producer
+     * batches these, and is shared across producer threads.
      * </p>
      *
-     * @param account Whose call
-     * @param accounts
-     * @param now When the CDR is recorded, after when it ended
-     * @param call Sequence number for calls generated
-     * @return
+     * @param callDataRecord
+     * @return Completes when Kafka acknowledges
      */
-    private CallDataRecord makeCallDataRecord(int account, int accounts, long now, int call) {
-        CallDataRecord cdr = new CallDataRecord();
-
-        String myTelno = MyUtils.getTelno(account);
-        cdr.setCallerTelno(myTelno);
-        cdr.setCallerMastId(MyUtils.getMastId(account, call));
-
-        // Call to a pseudo-random number beyond the range of accounts, so not calling self
-        int callee = account + accounts + call;
-        cdr.setCalleeTelno(MyUtils.getTelno(callee));
-        cdr.setCalleeMastId(MyUtils.getMastId(callee, call));
-
-        // Fake every 5th call as unsuccessful.
-        if (call % FIVE == 0) {
-            cdr.setDurationSeconds(0);
-            cdr.setCallSuccessful(false);
-        } else {
-            cdr.setDurationSeconds(TEN + call);
-            cdr.setCallSuccessful(true);
+    private CompletableFuture<?> write(CallDataRecord callDataRecord) {
+        String key = "{ \"id\": \"" + callDataRecord.getId() + "\" }";
+        String value;
+        try {
+            value = this.objectMapper.writeValueAsString(callDataRecord);
+        } catch (JsonProcessingException e) {
+            return CompletableFuture.failedFuture(e);
         }
 
-        // Start time is before now, based on call duration plus a lag
-        long when = now - ((cdr.getDurationSeconds() + FIVE) * MILLIS_TO_SECONDS);
-        cdr.setStartTimestamp(when);
+        int partition = callDataRecord.getId().hashCode() % MyConstants.KAFKA_TOPIC_CALLS_PARTITIONS;
+        partition = Math.abs(partition);
 
-        UUID uuid = new UUID(Long.valueOf(account), Long.valueOf(when));
-        cdr.setId(uuid.toString());
-
-        cdr.setCreatedBy(this.springApplicationName);
-        cdr.setCreatedDate(now);
-        cdr.setLastModifiedBy(this.springApplicationName);
-        cdr.setLastModifiedDate(now);
-
-        return cdr;
+        return this.kafkaTemplate.sendDefault(partition, key, value).completable();
     }
-
-
-    /**
-     * <p>Write a single object to Kafka.
-     * </p>
-     *
-     * @param callDataRecord
-     * @param count
-     * @param logIt
-     * @throws Exception
-     */
-     private void write(CallDataRecord callDataRecord, long count, boolean logIt) throws Exception {
-         String key = "{ \"id\": \"" + callDataRecord.getId() + "\" }";
-         String value = objectMapper.writeValueAsString(callDataRecord);
-
-         int partition = callDataRecord.getId().hashCode() % MyConstants.KAFKA_TOPIC_CALLS_PARTITIONS;
-         partition = Math.abs(partition);
-
-         if (logIt) {
-             LOGGER.info("CDR {}: key '{}' partition {} JSON => '{}'",
-                     count, key, partition, value);
-         }
-
-         ListenableFuture<SendResult<String, String>> sendResult =
-             kafkaTemplate.sendDefault(partition, key, value);
-
-         sendResult.addCallback(this.myCallback);
-     }
-
-     /**
-      * <p>A callback to count successful and unsuccessful writes to Kafka.
-      * </p>
-      */
-     private static class MyCallback implements ListenableFutureCallback<SendResult<String, String>> {
-
-         @Override
-         public void onSuccess(SendResult<String, String> result) {
-             onSuccessCount.incrementAndGet();
-         }
-
-         @Override
-         public void onFailure(Throwable ex) {
-             onFailureCount.incrementAndGet();
-             LOGGER.error("onFailure()", ex);
-         }
-
-     }
 }
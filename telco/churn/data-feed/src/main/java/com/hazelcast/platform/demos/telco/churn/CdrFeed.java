@@ -0,0 +1,270 @@
+/*
+ * Copyright (c) 2008-2022, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.platform.demos.telco.churn;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.hazelcast.platform.demos.telco.churn.domain.CallDataRecord;
+
+/**
+ * <p>Sends call data records at a target rate, from several producer
+ * threads. Sends are asynchronous, so the Kafka producer can batch them,
+ * and the latency from send to acknowledgement is measured.
+ * </p>
+ * <p>Each thread sends its share of the rate, paced in ticks of
+ * {@link #TICK_MILLIS}. If sends can't keep up, the shortfall is dropped
+ * rather than accumulated, so the achieved rate is what is sustainable.
+ * </p>
+ * <p>Optionally, bursts multiply the rate for a few seconds at intervals.
+ * </p>
+ */
+public class CdrFeed {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CdrFeed.class);
+    private static final long TICK_MILLIS = 1L;
+    private static final long DRAIN_TIMEOUT_SECONDS = 30L;
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+    // Most that can be owed, as a fraction of a second's sends
+    private static final double MAX_CREDIT_SECONDS = 0.1d;
+    private static final double P50 = 50d;
+    private static final double P99 = 99d;
+    private static final double P999 = 99.9d;
+
+    private final CdrGenerator cdrGenerator;
+    private final double rate;
+    private final int producers;
+    private final long seed;
+    private final long burstEveryNanos;
+    private final long burstNanos;
+    private final double burstMultiplier;
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong acked = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final SendLatencyHistogram intervalLatency = new SendLatencyHistogram();
+    private final SendLatencyHistogram totalLatency = new SendLatencyHistogram();
+    private volatile boolean running;
+    private long startNanos;
+    private long lastReportNanos;
+    private long lastReportAcked;
+
+    /**
+     * @param arg0 Makes the records
+     * @param arg1 Records per second, across all producers
+     * @param arg2 Producer threads
+     * @param arg3 Seed, each producer's random is derived from this
+     * @param arg4 Seconds between bursts, 0 for none
+     * @param arg5 Seconds each burst lasts
+     * @param arg6 Rate multiplier during a burst
+     */
+    CdrFeed(CdrGenerator arg0, double arg1, int arg2, long arg3, long arg4, long arg5, double arg6) {
+        this.cdrGenerator = arg0;
+        this.rate = arg1;
+        this.producers = Math.max(1, arg2);
+        this.seed = arg3;
+        this.burstEveryNanos = TimeUnit.SECONDS.toNanos(arg4);
+        this.burstNanos = TimeUnit.SECONDS.toNanos(arg5);
+        this.burstMultiplier = arg6;
+    }
+
+    /**
+     * <p>Send until {@link #stop()} or interrupted, then wait for
+     * outstanding sends.
+     * </p>
+     *
+     * @param sender Sends one record, completing on acknowledgement
+     */
+    void run(Function<CallDataRecord, CompletableFuture<?>> sender) throws Exception {
+        this.running = true;
+        this.startNanos = System.nanoTime();
+        this.lastReportNanos = this.startNanos;
+
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService executorService = Executors.newFixedThreadPool(this.producers, runnable -> {
+            Thread thread = new Thread(runnable, "cdr-producer-" + threadCount.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        List<Future<?>> futures = new ArrayList<>(this.producers);
+        for (int i = 0; i < this.producers; i++) {
+            SplittableRandom random = new SplittableRandom(this.seed + i);
+            futures.add(executorService.submit(() -> this.produce(random, sender)));
+        }
+
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            this.running = false;
+            executorService.shutdownNow();
+        }
+
+        // Outstanding sends
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(DRAIN_TIMEOUT_SECONDS);
+        while (this.acked.get() + this.failed.get() < this.sent.get() && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(TICK_MILLIS);
+        }
+    }
+
+    void stop() {
+        this.running = false;
+    }
+
+    /**
+     * <p>One producer's share of the rate.
+     * </p>
+     */
+    private void produce(SplittableRandom random, Function<CallDataRecord, CompletableFuture<?>> sender) {
+        double credit = 0d;
+        long last = System.nanoTime();
+
+        while (this.running && !Thread.currentThread().isInterrupted()) {
+            long now = System.nanoTime();
+            double perSecond = this.rateAt(now - this.startNanos) / this.producers;
+            credit = credit(credit, perSecond, now - last);
+            last = now;
+
+            long timestamp = System.currentTimeMillis();
+            while (credit >= 1d && this.running) {
+                CallDataRecord cdr = this.cdrGenerator.next(random, timestamp, this.sequence.getAndIncrement());
+                this.send(cdr, sender);
+                credit -= 1d;
+            }
+
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(TICK_MILLIS));
+        }
+    }
+
+    /**
+     * <p>Sends owed after a tick, capped at {@link #MAX_CREDIT_SECONDS} of sends
+     * so a stall doesn't cause a flood, but always allowing one.
+     * </p>
+     *
+     * @param credit Owed before, fractions carried over
+     * @param perSecond This producer's rate
+     * @param elapsedNanos Since the last tick
+     * @return Owed now
+     */
+    static double credit(double credit, double perSecond, long elapsedNanos) {
+        return Math.min(credit + perSecond * elapsedNanos / NANOS_PER_SECOND,
+                Math.max(1d, perSecond * MAX_CREDIT_SECONDS));
+    }
+
+    private void send(CallDataRecord cdr, Function<CallDataRecord, CompletableFuture<?>> sender) {
+        long before = System.nanoTime();
+        long count = this.sent.getAndIncrement();
+        if (count == 0) {
+            LOGGER.info("First CDR => '{}'", cdr);
+        }
+        try {
+            sender.apply(cdr).whenComplete((result, throwable) -> {
+                if (throwable == null) {
+                    this.acked.incrementAndGet();
+                    this.intervalLatency.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - before));
+                } else {
+                    this.failed(throwable);
+                }
+            });
+        } catch (RuntimeException e) {
+            this.failed(e);
+        }
+    }
+
+    private void failed(Throwable throwable) {
+        if (this.failed.getAndIncrement() == 0) {
+            LOGGER.error("First send failure", throwable);
+        }
+    }
+
+    /**
+     * <p>The target rate, multiplied if in a burst.
+     * </p>
+     *
+     * @param elapsedNanos Since start
+     * @return Records per second
+     */
+    double rateAt(long elapsedNanos) {
+        if (this.burstEveryNanos > 0 && elapsedNanos >= this.burstEveryNanos
+                && (elapsedNanos % this.burstEveryNanos) < this.burstNanos) {
+            return this.rate * this.burstMultiplier;
+        }
+        return this.rate;
+    }
+
+    /**
+     * <p>Rate and latency since the last report.
+     * </p>
+     *
+     * @return For logging
+     */
+    String report() {
+        SendLatencyHistogram latency = this.intervalLatency.drain();
+        this.totalLatency.add(latency);
+        long now = System.nanoTime();
+        long ackedNow = this.acked.get();
+        long achieved = Math.round((ackedNow - this.lastReportAcked) * NANOS_PER_SECOND
+                / Math.max(1, now - this.lastReportNanos));
+        this.lastReportNanos = now;
+        this.lastReportAcked = ackedNow;
+
+        return String.format("Sent %d, acked %d, failed %d, target %.0f/second%s, achieved %d/second,"
+                + " send latency us p50 %d p99 %d p99.9 %d max %d",
+                this.sent.get(), ackedNow, this.failed.get(), this.rate,
+                this.rateAt(now - this.startNanos) != this.rate ? " (burst)" : "", achieved,
+                latency.valueAtPercentile(P50), latency.valueAtPercentile(P99),
+                latency.valueAtPercentile(P999), latency.getMax());
+    }
+
+    /**
+     * <p>Overall, since the start.
+     * </p>
+     *
+     * @return For logging
+     */
+    String summary() {
+        this.totalLatency.add(this.intervalLatency.drain());
+        long elapsed = System.nanoTime() - this.startNanos;
+        long achieved = Math.round(this.acked.get() * NANOS_PER_SECOND / Math.max(1, elapsed));
+        return String.format("Sent %d, acked %d, failed %d in %dms, achieved %d/second,"
+                + " send latency us p50 %d p99 %d p99.9 %d max %d",
+                this.sent.get(), this.acked.get(), this.failed.get(), TimeUnit.NANOSECONDS.toMillis(elapsed),
+                achieved, this.totalLatency.valueAtPercentile(P50), this.totalLatency.valueAtPercentile(P99),
+                this.totalLatency.valueAtPercentile(P999), this.totalLatency.getMax());
+    }
+
+    long getSent() {
+        return this.sent.get();
+    }
+
+    long getAcked() {
+        return this.acked.get();
+    }
+}
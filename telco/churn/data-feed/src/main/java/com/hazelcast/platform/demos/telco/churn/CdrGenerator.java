@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2008-2022, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.platform.demos.telco.churn;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import com.hazelcast.platform.demos.telco.churn.domain.CallDataRecord;
+
+/**
+ * <p>Makes call data records with a realistic spread across customers.
+ * </p>
+ * <p>Each customer has their own propensity to call, and their own typical
+ * call length, both log-normally distributed so a few customers make many
+ * long calls and most make fewer, shorter ones. Calls use one of a customer's
+ * few usual masts, and some fail.
+ * </p>
+ * <p>Optionally, a few "<i>hot</i>" callers can be given a fixed share of
+ * all calls, to skew the load onto a few keys and partitions.
+ * </p>
+ * <p>Customer profiles are derived from the seed, and each call from the
+ * {@link SplittableRandom} passed in, so the same seeds give the same calls.
+ * </p>
+ */
+public class CdrGenerator {
+    private static final double MEDIAN_CALL_SECONDS = 120d;
+    private static final double MAX_CALL_SECONDS = TimeUnit.HOURS.toSeconds(2);
+    private static final double PROPENSITY_SIGMA = 1.0d;
+    private static final double DURATION_SIGMA = 0.5d;
+    private static final int MASTS_PER_CUSTOMER = 3;
+    private static final int CALLEES_PER_CALLER = 50;
+    private static final long LAG_SECONDS = 5L;
+    private static final long MILLIS_TO_SECONDS = 1000L;
+
+    private final int accounts;
+    private final double[] cumulativePropensity;
+    private final double[] meanDurationSeconds;
+    private final int hotCallers;
+    private final double hotShare;
+    private final double failureRate;
+    private final String createdBy;
+    private final long idBase;
+
+    /**
+     * @param arg0 Customers, numbered from 0
+     * @param arg1 Hot callers, customers 0 upwards, 0 for none
+     * @param arg2 Share of all calls made by hot callers, 0 to 1
+     * @param arg3 Share of calls that fail, 0 to 1
+     * @param arg4 For "{@code createdBy}" and "{@code lastModifiedBy}"
+     * @param arg5 Seed for customer profiles
+     * @param arg6 Base for call ids, unique per run
+     */
+    CdrGenerator(int arg0, int arg1, double arg2, double arg3, String arg4, long arg5, long arg6) {
+        this.accounts = arg0;
+        this.hotCallers = Math.min(arg1, arg0);
+        this.hotShare = this.hotCallers > 0 ? arg2 : 0d;
+        this.failureRate = arg3;
+        this.createdBy = arg4;
+        this.idBase = arg6;
+
+        SplittableRandom random = new SplittableRandom(arg5);
+        this.cumulativePropensity = new double[this.accounts];
+        this.meanDurationSeconds = new double[this.accounts];
+        double total = 0d;
+        for (int account = 0; account < this.accounts; account++) {
+            total += Math.exp(PROPENSITY_SIGMA * random.nextGaussian());
+            this.cumulativePropensity[account] = total;
+            this.meanDurationSeconds[account] = MEDIAN_CALL_SECONDS * Math.exp(DURATION_SIGMA * random.nextGaussian());
+        }
+    }
+
+    /**
+     * <p>Choose a caller, a hot caller if the share dictates, otherwise in
+     * proportion to their propensity.
+     * </p>
+     *
+     * @param random Per thread
+     * @return Account number
+     */
+    int nextAccount(SplittableRandom random) {
+        if (this.hotShare > 0 && random.nextDouble() < this.hotShare) {
+            return random.nextInt(this.hotCallers);
+        }
+        double point = random.nextDouble() * this.cumulativePropensity[this.accounts - 1];
+        int index = Arrays.binarySearch(this.cumulativePropensity, point);
+        return index >= 0 ? index : Math.min(-index - 1, this.accounts - 1);
+    }
+
+    /**
+     * <p>Make the next call, ending just before now.
+     * </p>
+     *
+     * @param random Per thread
+     * @param now When the CDR is recorded, after when it ended
+     * @param sequence Unique for this generator
+     * @return A call
+     */
+    CallDataRecord next(SplittableRandom random, long now, long sequence) {
+        int account = this.nextAccount(random);
+        CallDataRecord cdr = new CallDataRecord();
+
+        cdr.setCallerTelno(MyUtils.getTelno(account));
+        cdr.setCallerMastId(MyUtils.getMastId(account, random.nextInt(MASTS_PER_CUSTOMER)));
+
+        // Callee from a pool beyond the range of accounts, so not calling self
+        int callee = this.accounts + account * CALLEES_PER_CALLER + random.nextInt(CALLEES_PER_CALLER);
+        cdr.setCalleeTelno(MyUtils.getTelno(callee));
+        cdr.setCalleeMastId(MyUtils.getMastId(callee, random.nextInt(MASTS_PER_CUSTOMER)));
+
+        if (random.nextDouble() < this.failureRate) {
+            cdr.setDurationSeconds(0);
+            cdr.setCallSuccessful(false);
+        } else {
+            // Exponential around the customer's own mean
+            double seconds = -this.meanDurationSeconds[account] * Math.log(1d - random.nextDouble());
+            cdr.setDurationSeconds((int) Math.min(MAX_CALL_SECONDS, 1d + seconds));
+            cdr.setCallSuccessful(true);
+        }
+
+        // Start time is before now, based on call duration plus a lag
+        long when = now - ((cdr.getDurationSeconds() + LAG_SECONDS) * MILLIS_TO_SECONDS);
+        cdr.setStartTimestamp(when);
+
+        UUID uuid = new UUID(account, this.idBase + sequence);
+        cdr.setId(uuid.toString());
+
+        cdr.setCreatedBy(this.createdBy);
+        cdr.setCreatedDate(now);
+        cdr.setLastModifiedBy(this.createdBy);
+        cdr.setLastModifiedDate(now);
+
+        return cdr;
+    }
+
+    int getAccounts() {
+        return this.accounts;
+    }
+}
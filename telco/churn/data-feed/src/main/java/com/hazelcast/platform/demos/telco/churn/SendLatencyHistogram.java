@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2008-2022, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.platform.demos.telco.churn;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * <p>A histogram of send latencies in microseconds, safe to record
+ * from many callback threads at once without locking.
+ * </p>
+ * <p>Each power of two range is split into {@link #SUB_BUCKETS} buckets,
+ * so a percentile is reported to within 1/8th of the true value. Values
+ * under {@link #SUB_BUCKETS} are exact.
+ * </p>
+ */
+public class SendLatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+    private static final double ONE_HUNDRED = 100.0d;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong totalCount = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * <p>Count one value, negatives count as zero.
+     * </p>
+     *
+     * @param micros Latency
+     */
+    public void record(long micros) {
+        long value = Math.max(0, micros);
+        this.counts.incrementAndGet(bucketIndex(value));
+        this.totalCount.incrementAndGet();
+        this.max.accumulateAndGet(value, Math::max);
+    }
+
+    /**
+     * <p>Copy the counts so far into a new histogram and reset this one,
+     * for interval reporting. Values recorded during the copy may go
+     * in either.
+     * </p>
+     *
+     * @return Counts since the last call
+     */
+    public SendLatencyHistogram drain() {
+        SendLatencyHistogram result = new SendLatencyHistogram();
+        for (int i = 0; i < BUCKETS; i++) {
+            long count = this.counts.getAndSet(i, 0);
+            result.counts.set(i, count);
+            result.totalCount.addAndGet(count);
+        }
+        this.totalCount.addAndGet(-result.totalCount.get());
+        result.max.set(this.max.getAndSet(0));
+        return result;
+    }
+
+    /**
+     * <p>Merge another histogram into this one.
+     * </p>
+     *
+     * @param that Histogram to add
+     */
+    public void add(SendLatencyHistogram that) {
+        for (int i = 0; i < BUCKETS; i++) {
+            this.counts.addAndGet(i, that.counts.get(i));
+        }
+        this.totalCount.addAndGet(that.totalCount.get());
+        this.max.accumulateAndGet(that.max.get(), Math::max);
+    }
+
+    /**
+     * <p>The value at or below which the given percentage of values fall,
+     * reported as the top of the bucket but no more than the maximum.
+     * </p>
+     *
+     * @param percentile From 0 to 100, eg. 99.9
+     * @return A latency, or 0 if no values
+     */
+    public long valueAtPercentile(double percentile) {
+        long total = this.totalCount.get();
+        long target = Math.max(1L, (long) Math.ceil(Math.min(percentile, ONE_HUNDRED) / ONE_HUNDRED * total));
+        long cumulative = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            cumulative += this.counts.get(i);
+            if (cumulative >= target) {
+                return Math.min(highestEquivalentValue(i), this.max.get());
+            }
+        }
+        return this.max.get();
+    }
+
+    public long getTotalCount() {
+        return this.totalCount.get();
+    }
+
+    public long getMax() {
+        return this.max.get();
+    }
+
+    /**
+     * <p>Exact below {@link #SUB_BUCKETS}, then {@link #SUB_BUCKETS}
+     * buckets for each doubling.
+     * </p>
+     */
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = Long.SIZE - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS - 1;
+        int subBucket = (int) (value >>> shift) - SUB_BUCKETS;
+        return SUB_BUCKETS + shift * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * <p>Inverse of {@link #bucketIndex(long)}, largest value in the bucket.
+     * </p>
+     */
+    static long highestEquivalentValue(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = (index - SUB_BUCKETS) / SUB_BUCKETS;
+        long subBucket = (index - SUB_BUCKETS) % SUB_BUCKETS + SUB_BUCKETS;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
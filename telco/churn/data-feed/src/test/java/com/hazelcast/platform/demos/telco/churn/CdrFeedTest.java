@@ -0,0 +1,205 @@
+/*
+ * Copyright (c) 2008-2022, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.platform.demos.telco.churn;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Queue;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.hazelcast.platform.demos.telco.churn.domain.CallDataRecord;
+
+/**
+ * <p>Test {@link CdrGenerator} spreads calls as configured, and
+ * {@link CdrFeed} paces sends and has all acknowledged by a stand-in
+ * for Kafka that acknowledges asynchronously after a delay.
+ * </p>
+ */
+public class CdrFeedTest {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CdrFeedTest.class);
+    private static final int ACCOUNTS = 100;
+    private static final int CALLS = 200_000;
+    private static final long SEED = 1L;
+    private static final long NOW = 1600000000000L;
+    private static final double TOLERANCE = 0.02d;
+
+    @Test
+    public void testRepeatable(TestInfo testInfo) {
+        CdrGenerator cdrGenerator = new CdrGenerator(ACCOUNTS, 0, 0d, 0.2d, "test", SEED, 0L);
+        SplittableRandom random1 = new SplittableRandom(SEED);
+        SplittableRandom random2 = new SplittableRandom(SEED);
+        Set<String> ids = new HashSet<>();
+        for (int i = 0; i < 1000; i++) {
+            CallDataRecord cdr1 = cdrGenerator.next(random1, NOW, i);
+            CallDataRecord cdr2 = cdrGenerator.next(random2, NOW, i);
+            assertThat(cdr1.toString()).isEqualTo(cdr2.toString());
+            ids.add(cdr1.getId());
+        }
+        assertThat(ids.size()).isEqualTo(1000);
+    }
+
+    @Test
+    public void testDistribution(TestInfo testInfo) {
+        CdrGenerator cdrGenerator = new CdrGenerator(ACCOUNTS, 0, 0d, 0.2d, "test", SEED, 0L);
+        SplittableRandom random = new SplittableRandom(SEED);
+        int[] callsPerAccount = new int[ACCOUNTS];
+        int failed = 0;
+        long totalDuration = 0;
+        for (int i = 0; i < CALLS; i++) {
+            CallDataRecord cdr = cdrGenerator.next(random, NOW, i);
+            callsPerAccount[(int) UUID.fromString(cdr.getId()).getMostSignificantBits()]++;
+            if (!cdr.getCallSuccessful()) {
+                failed++;
+            }
+            totalDuration += cdr.getDurationSeconds();
+            assertThat(cdr.getStartTimestamp()).isLessThan(NOW);
+        }
+        Arrays.sort(callsPerAccount);
+        int busiestTenth = 0;
+        for (int i = ACCOUNTS - ACCOUNTS / 10; i < ACCOUNTS; i++) {
+            busiestTenth += callsPerAccount[i];
+        }
+        double failureRate = (double) failed / CALLS;
+        LOGGER.info("{} :: least {}, most {}, busiest 10% make {}%, failure rate {}, mean duration {}s",
+                testInfo.getDisplayName(), callsPerAccount[0], callsPerAccount[ACCOUNTS - 1],
+                100 * busiestTenth / CALLS, failureRate, totalDuration / (CALLS - failed));
+
+        // Skewed, not uniform
+        assertThat(busiestTenth).isGreaterThan(CALLS / 5);
+        assertThat(callsPerAccount[0]).isGreaterThan(0);
+        assertThat(Math.abs(failureRate - 0.2d)).isLessThan(TOLERANCE);
+    }
+
+    @Test
+    public void testHotCallers(TestInfo testInfo) {
+        CdrGenerator cdrGenerator = new CdrGenerator(ACCOUNTS, 2, 0.5d, 0.2d, "test", SEED, 0L);
+        SplittableRandom random = new SplittableRandom(SEED);
+        int hot = 0;
+        for (int i = 0; i < CALLS; i++) {
+            if (cdrGenerator.nextAccount(random) < 2) {
+                hot++;
+            }
+        }
+        double hotShare = (double) hot / CALLS;
+        LOGGER.info("{} :: hot share {}", testInfo.getDisplayName(), hotShare);
+
+        // 50% forced, plus their normal share of the rest
+        assertThat(hotShare).isGreaterThan(0.5d);
+        assertThat(hotShare).isLessThan(0.6d);
+    }
+
+    @Test
+    public void testBurst(TestInfo testInfo) {
+        CdrFeed cdrFeed = new CdrFeed(null, 100d, 1, SEED, 10L, 2L, 5d);
+        assertThat(cdrFeed.rateAt(TimeUnit.SECONDS.toNanos(5))).isEqualTo(100d);
+        assertThat(cdrFeed.rateAt(TimeUnit.SECONDS.toNanos(11))).isEqualTo(500d);
+        assertThat(cdrFeed.rateAt(TimeUnit.SECONDS.toNanos(13))).isEqualTo(100d);
+        assertThat(cdrFeed.rateAt(TimeUnit.SECONDS.toNanos(21))).isEqualTo(500d);
+    }
+
+    @Test
+    public void testHistogram(TestInfo testInfo) {
+        SendLatencyHistogram histogram = new SendLatencyHistogram();
+        for (long i = 1; i <= 10_000; i++) {
+            histogram.record(i);
+        }
+        long p50 = histogram.valueAtPercentile(50d);
+        long p99 = histogram.valueAtPercentile(99d);
+        LOGGER.info("{} :: p50 {} p99 {} max {}", testInfo.getDisplayName(), p50, p99, histogram.getMax());
+
+        assertThat(Math.abs(p50 - 5_000L)).isLessThan(5_000L / 8);
+        assertThat(Math.abs(p99 - 9_900L)).isLessThan(9_900L / 8);
+        assertThat(histogram.getMax()).isEqualTo(10_000L);
+        for (long value : new long[] {0, 7, 8, 15, 16, 1000, Long.MAX_VALUE / 2}) {
+            int index = SendLatencyHistogram.bucketIndex(value);
+            assertThat(SendLatencyHistogram.highestEquivalentValue(index)).isGreaterThan(value - 1);
+            assertThat(index == 0 || SendLatencyHistogram.highestEquivalentValue(index - 1) < value).isTrue();
+        }
+        SendLatencyHistogram drained = histogram.drain();
+        assertThat(drained.getTotalCount()).isEqualTo(10_000L);
+        assertThat(histogram.getTotalCount()).isEqualTo(0L);
+    }
+
+    @Test
+    public void testCredit(TestInfo testInfo) {
+        long tick = TimeUnit.MILLISECONDS.toNanos(1L);
+        LOGGER.info("{}", testInfo.getDisplayName());
+
+        // 50,000 per second is 50 per millisecond tick
+        assertThat(CdrFeed.credit(0d, 50_000d, tick)).isEqualTo(50d);
+        // Fractions carry over, 1.5 per tick
+        assertThat(CdrFeed.credit(0.5d, 1_500d, tick)).isEqualTo(2d);
+        // A one second stall is capped at 0.1 seconds worth, not 50,000
+        assertThat(CdrFeed.credit(0d, 50_000d, TimeUnit.SECONDS.toNanos(1L))).isEqualTo(5_000d);
+        // Slow rates can still send one
+        assertThat(CdrFeed.credit(0d, 0.5d, TimeUnit.SECONDS.toNanos(10L))).isEqualTo(1d);
+    }
+
+    /**
+     * <p>Run against a stand-in broker. Throughput depends on the machine so
+     * is logged, the assertions are what holds however slow the machine.
+     * </p>
+     */
+    @Test
+    public void testRun(TestInfo testInfo) throws Exception {
+        double rate = 200_000d;
+        long runMillis = 2_000L;
+        int producers = 4;
+        CdrGenerator cdrGenerator = new CdrGenerator(ACCOUNTS, 0, 0d, 0.2d, "test", SEED, 0L);
+        CdrFeed cdrFeed = new CdrFeed(cdrGenerator, rate, producers, SEED, 0L, 0L, 1d);
+
+        // Acknowledge in batches every millisecond, as a broker would
+        Queue<CompletableFuture<Void>> pending = new ConcurrentLinkedQueue<>();
+        ScheduledExecutorService broker = Executors.newSingleThreadScheduledExecutor();
+        broker.scheduleAtFixedRate(() -> {
+            for (CompletableFuture<Void> future = pending.poll(); future != null; future = pending.poll()) {
+                future.complete(null);
+            }
+        }, 1, 1, TimeUnit.MILLISECONDS);
+        broker.schedule(cdrFeed::stop, runMillis, TimeUnit.MILLISECONDS);
+        long before = System.nanoTime();
+        cdrFeed.run(cdr -> {
+            CompletableFuture<Void> future = new CompletableFuture<>();
+            pending.add(future);
+            return future;
+        });
+        long elapsed = System.nanoTime() - before;
+        broker.shutdown();
+
+        String summary = cdrFeed.summary();
+        LOGGER.info("{} :: {}", testInfo.getDisplayName(), summary);
+
+        assertThat(cdrFeed.getSent()).isGreaterThan(0L);
+        assertThat(cdrFeed.getAcked()).isEqualTo(cdrFeed.getSent());
+        // Pacing never sends ahead of the rate, plus the one each producer may always send
+        assertThat(cdrFeed.getSent()).isLessThanOrEqualTo((long) (rate * elapsed / TimeUnit.SECONDS.toNanos(1L)) + producers);
+    }
+}
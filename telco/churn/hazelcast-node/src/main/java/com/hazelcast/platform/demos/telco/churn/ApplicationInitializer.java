@@ -165,7 +165,7 @@ public class ApplicationInitializer {
         String definition1 = "CREATE MAPPING " + MyConstants.IMAP_NAME_CDR
                 + "(   \"csv\" VARCHAR EXTERNAL NAME \"__key.csv\","
                 + "    \"id\" VARCHAR,"
-                + "    callSucceful BOOLEAN,"
+                + "    callSuccessful BOOLEAN,"
                 + "    calleeMastId VARCHAR,"
                 + "    calleeTelno VARCHAR,"
                 + "    callerMastId VARCHAR,"
@@ -178,7 +178,8 @@ public class ApplicationInitializer {
                 + "    lastModifiedDate BIGINT"
                 + ") TYPE IMap OPTIONS ( "
                 + " 'keyFormat' = 'java', 'keyJavaClass' = '" + CallDataRecordKey.class.getCanonicalName() + "',"
-                + " 'valueFormat' = 'json-flat', 'valueJavaClass' = '" + HazelcastJsonValue.class.getCanonicalName() + "'"
+                + " 'valueFormat' = 'compact',"
+                + " 'valueCompactTypeName' = '" + MyConstants.COMPACT_TYPE_NAME_CALLDATARECORD + "'"
                 + " )";
         String definition2 = "CREATE MAPPING " + MyConstants.IMAP_NAME_CUSTOMER
                 + "( __key VARCHAR,"
@@ -22,53 +22,60 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Properties;
 
-import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.hazelcast.core.HazelcastJsonValue;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.map.MapLoaderLifecycleSupport;
 import com.hazelcast.map.MapStore;
+import com.hazelcast.platform.demos.telco.churn.MyConstants;
 import com.hazelcast.platform.demos.telco.churn.domain.CallDataRecord;
 import com.hazelcast.platform.demos.telco.churn.domain.CallDataRecordKey;
 import com.hazelcast.platform.demos.telco.churn.domain.CallDataRecordKeyProjection;
-import com.hazelcast.platform.demos.telco.churn.domain.CallDataRecordMetadata;
 import com.hazelcast.platform.demos.telco.churn.domain.CallDataRecordRepository;
+import com.hazelcast.platform.demos.telco.churn.domain.CallDataRecordValue;
 
 /**
- * <p>Load a {@link CallDataRecord} object from Cassandra and turn it into JSON.
- * Save it back when it changes.
+ * <p>Load a {@link CallDataRecord} object from Cassandra and turn it into
+ * a {@link CallDataRecordValue}. Save it back when it changes.
+ * </p>
+ * <p>Both are typed, so conversion is field by field, there is no JSON.
+ * </p>
+ * <p>Bulk loads and stores go through {@link MyMapStoreBatcher}.
  * </p>
  */
-public class CallDataRecordMapStore implements MapStore<CallDataRecordKey, HazelcastJsonValue> {
+public class CallDataRecordMapStore implements MapStore<CallDataRecordKey, CallDataRecordValue>,
+    MapLoaderLifecycleSupport {
     private static final Logger LOGGER = LoggerFactory.getLogger(CallDataRecordMapStore.class);
 
     private CallDataRecordRepository callDataRecordRepository;
     private String modifierFilter;
+    private final MyMapStoreBatcher myMapStoreBatcher;
 
     CallDataRecordMapStore(CallDataRecordRepository arg0, String arg1) {
         this.callDataRecordRepository = arg0;
         this.modifierFilter = arg1;
+        this.myMapStoreBatcher = new MyMapStoreBatcher(MyConstants.IMAP_NAME_CDR);
     }
 
     /**
      * <p>Try to load a specific key from Cassandra</p>
      */
     @Override
-    public HazelcastJsonValue load(CallDataRecordKey key) {
+    public CallDataRecordValue load(CallDataRecordKey key) {
         LOGGER.trace("load('{}')", key);
 
-        HazelcastJsonValue result = null;
-        String id = key.getCsv().split(",")[1];
+        CallDataRecordValue result = null;
+        String id = key.getId();
 
         try {
             CallDataRecord callDataRecord = this.callDataRecordRepository.findById(id).get();
 
             if (callDataRecord != null) {
-                JSONObject json = new JSONObject(callDataRecord);
-                MyMapHelpers.validate(json, CallDataRecordMetadata.FIELD_NAMES);
-                result = new HazelcastJsonValue(json.toString());
-         }
+                result = toValue(callDataRecord);
+            }
 
         } catch (Exception exception) {
             LOGGER.error("load('{}'), EXCEPTION: {}", key, exception.getMessage());
@@ -79,27 +86,38 @@ public class CallDataRecordMapStore implements MapStore<CallDataRecordKey, Hazel
     }
 
     /**
-     * <p>Each member is given blocks of keys to load. Depending on the
-     * technology it may be feasible to retrieve these in one shot from
-     * the database, but here it is coded to retrieve them individually.
+     * <p>Each member is given blocks of keys to load. These are split
+     * into batches by partition, and each batch retrieved in one shot
+     * with an "{@code IN}" query, several batches at once.
      * </p>
      */
     @Override
-    public Map<CallDataRecordKey, HazelcastJsonValue> loadAll(Collection<CallDataRecordKey> keys) {
+    public Map<CallDataRecordKey, CallDataRecordValue> loadAll(Collection<CallDataRecordKey> keys) {
         int expectedSize = keys.size();
         LOGGER.trace("loadAll({})", expectedSize);
 
-        Map<CallDataRecordKey, HazelcastJsonValue> result = new HashMap<>();
+        Map<String, CallDataRecordKey> idToKey = new HashMap<>();
         for (CallDataRecordKey key : keys) {
-            HazelcastJsonValue json = null;
-            try {
-                json = this.load(key);
-            } catch (Exception exception) {
-                LOGGER.error("loadAll({}) for key '" + key + "'", exception);
-            }
+            idToKey.put(key.getId(), key);
+        }
 
-            if (json != null) {
-                result.put(key, json);
+        List<List<CallDataRecord>> batches = this.myMapStoreBatcher.run("loadAll", keys,
+                chunk -> {
+                    List<String> ids = new ArrayList<>(chunk.size());
+                    chunk.forEach(key -> ids.add(key.getId()));
+                    return this.callDataRecordRepository.findAllById(ids);
+                },
+                List::size);
+
+        Map<CallDataRecordKey, CallDataRecordValue> result = new HashMap<>();
+        for (List<CallDataRecord> batch : batches) {
+            if (batch != null) {
+                for (CallDataRecord callDataRecord : batch) {
+                    CallDataRecordKey key = idToKey.get(callDataRecord.getId());
+                    if (key != null) {
+                        result.put(key, toValue(callDataRecord));
+                    }
+                }
             }
         }
 
@@ -128,9 +146,9 @@ public class CallDataRecordMapStore implements MapStore<CallDataRecordKey, Hazel
             List<CallDataRecordKey> results = new ArrayList<>(resultsProjection.size());
 
             for (CallDataRecordKeyProjection callDataRecordKeyProjection : resultsProjection) {
-                CallDataRecordKey callDataRecordKey = new CallDataRecordKey();
-                callDataRecordKey.setCsv(callDataRecordKeyProjection.getCallerTelno()
-                        + "," + callDataRecordKeyProjection.getId());
+                CallDataRecordKey callDataRecordKey =
+                        new CallDataRecordKey(callDataRecordKeyProjection.getCallerTelno(),
+                                callDataRecordKeyProjection.getId());
                 results.add(callDataRecordKey);
             }
 
@@ -180,26 +198,15 @@ public class CallDataRecordMapStore implements MapStore<CallDataRecordKey, Hazel
      * </p>
      */
     @Override
-    public void store(CallDataRecordKey key, HazelcastJsonValue value) {
+    public void store(CallDataRecordKey key, CallDataRecordValue value) {
         long now = System.currentTimeMillis();
 
-        CallDataRecord callDataRecord = new CallDataRecord();
         try {
-            JSONObject json = new JSONObject(value.toString());
-            callDataRecord.setId(json.getString("id"));
-            callDataRecord.setCallSuccessful(json.getBoolean("callSuccessful"));
-            callDataRecord.setCalleeMastId(json.getString("calleeMastId"));
-            callDataRecord.setCalleeTelno(json.getString("calleeTelno"));
-            callDataRecord.setCallerMastId(json.getString("callerMastId"));
-            callDataRecord.setCallerTelno(json.getString("callerTelno"));
-            callDataRecord.setCreatedBy(json.getString("createdBy"));
-            callDataRecord.setCreatedDate(json.getLong("createdDate"));
-            callDataRecord.setDurationSeconds(json.getInt("durationSeconds"));
+            CallDataRecord callDataRecord = toEntity(value);
             // Regard everything saved by Hazelcast as changed by Hazelcast
-            String previousLastModifiedBy = json.getString("lastModifiedBy");
+            String previousLastModifiedBy = value.getLastModifiedBy();
             callDataRecord.setLastModifiedBy(this.modifierFilter);
             callDataRecord.setLastModifiedDate(now);
-            callDataRecord.setStartTimestamp(json.getLong("startTimestamp"));
 
             if ("churn-update-legacy".equals(previousLastModifiedBy)) {
                 LOGGER.trace("store({}, {}) not stored as LastModifiedBy='{}'",
@@ -216,19 +223,114 @@ public class CallDataRecordMapStore implements MapStore<CallDataRecordKey, Hazel
     }
 
     /**
-     * <p>Use easy iterating store, could do bulk store
-     * if available.
+     * <p>Reformat, drop any that shouldn't be saved, and save the rest
+     * in batches, several batches at once.
+     * </p>
+     * <p>Batches are separate "{@code saveAll}" calls rather than Cassandra
+     * "{@code BATCH}" statements, as the rows in a batch are for many
+     * Cassandra partitions and a multi-partition batch would only add
+     * coordinator load.
      * </p>
      *
      * @param entries
      */
     @Override
-    public void storeAll(Map<CallDataRecordKey, HazelcastJsonValue> entries) {
+    public void storeAll(Map<CallDataRecordKey, CallDataRecordValue> entries) {
         int expectedSize = entries.size();
         LOGGER.trace("storeAll({})", expectedSize);
-        for (Map.Entry<CallDataRecordKey, HazelcastJsonValue> entry : entries.entrySet()) {
-            this.store(entry.getKey(), entry.getValue());
+        long now = System.currentTimeMillis();
+
+        Map<CallDataRecordKey, CallDataRecord> toSave = new HashMap<>();
+        for (Map.Entry<CallDataRecordKey, CallDataRecordValue> entry : entries.entrySet()) {
+            CallDataRecordValue value = entry.getValue();
+            if ("churn-update-legacy".equals(value.getLastModifiedBy())) {
+                LOGGER.trace("storeAll({}) not stored {} as LastModifiedBy='{}'",
+                        expectedSize, entry.getKey(), value.getLastModifiedBy());
+            } else {
+                CallDataRecord callDataRecord = toEntity(value);
+                // Regard everything saved by Hazelcast as changed by Hazelcast
+                callDataRecord.setLastModifiedBy(this.modifierFilter);
+                callDataRecord.setLastModifiedDate(now);
+                toSave.put(entry.getKey(), callDataRecord);
+            }
+        }
+
+        if (!toSave.isEmpty()) {
+            this.myMapStoreBatcher.run("storeAll", toSave.keySet(),
+                    chunk -> {
+                        List<CallDataRecord> callDataRecords = new ArrayList<>(chunk.size());
+                        chunk.forEach(key -> callDataRecords.add(toSave.get(key)));
+                        return this.callDataRecordRepository.saveAll(callDataRecords);
+                    },
+                    List::size);
         }
     }
 
+    /**
+     * <p>Use the cluster's partitioning to group keys, and the
+     * map store properties for batch size and concurrency.
+     * </p>
+     */
+    @Override
+    public void init(HazelcastInstance hazelcastInstance, Properties properties, String mapName) {
+        this.myMapStoreBatcher.init(hazelcastInstance, properties);
+    }
+
+    @Override
+    public void destroy() {
+        this.myMapStoreBatcher.destroy();
+    }
+
+    MyMapStoreBatcher getMyMapStoreBatcher() {
+        return this.myMapStoreBatcher;
+    }
+
+    /**
+     * <p>Cassandra entity to Hazelcast value.
+     * </p>
+     *
+     * @param callDataRecord From Cassandra
+     * @return For Hazelcast
+     */
+    static CallDataRecordValue toValue(CallDataRecord callDataRecord) {
+        CallDataRecordValue callDataRecordValue = new CallDataRecordValue();
+        callDataRecordValue.setId(callDataRecord.getId());
+        callDataRecordValue.setCallerTelno(callDataRecord.getCallerTelno());
+        callDataRecordValue.setCallerMastId(callDataRecord.getCallerMastId());
+        callDataRecordValue.setCalleeTelno(callDataRecord.getCalleeTelno());
+        callDataRecordValue.setCalleeMastId(callDataRecord.getCalleeMastId());
+        callDataRecordValue.setStartTimestamp(callDataRecord.getStartTimestamp());
+        callDataRecordValue.setDurationSeconds(callDataRecord.getDurationSeconds());
+        callDataRecordValue.setCallSuccessful(callDataRecord.getCallSuccessful());
+        callDataRecordValue.setCreatedBy(callDataRecord.getCreatedBy());
+        callDataRecordValue.setCreatedDate(callDataRecord.getCreatedDate());
+        callDataRecordValue.setLastModifiedBy(callDataRecord.getLastModifiedBy());
+        callDataRecordValue.setLastModifiedDate(callDataRecord.getLastModifiedDate());
+        return callDataRecordValue;
+    }
+
+    /**
+     * <p>Hazelcast value to Cassandra entity.
+     * </p>
+     *
+     * @param callDataRecordValue From Hazelcast
+     * @return For Cassandra
+     */
+    static CallDataRecord toEntity(CallDataRecordValue callDataRecordValue) {
+        CallDataRecord callDataRecord = new CallDataRecord();
+        callDataRecord.setId(callDataRecordValue.getId());
+        callDataRecord.setCallerTelno(callDataRecordValue.getCallerTelno());
+        callDataRecord.setCallerMastId(callDataRecordValue.getCallerMastId());
+        callDataRecord.setCalleeTelno(callDataRecordValue.getCalleeTelno());
+        callDataRecord.setCalleeMastId(callDataRecordValue.getCalleeMastId());
+        callDataRecord.setStartTimestamp(callDataRecordValue.getStartTimestamp());
+        callDataRecord.setDurationSeconds(callDataRecordValue.getDurationSeconds());
+        callDataRecord.setCallSuccessful(callDataRecordValue.isCallSuccessful());
+        callDataRecord.setCreatedBy(callDataRecordValue.getCreatedBy());
+        callDataRecord.setCreatedDate(callDataRecordValue.getCreatedDate());
+        callDataRecord.setLastModifiedBy(callDataRecordValue.getLastModifiedBy());
+        callDataRecord.setLastModifiedDate(callDataRecordValue.getLastModifiedDate());
+        return callDataRecord;
+    }
+
 }
@@ -22,14 +22,23 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Properties;
 
 import org.json.JSONArray;
 import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
 
+import com.hazelcast.core.HazelcastInstance;
 import com.hazelcast.core.HazelcastJsonValue;
+import com.hazelcast.map.MapLoaderLifecycleSupport;
 import com.hazelcast.map.MapStore;
+import com.hazelcast.platform.demos.telco.churn.MyConstants;
 import com.hazelcast.platform.demos.telco.churn.domain.Customer;
 import com.hazelcast.platform.demos.telco.churn.domain.CustomerMetadata;
 import com.hazelcast.platform.demos.telco.churn.domain.CustomerRepository;
@@ -38,16 +47,22 @@ import com.hazelcast.platform.demos.telco.churn.domain.CustomerRepository;
  * <p>Load a {@link Customer} object from Mongo and turn it into JSON.
  * Save it back when it changes.
  * </p>
+ * <p>Bulk loads and stores go through {@link MyMapStoreBatcher}.
+ * </p>
  */
-public class CustomerMapStore implements MapStore<String, HazelcastJsonValue> {
+public class CustomerMapStore implements MapStore<String, HazelcastJsonValue>, MapLoaderLifecycleSupport {
     private static final Logger LOGGER = LoggerFactory.getLogger(CustomerMapStore.class);
 
     private CustomerRepository customerRepository;
+    private MongoOperations mongoOperations;
     private String modifierFilter;
+    private final MyMapStoreBatcher myMapStoreBatcher;
 
-    CustomerMapStore(CustomerRepository arg0, String arg1) {
+    CustomerMapStore(CustomerRepository arg0, MongoOperations arg1, String arg2) {
         this.customerRepository = arg0;
-        this.modifierFilter = arg1;
+        this.mongoOperations = arg1;
+        this.modifierFilter = arg2;
+        this.myMapStoreBatcher = new MyMapStoreBatcher(MyConstants.IMAP_NAME_CUSTOMER);
     }
 
     /**
@@ -79,9 +94,9 @@ public class CustomerMapStore implements MapStore<String, HazelcastJsonValue> {
     }
 
     /**
-     * <p>Each member is given blocks of keys to load. Depending on the
-     * technology it may be feasible to retrieve these in one shot from
-     * the database, but here it is coded to retrieve them individually.
+     * <p>Each member is given blocks of keys to load. These are split
+     * into batches by partition, and each batch retrieved in one shot
+     * with an "{@code $in}" query, several batches at once.
      * </p>
      */
     @Override
@@ -89,17 +104,22 @@ public class CustomerMapStore implements MapStore<String, HazelcastJsonValue> {
         int expectedSize = keys.size();
         LOGGER.trace("loadAll({})", expectedSize);
 
-        Map<String, HazelcastJsonValue> result = new HashMap<>();
-        for (String key : keys) {
-            HazelcastJsonValue json = null;
-            try {
-                json = this.load(key);
-            } catch (Exception exception) {
-                LOGGER.error("loadAll({}) for key '" + key + "'", exception);
-            }
+        List<List<Customer>> batches = this.myMapStoreBatcher.run("loadAll", keys,
+                chunk -> this.customerRepository.findAllById(chunk),
+                List::size);
 
-            if (json != null) {
-                result.put(key, json);
+        Map<String, HazelcastJsonValue> result = new HashMap<>();
+        for (List<Customer> batch : batches) {
+            if (batch != null) {
+                for (Customer customer : batch) {
+                    try {
+                        JSONObject json = new JSONObject(customer);
+                        MyMapHelpers.validate(json, CustomerMetadata.FIELD_NAMES);
+                        result.put(customer.getId(), new HazelcastJsonValue(json.toString()));
+                    } catch (Exception exception) {
+                        LOGGER.error("loadAll({}) for key '" + customer.getId() + "'", exception);
+                    }
+                }
             }
         }
 
@@ -181,25 +201,10 @@ public class CustomerMapStore implements MapStore<String, HazelcastJsonValue> {
     public void store(String key, HazelcastJsonValue value) {
         long now = System.currentTimeMillis();
 
-        Customer customer = new Customer();
         try {
             JSONObject json = new JSONObject(value.toString());
-            customer.setId(json.getString(CustomerMetadata.ID));
-            customer.setFirstName(json.getString(CustomerMetadata.FIRSTNAME));
-            customer.setLastName(json.getString(CustomerMetadata.LASTNAME));
-            customer.setAccountType(json.getString(CustomerMetadata.ACCOUNT_TYPE));
-            customer.setCreatedBy(json.getString(CustomerMetadata.CREATED_BY));
-            customer.setCreatedDate(json.getLong(CustomerMetadata.CREATED_DATE));
-            // Regard everything saved by Hazelcast as changed by Hazelcast
+            Customer customer = this.toCustomer(json, now);
             String previousLastModifiedBy = json.getString(CustomerMetadata.LAST_MODIFIED_BY);
-            customer.setLastModifiedBy(this.modifierFilter);
-            customer.setLastModifiedDate(now);
-            JSONArray notesArray = json.getJSONArray(CustomerMetadata.NOTES);
-            String[] notes = new String[notesArray.length()];
-            for (int i = 0; i < notes.length; i++) {
-                notes[i] = notesArray.get(i).toString();
-            }
-            customer.setNotes(notes);
 
             if ("churn-update-legacy".equals(previousLastModifiedBy)) {
                 LOGGER.trace("store({}, {}) not stored as LastModifiedBy='{}'",
@@ -216,8 +221,9 @@ public class CustomerMapStore implements MapStore<String, HazelcastJsonValue> {
     }
 
     /**
-     * <p>Use easy iterating store, could do bulk store
-     * if available.
+     * <p>Reformat, drop any that shouldn't be saved, and save the rest
+     * as unordered bulk writes, one round trip per batch, several
+     * batches at once. Each is an upsert, as {@link #store} would do.
      * </p>
      *
      * @param entries
@@ -226,9 +232,86 @@ public class CustomerMapStore implements MapStore<String, HazelcastJsonValue> {
     public void storeAll(Map<String, HazelcastJsonValue> entries) {
         int expectedSize = entries.size();
         LOGGER.trace("storeAll({})", expectedSize);
+        long now = System.currentTimeMillis();
+
+        Map<String, Customer> toSave = new HashMap<>();
         for (Map.Entry<String, HazelcastJsonValue> entry : entries.entrySet()) {
-            this.store(entry.getKey(), entry.getValue());
+            try {
+                JSONObject json = new JSONObject(entry.getValue().toString());
+                String previousLastModifiedBy = json.getString(CustomerMetadata.LAST_MODIFIED_BY);
+                if ("churn-update-legacy".equals(previousLastModifiedBy)) {
+                    LOGGER.trace("storeAll({}) not stored {} as LastModifiedBy='{}'",
+                            expectedSize, entry.getKey(), previousLastModifiedBy);
+                } else {
+                    toSave.put(entry.getKey(), this.toCustomer(json, now));
+                }
+            } catch (Exception exception) {
+                LOGGER.error("storeAll({}) for key '{}', EXCEPTION: {}",
+                        expectedSize, entry.getKey(), exception.getMessage());
+            }
+        }
+
+        if (!toSave.isEmpty()) {
+            this.myMapStoreBatcher.run("storeAll", toSave.keySet(),
+                    chunk -> {
+                        BulkOperations bulkOperations =
+                                this.mongoOperations.bulkOps(BulkOperations.BulkMode.UNORDERED, Customer.class);
+                        for (String key : chunk) {
+                            bulkOperations.replaceOne(Query.query(Criteria.where(CustomerMetadata.ID).is(key)),
+                                    toSave.get(key), FindAndReplaceOptions.options().upsert());
+                        }
+                        bulkOperations.execute();
+                        return chunk.size();
+                    },
+                    Integer::intValue);
+        }
+    }
+
+    /**
+     * <p>Use the cluster's partitioning to group keys, and the
+     * map store properties for batch size and concurrency.
+     * </p>
+     */
+    @Override
+    public void init(HazelcastInstance hazelcastInstance, Properties properties, String mapName) {
+        this.myMapStoreBatcher.init(hazelcastInstance, properties);
+    }
+
+    @Override
+    public void destroy() {
+        this.myMapStoreBatcher.destroy();
+    }
+
+    MyMapStoreBatcher getMyMapStoreBatcher() {
+        return this.myMapStoreBatcher;
+    }
+
+    /**
+     * <p>JSON from Hazelcast to a Mongo document. Regard everything
+     * saved by Hazelcast as changed by Hazelcast.
+     * </p>
+     *
+     * @param json From Hazelcast
+     * @param now Modification time
+     * @return For Mongo
+     */
+    private Customer toCustomer(JSONObject json, long now) {
+        Customer customer = new Customer();
+        customer.setId(json.getString(CustomerMetadata.ID));
+        customer.setFirstName(json.getString(CustomerMetadata.FIRSTNAME));
+        customer.setLastName(json.getString(CustomerMetadata.LASTNAME));
+        customer.setAccountType(json.getString(CustomerMetadata.ACCOUNT_TYPE));
+        customer.setCreatedBy(json.getString(CustomerMetadata.CREATED_BY));
+        customer.setCreatedDate(json.getLong(CustomerMetadata.CREATED_DATE));
+        customer.setLastModifiedBy(this.modifierFilter);
+        customer.setLastModifiedDate(now);
+        JSONArray notesArray = json.getJSONArray(CustomerMetadata.NOTES);
+        String[] notes = new String[notesArray.length()];
+        for (int i = 0; i < notes.length; i++) {
+            notes[i] = notesArray.get(i).toString();
         }
+        customer.setNotes(notes);
+        return customer;
     }
 
 }
@@ -0,0 +1,236 @@
+/*
+ * Copyright (c) 2008-2022, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.platform.demos.telco.churn.mapstore;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.partition.PartitionService;
+
+/**
+ * <p>Runs a {@link com.hazelcast.map.MapStore MapStore} bulk operation as
+ * batches against the database, several at once.
+ * </p>
+ * <p>Keys are grouped by Hazelcast partition, and partitions packed into
+ * batches of up to "{@code batch-size}" keys, so a partition's keys
+ * are usually in the same batch. At most "{@code concurrency}"
+ * batches run at once, so the database sees a bounded load whatever
+ * the number of keys. Both are map store properties, with defaults
+ * {@link #DEFAULT_BATCH_SIZE} and {@link #DEFAULT_CONCURRENCY}.
+ * </p>
+ * <p>Each batch is logged with its size and time, and totals are kept.
+ * If {@link #init} is not called, batches run one at a time in the
+ * caller's thread.
+ * </p>
+ */
+public class MyMapStoreBatcher {
+    public static final String PROPERTY_BATCH_SIZE = "batch-size";
+    public static final String PROPERTY_CONCURRENCY = "concurrency";
+    public static final int DEFAULT_BATCH_SIZE = 100;
+    public static final int DEFAULT_CONCURRENCY = 4;
+    private static final Logger LOGGER = LoggerFactory.getLogger(MyMapStoreBatcher.class);
+
+    private final String name;
+    private int batchSize = DEFAULT_BATCH_SIZE;
+    private int concurrency = DEFAULT_CONCURRENCY;
+    private ToIntFunction<Object> partitioner = key -> 0;
+    private ExecutorService executorService;
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong rows = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong nanos = new AtomicLong();
+
+    MyMapStoreBatcher(String arg0) {
+        this.name = arg0;
+    }
+
+    /**
+     * <p>From {@link com.hazelcast.map.MapLoaderLifecycleSupport#init}, use
+     * the cluster's partitioning and any properties for the map store.
+     * </p>
+     *
+     * @param hazelcastInstance May be null, no partitioning
+     * @param properties May be null, use defaults
+     */
+    void init(HazelcastInstance hazelcastInstance, Properties properties) {
+        if (hazelcastInstance != null) {
+            PartitionService partitionService = hazelcastInstance.getPartitionService();
+            this.partitioner = key -> partitionService.getPartition(key).getPartitionId();
+        }
+        if (properties != null) {
+            this.batchSize = Integer.parseInt(
+                    properties.getProperty(PROPERTY_BATCH_SIZE, String.valueOf(DEFAULT_BATCH_SIZE)));
+            this.concurrency = Integer.parseInt(
+                    properties.getProperty(PROPERTY_CONCURRENCY, String.valueOf(DEFAULT_CONCURRENCY)));
+        }
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executorService = Executors.newFixedThreadPool(this.concurrency, runnable -> {
+            Thread thread = new Thread(runnable, this.name + "-batch-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        LOGGER.info("'{}' batch-size {}, concurrency {}", this.name, this.batchSize, this.concurrency);
+    }
+
+    /**
+     * <p>From {@link com.hazelcast.map.MapLoaderLifecycleSupport#destroy}.
+     * </p>
+     */
+    void destroy() {
+        if (this.executorService != null) {
+            this.executorService.shutdown();
+        }
+        LOGGER.info("'{}' totals: {}", this.name, this.getTotals());
+    }
+
+    /**
+     * <p>Group by partition, then pack partitions into batches. A partition
+     * larger than a batch is split.
+     * </p>
+     *
+     * @param keys Any order
+     * @return Batches, no more than batch size each
+     */
+    <K> List<List<K>> chunk(Collection<K> keys) {
+        Map<Integer, List<K>> byPartition = new TreeMap<>();
+        for (K key : keys) {
+            byPartition.computeIfAbsent(this.partitioner.applyAsInt(key), k -> new ArrayList<>()).add(key);
+        }
+
+        List<List<K>> result = new ArrayList<>();
+        List<K> batch = new ArrayList<>(this.batchSize);
+        for (List<K> partitionKeys : byPartition.values()) {
+            if (!batch.isEmpty() && batch.size() + partitionKeys.size() > this.batchSize) {
+                result.add(batch);
+                batch = new ArrayList<>(this.batchSize);
+            }
+            for (K key : partitionKeys) {
+                if (batch.size() == this.batchSize) {
+                    result.add(batch);
+                    batch = new ArrayList<>(this.batchSize);
+                }
+                batch.add(key);
+            }
+        }
+        if (!batch.isEmpty()) {
+            result.add(batch);
+        }
+        return result;
+    }
+
+    /**
+     * <p>Run the operation on each batch, at most "{@code concurrency}" at once,
+     * and wait for all. A failed batch is logged and gives null, so
+     * the others are still used.
+     * </p>
+     *
+     * @param operation For logging, eg. "{@code loadAll}"
+     * @param keys Keys to batch
+     * @param function Database call for one batch
+     * @param counter How many rows a batch result represents
+     * @return Results in batch order, null for any that failed
+     */
+    <K, R> List<R> run(String operation, Collection<K> keys, Function<List<K>, R> function,
+            ToIntFunction<R> counter) {
+        long start = System.nanoTime();
+        List<List<K>> chunks = this.chunk(keys);
+
+        List<Future<R>> futures = new ArrayList<>(chunks.size());
+        for (int i = 0; i < chunks.size(); i++) {
+            List<K> chunk = chunks.get(i);
+            int batchNo = i + 1;
+            Callable<R> task = () -> {
+                long before = System.nanoTime();
+                R result = function.apply(chunk);
+                long elapsed = System.nanoTime() - before;
+                int count = counter.applyAsInt(result);
+                this.batches.incrementAndGet();
+                this.rows.addAndGet(count);
+                this.nanos.addAndGet(elapsed);
+                LOGGER.debug("'{}' {} batch {}/{}: {} keys, {} rows, {}ms", this.name, operation,
+                        batchNo, chunks.size(), chunk.size(), count, TimeUnit.NANOSECONDS.toMillis(elapsed));
+                return result;
+            };
+            if (this.executorService == null) {
+                // Not initialized, run in caller's thread
+                FutureTask<R> futureTask = new FutureTask<>(task);
+                futureTask.run();
+                futures.add(futureTask);
+            } else {
+                futures.add(this.executorService.submit(task));
+            }
+        }
+
+        List<R> results = new ArrayList<>(futures.size());
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                results.add(futures.get(i).get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                results.add(null);
+            } catch (ExecutionException e) {
+                this.failures.incrementAndGet();
+                LOGGER.error("'" + this.name + "' " + operation + " batch " + (i + 1) + "/" + futures.size()
+                    + " of " + chunks.get(i).size() + " keys", e.getCause());
+                results.add(null);
+            }
+        }
+
+        LOGGER.debug("'{}' {}({}) in {} batches, {}ms", this.name, operation, keys.size(), chunks.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return results;
+    }
+
+    /**
+     * <p>Totals so far, for all operations.
+     * </p>
+     *
+     * @return Batch count, rows, failed batches and average time
+     */
+    String getTotals() {
+        long batchCount = this.batches.get();
+        return "batches=" + batchCount + ", rows=" + this.rows.get() + ", failures=" + this.failures.get()
+            + ", avgBatchMs=" + (batchCount == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(this.nanos.get() / batchCount));
+    }
+
+    long getBatches() {
+        return this.batches.get();
+    }
+
+    long getRows() {
+        return this.rows.get();
+    }
+}
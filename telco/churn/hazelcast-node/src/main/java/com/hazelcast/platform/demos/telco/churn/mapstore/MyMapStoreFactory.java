@@ -30,6 +30,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationContext;
+import org.springframework.data.mongodb.core.MongoOperations;
 import org.springframework.stereotype.Component;
 
 /**
@@ -71,7 +72,9 @@ public class MyMapStoreFactory implements MapStoreFactory {
         case MyConstants.IMAP_NAME_CUSTOMER:
             CustomerRepository customerRepository =
                 this.applicationContext.getBean(CustomerRepository.class);
-            mapLoader = new CustomerMapStore(customerRepository,
+            MongoOperations mongoOperations =
+                this.applicationContext.getBean(MongoOperations.class);
+            mapLoader = new CustomerMapStore(customerRepository, mongoOperations,
                     MyMapHelpers.getModifiedBy(this.myProperties));
             break;
         case MyConstants.IMAP_NAME_TARIFF:
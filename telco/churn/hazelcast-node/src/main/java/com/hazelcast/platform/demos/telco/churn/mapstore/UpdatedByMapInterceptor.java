@@ -23,6 +23,9 @@ import org.slf4j.LoggerFactory;
 import com.hazelcast.core.HazelcastJsonValue;
 import com.hazelcast.map.EntryProcessor;
 import com.hazelcast.map.MapInterceptor;
+import com.hazelcast.platform.demos.telco.churn.MyJsonScanner;
+import com.hazelcast.platform.demos.telco.churn.domain.CallDataRecordValue;
+import com.hazelcast.platform.demos.telco.churn.domain.CustomerMetadata;
 
 /**
  * <p>This doesn't fire for a {@link MapLoader} or {@link EntryProcessor} as
@@ -30,11 +33,17 @@ import com.hazelcast.map.MapInterceptor;
  * <p>It does for for Jet jobs with a map sink and for the more basic
  * "{@code Map.put(K,V))}" operations.
  * </p>
+ * <p>This runs on the partition thread for every put, so the value
+ * isn't parsed. {@link CallDataRecordValue} is typed, and JSON values
+ * are scanned for the two fields and only copied if they change.
+ * </p>
  */
 public class UpdatedByMapInterceptor implements MapInterceptor {
     private static final long serialVersionUID = 1L;
 
     private static final Logger LOGGER = LoggerFactory.getLogger(UpdatedByMapInterceptor.class);
+    private static final String DATA_FEED = "churn-data-feed";
+    private static final String UPDATE_LEGACY = "churn-update-legacy";
 
     private String modifier;
 
@@ -50,28 +59,87 @@ public class UpdatedByMapInterceptor implements MapInterceptor {
     @Override
     public Object interceptPut(Object oldValue, Object newValue) {
         LOGGER.trace("interceptPut({}, {})", oldValue, newValue);
+        if (newValue instanceof CallDataRecordValue) {
+            // Typed, no parsing, and the value is already a copy we can amend
+            CallDataRecordValue callDataRecordValue = (CallDataRecordValue) newValue;
+            if (!isExternal(callDataRecordValue.getLastModifiedBy())) {
+                callDataRecordValue.setLastModifiedBy(this.modifier);
+                callDataRecordValue.setLastModifiedDate(System.currentTimeMillis());
+            }
+            return callDataRecordValue;
+        }
         if (newValue instanceof HazelcastJsonValue) {
-            try {
-                JSONObject json = new JSONObject(newValue.toString());
-                long now = System.currentTimeMillis();
-
-                // Don't regard data feed or legacy update as changed in Hazelcast
-                String lastModifiedBy = json.getString("lastModifiedBy");
-                if (!lastModifiedBy.equals("churn-data-feed")
-                        && !lastModifiedBy.equals("churn-update-legacy")) {
-
-                    json.put("lastModifiedBy", this.modifier);
-                    json.put("lastModifiedDate", now);
-
-                    return new HazelcastJsonValue(json.toString());
-                }
-            } catch (Exception exception) {
-                LOGGER.error("interceptPut('{}'), EXCEPTION: {}", newValue, exception.getMessage());
+            // Scan in place, only build a new string if changing it
+            String json = newValue.toString();
+            int lastModifiedByStart = MyJsonScanner.valueStart(json, CustomerMetadata.LAST_MODIFIED_BY);
+            int lastModifiedDateStart = MyJsonScanner.valueStart(json, CustomerMetadata.LAST_MODIFIED_DATE);
+            if (lastModifiedByStart == MyJsonScanner.NOT_FOUND
+                    || lastModifiedDateStart == MyJsonScanner.NOT_FOUND) {
+                LOGGER.error("interceptPut('{}'), no '{}' or '{}'", newValue,
+                        CustomerMetadata.LAST_MODIFIED_BY, CustomerMetadata.LAST_MODIFIED_DATE);
+            } else if (!isExternal(json, lastModifiedByStart)) {
+                return new HazelcastJsonValue(this.stamp(json, lastModifiedByStart, lastModifiedDateStart,
+                        System.currentTimeMillis()));
             }
         }
         return newValue;
     }
 
+    /**
+     * <p>Don't regard data feed or legacy update as changed in Hazelcast.
+     * </p>
+     *
+     * @param lastModifiedBy From the new value
+     * @return True if the change came from outside Hazelcast
+     */
+    private static boolean isExternal(String lastModifiedBy) {
+        return DATA_FEED.equals(lastModifiedBy)
+                || UPDATE_LEGACY.equals(lastModifiedBy);
+    }
+
+    /**
+     * <p>As {@link #isExternal(String)} but comparing in the JSON string.
+     * </p>
+     *
+     * @param json Value being put
+     * @param start Position of the "{@code lastModifiedBy}" value
+     * @return True if the change came from outside Hazelcast
+     */
+    private static boolean isExternal(String json, int start) {
+        return MyJsonScanner.stringValueEquals(json, start, DATA_FEED)
+                || MyJsonScanner.stringValueEquals(json, start, UPDATE_LEGACY);
+    }
+
+    /**
+     * <p>Replace the "{@code lastModifiedBy}" and "{@code lastModifiedDate}"
+     * values, copying the rest of the JSON unchanged.
+     * </p>
+     *
+     * @param json Value being put
+     * @param lastModifiedByStart Position of the "{@code lastModifiedBy}" value
+     * @param lastModifiedDateStart Position of the "{@code lastModifiedDate}" value
+     * @param now Timestamp to set
+     * @return Amended JSON
+     */
+    private String stamp(String json, int lastModifiedByStart, int lastModifiedDateStart, long now) {
+        String lastModifiedBy = JSONObject.quote(this.modifier);
+        String lastModifiedDate = String.valueOf(now);
+        int lastModifiedByEnd = MyJsonScanner.valueEnd(json, lastModifiedByStart);
+        int lastModifiedDateEnd = MyJsonScanner.valueEnd(json, lastModifiedDateStart);
+
+        StringBuilder stringBuilder = new StringBuilder(json.length() + lastModifiedBy.length());
+        if (lastModifiedByStart < lastModifiedDateStart) {
+            stringBuilder.append(json, 0, lastModifiedByStart).append(lastModifiedBy)
+                .append(json, lastModifiedByEnd, lastModifiedDateStart).append(lastModifiedDate)
+                .append(json, lastModifiedDateEnd, json.length());
+        } else {
+            stringBuilder.append(json, 0, lastModifiedDateStart).append(lastModifiedDate)
+                .append(json, lastModifiedDateEnd, lastModifiedByStart).append(lastModifiedBy)
+                .append(json, lastModifiedByEnd, json.length());
+        }
+        return stringBuilder.toString();
+    }
+
     /**
      * <p>Pre-call intercept, no-op</p>
      */
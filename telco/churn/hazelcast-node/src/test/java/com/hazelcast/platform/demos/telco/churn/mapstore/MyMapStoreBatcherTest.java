@@ -0,0 +1,441 @@
+/*
+ * Copyright (c) 2008-2022, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.platform.demos.telco.churn.mapstore;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.json.JSONObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoOperations;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.HazelcastJsonValue;
+import com.hazelcast.partition.Partition;
+import com.hazelcast.partition.PartitionService;
+import com.hazelcast.platform.demos.telco.churn.domain.CallDataRecord;
+import com.hazelcast.platform.demos.telco.churn.domain.CallDataRecordKey;
+import com.hazelcast.platform.demos.telco.churn.domain.CallDataRecordRepository;
+import com.hazelcast.platform.demos.telco.churn.domain.CallDataRecordValue;
+import com.hazelcast.platform.demos.telco.churn.domain.Customer;
+import com.hazelcast.platform.demos.telco.churn.domain.CustomerRepository;
+
+/**
+ * <p>Test bulk load and store in {@link CallDataRecordMapStore} and
+ * {@link CustomerMapStore}, against in-memory stand-ins for Cassandra
+ * and Mongo that count round trips and add a fixed delay to each.
+ * Compare round trips against loading key by key, as previously.
+ * </p>
+ */
+public class MyMapStoreBatcherTest {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MyMapStoreBatcherTest.class);
+    private static final String MODIFIER = "churn-site1";
+    private static final int PARTITIONS = 7;
+    private static final int BATCH_SIZE = 50;
+    private static final int CONCURRENCY = 4;
+    private static final int COUNT = 500;
+    private static final long ROUND_TRIP_MS = 2L;
+
+    private final Map<String, CallDataRecord> cassandra = new ConcurrentHashMap<>();
+    private final Map<String, Customer> mongo = new ConcurrentHashMap<>();
+    private final AtomicInteger roundTrips = new AtomicInteger();
+    private CallDataRecordMapStore callDataRecordMapStore;
+    private CustomerMapStore customerMapStore;
+
+    @BeforeEach
+    public void beforeEach() {
+        for (int i = 0; i < COUNT; i++) {
+            CallDataRecordValue callDataRecordValue = makeCallDataRecordValue(i, "churn-data-feed");
+            this.cassandra.put(callDataRecordValue.getId(), CallDataRecordMapStore.toEntity(callDataRecordValue));
+            Customer customer = makeCustomer(i, "churn-preload-legacy");
+            this.mongo.put(customer.getId(), customer);
+        }
+
+        this.callDataRecordMapStore = new CallDataRecordMapStore(this.fakeCallDataRecordRepository(), MODIFIER);
+        this.customerMapStore = new CustomerMapStore(this.fakeCustomerRepository(),
+                this.fakeMongoOperations(), MODIFIER);
+
+        Properties properties = new Properties();
+        properties.setProperty(MyMapStoreBatcher.PROPERTY_BATCH_SIZE, String.valueOf(BATCH_SIZE));
+        properties.setProperty(MyMapStoreBatcher.PROPERTY_CONCURRENCY, String.valueOf(CONCURRENCY));
+        this.callDataRecordMapStore.init(fakeHazelcastInstance(), properties, "cdr");
+        this.customerMapStore.init(fakeHazelcastInstance(), properties, "customer");
+    }
+
+    @AfterEach
+    public void afterEach() {
+        this.callDataRecordMapStore.destroy();
+        this.customerMapStore.destroy();
+    }
+
+    @Test
+    public void testChunk(TestInfo testInfo) {
+        Set<String> keys = new HashSet<>();
+        for (int i = 0; i < COUNT; i++) {
+            keys.add("k" + i);
+        }
+
+        List<List<String>> chunks = this.customerMapStore.getMyMapStoreBatcher().chunk(keys);
+        LOGGER.info("{} :: {} keys in {} chunks", testInfo.getDisplayName(), keys.size(), chunks.size());
+
+        Set<String> all = new HashSet<>();
+        int partitionsSplit = 0;
+        Map<Integer, Integer> partitionToChunk = new HashMap<>();
+        for (int i = 0; i < chunks.size(); i++) {
+            assertThat(chunks.get(i).size()).isLessThanOrEqualTo(BATCH_SIZE);
+            all.addAll(chunks.get(i));
+            for (String key : chunks.get(i)) {
+                Integer previous = partitionToChunk.put(partitionId(key), i);
+                if (previous != null && previous != i) {
+                    partitionsSplit++;
+                }
+            }
+        }
+        assertThat(all).isEqualTo(keys);
+        // Partition contiguous, only split at batch boundaries
+        assertThat(partitionsSplit).isLessThanOrEqualTo(chunks.size());
+        assertThat(chunks.size()).isLessThanOrEqualTo(COUNT / BATCH_SIZE + PARTITIONS);
+    }
+
+    @Test
+    public void testCallDataRecordLoadAll(TestInfo testInfo) {
+        List<CallDataRecordKey> keys = new ArrayList<>();
+        for (int i = 0; i < COUNT; i++) {
+            keys.add(new CallDataRecordKey(callerTelno(i), cdrId(i)));
+        }
+        keys.add(new CallDataRecordKey("missing", "missing"));
+
+        this.roundTrips.set(0);
+        long start = System.nanoTime();
+        Map<CallDataRecordKey, CallDataRecordValue> bulk = this.callDataRecordMapStore.loadAll(keys);
+        long bulkMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        int bulkRoundTrips = this.roundTrips.getAndSet(0);
+
+        start = System.nanoTime();
+        Map<CallDataRecordKey, CallDataRecordValue> single = new HashMap<>();
+        for (CallDataRecordKey key : keys) {
+            CallDataRecordValue value = this.callDataRecordMapStore.load(key);
+            if (value != null) {
+                single.put(key, value);
+            }
+        }
+        long singleMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        int singleRoundTrips = this.roundTrips.get();
+
+        LOGGER.info("{} :: bulk {} round trips {}ms, single {} round trips {}ms, {}",
+                testInfo.getDisplayName(), bulkRoundTrips, bulkMs, singleRoundTrips, singleMs,
+                this.callDataRecordMapStore.getMyMapStoreBatcher().getTotals());
+
+        assertThat(bulk.size()).isEqualTo(COUNT);
+        assertThat(bulk).isEqualTo(single);
+        // Timings depend on the machine so are only logged, round trips don't
+        assertThat(singleRoundTrips).isEqualTo(keys.size());
+        assertThat(bulkRoundTrips).isLessThanOrEqualTo(keys.size() / BATCH_SIZE + PARTITIONS);
+    }
+
+    @Test
+    public void testCallDataRecordStoreAll(TestInfo testInfo) {
+        Map<CallDataRecordKey, CallDataRecordValue> entries = new HashMap<>();
+        for (int i = 0; i < COUNT; i++) {
+            String modifier = (i % 10 == 0) ? "churn-update-legacy" : "someone";
+            CallDataRecordValue value = makeCallDataRecordValue(i, modifier);
+            value.setDurationSeconds(-1);
+            entries.put(new CallDataRecordKey(value.getCallerTelno(), value.getId()), value);
+        }
+
+        this.roundTrips.set(0);
+        this.callDataRecordMapStore.storeAll(entries);
+        int bulkRoundTrips = this.roundTrips.get();
+        LOGGER.info("{} :: {} round trips, {}", testInfo.getDisplayName(), bulkRoundTrips,
+                this.callDataRecordMapStore.getMyMapStoreBatcher().getTotals());
+
+        int changed = 0;
+        for (int i = 0; i < COUNT; i++) {
+            CallDataRecord callDataRecord = this.cassandra.get(cdrId(i));
+            if (i % 10 == 0) {
+                assertThat(callDataRecord.getLastModifiedBy()).isEqualTo("churn-data-feed");
+            } else {
+                assertThat(callDataRecord.getLastModifiedBy()).isEqualTo(MODIFIER);
+                assertThat(callDataRecord.getDurationSeconds()).isEqualTo(-1);
+                changed++;
+            }
+        }
+        assertThat(changed).isEqualTo(COUNT - COUNT / 10);
+        assertThat(bulkRoundTrips).isLessThanOrEqualTo(COUNT / BATCH_SIZE + PARTITIONS);
+    }
+
+    @Test
+    public void testCustomerLoadAll(TestInfo testInfo) {
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < COUNT; i++) {
+            keys.add(customerId(i));
+        }
+
+        this.roundTrips.set(0);
+        long start = System.nanoTime();
+        Map<String, HazelcastJsonValue> bulk = this.customerMapStore.loadAll(keys);
+        long bulkMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        int bulkRoundTrips = this.roundTrips.getAndSet(0);
+
+        start = System.nanoTime();
+        Map<String, HazelcastJsonValue> single = new HashMap<>();
+        for (String key : keys) {
+            single.put(key, this.customerMapStore.load(key));
+        }
+        long singleMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        int singleRoundTrips = this.roundTrips.get();
+
+        LOGGER.info("{} :: bulk {} round trips {}ms, single {} round trips {}ms, {}",
+                testInfo.getDisplayName(), bulkRoundTrips, bulkMs, singleRoundTrips, singleMs,
+                this.customerMapStore.getMyMapStoreBatcher().getTotals());
+
+        assertThat(bulk.size()).isEqualTo(COUNT);
+        for (String key : keys) {
+            assertThat(new JSONObject(bulk.get(key).toString())
+                    .similar(new JSONObject(single.get(key).toString()))).isTrue();
+        }
+        // Timings depend on the machine so are only logged, round trips don't
+        assertThat(singleRoundTrips).isEqualTo(keys.size());
+        assertThat(bulkRoundTrips).isLessThanOrEqualTo(keys.size() / BATCH_SIZE + PARTITIONS);
+    }
+
+    @Test
+    public void testCustomerStoreAll(TestInfo testInfo) {
+        Map<String, HazelcastJsonValue> entries = new HashMap<>();
+        for (int i = 0; i < COUNT; i++) {
+            String modifier = (i % 10 == 0) ? "churn-update-legacy" : "someone";
+            Customer customer = makeCustomer(i, modifier);
+            customer.setAccountType("CHANGED");
+            entries.put(customer.getId(), new HazelcastJsonValue(new JSONObject(customer).toString()));
+        }
+        // New customer, upserted
+        Customer extra = makeCustomer(COUNT, "someone");
+        entries.put(extra.getId(), new HazelcastJsonValue(new JSONObject(extra).toString()));
+
+        this.roundTrips.set(0);
+        this.customerMapStore.storeAll(entries);
+        int bulkRoundTrips = this.roundTrips.get();
+        LOGGER.info("{} :: {} round trips, {}", testInfo.getDisplayName(), bulkRoundTrips,
+                this.customerMapStore.getMyMapStoreBatcher().getTotals());
+
+        for (int i = 0; i < COUNT; i++) {
+            Customer customer = this.mongo.get(customerId(i));
+            if (i % 10 == 0) {
+                assertThat(customer.getAccountType()).isEqualTo("PREPAID");
+            } else {
+                assertThat(customer.getAccountType()).isEqualTo("CHANGED");
+                assertThat(customer.getLastModifiedBy()).isEqualTo(MODIFIER);
+            }
+        }
+        assertThat(this.mongo.size()).isEqualTo(COUNT + 1);
+        assertThat(bulkRoundTrips).isLessThanOrEqualTo(COUNT / BATCH_SIZE + PARTITIONS);
+    }
+
+    private static String cdrId(int i) {
+        return "cdr" + i;
+    }
+
+    private static String callerTelno(int i) {
+        return "07700" + (i % 100);
+    }
+
+    private static String customerId(int i) {
+        return "customer" + i;
+    }
+
+    private static int partitionId(Object key) {
+        Object partitionKey = (key instanceof CallDataRecordKey)
+                ? ((CallDataRecordKey) key).getPartitionKey() : key;
+        return Math.abs(partitionKey.hashCode() % PARTITIONS);
+    }
+
+    private static CallDataRecordValue makeCallDataRecordValue(int i, String modifier) {
+        CallDataRecordValue callDataRecordValue = new CallDataRecordValue();
+        callDataRecordValue.setId(cdrId(i));
+        callDataRecordValue.setCallerTelno(callerTelno(i));
+        callDataRecordValue.setCallerMastId("mast" + i);
+        callDataRecordValue.setCalleeTelno("07800" + i);
+        callDataRecordValue.setCalleeMastId("mast" + (i + 1));
+        callDataRecordValue.setStartTimestamp(i);
+        callDataRecordValue.setDurationSeconds(i);
+        callDataRecordValue.setCallSuccessful(true);
+        callDataRecordValue.setCreatedBy("churn-preload-legacy");
+        callDataRecordValue.setCreatedDate(i);
+        callDataRecordValue.setLastModifiedBy(modifier);
+        callDataRecordValue.setLastModifiedDate(i);
+        return callDataRecordValue;
+    }
+
+    private static Customer makeCustomer(int i, String modifier) {
+        Customer customer = new Customer();
+        customer.setId(customerId(i));
+        customer.setFirstName("First" + i);
+        customer.setLastName("Last" + i);
+        customer.setAccountType("PREPAID");
+        customer.setCreatedBy("churn-preload-legacy");
+        customer.setCreatedDate(Long.valueOf(i));
+        customer.setLastModifiedBy(modifier);
+        customer.setLastModifiedDate(Long.valueOf(i));
+        customer.setNotes(new String[] {"note" + i});
+        return customer;
+    }
+
+    private void roundTrip() {
+        this.roundTrips.incrementAndGet();
+        try {
+            TimeUnit.MILLISECONDS.sleep(ROUND_TRIP_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * <p>Partition by hash, honouring {@link CallDataRecordKey}'s partition key.
+     * </p>
+     */
+    private static HazelcastInstance fakeHazelcastInstance() {
+        PartitionService partitionService = fake(PartitionService.class, (method, args) -> {
+            int partitionId = partitionId(args[0]);
+            return fake(Partition.class, (method2, args2) -> partitionId);
+        });
+        return fake(HazelcastInstance.class, (method, args) -> partitionService);
+    }
+
+    @SuppressWarnings("unchecked")
+    private CallDataRecordRepository fakeCallDataRecordRepository() {
+        return fake(CallDataRecordRepository.class, (method, args) -> {
+            this.roundTrip();
+            switch (method) {
+            case "findById":
+                return Optional.ofNullable(this.cassandra.get(args[0]));
+            case "findAllById":
+                List<CallDataRecord> found = new ArrayList<>();
+                for (String id : (Iterable<String>) args[0]) {
+                    Optional.ofNullable(this.cassandra.get(id)).ifPresent(found::add);
+                }
+                return found;
+            case "save":
+                CallDataRecord callDataRecord = (CallDataRecord) args[0];
+                this.cassandra.put(callDataRecord.getId(), callDataRecord);
+                return callDataRecord;
+            case "saveAll":
+                List<CallDataRecord> saved = new ArrayList<>();
+                for (CallDataRecord item : (Iterable<CallDataRecord>) args[0]) {
+                    this.cassandra.put(item.getId(), item);
+                    saved.add(item);
+                }
+                return saved;
+            default:
+                throw new UnsupportedOperationException(method);
+            }
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private CustomerRepository fakeCustomerRepository() {
+        return fake(CustomerRepository.class, (method, args) -> {
+            this.roundTrip();
+            switch (method) {
+            case "findById":
+                return Optional.ofNullable(this.mongo.get(args[0]));
+            case "findAllById":
+                List<Customer> found = new ArrayList<>();
+                for (String id : (Iterable<String>) args[0]) {
+                    Optional.ofNullable(this.mongo.get(id)).ifPresent(found::add);
+                }
+                return found;
+            case "save":
+                Customer customer = (Customer) args[0];
+                this.mongo.put(customer.getId(), customer);
+                return customer;
+            default:
+                throw new UnsupportedOperationException(method);
+            }
+        });
+    }
+
+    /**
+     * <p>Bulk operations are collected, and applied in one round trip
+     * on "{@code execute()}". The result isn't used.
+     * </p>
+     */
+    private MongoOperations fakeMongoOperations() {
+        return fake(MongoOperations.class, (method, args) -> {
+            List<Customer> pending = new ArrayList<>();
+            BulkOperations[] bulkOperations = new BulkOperations[1];
+            bulkOperations[0] = fake(BulkOperations.class, (method2, args2) -> {
+                if ("replaceOne".equals(method2)) {
+                    pending.add((Customer) args2[1]);
+                    return bulkOperations[0];
+                }
+                this.roundTrip();
+                pending.forEach(customer -> this.mongo.put(customer.getId(), customer));
+                return null;
+            });
+            return bulkOperations[0];
+        });
+    }
+
+    /**
+     * <p>A stand-in for an interface, that passes method name and arguments
+     * to a handler, apart from {@link Object} methods.
+     * </p>
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T fake(Class<T> klass, Handler handler) {
+        return (T) Proxy.newProxyInstance(klass.getClassLoader(), new Class<?>[] {klass},
+            (proxy, method, args) -> {
+                switch (method.getName()) {
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                case "toString":
+                    return klass.getSimpleName();
+                default:
+                    return handler.handle(method.getName(), args);
+                }
+            });
+    }
+
+    /**
+     * <p>Handle a method call on a fake.
+     * </p>
+     */
+    @FunctionalInterface
+    private interface Handler {
+        Object handle(String method, Object[] args);
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2008-2022, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.platform.demos.telco.churn.mapstore;
+
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.hazelcast.core.HazelcastJsonValue;
+import com.hazelcast.platform.demos.telco.churn.domain.CallDataRecordValue;
+import com.hazelcast.platform.demos.telco.churn.domain.CustomerMetadata;
+
+/**
+ * <p>Not a precise benchmark, but enough to show the difference. The time
+ * the partition thread spends in "{@code interceptPut()}", for a put
+ * from outside Hazelcast that is left alone and for one from inside
+ * that is stamped, against parsing the JSON as previously.
+ * </p>
+ * <p>Depends on the machine, so is a "{@code main()}" to run by hand rather
+ * than a test, for example from the IDE.
+ * </p>
+ */
+public class UpdatedByMapInterceptorBenchmark {
+    private static final Logger LOGGER = LoggerFactory.getLogger(UpdatedByMapInterceptorBenchmark.class);
+    private static final int WARMUP = 50_000;
+    private static final int REPEAT = 200_000;
+
+    private static final UpdatedByMapInterceptor UPDATED_BY_MAP_INTERCEPTOR =
+            new UpdatedByMapInterceptor(UpdatedByMapInterceptorTest.MODIFIER);
+
+    public static void main(String[] args) {
+        HazelcastJsonValue external = UpdatedByMapInterceptorTest.makeCustomer("churn-data-feed");
+        HazelcastJsonValue internal = UpdatedByMapInterceptorTest.makeCustomer("someone");
+        CallDataRecordValue typed = UpdatedByMapInterceptorTest.makeCallDataRecord("someone");
+        LOGGER.info("customer JSON {} chars", external.toString().length());
+
+        for (int pass = 0; pass < 2; pass++) {
+            int count = pass == 0 ? WARMUP : REPEAT;
+            long beforeExternal = timeBefore(external, count);
+            long beforeInternal = timeBefore(internal, count);
+            long afterExternal = timeAfter(external, count);
+            long afterInternal = timeAfter(internal, count);
+            long afterTyped = timeAfter(typed, count);
+            LOGGER.info("pass {}, ns per put: JSON parse external {} internal {},"
+                    + " JSON scan external {} internal {}, typed {}",
+                    pass, beforeExternal / count, beforeInternal / count,
+                    afterExternal / count, afterInternal / count, afterTyped / count);
+        }
+    }
+
+    private static long timeAfter(Object value, int count) {
+        int hash = 0;
+        long before = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            hash += UPDATED_BY_MAP_INTERCEPTOR.interceptPut(null, value).hashCode();
+        }
+        long elapsed = System.nanoTime() - before;
+        LOGGER.trace("timeAfter() hash=={}", hash);
+        return elapsed;
+    }
+
+    private static long timeBefore(HazelcastJsonValue value, int count) {
+        int hash = 0;
+        long before = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            hash += interceptPutBefore(value).hashCode();
+        }
+        long elapsed = System.nanoTime() - before;
+        LOGGER.trace("timeBefore() hash=={}", hash);
+        return elapsed;
+    }
+
+    /**
+     * <p>The JSON handling before, parse the whole value.
+     * </p>
+     */
+    private static Object interceptPutBefore(HazelcastJsonValue newValue) {
+        JSONObject json = new JSONObject(newValue.toString());
+        String lastModifiedBy = json.getString(CustomerMetadata.LAST_MODIFIED_BY);
+        if (!lastModifiedBy.equals("churn-data-feed")
+                && !lastModifiedBy.equals("churn-update-legacy")) {
+            json.put(CustomerMetadata.LAST_MODIFIED_BY, UpdatedByMapInterceptorTest.MODIFIER);
+            json.put(CustomerMetadata.LAST_MODIFIED_DATE, System.currentTimeMillis());
+            return new HazelcastJsonValue(json.toString());
+        }
+        return newValue;
+    }
+}
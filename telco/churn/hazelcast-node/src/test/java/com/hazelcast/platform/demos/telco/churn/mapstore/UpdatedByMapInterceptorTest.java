@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2008-2022, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.platform.demos.telco.churn.mapstore;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.hazelcast.core.HazelcastJsonValue;
+import com.hazelcast.platform.demos.telco.churn.domain.CallDataRecordValue;
+import com.hazelcast.platform.demos.telco.churn.domain.CustomerMetadata;
+
+/**
+ * <p>Test {@link UpdatedByMapInterceptor} stamps only changes made in Hazelcast.
+ * Timings are in {@link UpdatedByMapInterceptorBenchmark}, which isn't run as a test.
+ * </p>
+ */
+public class UpdatedByMapInterceptorTest {
+    static final String MODIFIER = "churn-site1";
+    private static final Logger LOGGER = LoggerFactory.getLogger(UpdatedByMapInterceptorTest.class);
+    private static final long OLD_TIMESTAMP = 1600000000000L;
+    private static final int NOTES = 5;
+
+    private final UpdatedByMapInterceptor updatedByMapInterceptor = new UpdatedByMapInterceptor(MODIFIER);
+
+    @Test
+    public void testJsonExternal(TestInfo testInfo) throws Exception {
+        HazelcastJsonValue input = makeCustomer("churn-data-feed");
+        Object output = this.updatedByMapInterceptor.interceptPut(null, input);
+        LOGGER.info("{} :: output=='{}'", testInfo.getDisplayName(), output);
+
+        // Unchanged, not even copied
+        assertThat(output == input).isTrue();
+    }
+
+    @Test
+    public void testJsonInternal(TestInfo testInfo) throws Exception {
+        HazelcastJsonValue input = makeCustomer("someone");
+        Object output = this.updatedByMapInterceptor.interceptPut(null, input);
+        LOGGER.info("{} :: output=='{}'", testInfo.getDisplayName(), output);
+
+        JSONObject expected = new JSONObject(input.toString());
+        JSONObject actual = new JSONObject(output.toString());
+        assertThat(actual.getString(CustomerMetadata.LAST_MODIFIED_BY)).isEqualTo(MODIFIER);
+        assertThat(actual.getLong(CustomerMetadata.LAST_MODIFIED_DATE)).isGreaterThan(OLD_TIMESTAMP);
+        // Everything else unchanged
+        expected.remove(CustomerMetadata.LAST_MODIFIED_BY);
+        expected.remove(CustomerMetadata.LAST_MODIFIED_DATE);
+        actual.remove(CustomerMetadata.LAST_MODIFIED_BY);
+        actual.remove(CustomerMetadata.LAST_MODIFIED_DATE);
+        assertThat(actual.similar(expected)).isTrue();
+    }
+
+    @Test
+    public void testJsonMissingField(TestInfo testInfo) throws Exception {
+        HazelcastJsonValue input = new HazelcastJsonValue("{\"id\":\"abc\"}");
+        Object output = this.updatedByMapInterceptor.interceptPut(null, input);
+        LOGGER.info("{} :: output=='{}'", testInfo.getDisplayName(), output);
+
+        assertThat(output == input).isTrue();
+    }
+
+    @Test
+    public void testTyped(TestInfo testInfo) throws Exception {
+        CallDataRecordValue external = makeCallDataRecord("churn-update-legacy");
+        CallDataRecordValue internal = makeCallDataRecord("someone");
+        CallDataRecordValue externalOutput =
+                (CallDataRecordValue) this.updatedByMapInterceptor.interceptPut(null, external);
+        CallDataRecordValue internalOutput =
+                (CallDataRecordValue) this.updatedByMapInterceptor.interceptPut(null, internal);
+        LOGGER.info("{} :: external=='{}', internal=='{}'", testInfo.getDisplayName(),
+                externalOutput, internalOutput);
+
+        assertThat(externalOutput.getLastModifiedBy()).isEqualTo("churn-update-legacy");
+        assertThat(externalOutput.getLastModifiedDate()).isEqualTo(OLD_TIMESTAMP);
+        assertThat(internalOutput.getLastModifiedBy()).isEqualTo(MODIFIER);
+        assertThat(internalOutput.getLastModifiedDate()).isGreaterThan(OLD_TIMESTAMP);
+    }
+
+    /**
+     * <p>Similar to what {@link CustomerMapStore} loads.
+     * </p>
+     */
+    static HazelcastJsonValue makeCustomer(String lastModifiedBy) {
+        JSONArray notes = new JSONArray();
+        for (int i = 0; i < NOTES; i++) {
+            notes.put("Note " + i + ", said \"" + lastModifiedBy + "\" about " + CustomerMetadata.LAST_MODIFIED_BY);
+        }
+        JSONObject json = new JSONObject();
+        json.put(CustomerMetadata.ID, "abc123");
+        json.put(CustomerMetadata.FIRSTNAME, "Jane");
+        json.put(CustomerMetadata.LASTNAME, "Doe");
+        json.put(CustomerMetadata.ACCOUNT_TYPE, "Gold");
+        json.put(CustomerMetadata.CREATED_BY, "churn-preload-legacy");
+        json.put(CustomerMetadata.CREATED_DATE, OLD_TIMESTAMP);
+        json.put(CustomerMetadata.LAST_MODIFIED_BY, lastModifiedBy);
+        json.put(CustomerMetadata.LAST_MODIFIED_DATE, OLD_TIMESTAMP);
+        json.put(CustomerMetadata.NOTES, notes);
+        return new HazelcastJsonValue(json.toString());
+    }
+
+    static CallDataRecordValue makeCallDataRecord(String lastModifiedBy) {
+        CallDataRecordValue callDataRecordValue = new CallDataRecordValue();
+        callDataRecordValue.setId("def456");
+        callDataRecordValue.setCallerTelno("447700900123");
+        callDataRecordValue.setLastModifiedBy(lastModifiedBy);
+        callDataRecordValue.setLastModifiedDate(OLD_TIMESTAMP);
+        return callDataRecordValue;
+    }
+}
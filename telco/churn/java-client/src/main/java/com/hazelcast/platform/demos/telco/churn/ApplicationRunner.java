@@ -17,10 +17,12 @@
 package com.hazelcast.platform.demos.telco.churn;
 
 import java.security.AccessControlException;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.TreeSet;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
@@ -36,7 +38,6 @@ import org.springframework.messaging.simp.SimpMessagingTemplate;
 
 import com.hazelcast.core.DistributedObject;
 import com.hazelcast.core.HazelcastInstance;
-import com.hazelcast.jet.datamodel.Tuple2;
 import com.hazelcast.jet.datamodel.Tuple3;
 import com.hazelcast.map.IMap;
 import com.hazelcast.sql.SqlResult;
@@ -51,7 +52,6 @@ import com.hazelcast.topic.ITopic;
 @Configuration
 public class ApplicationRunner {
     private static final Logger LOGGER = LoggerFactory.getLogger(ApplicationRunner.class);
-    private static final long THIRTY = 30L;
 
     private static final String DESTINATION =
             "/" + MyLocalConstants.WEBSOCKET_TOPICS_PREFIX
@@ -60,6 +60,8 @@ public class ApplicationRunner {
     @Autowired
     private HazelcastInstance hazelcastInstance;
     @Autowired
+    private MyMapSizeTracker myMapSizeTracker;
+    @Autowired
     private MySocketTopicListener mySocketTopicListener;
     @Autowired
     private SimpMessagingTemplate simpMessagingTemplate;
@@ -74,7 +76,7 @@ public class ApplicationRunner {
      * in Beta state
      * </p>
      * <p>Finally, starts publishing map sizes to a web socket to push
-     * these to the web client's "{@code React}" front-end.
+     * these to the web client's "{@code React}" front-end as they change.
      * </p>
      */
     @Bean
@@ -147,22 +149,22 @@ public class ApplicationRunner {
                                 && keys.iterator().next() instanceof Comparable) {
                             keys = new TreeSet<>(keys);
                         }
-                        int count = 0;
-                        for (Object key : keys) {
-                            count++;
-                            if (count == MyConstants.SQL_RESULT_THRESHOLD) {
-                                LOGGER.info("-- truncated at count {}", count);
-                                break;
+                        // Fetch the first few in one call rather than one by one
+                        Set<Object> firstKeys = keys.stream()
+                                .limit(MyConstants.SQL_RESULT_THRESHOLD - 1)
+                                .collect(Collectors.<Object, Set<Object>>toCollection(LinkedHashSet::new));
+                        try {
+                            @SuppressWarnings("unchecked")
+                            Map<Object, Object> values = ((IMap<Object, Object>) iMap).getAll(firstKeys);
+                            for (Object key : firstKeys) {
+                                LOGGER.info("Map {}.get({})=={}", iMap.getName(), key, values.get(key));
                             }
-                            try {
-                                Object value = iMap.get(key);
-                                LOGGER.info("Map {}.get({})=={}", iMap.getName(), key, value);
-                                // Pause so logger messages don't cross
-                                TimeUnit.SECONDS.sleep(1L);
-                            } catch (Exception e) {
-                                String message = String.format("%s.get(%s)", mapName, key.toString());
-                                LOGGER.error(message + ":" + e.getMessage());
+                            if (keys.size() > firstKeys.size()) {
+                                LOGGER.info("-- truncated at count {}", MyConstants.SQL_RESULT_THRESHOLD);
                             }
+                        } catch (Exception e) {
+                            String message = String.format("%s.getAll(%s)", mapName, firstKeys);
+                            LOGGER.error(message + ":" + e.getMessage());
                         }
                     } catch (Exception e) {
                         String message = String.format("getMap(%s).keySet()", mapName);
@@ -232,45 +234,30 @@ public class ApplicationRunner {
     }
 
     /**
-     * <p>Periodically send data to a web socket for the
-     * "{@code React}" front-end to receive.
+     * <p>Send map sizes to a web socket for the "{@code React}" front-end
+     * to receive, as they change.
      * </p>
-     * <p>We do it this way to only send info that has changed,
-     * rather than have the web socket polling.
+     * <p>Sizes are counted from entry events by {@link MyMapSizeTracker},
+     * so checking for changes is local and cheap. Changes are sent at most
+     * once a second, so a busy map doesn't flood the web socket.
      * </p>
      */
     private void webSocketFeed() {
-        Set<String> mapNames = new TreeSet<>(MyConstants.IMAP_NAMES);
-        Map<String, Integer> previousMapSizes =
-                mapNames
-                .stream()
-                .map(mapName -> {
-                    try {
-                        return Tuple2.tuple2(mapName, this.hazelcastInstance.getMap(mapName).size());
-                    } catch (Exception e) {
-                        return Tuple2.tuple2(mapName, Integer.valueOf(-1));
-                    }
-                })
-                .collect(Collectors.toMap(Tuple2::f0, Tuple2::f1));
+        for (String mapName : MyConstants.IMAP_NAMES) {
+            // Permission denied leaves it untracked, no point retrying
+            this.myMapSizeTracker.track(this.hazelcastInstance, mapName);
+        }
+        Map<String, Integer> previousMapSizes = new TreeMap<>();
 
-        // Loop, not too aggressively
         while (true) {
             try {
-                // Checkstyle thinks the below is more obvious than "TimeUnit.SECONDS.sleep(30)"
-                TimeUnit.SECONDS.sleep(THIRTY);
-
                 // Find changes
                 Map<String, Integer> currentMapSizes =
-                        previousMapSizes
+                        this.myMapSizeTracker.getSizes()
                         .entrySet()
                         .stream()
-                        // Remove "-1". permission denied, no point retrying
-                        .filter(entry -> entry.getValue() >= 0)
-                        .map(entry -> Tuple3.tuple3(entry.getKey(), entry.getValue(),
-                                    this.hazelcastInstance.getMap(entry.getKey()).size()))
-                        // Remove if size unchanged
-                        .filter(tuple3 -> tuple3.f1() != tuple3.f2())
-                        .collect(Collectors.toMap(Tuple3::f0, Tuple3::f2));
+                        .filter(entry -> !entry.getValue().equals(previousMapSizes.get(entry.getKey())))
+                        .collect(Collectors.toMap(Entry::getKey, Entry::getValue, (a, b) -> a, TreeMap::new));
 
                 // Anything different ?
                 if (currentMapSizes.size() != 0) {
@@ -281,6 +268,7 @@ public class ApplicationRunner {
                     this.webSocketSend(currentMapSizes);
                 }
 
+                TimeUnit.SECONDS.sleep(1L);
             } catch (InterruptedException e) {
                 break;
             }
@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2008-2022, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hazelcast.platform.demos.telco.churn;
+
+import java.security.AccessControlException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import com.hazelcast.core.EntryEvent;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.map.IMap;
+import com.hazelcast.map.MapEvent;
+import com.hazelcast.map.listener.EntryAddedListener;
+import com.hazelcast.map.listener.EntryEvictedListener;
+import com.hazelcast.map.listener.EntryExpiredListener;
+import com.hazelcast.map.listener.EntryLoadedListener;
+import com.hazelcast.map.listener.EntryRemovedListener;
+import com.hazelcast.map.listener.MapClearedListener;
+import com.hazelcast.map.listener.MapEvictedListener;
+
+/**
+ * <p>Keeps a running count of the entries in some maps, from entry
+ * events, so the web front-end can be sent sizes as they change without
+ * calling "{@code size()}" across the cluster repeatedly.
+ * </p>
+ * <p>Events are requested without values, so only keys cross the network.
+ * Updates don't change the count so aren't requested. The count is seeded
+ * with a single "{@code size()}" once the listener is in place, so an entry
+ * added in between may be counted twice. Like the sizes shown by Management
+ * Center, this is for display not for reconciliation.
+ * </p>
+ */
+@Component
+public class MyMapSizeTracker {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MyMapSizeTracker.class);
+
+    private final Map<String, AtomicInteger> sizes = new ConcurrentHashMap<>();
+
+    /**
+     * <p>Start counting a map. May fail if we don't have permission
+     * to create, listen to or read it, which isn't an error, some
+     * maps are deliberately hidden from this client.
+     * </p>
+     *
+     * @param hazelcastInstance Client
+     * @param mapName Map to count
+     * @return True if now counted
+     */
+    public boolean track(HazelcastInstance hazelcastInstance, String mapName) {
+        if (this.sizes.containsKey(mapName)) {
+            return true;
+        }
+        IMap<?, ?> iMap = null;
+        UUID registrationId = null;
+        try {
+            iMap = hazelcastInstance.getMap(mapName);
+            AtomicInteger size = new AtomicInteger();
+            registrationId = iMap.addEntryListener(new SizeListener(size), false);
+            size.addAndGet(iMap.size());
+            this.sizes.put(mapName, size);
+            LOGGER.debug("track({}) from size {}", mapName, size.get());
+            return true;
+        } catch (AccessControlException e) {
+            LOGGER.debug("track({}): {}", mapName, e.getMessage());
+        } catch (Exception e) {
+            String message = String.format("track(%s)", mapName);
+            LOGGER.warn(message + ":" + e.getMessage());
+        }
+        if (registrationId != null) {
+            try {
+                iMap.removeEntryListener(registrationId);
+            } catch (Exception e) {
+                LOGGER.trace("track({}): removeEntryListener {}", mapName, e.getMessage());
+            }
+        }
+        return false;
+    }
+
+    /**
+     * <p>The current count for a map.
+     * </p>
+     *
+     * @param mapName Map name
+     * @return Count, or null if not being counted
+     */
+    public Integer getSize(String mapName) {
+        AtomicInteger size = this.sizes.get(mapName);
+        return size == null ? null : size.get();
+    }
+
+    /**
+     * <p>The current count of all maps being counted.
+     * </p>
+     *
+     * @return Map names, in alphabetical order, with counts
+     */
+    public Map<String, Integer> getSizes() {
+        Map<String, Integer> result = new TreeMap<>();
+        this.sizes.forEach((mapName, size) -> result.put(mapName, size.get()));
+        return result;
+    }
+
+    /**
+     * <p>Adjust a count as entries come and go.
+     * </p>
+     */
+    @SuppressWarnings("rawtypes")
+    private static class SizeListener implements EntryAddedListener, EntryLoadedListener,
+        EntryRemovedListener, EntryEvictedListener, EntryExpiredListener,
+        MapClearedListener, MapEvictedListener {
+
+        private final AtomicInteger size;
+
+        SizeListener(AtomicInteger arg0) {
+            this.size = arg0;
+        }
+
+        @Override
+        public void entryAdded(EntryEvent event) {
+            this.size.incrementAndGet();
+        }
+
+        @Override
+        public void entryLoaded(EntryEvent event) {
+            this.size.incrementAndGet();
+        }
+
+        @Override
+        public void entryRemoved(EntryEvent event) {
+            this.size.decrementAndGet();
+        }
+
+        @Override
+        public void entryEvicted(EntryEvent event) {
+            this.size.decrementAndGet();
+        }
+
+        @Override
+        public void entryExpired(EntryEvent event) {
+            this.size.decrementAndGet();
+        }
+
+        @Override
+        public void mapCleared(MapEvent event) {
+            this.size.addAndGet(-event.getNumberOfEntriesAffected());
+        }
+
+        @Override
+        public void mapEvicted(MapEvent event) {
+            this.size.addAndGet(-event.getNumberOfEntriesAffected());
+        }
+    }
+}
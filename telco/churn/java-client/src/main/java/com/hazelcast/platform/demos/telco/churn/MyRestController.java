@@ -47,6 +47,8 @@ public class MyRestController {
     @Autowired
     private HazelcastInstance hazelcastInstance;
     @Autowired
+    private MyMapSizeTracker myMapSizeTracker;
+    @Autowired
     private MyProperties myProperties;
 
     /**
@@ -64,6 +66,9 @@ public class MyRestController {
     /**
      * <p>Return the size of the important maps, also available in Management
      * Center, except we may not have permissions</p>
+     * <p>Once the web socket feed has started, these are the running counts
+     * it sends, so a page refresh doesn't cost a "{@code size()}" per map.
+     * </p>
      *
      * @return
      */
@@ -80,7 +85,11 @@ public class MyRestController {
         for (String mapName : mapNames) {
             stringBuilder.append("{ \"name\": \"" + mapName + "\",");
             try {
-                int size = this.hazelcastInstance.getMap(mapName).size();
+                // Counted from events if possible, to avoid a cluster-wide size()
+                Integer size = this.myMapSizeTracker.getSize(mapName);
+                if (size == null) {
+                    size = this.hazelcastInstance.getMap(mapName).size();
+                }
                 stringBuilder.append("\"error\": \"\", \"size\": " + size + " }");
             } catch (Exception e) {
                 stringBuilder.append("\"error\": \""
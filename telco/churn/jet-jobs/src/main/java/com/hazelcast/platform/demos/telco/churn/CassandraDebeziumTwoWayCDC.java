@@ -22,21 +22,21 @@ import java.util.UUID;
 
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.common.serialization.StringDeserializer;
-import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.hazelcast.core.HazelcastJsonValue;
+import com.hazelcast.jet.config.JobConfig;
 import com.hazelcast.jet.datamodel.Tuple2;
 import com.hazelcast.jet.kafka.KafkaSources;
 import com.hazelcast.jet.pipeline.Pipeline;
 import com.hazelcast.jet.pipeline.Sinks;
 import com.hazelcast.platform.demos.telco.churn.domain.CallDataRecordKey;
 import com.hazelcast.platform.demos.telco.churn.domain.CallDataRecordMetadata;
+import com.hazelcast.platform.demos.telco.churn.domain.CallDataRecordValue;
 
 /**
  * <p>Take a "{@code <String, String>}" stream from Kafka, convert
- * to "{@code <CallDataRecordKey, HazelcastJsonValue>}", keep those
+ * to "{@code <CallDataRecordKey, CallDataRecordValue>}", keep those
  * that didn't originate from Hazelcast, and save to Hazelcast.
  * </p>
  * <p>Similar to {@link MongoDebeziumTwoWayCDC}, different topic
@@ -51,12 +51,18 @@ import com.hazelcast.platform.demos.telco.churn.domain.CallDataRecordMetadata;
  *                         |
  *                         |
  *                +------( 2 )------+
- *                |Reformat & Filter|
+ *                |    Reformat     |
  *                +-----------------+
  *                         |
  *                         |
  *                         |
  *                +------( 3 )------+
+ *                |Coalesce & Filter|
+ *                +-----------------+
+ *                         |
+ *                         |
+ *                         |
+ *                +------( 4 )------+
  *                |    IMap Sink    |
  *                +-----------------+
  * </pre>
@@ -74,31 +80,41 @@ import com.hazelcast.platform.demos.telco.churn.domain.CallDataRecordMetadata;
  * </li>
  * <li>
  * <p>
- * Reformat & filter
+ * Reformat
+ * </p>
+ * <p>Turn the CDC record into a "{@code Map<CallDataRecordKey, CallDataRecordValue}"
+ * record.
+ * </p>
+ * </li>
+ * <li>
+ * <p>
+ * Coalesce & filter
  * </p>
- * <p>Turn the CDC record into a "{@code Map<CallDataRecordKey, HazelcastJsonValue}"
- * record. Filter out (by returning "{@code null}") and that didn't
- * originate external to Hazelcast.
+ * <p>Keep only the latest change for each key in a batch, see {@link MyCdcCoalescer}.
+ * Filter out any that didn't originate external to Hazelcast.
  * </p>
  * </li>
  * <li>
  * <p>
  * Map sink
  * </p>
- * <p>Save everything read into a map.
+ * <p>Save everything remaining into a map, which is written in bulk.
  * </p>
  * </li>
  * </ol>
  */
 public class CassandraDebeziumTwoWayCDC extends MyJobWrapper {
     private static final Logger LOGGER = LoggerFactory.getLogger(CassandraDebeziumTwoWayCDC.class);
+    private static final String VALUE = "value";
 
     private String myCassandra;
     private String bootstrapServers;
+    private int batchSize;
 
     CassandraDebeziumTwoWayCDC(long timestamp, String bootstrapServers) {
         super(timestamp);
         this.bootstrapServers = bootstrapServers;
+        this.batchSize = Integer.getInteger(MyCdcCoalescer.BATCH_SIZE_PROPERTY, MyCdcCoalescer.DEFAULT_BATCH_SIZE);
 
         // Configure expected Cassandra address for Docker or Kubernetes
         if (System.getProperty("my.kubernetes.enabled", "").equals("true")) {
@@ -112,6 +128,20 @@ public class CassandraDebeziumTwoWayCDC extends MyJobWrapper {
         }
     }
 
+    /**
+     * <p>Job configuration, mainly which classes need to be distributed
+     * to execution nodes.
+     * </p>
+     */
+    @Override
+    JobConfig getJobConfig() {
+        JobConfig jobConfig = super.getJobConfig();
+
+        jobConfig.addClass(MyCdcCoalescer.class);
+
+        return jobConfig;
+    }
+
     /**
      * <p>Create the pipeline.
      * </p>
@@ -121,10 +151,15 @@ public class CassandraDebeziumTwoWayCDC extends MyJobWrapper {
 
         Pipeline pipeline = Pipeline.create();
 
+        // Changes for a key stay in order, for coalescing
+        pipeline.setPreserveOrder(true);
+
         pipeline
         .readFrom(KafkaSources.<String, String>kafka(
                 kafkaConnectionProperties, MyConstants.KAFKA_TOPIC_CASSANDRA)).withoutTimestamps()
-        .map(CassandraDebeziumTwoWayCDC::filterConvert)
+        .map(CassandraDebeziumTwoWayCDC::convert)
+        .apply(MyCdcCoalescer.<CallDataRecordKey, CallDataRecordValue>coalesce(this.batchSize,
+                CassandraDebeziumTwoWayCDC::isExternalChange))
         .writeTo(Sinks.map(MyConstants.IMAP_NAME_CDR));
 
         return pipeline;
@@ -149,8 +184,7 @@ public class CassandraDebeziumTwoWayCDC extends MyJobWrapper {
 
     /**
      * <p>Convert the entry into the required type for storage in Hazelcast.
-     * Discard any entries with the incorrect modifier flag, so we don't
-     * get into a loop of uploading changes we created.
+     * Fields are read from the JSON without building a parsed copy.
      * </p>
      * <p>Optional: The mapping between JSON field names (eg. "{@code caller_telno}")
      * and Java counterparts ("{@code callerTelno}") could be handled better
@@ -158,56 +192,35 @@ public class CassandraDebeziumTwoWayCDC extends MyJobWrapper {
      * </p>
      *
      * @param entry From Kafka
-     * @return Null if the entry is filtered out
+     * @return Null if the entry can't be converted
      */
-    private static Entry<CallDataRecordKey, HazelcastJsonValue> filterConvert(Entry<String, String> entry) {
-        String oldValue = entry.getValue();
+    static Entry<CallDataRecordKey, CallDataRecordValue> convert(Entry<String, String> entry) {
+        String json = entry.getValue();
         try {
-            JSONObject json = new JSONObject(oldValue);
             // Discard the metadata, we only need the post-update record
-            json = json.getJSONObject("after");
-
-            // Each field is presented as JSON
-            JSONObject idJson = json.getJSONObject(CallDataRecordMetadata.ID);
-            JSONObject callSuccessfulJson = json.getJSONObject("call_successful");
-            JSONObject calleeMastIdJson = json.getJSONObject("callee_mast_id");
-            JSONObject calleeTelnoJson = json.getJSONObject("callee_telno");
-            JSONObject callerMastIdJson = json.getJSONObject("caller_mast_id");
-            JSONObject callerTelnoJson = json.getJSONObject("caller_telno");
-            JSONObject createdByJson = json.getJSONObject("created_by");
-            JSONObject createdDateJson = json.getJSONObject("created_date");
-            JSONObject durationSecondsJson = json.getJSONObject("duration_seconds");
-            JSONObject lastModifiedByJson = json.getJSONObject("last_modified_by");
-            JSONObject lastModifiedDateJson = json.getJSONObject("last_modified_date");
-            JSONObject startTimestampJson = json.getJSONObject("start_timestamp");
-
-            String lastModifiedBy = lastModifiedByJson.getString("value");
-            // Only accept changes from disk by `churn-update-legacy`
-            if (!lastModifiedBy.contains("update")) {
-                LOGGER.trace("Exclude change made by '{}'", lastModifiedBy);
-                return null;
-            } else {
-                LOGGER.debug("Include change made by '{}' to Id '{}'",
-                        lastModifiedBy, idJson.getString("value"));
-            }
-
-            // Extract the new value
-            String id = idJson.getString("value");
-            boolean callSuccessful = callSuccessfulJson.getBoolean("value");
-            String calleeMastId = calleeMastIdJson.getString("value");
-            String calleeTelno = calleeTelnoJson.getString("value");
-            String callerMastId = callerMastIdJson.getString("value");
-            String callerTelno = callerTelnoJson.getString("value");
-            String createdBy = createdByJson.getString("value");
-            long createdDate = createdDateJson.getLong("value");
-            int durationSeconds = durationSecondsJson.getInt("value");
-            long lastModifiedDate = lastModifiedDateJson.getLong("value");
-            long startTimestamp = startTimestampJson.getLong("value");
-
-            CallDataRecordKey newKey = new CallDataRecordKey();
-            newKey.setCsv(callerTelno + "," + id);
-
-            HazelcastJsonValue newValue = formNewValue(id, callSuccessful,
+            int after = MyJsonScanner.requireValueStart(json, 0, "after");
+
+            // Each field is presented as JSON, the value is a field of this
+            String id = MyJsonScanner.requireString(json, field(json, after, CallDataRecordMetadata.ID), VALUE);
+            boolean callSuccessful =
+                    MyJsonScanner.requireBoolean(json, field(json, after, "call_successful"), VALUE);
+            String calleeMastId = MyJsonScanner.requireString(json, field(json, after, "callee_mast_id"), VALUE);
+            String calleeTelno = MyJsonScanner.requireString(json, field(json, after, "callee_telno"), VALUE);
+            String callerMastId = MyJsonScanner.requireString(json, field(json, after, "caller_mast_id"), VALUE);
+            String callerTelno = MyJsonScanner.requireString(json, field(json, after, "caller_telno"), VALUE);
+            String createdBy = MyJsonScanner.requireString(json, field(json, after, "created_by"), VALUE);
+            long createdDate = MyJsonScanner.requireLong(json, field(json, after, "created_date"), VALUE);
+            int durationSeconds =
+                    (int) MyJsonScanner.requireLong(json, field(json, after, "duration_seconds"), VALUE);
+            String lastModifiedBy =
+                    MyJsonScanner.requireString(json, field(json, after, "last_modified_by"), VALUE);
+            long lastModifiedDate =
+                    MyJsonScanner.requireLong(json, field(json, after, "last_modified_date"), VALUE);
+            long startTimestamp = MyJsonScanner.requireLong(json, field(json, after, "start_timestamp"), VALUE);
+
+            CallDataRecordKey newKey = new CallDataRecordKey(callerTelno, id);
+
+            CallDataRecordValue newValue = formNewValue(id, callSuccessful,
                     calleeMastId, calleeTelno, callerMastId, callerTelno,
                     createdBy, createdDate, durationSeconds,
                     lastModifiedBy, lastModifiedDate, startTimestamp);
@@ -215,12 +228,44 @@ public class CassandraDebeziumTwoWayCDC extends MyJobWrapper {
             return Tuple2.tuple2(newKey, newValue);
 
         } catch (Exception exception) {
-            LOGGER.error("filterConvert('{}'), EXCEPTION: {}", oldValue, exception.getMessage());
+            LOGGER.error("convert('{}'), EXCEPTION: {}", json, exception.getMessage());
         }
 
         return null;
     }
 
+    private static int field(String json, int after, String name) {
+        return MyJsonScanner.requireValueStart(json, after, name);
+    }
+
+    /**
+     * <p>Discard any entries with the incorrect modifier flag, so we don't
+     * get into a loop of uploading changes we created.
+     * </p>
+     * <p>This runs when coalescing, where an exception would stop the job, so
+     * a change with no modifier is logged and discarded instead.
+     * </p>
+     *
+     * @param callDataRecordValue The latest change for a key
+     * @return True if this change should be saved to Hazelcast
+     */
+    static boolean isExternalChange(CallDataRecordValue callDataRecordValue) {
+        String lastModifiedBy = callDataRecordValue.getLastModifiedBy();
+        if (lastModifiedBy == null) {
+            LOGGER.error("isExternalChange(), no lastModifiedBy for Id '{}'", callDataRecordValue.getId());
+            return false;
+        }
+        // Only accept changes from disk by `churn-update-legacy`
+        if (!lastModifiedBy.contains("update")) {
+            LOGGER.trace("Exclude change made by '{}'", lastModifiedBy);
+            return false;
+        } else {
+            LOGGER.debug("Include change made by '{}' to Id '{}'",
+                    lastModifiedBy, callDataRecordValue.getId());
+            return true;
+        }
+    }
+
     /**
      * <p>Reformatting.
      * </p>
@@ -240,27 +285,25 @@ public class CassandraDebeziumTwoWayCDC extends MyJobWrapper {
      * @return
      */
     @SuppressWarnings("checkstyle:ParameterNumber")
-    private static HazelcastJsonValue formNewValue(String id, boolean callSuccessful, String calleeMastId,
+    private static CallDataRecordValue formNewValue(String id, boolean callSuccessful, String calleeMastId,
             String calleeTelno, String callerMastId, String callerTelno, String createdBy, long createdDate,
             int durationSeconds, String lastModifiedBy, long lastModifiedDate, long startTimestamp) {
 
-        StringBuilder stringBuilder = new StringBuilder();
-        stringBuilder.append("{");
-        stringBuilder.append("  \"id\" : \"" + id + "\"");
-        stringBuilder.append(", \"callSuccessful\" : " + callSuccessful);
-        stringBuilder.append(", \"calleeMastId\" : \"" + calleeMastId + "\"");
-        stringBuilder.append(", \"calleeTelno\" : \"" + calleeTelno + "\"");
-        stringBuilder.append(", \"callerMastId\" : \"" + callerMastId + "\"");
-        stringBuilder.append(", \"callerTelno\" : \"" + callerTelno + "\"");
-        stringBuilder.append(", \"createdBy\" : \"" + createdBy + "\"");
-        stringBuilder.append(", \"createdDate\" : " + createdDate);
-        stringBuilder.append(", \"durationSeconds\" : " + durationSeconds);
-        stringBuilder.append(", \"lastModifiedBy\" : \"" + lastModifiedBy + "\"");
-        stringBuilder.append(", \"lastModifiedDate\" : " + lastModifiedDate);
-        stringBuilder.append(", \"startTimestamp\" : " + startTimestamp);
-        stringBuilder.append(" }");
-
-        return new HazelcastJsonValue(stringBuilder.toString());
+        CallDataRecordValue callDataRecordValue = new CallDataRecordValue();
+        callDataRecordValue.setId(id);
+        callDataRecordValue.setCallSuccessful(callSuccessful);
+        callDataRecordValue.setCalleeMastId(calleeMastId);
+        callDataRecordValue.setCalleeTelno(calleeTelno);
+        callDataRecordValue.setCallerMastId(callerMastId);
+        callDataRecordValue.setCallerTelno(callerTelno);
+        callDataRecordValue.setCreatedBy(createdBy);
+        callDataRecordValue.setCreatedDate(createdDate);
+        callDataRecordValue.setDurationSeconds(durationSeconds);
+        callDataRecordValue.setLastModifiedBy(lastModifiedBy);
+        callDataRecordValue.setLastModifiedDate(lastModifiedDate);
+        callDataRecordValue.setStartTimestamp(startTimestamp);
+
+        return callDataRecordValue;
     }
 
 }
@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2008-2022, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hazelcast.platform.demos.telco.churn;
+
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>Compare end-to-end latency, from the call data record's last
+ * modification to its sentiment being produced, against a budget.
+ * </p>
+ * <p>Larger batches mean fewer lookups and Python calls, but each
+ * record waits for the whole batch. If records are over budget, the
+ * batch size should be lowered. One per processor, so not thread-safe.
+ * </p>
+ */
+public class ChurnLatencyBudget {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ChurnLatencyBudget.class);
+    private static final long REPORT_INTERVAL_MS = TimeUnit.SECONDS.toMillis(10);
+
+    private final long budgetMs;
+    private final int batchSize;
+    private long nextReport;
+    private long batches;
+    private long records;
+    private long overBudget;
+    private long maxMs;
+
+    /**
+     * @param arg0 Latency budget in milliseconds
+     * @param arg1 Maximum batch size configured, for logging
+     */
+    ChurnLatencyBudget(long arg0, int arg1) {
+        this.budgetMs = arg0;
+        this.batchSize = arg1;
+    }
+
+    /**
+     * <p>Count a batch from Python.
+     * </p>
+     *
+     * @param count Records in the batch
+     */
+    public void recordBatch(int count) {
+        this.batches++;
+        this.records += count;
+    }
+
+    /**
+     * <p>Count one record's latency.
+     * </p>
+     *
+     * @param now Current time
+     * @param lastModifiedDate When the call data record was last changed
+     * @return Latency in milliseconds
+     */
+    public long recordLatency(long now, long lastModifiedDate) {
+        long latencyMs = now - lastModifiedDate;
+        if (latencyMs > this.budgetMs) {
+            this.overBudget++;
+        }
+        this.maxMs = Math.max(this.maxMs, latencyMs);
+        return latencyMs;
+    }
+
+    /**
+     * <p>Log periodically, a warning if any records were over budget,
+     * and reset for the next interval.
+     * </p>
+     *
+     * @param now Current time
+     * @return True if it was time to log
+     */
+    public boolean report(long now) {
+        if (now < this.nextReport) {
+            return false;
+        }
+        if (this.nextReport != 0) {
+            double meanBatch = this.batches == 0 ? 0d : (double) this.records / this.batches;
+            if (this.overBudget > 0) {
+                LOGGER.warn("{} of {} records over {}ms budget, max {}ms, mean batch {} of max {}",
+                        this.overBudget, this.records, this.budgetMs, this.maxMs,
+                        String.format("%.1f", meanBatch), this.batchSize);
+            } else {
+                LOGGER.debug("{} records within {}ms budget, max {}ms, mean batch {} of max {}",
+                        this.records, this.budgetMs, this.maxMs,
+                        String.format("%.1f", meanBatch), this.batchSize);
+            }
+        }
+        this.nextReport = now + REPORT_INTERVAL_MS;
+        this.batches = 0;
+        this.records = 0;
+        this.overBudget = 0;
+        this.maxMs = 0;
+        return true;
+    }
+
+    public long getOverBudget() {
+        return this.overBudget;
+    }
+
+    public long getMaxMs() {
+        return this.maxMs;
+    }
+
+    public long getRecords() {
+        return this.records;
+    }
+}
@@ -0,0 +1,214 @@
+/*
+ * Copyright (c) 2008-2022, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hazelcast.platform.demos.telco.churn;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.DoubleSupplier;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>The churn model exported from Python "{@code trainedmodel.py}" as
+ * "{@code churnmodel.json}", evaluated in Java, so scoring needs no Python
+ * process or gRPC round trip.
+ * </p>
+ * <p>Input and output are the same as Python's "{@code assess()}", a batch
+ * of CSV lines with the new and previous sentiment appended to each. The
+ * calculation is in the same order as Python, so gives the same result
+ * other than the random noise.
+ * </p>
+ * <p>The model is immutable, so can be shared by all processors on a member.
+ * State carried across batches is held by the caller, see {@link ChurnModelScorer}.
+ * </p>
+ */
+public class ChurnModel {
+    public static final String MODEL_RESOURCE = "python/churnmodel.json";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ChurnModel.class);
+    private static final int INPUT_DROPPED = 5;
+    private static final int INPUT_CURRENT = 21;
+    private static final int INPUT_PREVIOUS = 22;
+    private static final String TRUE = "true";
+
+    private final String name;
+    private final int version;
+    private final Linear dropped;
+    private final Linear completed;
+    private final double max;
+
+    /**
+     * @param arg0 The exported model
+     */
+    ChurnModel(JSONObject arg0) {
+        this.name = arg0.getString("name");
+        this.version = arg0.getInt("version");
+        this.dropped = new Linear(arg0.getJSONObject("dropped"));
+        this.completed = new Linear(arg0.getJSONObject("completed"));
+        this.max = arg0.getDouble("max");
+    }
+
+    /**
+     * <p>Load the exported model from the classpath.
+     * </p>
+     *
+     * @param resource Eg. {@link #MODEL_RESOURCE}
+     * @return The model
+     */
+    public static ChurnModel fromClasspath(String resource) throws Exception {
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        try (InputStream inputStream = classLoader.getResourceAsStream(resource)) {
+            if (inputStream == null) {
+                throw new IllegalArgumentException(resource + ": not found in classpath");
+            }
+            ChurnModel churnModel =
+                    new ChurnModel(new JSONObject(new String(inputStream.readAllBytes(), StandardCharsets.UTF_8)));
+            LOGGER.info("Loaded '{}' version {} from '{}'", churnModel.name, churnModel.version, resource);
+            return churnModel;
+        }
+    }
+
+    /**
+     * <p>Assess a batch, with random noise.
+     * </p>
+     *
+     * @param batch CSV lines, as for Python
+     * @return CSV lines, as from Python
+     */
+    public String assess(String batch) {
+        return this.assess(batch, () -> ThreadLocalRandom.current().nextDouble());
+    }
+
+    /**
+     * <p>Assess a batch, sentiment carried forward for a customer with
+     * several lines.
+     * </p>
+     *
+     * @param batch CSV lines, as for Python
+     * @param noise Random in the range 0 to 1
+     * @return CSV lines, as from Python
+     */
+    public String assess(String batch, DoubleSupplier noise) {
+        return this.assess(batch, noise, new HashMap<>());
+    }
+
+    /**
+     * <p>Assess a batch, sentiment carried forward for a customer from
+     * earlier lines and earlier batches.
+     * </p>
+     *
+     * @param batch CSV lines, as for Python
+     * @param noise Random in the range 0 to 1
+     * @param latest Customer to current and previous sentiment, used in
+     * preference to the input and updated
+     * @return CSV lines, as from Python
+     */
+    public String assess(String batch, DoubleSupplier noise, Map<String, double[]> latest) {
+        StringBuilder stringBuilder = new StringBuilder(batch.length() + batch.length() / 2);
+        int[] commas = new int[INPUT_PREVIOUS + 1];
+
+        int start = 0;
+        while (start <= batch.length()) {
+            int end = batch.indexOf(ChurnBatchEnricher.LINE_SEPARATOR, start);
+            if (end < 0) {
+                end = batch.length();
+            }
+            // Only the fields needed, rather than split the whole line
+            int found = 0;
+            for (int comma = batch.indexOf(',', start); comma >= 0 && comma < end && found < commas.length;
+                    comma = batch.indexOf(',', comma + 1)) {
+                commas[found++] = comma;
+            }
+            if (found < commas.length) {
+                throw new IllegalArgumentException("Too few fields: " + batch.substring(start, end));
+            }
+            String key = batch.substring(start, commas[0]);
+
+            double[] sentiment = latest.get(key);
+            if (sentiment == null) {
+                sentiment = new double[] {
+                    parse(batch, commas[INPUT_CURRENT - 1] + 1, commas[INPUT_CURRENT]),
+                    parse(batch, commas[INPUT_PREVIOUS - 1] + 1, commas[INPUT_PREVIOUS]) };
+            }
+            double current = sentiment[0];
+            int droppedFrom = commas[INPUT_DROPPED - 1] + 1;
+            boolean dropped = commas[INPUT_DROPPED] - droppedFrom == TRUE.length()
+                    && batch.regionMatches(true, droppedFrom, TRUE, 0, TRUE.length());
+            Linear linear = dropped ? this.dropped : this.completed;
+            double newCurrent = Math.min(linear.evaluate(current, sentiment[1], noise), this.max);
+            sentiment[1] = current;
+            sentiment[0] = newCurrent;
+            latest.put(key, sentiment);
+
+            if (start > 0) {
+                stringBuilder.append(ChurnBatchEnricher.LINE_SEPARATOR);
+            }
+            stringBuilder.append(batch, start, end).append(',').append(newCurrent).append(',').append(current);
+            start = end + 1;
+        }
+        return stringBuilder.toString();
+    }
+
+    private static double parse(String s, int from, int to) {
+        return from == to ? 0d : Double.parseDouble(s.substring(from, to));
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    public int getVersion() {
+        return this.version;
+    }
+
+    /**
+     * <p>"{@code intercept + c0 * current + c1 * previous + noise * random}",
+     * added up in that order, as Python does.
+     * </p>
+     */
+    private static class Linear {
+        private final double intercept;
+        private final double coefficientCurrent;
+        private final double coefficientPrevious;
+        private final double noise;
+
+        Linear(JSONObject arg0) {
+            JSONArray coefficients = arg0.getJSONArray("coefficients");
+            this.intercept = arg0.getDouble("intercept");
+            this.coefficientCurrent = coefficients.getDouble(0);
+            this.coefficientPrevious = coefficients.getDouble(1);
+            this.noise = arg0.getDouble("noise");
+        }
+
+        double evaluate(double current, double previous, DoubleSupplier random) {
+            double result = this.intercept;
+            result += this.coefficientCurrent * current;
+            result += this.coefficientPrevious * previous;
+            if (this.noise != 0d) {
+                result += this.noise * random.getAsDouble();
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2008-2022, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.platform.demos.telco.churn;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * <p>Score batches with {@link ChurnModel}, remembering the latest sentiment
+ * for each customer scored so it carries forward across batches.
+ * </p>
+ * <p>{@link ChurnBatchEnricher} runs several batches at once, so a batch's
+ * "{@code getAll()}" on the "{@code sentiment}" map can read a value from
+ * before an earlier batch's sentiment is saved. Using the remembered value
+ * in preference means that earlier update isn't lost. The pipeline preserves
+ * order, so all records for a customer come to the same processor, and
+ * this is one per processor, so not thread-safe.
+ * </p>
+ * <p>Least recently scored customers are forgotten beyond
+ * {@link #MAX_CUSTOMERS}, by which time their save has long completed.
+ * </p>
+ */
+public class ChurnModelScorer {
+    static final int MAX_CUSTOMERS = 50_000;
+    private static final int INITIAL_CAPACITY = 1_024;
+    private static final float LOAD_FACTOR = 0.75f;
+
+    private final ChurnModel churnModel;
+    private final Map<String, double[]> latest;
+
+    /**
+     * @param arg0 The model, may be shared
+     */
+    ChurnModelScorer(ChurnModel arg0) {
+        this.churnModel = arg0;
+        this.latest = new LinkedHashMap<>(INITIAL_CAPACITY, LOAD_FACTOR, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, double[]> eldest) {
+                return this.size() > MAX_CUSTOMERS;
+            }
+        };
+    }
+
+    /**
+     * <p>Assess a batch, with random noise.
+     * </p>
+     *
+     * @param batch CSV lines, as for Python
+     * @return CSV lines, as from Python
+     */
+    public String assess(String batch) {
+        return this.churnModel.assess(batch, () -> ThreadLocalRandom.current().nextDouble(), this.latest);
+    }
+
+    int size() {
+        return this.latest.size();
+    }
+}
@@ -21,15 +21,14 @@ import java.util.UUID;
 
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.common.serialization.StringDeserializer;
-import org.json.JSONObject;
 
-import com.hazelcast.core.HazelcastJsonValue;
 import com.hazelcast.jet.config.JobConfig;
 import com.hazelcast.jet.datamodel.Tuple2;
 import com.hazelcast.jet.kafka.KafkaSources;
 import com.hazelcast.jet.pipeline.Pipeline;
 import com.hazelcast.jet.pipeline.Sinks;
 import com.hazelcast.platform.demos.telco.churn.domain.CallDataRecordKey;
+import com.hazelcast.platform.demos.telco.churn.domain.CallDataRecordValue;
 
 /**
  * <p>A job to simply upload from Kafka into Hazelcast.
@@ -66,7 +65,7 @@ import com.hazelcast.platform.demos.telco.churn.domain.CallDataRecordKey;
  * <p>
  * Reformat key
  * </p>
- * <p>Make the compound key from JSON fields.
+ * <p>Make the compound key from the typed value's fields.
  * </p>
  * </li>
  * <li>
@@ -110,13 +109,12 @@ public class KafkaIngest extends MyJobWrapper {
         Pipeline pipeline = Pipeline.create();
 
         pipeline
-        .readFrom(KafkaSources.<String, HazelcastJsonValue>kafka(
+        .readFrom(KafkaSources.<String, CallDataRecordValue>kafka(
                 kafkaConnectionProperties, MyConstants.KAFKA_TOPIC_CALLS_NAME)).withoutTimestamps()
         .map(entry -> {
-            JSONObject jsonObject = new JSONObject(entry.getValue().toString());
-            CallDataRecordKey newKey = new CallDataRecordKey();
-            newKey.setCsv(jsonObject.getString("callerTelno") + "," + jsonObject.getString("id"));
-            return Tuple2.tuple2(newKey, entry.getValue());
+            CallDataRecordValue value = entry.getValue();
+            CallDataRecordKey newKey = new CallDataRecordKey(value.getCallerTelno(), value.getId());
+            return Tuple2.tuple2(newKey, value);
         })
         .writeTo(Sinks.map(MyConstants.IMAP_NAME_CDR));
 
@@ -125,7 +123,7 @@ public class KafkaIngest extends MyJobWrapper {
 
     /**
      * <p>Connection properties for Kafka, custom deserializer
-     * for value takes a String and converts to {@link HazelcastJsonValue}
+     * for value takes a JSON String and converts to {@link CallDataRecordValue}
      * </p>
      */
     private static Properties buildKafkaConnectionProperties(String bootstrapServers) {
@@ -24,19 +24,22 @@ import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
 import java.time.LocalDateTime;
 import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map.Entry;
 
-import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.hazelcast.core.HazelcastJsonValue;
 import com.hazelcast.function.FunctionEx;
+import com.hazelcast.jet.Traversers;
+import com.hazelcast.jet.config.JobConfig;
 import com.hazelcast.jet.datamodel.Tuple2;
-import com.hazelcast.jet.datamodel.Tuple3;
 import com.hazelcast.jet.datamodel.Tuple4;
 import com.hazelcast.jet.pipeline.JournalInitialPosition;
 import com.hazelcast.jet.pipeline.Pipeline;
+import com.hazelcast.jet.pipeline.ServiceFactories;
 import com.hazelcast.jet.pipeline.Sink;
 import com.hazelcast.jet.pipeline.SinkBuilder;
 import com.hazelcast.jet.pipeline.Sinks;
@@ -45,6 +48,7 @@ import com.hazelcast.jet.pipeline.StreamStage;
 import com.hazelcast.jet.python.PythonServiceConfig;
 import com.hazelcast.jet.python.PythonTransforms;
 import com.hazelcast.platform.demos.telco.churn.domain.CallDataRecordKey;
+import com.hazelcast.platform.demos.telco.churn.domain.CallDataRecordValue;
 import com.hazelcast.platform.demos.telco.churn.domain.Sentiment;
 
 /**
@@ -64,42 +68,30 @@ import com.hazelcast.platform.demos.telco.churn.domain.Sentiment;
  *                         |
  *                         |
  *                +------( 3 )------+
- *                | Enrich via map 1|
+ *                |  Batch enrich   |
  *                +-----------------+
  *                         |
  *                         |
  *                         |
  *                +------( 4 )------+
- *                | Enrich via map 2|
+ *                | Python or Java  |
  *                +-----------------+
  *                         |
  *                         |
  *                         |
  *                +------( 5 )------+
- *                |   Re-format IN  |
- *                +-----------------+
- *                         |
- *                         |
- *                         |
- *                +------( 6 )------+
- *                |     Python      |
- *                +-----------------+
- *                         |
- *                         |
- *                         |
- *                +------( 7 )------+
  *                |   Re-format OUT |
  *                +-----------------+
  *                    /         \
  *                   /           \
  *                  /             \
- *    +------( 8 )------+     +------( 9 )------+
+ *    +------( 6 )------+     +------( 7 )------+
  *    |     Filter      |     |  Save to IMap   |
  *    +-----------------+     +-----------------+
  *             |
  *             |
  *             |
- *    +------( 10)------+
+ *    +------( 8 )------+
  *    | Alert to Topic  |
  *    +-----------------+
  * </pre>
@@ -115,52 +107,41 @@ import com.hazelcast.platform.demos.telco.churn.domain.Sentiment;
  * twice, we get both changes, not just the current value.
  * </p>
  * </li>
- * </ol>
  * <li>
  * <p>
  * Filter
  * </p>
  * <p>Exclude changes made at Hazelcast or legacy, we only wish changes
- * from the data feed.
- * </p>
- * </li>
- * <li>
- * <p>
- * Enrich from map, 1.
- * </p>
- * <p>Look up the "{@code customer}" map for the customer record
- * corresponding to the call's customer.
+ * from the data feed. The value is typed, so this is a field access
+ * not a JSON parse.
  * </p>
  * </li>
  * <li>
  * <p>
- * Enrich from map, 2.
+ * Batch enrich
  * </p>
- * <p>Look up the "{@code sentiment}" map for the sentiment record
- * corresponding to the call's customer.
+ * <p>Take up to "{@code my.churn.batch.size}" records at a time, and look
+ * up the "{@code customer}" and "{@code sentiment}" maps for all their
+ * customers at once, see {@link ChurnBatchEnricher}. The batch becomes
+ * one multi-line CSV string to pass into Python.
  * </p>
  * </li>
  * <li>
  * <p>
- * Reformat for Python
+ * Python or Java
  * </p>
- * <p>Convert a "{@link Tuple4}" of the call key, value, customer and
- * sentiment to pass into Python.
+ * <p>Invoke the sentiment analysis model, once per batch. By default this
+ * is {@link ChurnModel}, the model exported from Python evaluated in Java.
+ * If "{@code my.churn.scorer}" is "{@code python}" the Python module is used.
  * </p>
  * </li>
  * <li>
  * <p>
- * Python
+ * Reformat from model
  * </p>
- * <p>Invoke the Python sentiment analysis module.
- * </p>
- * </li>
- * <li>
- * <p>
- * Reformat from Python
- * </p>
- * <p>Turn the output from Python into a "{@link Sentiment}" map
- * entry.
+ * <p>Turn each line of output from the model into a "{@link Sentiment}" map
+ * entry, and check latency against "{@code my.churn.latency.budget.ms}",
+ * see {@link ChurnLatencyBudget}.
  * </p>
  * </li>
  * <li>
@@ -180,12 +161,21 @@ import com.hazelcast.platform.demos.telco.churn.domain.Sentiment;
  * a more clever "{@link EntryProcessor}" if we needed custom logic to
  * merge rather than replace.
  * </p>
- * <p>Note there is a race condition here. We read in step 4 from
- * a map and write to it in step 9. If there were two records in
- * a row, this would present a race. If the first is a dropped
+ * <p>Note there is a race condition here. We read in step 3 from
+ * a map and write to it in step 7. If the first call is a dropped
  * call, duration 0 seconds, it is possible the caller would attempt
  * the call again immediately, so two records for the same {@link Sentiment}
- * key is possible.
+ * key is possible. Within a batch, the model carries the sentiment forward
+ * from one call to the next for the same customer, and the pipeline
+ * preserves order so each customer's sentiments are saved in call order.
+ * </p>
+ * <p>Across batches, step 3 runs up to four batches at once, Jet's default
+ * for batched async, so can read a sentiment from before an earlier batch's
+ * is saved. The Java scorer carries each customer's latest sentiment across
+ * batches, see {@link ChurnModelScorer}, so no update is lost. The Python
+ * scorer does not, so with "{@code my.churn.scorer=python}" a customer with
+ * calls in consecutive batches may be scored from a stale sentiment.
+ * </p>
  * </li>
  * <li>
  * <p>
@@ -202,11 +192,48 @@ public class MLChurnDetector extends MyJobWrapper {
     protected static final String PYTHON_MODULE = "trainedmodel";
     protected static final String PYTHON_SUBDIR = "python";
     protected static final int PYTHON_OUTPUT_COMMAS = 26;
+    protected static final int PYTHON_OUTPUT_LAST_MODIFIED_DATE = 11;
+    protected static final String BATCH_SIZE_PROPERTY = "my.churn.batch.size";
+    protected static final String LATENCY_BUDGET_PROPERTY = "my.churn.latency.budget.ms";
+    protected static final int DEFAULT_BATCH_SIZE = 256;
+    protected static final long DEFAULT_LATENCY_BUDGET_MS = 1_000L;
+    protected static final String SCORER_PROPERTY = "my.churn.scorer";
+    protected static final String SCORER_JAVA = "java";
+    protected static final String SCORER_PYTHON = "python";
 
     private static final Logger LOGGER = LoggerFactory.getLogger(MLChurnDetector.class);
 
+    private final int batchSize;
+    private final long latencyBudgetMs;
+    private final String scorer;
+
     MLChurnDetector(long timestamp) {
         super(timestamp);
+        this.batchSize = Integer.getInteger(BATCH_SIZE_PROPERTY, DEFAULT_BATCH_SIZE);
+        this.latencyBudgetMs = Long.getLong(LATENCY_BUDGET_PROPERTY, DEFAULT_LATENCY_BUDGET_MS);
+        this.scorer = System.getProperty(SCORER_PROPERTY, SCORER_JAVA);
+        LOGGER.info("Scorer '{}', batch size {}, latency budget {}ms",
+                this.scorer, this.batchSize, this.latencyBudgetMs);
+    }
+
+    /**
+     * <p>Job configuration, mainly which classes need to be distributed
+     * to execution nodes.
+     * </p>
+     */
+    @Override
+    JobConfig getJobConfig() {
+        JobConfig jobConfig = super.getJobConfig();
+
+        jobConfig.addClass(ChurnBatchEnricher.class);
+        jobConfig.addClass(ChurnLatencyBudget.class);
+        jobConfig.addClass(ChurnModel.class);
+        jobConfig.addClass(ChurnModelScorer.class);
+        jobConfig.addClasspathResource(
+                Thread.currentThread().getContextClassLoader().getResource(ChurnModel.MODEL_RESOURCE),
+                ChurnModel.MODEL_RESOURCE);
+
+        return jobConfig;
     }
 
     /**
@@ -217,31 +244,45 @@ public class MLChurnDetector extends MyJobWrapper {
     public Pipeline getPipeline() {
         Pipeline pipeline = Pipeline.create();
 
-        StreamStage<Entry<String, Sentiment>> sentimentStream = pipeline
-        .readFrom(Sources.<CallDataRecordKey, HazelcastJsonValue>mapJournal(MyConstants.IMAP_NAME_CDR,
+        // Records for a customer are in one partition, keep them in order through the stages
+        pipeline.setPreserveOrder(true);
+
+        long budgetMs = this.latencyBudgetMs;
+        int maxBatch = this.batchSize;
+
+        StreamStage<String> batchStream = pipeline
+        .readFrom(Sources.<CallDataRecordKey, CallDataRecordValue>mapJournal(MyConstants.IMAP_NAME_CDR,
                 JournalInitialPosition.START_FROM_OLDEST)).withoutTimestamps()
-        .filter(entry -> {
-            JSONObject jsonObject = new JSONObject(entry.getValue().toString());
-            return ("churn-data-feed".equals(jsonObject.getString("lastModifiedBy")));
-        }).setName("data-feed only")
+        .filter(entry -> "churn-data-feed".equals(entry.getValue().getLastModifiedBy()))
+            .setName("data-feed only")
         .map(entry -> Tuple2.tuple2(entry.getKey().getPartitionKey(), entry.getValue()))
             .setName("reformat key")
-        .mapUsingIMap(MyConstants.IMAP_NAME_CUSTOMER,
-                Tuple2::f0,
-                (tuple2, customer) ->
-                    Tuple3.tuple3(tuple2.f0(), tuple2.f1(), (HazelcastJsonValue) customer))
-            .setName("enrich with customer")
-        .mapUsingIMap(MyConstants.IMAP_NAME_SENTIMENT,
-                Tuple3::f0,
-                (tuple3, sentiment) ->
-                    Tuple4.tuple4(tuple3.f0(), tuple3.f1(), tuple3.f2(),
-                            (Sentiment) sentiment))
-            .setName("enrich with sentiment")
-        .map(MLChurnDetector.formatForPython())
-            .setName("reformat for Python")
-        .apply(PythonTransforms.mapUsingPython(getPythonServiceConfig(PYTHON_MODULE)))
-            .setName(PYTHON_MODULE)
-        .map(MLChurnDetector::makeSentimentEntry)
+        .mapUsingServiceAsyncBatched(
+                ServiceFactories.sharedService(context -> new ChurnBatchEnricher(context.hazelcastInstance()),
+                        ChurnBatchEnricher::shutdown),
+                maxBatch,
+                ChurnBatchEnricher::enrich)
+            .setName("enrich with customer and sentiment");
+
+        StreamStage<String> assessedStream;
+        if (SCORER_JAVA.equals(this.scorer)) {
+            assessedStream = batchStream
+            .mapUsingService(
+                    ServiceFactories.nonSharedService(
+                            __ -> new ChurnModelScorer(ChurnModel.fromClasspath(ChurnModel.MODEL_RESOURCE))),
+                    ChurnModelScorer::assess)
+                .setName(ChurnModel.class.getSimpleName());
+        } else {
+            assessedStream = batchStream
+            .apply(PythonTransforms.mapUsingPython(getPythonServiceConfig(PYTHON_MODULE)))
+                .setName(PYTHON_MODULE);
+        }
+
+        StreamStage<Entry<String, Sentiment>> sentimentStream = assessedStream
+        .flatMapUsingService(
+                ServiceFactories.nonSharedService(__ -> new ChurnLatencyBudget(budgetMs, maxBatch)),
+                (churnLatencyBudget, batch) ->
+                    Traversers.traverseIterable(makeSentimentEntries(churnLatencyBudget, batch)))
             .setName("reformat for Sentiment");
 
         // Branch the sentiment stream, always saving, possibly alerting
@@ -271,7 +312,7 @@ public class MLChurnDetector extends MyJobWrapper {
      * @return A string, that is in CSV format with preset fields
      */
     protected static FunctionEx
-        <Tuple4<String, HazelcastJsonValue, HazelcastJsonValue, Sentiment>, String>
+        <Tuple4<String, CallDataRecordValue, HazelcastJsonValue, Sentiment>, String>
         formatForPython() {
         return tuple4 -> {
             StringBuilder stringBuilder = new StringBuilder();
@@ -357,6 +398,37 @@ public class MLChurnDetector extends MyJobWrapper {
         return targetDirectory.toFile();
     }
 
+    /**
+     * <p>Python or Java returns a batch as it was sent, one CSV line per call
+     * data record, so each line becomes a sentiment, in order.
+     * </p>
+     *
+     * @param churnLatencyBudget Latency tracking for this processor
+     * @param batch Lines from the model
+     * @return Sentiments, excluding any lines that couldn't be used
+     */
+    static List<Entry<String, Sentiment>> makeSentimentEntries(ChurnLatencyBudget churnLatencyBudget,
+            String batch) {
+        long now = System.currentTimeMillis();
+        String[] lines = batch.split(ChurnBatchEnricher.LINE_SEPARATOR);
+        List<Entry<String, Sentiment>> result = new ArrayList<>(lines.length);
+        for (String line : lines) {
+            String[] tokens = line.split(",");
+            Entry<String, Sentiment> entry = makeSentimentEntry(line, tokens);
+            if (entry != null) {
+                result.add(entry);
+                try {
+                    churnLatencyBudget.recordLatency(now, Long.parseLong(tokens[PYTHON_OUTPUT_LAST_MODIFIED_DATE]));
+                } catch (NumberFormatException e) {
+                    LOGGER.trace("No last modified date: {}", line);
+                }
+            }
+        }
+        churnLatencyBudget.recordBatch(lines.length);
+        churnLatencyBudget.report(now);
+        return result;
+    }
+
     /**
      * <p>Python works of a CSV line, the first of which is the
      * customer's key. It appends the derived current and previous
@@ -366,10 +438,10 @@ public class MLChurnDetector extends MyJobWrapper {
      * </p>
      *
      * @param csv From Python, first is key, last two are sentiment
+     * @param tokens The CSV split on commas
      * @return
      */
-    private static Entry<String, Sentiment> makeSentimentEntry(String csv) {
-        String[] tokens = csv.split(",");
+    private static Entry<String, Sentiment> makeSentimentEntry(String csv, String[] tokens) {
         if (tokens.length != PYTHON_OUTPUT_COMMAS) {
             LOGGER.error("CSV from Python has {} tokens, {}", tokens.length, csv);
             return null;
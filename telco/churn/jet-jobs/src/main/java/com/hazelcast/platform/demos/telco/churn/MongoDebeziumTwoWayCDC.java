@@ -16,18 +16,19 @@
 
 package com.hazelcast.platform.demos.telco.churn;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
 import java.util.UUID;
 import java.util.Map.Entry;
 
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.common.serialization.StringDeserializer;
-import org.json.JSONArray;
-import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.hazelcast.core.HazelcastJsonValue;
+import com.hazelcast.jet.config.JobConfig;
 import com.hazelcast.jet.datamodel.Tuple2;
 import com.hazelcast.jet.kafka.KafkaSources;
 import com.hazelcast.jet.pipeline.Pipeline;
@@ -51,12 +52,18 @@ import com.hazelcast.platform.demos.telco.churn.domain.CustomerMetadata;
  *                         |
  *                         |
  *                +------( 2 )------+
- *                |Reformat & Filter|
+ *                |    Reformat     |
  *                +-----------------+
  *                         |
  *                         |
  *                         |
  *                +------( 3 )------+
+ *                |Coalesce & Filter|
+ *                +-----------------+
+ *                         |
+ *                         |
+ *                         |
+ *                +------( 4 )------+
  *                |    IMap Sink    |
  *                +-----------------+
  * </pre>
@@ -74,31 +81,41 @@ import com.hazelcast.platform.demos.telco.churn.domain.CustomerMetadata;
  * </li>
  * <li>
  * <p>
- * Reformat & filter
+ * Reformat
  * </p>
  * <p>Turn the CDC record into a "{@code Map<String, HazelcastJsonValue}"
- * record. Filter out (by returning "{@code null}") and that didn't
- * originate external to Hazelcast.
+ * record.
+ * </p>
+ * </li>
+ * <li>
+ * <p>
+ * Coalesce & filter
+ * </p>
+ * <p>Keep only the latest change for each key in a batch, see {@link MyCdcCoalescer}.
+ * Filter out any that didn't originate external to Hazelcast.
  * </p>
  * </li>
  * <li>
  * <p>
  * Map sink
  * </p>
- * <p>Save everything read into a map.
+ * <p>Save everything remaining into a map, which is written in bulk.
  * </p>
  * </li>
  * </ol>
  */
 public class MongoDebeziumTwoWayCDC extends MyJobWrapper {
     private static final Logger LOGGER = LoggerFactory.getLogger(MongoDebeziumTwoWayCDC.class);
+    private static final String NUMBER_LONG = "$numberLong";
 
     private String myMongo;
     private String bootstrapServers;
+    private int batchSize;
 
     MongoDebeziumTwoWayCDC(long timestamp, String bootstrapServers) {
         super(timestamp);
         this.bootstrapServers = bootstrapServers;
+        this.batchSize = Integer.getInteger(MyCdcCoalescer.BATCH_SIZE_PROPERTY, MyCdcCoalescer.DEFAULT_BATCH_SIZE);
 
         // Configure expected MySql address for Docker or Kubernetes
         if (System.getProperty("my.kubernetes.enabled", "").equals("true")) {
@@ -112,6 +129,20 @@ public class MongoDebeziumTwoWayCDC extends MyJobWrapper {
         }
     }
 
+    /**
+     * <p>Job configuration, mainly which classes need to be distributed
+     * to execution nodes.
+     * </p>
+     */
+    @Override
+    JobConfig getJobConfig() {
+        JobConfig jobConfig = super.getJobConfig();
+
+        jobConfig.addClass(MyCdcCoalescer.class);
+
+        return jobConfig;
+    }
+
     /**
      * <p>Create the pipeline.
      * </p>
@@ -121,10 +152,15 @@ public class MongoDebeziumTwoWayCDC extends MyJobWrapper {
 
         Pipeline pipeline = Pipeline.create();
 
+        // Changes for a key stay in order, for coalescing
+        pipeline.setPreserveOrder(true);
+
         pipeline
         .readFrom(KafkaSources.<String, String>kafka(
                 kafkaConnectionProperties, MyConstants.KAFKA_TOPIC_MONGO)).withoutTimestamps()
-        .map(MongoDebeziumTwoWayCDC::filterConvert)
+        .map(MongoDebeziumTwoWayCDC::convert)
+        .apply(MyCdcCoalescer.<String, HazelcastJsonValue>coalesce(this.batchSize,
+                MongoDebeziumTwoWayCDC::isExternalChange))
         .writeTo(Sinks.map(MyConstants.IMAP_NAME_CUSTOMER));
 
         return pipeline;
@@ -149,24 +185,21 @@ public class MongoDebeziumTwoWayCDC extends MyJobWrapper {
 
     /**
      * <p>Convert the entry into the required type for storage in Hazelcast.
-     * Discard any entries with the incorrect modifier flag, so we don't
-     * get into a loop of uploading changes we created.
+     * Fields are read from the JSON without building a parsed copy.
      * </p>
      *
      * @param entry From Kafka
-     * @return Null if the entry is filtered out
+     * @return Null if the entry can't be converted
      */
-    private static Entry<String, HazelcastJsonValue> filterConvert(Entry<String, String> entry) {
+    static Entry<String, HazelcastJsonValue> convert(Entry<String, String> entry) {
         String oldValue = entry.getValue();
         try {
-            JSONObject json = new JSONObject(oldValue);
-
             // Discard the metadata, we only need the post-update record
-            JSONObject payload = json.getJSONObject("payload");
+            int payload = MyJsonScanner.requireValueStart(oldValue, 0, "payload");
 
             // Is this a create (after) or an update (patch) ?
-            JSONObject create = fetch(payload, "after");
-            JSONObject update = fetch(payload, "patch");
+            String create = fetch(oldValue, payload, "after");
+            String update = fetch(oldValue, payload, "patch");
             if (create == null && update == null) {
                 LOGGER.error("Payload has neither 'after' *AND* 'patch' for key '{}'", entry.getKey());
                 return null;
@@ -174,67 +207,96 @@ public class MongoDebeziumTwoWayCDC extends MyJobWrapper {
             if (create != null && update != null) {
                 LOGGER.error("Payload has 'after' *AND* 'patch' for key '{}', assume patch", entry.getKey());
             }
-            JSONObject cdc = (update == null ? create : update);
-            String description = (update == null ? "CREATE" : "UPDATE");
+            String cdc = (update == null ? create : update);
 
             // Strings are as-is, others are nested as JSON
-            String id = cdc.getString("_" + CustomerMetadata.ID);
-            String firstName = cdc.getString(CustomerMetadata.FIRSTNAME);
-            String lastName = cdc.getString(CustomerMetadata.LASTNAME);
-            String accountType = cdc.getString(CustomerMetadata.ACCOUNT_TYPE);
-            String createdBy = cdc.getString(CustomerMetadata.CREATED_BY);
-            JSONObject createdDateJson = cdc.getJSONObject(CustomerMetadata.CREATED_DATE);
-            String lastModifiedBy = cdc.getString(CustomerMetadata.LAST_MODIFIED_BY);
-            JSONObject lastModifiedDateJson = cdc.getJSONObject(CustomerMetadata.LAST_MODIFIED_DATE);
-
-            JSONArray notesArray = cdc.getJSONArray(CustomerMetadata.NOTES);
-            String[] notes = new String[notesArray.length()];
-            for (int i = 0; i < notes.length; i++) {
-                notes[i] = notesArray.get(i).toString();
+            String id = MyJsonScanner.requireString(cdc, 0, "_" + CustomerMetadata.ID);
+            String firstName = MyJsonScanner.requireString(cdc, 0, CustomerMetadata.FIRSTNAME);
+            String lastName = MyJsonScanner.requireString(cdc, 0, CustomerMetadata.LASTNAME);
+            String accountType = MyJsonScanner.requireString(cdc, 0, CustomerMetadata.ACCOUNT_TYPE);
+            String createdBy = MyJsonScanner.requireString(cdc, 0, CustomerMetadata.CREATED_BY);
+            String lastModifiedBy = MyJsonScanner.requireString(cdc, 0, CustomerMetadata.LAST_MODIFIED_BY);
+            long createdDate = MyJsonScanner.requireLong(cdc,
+                    MyJsonScanner.requireValueStart(cdc, 0, CustomerMetadata.CREATED_DATE), NUMBER_LONG);
+            long lastModifiedDate = MyJsonScanner.requireLong(cdc,
+                    MyJsonScanner.requireValueStart(cdc, 0, CustomerMetadata.LAST_MODIFIED_DATE), NUMBER_LONG);
+
+            // Notes kept as JSON strings, so any escaping is retained
+            List<String> notes = new ArrayList<>();
+            int notesStart = MyJsonScanner.requireValueStart(cdc, 0, CustomerMetadata.NOTES);
+            for (int i = MyJsonScanner.firstElement(cdc, notesStart); i != MyJsonScanner.NOT_FOUND;
+                    i = MyJsonScanner.nextElement(cdc, i)) {
+                String note = MyJsonScanner.rawValue(cdc, i);
+                notes.add(note.startsWith("\"") ? note : "\"" + note + "\"");
             }
 
-            // Only accept changes from disk by `churn-update-legacy`
-            if (!lastModifiedBy.contains("update")) {
-                LOGGER.trace("Exclude {} made by '{}'", description, lastModifiedBy);
-                return null;
-            } else {
-                LOGGER.debug("Include {} made by '{}' to Id '{}'",
-                        description, lastModifiedBy, id);
-            }
-
-            // Values that are nested JSON, unpick if got this far
-            Long createdDate = Long.valueOf(createdDateJson.getString("$numberLong"));
-            Long lastModifiedDate = Long.valueOf(lastModifiedDateJson.getString("$numberLong"));
-
             // Extract the new value
             HazelcastJsonValue newValue = formNewValue(id, firstName, lastName,
                     accountType, createdBy, createdDate,
-                    lastModifiedBy, lastModifiedDate, notes);
+                    lastModifiedBy, lastModifiedDate, notes.toArray(new String[0]));
 
             return Tuple2.tuple2(id, newValue);
         } catch (NumberFormatException numberFormatException) {
-            LOGGER.error("filterConvert('{}'), NUMBER FORMAT EXCEPTION: {}",
+            LOGGER.error("convert('{}'), NUMBER FORMAT EXCEPTION: {}",
                     oldValue, numberFormatException.getMessage());
         } catch (Exception exception) {
-            LOGGER.error("filterConvert('{}'), EXCEPTION: {}", oldValue, exception.getMessage());
+            LOGGER.error("convert('{}'), EXCEPTION: {}", oldValue, exception.getMessage());
         }
 
         return null;
     }
 
     /**
-     * <p>Fetch a field that may be missing or null.
+     * <p>Fetch a field that may be missing or null. Debezium sends
+     * the document as a string of JSON.
      * </p>
      *
-     * @param payload
+     * @param json
+     * @param payload Position of payload object
      * @param fieldName
      * @return Null if no data
      */
-    private static JSONObject fetch(JSONObject payload, String fieldName) {
-        if (payload.has(fieldName) && !payload.isNull(fieldName)) {
-            return new JSONObject(payload.getString(fieldName));
-        } else {
+    private static String fetch(String json, int payload, String fieldName) {
+        int start = MyJsonScanner.valueStart(json, payload, fieldName);
+        if (start == MyJsonScanner.NOT_FOUND) {
             return null;
+        } else {
+            return MyJsonScanner.stringValue(json, start);
+        }
+    }
+
+    /**
+     * <p>Discard any entries with the incorrect modifier flag, so we don't
+     * get into a loop of uploading changes we created.
+     * </p>
+     * <p>This runs when coalescing, where an exception would stop the job, so
+     * a change with no modifier is logged and discarded instead.
+     * </p>
+     *
+     * @param hazelcastJsonValue The latest change for a key
+     * @return True if this change should be saved to Hazelcast
+     */
+    static boolean isExternalChange(HazelcastJsonValue hazelcastJsonValue) {
+        String json = hazelcastJsonValue.toString();
+        String lastModifiedBy;
+        try {
+            lastModifiedBy = MyJsonScanner.requireString(json, 0, CustomerMetadata.LAST_MODIFIED_BY);
+        } catch (RuntimeException exception) {
+            LOGGER.error("isExternalChange('{}'), EXCEPTION: {}", json, exception.getMessage());
+            return false;
+        }
+        if (lastModifiedBy == null) {
+            LOGGER.error("isExternalChange('{}'), no lastModifiedBy", json);
+            return false;
+        }
+        // Only accept changes from disk by `churn-update-legacy`
+        if (!lastModifiedBy.contains("update")) {
+            LOGGER.trace("Exclude change made by '{}'", lastModifiedBy);
+            return false;
+        } else {
+            LOGGER.debug("Include change made by '{}' to Id '{}'",
+                    lastModifiedBy, MyJsonScanner.requireString(json, 0, CustomerMetadata.ID));
+            return true;
         }
     }
 
@@ -251,7 +313,7 @@ public class MongoDebeziumTwoWayCDC extends MyJobWrapper {
      * @param createdDate
      * @param lastModifiedBy
      * @param lastModifiedDate
-     * @param notes
+     * @param notes Each a JSON string, with quotes
      * @return
      */
     @SuppressWarnings("checkstyle:ParameterNumber")
@@ -274,7 +336,7 @@ public class MongoDebeziumTwoWayCDC extends MyJobWrapper {
             if (i > 0) {
                 stringBuilder.append(", ");
             }
-            stringBuilder.append("\"" + notes[i] + "\"");
+            stringBuilder.append(notes[i]);
         }
         stringBuilder.append("]");
         stringBuilder.append(" }");
@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2008-2022, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hazelcast.platform.demos.telco.churn;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Predicate;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.hazelcast.function.FunctionEx;
+import com.hazelcast.function.PredicateEx;
+import com.hazelcast.jet.pipeline.ServiceFactories;
+import com.hazelcast.jet.pipeline.StreamStage;
+
+/**
+ * <p>Coalesce CDC changes by key, so only the latest image of each
+ * record is written when a burst of changes arrives together.
+ * </p>
+ * <p>The window is whatever Jet has waiting, up to "{@code my.cdc.batch.size}".
+ * With a steady trickle of changes nothing waits, so nothing is delayed.
+ * In a burst, earlier images of the same key are dropped, and the map
+ * sink writes the remainder in bulk by partition.
+ * </p>
+ * <p>Echo suppression is after coalescing, not before. If the latest
+ * change to a key is an echo of a change made in Hazelcast, the map
+ * already holds it, so nothing is written, and an older external change
+ * in the same batch must not overwrite it. The pipeline should preserve
+ * order so all changes for a key are in the same batches in the order
+ * they were made.
+ * </p>
+ */
+public class MyCdcCoalescer {
+    public static final String BATCH_SIZE_PROPERTY = "my.cdc.batch.size";
+    public static final int DEFAULT_BATCH_SIZE = 1024;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MyCdcCoalescer.class);
+
+    /**
+     * <p>A transform for "{@code apply()}", keeping the latest entry per key
+     * from each batch, if it passes the include test.
+     * </p>
+     *
+     * @param maxBatch Most entries to consider together
+     * @param include False for changes that shouldn't be written, echoes
+     * @return A stage with latest entries in their original order
+     */
+    public static <K, V> FunctionEx<StreamStage<Entry<K, V>>, StreamStage<Entry<K, V>>>
+        coalesce(int maxBatch, PredicateEx<V> include) {
+        return stage -> stage
+                .mapUsingServiceAsyncBatched(ServiceFactories.sharedService(__ -> include),
+                        maxBatch,
+                        (predicate, batch) -> CompletableFuture.completedFuture(latestPerKey(batch, predicate)))
+                .setName("coalesce by key");
+    }
+
+    /**
+     * <p>Keep the last entry for each key, in the position it was in.
+     * Jet expects one output per input, nulls are discarded.
+     * </p>
+     *
+     * @param batch Changes, oldest first
+     * @param include False for changes that shouldn't be written
+     * @return Same size as input, with nulls for dropped changes
+     */
+    static <K, V> List<Entry<K, V>> latestPerKey(List<Entry<K, V>> batch, Predicate<V> include) {
+        Map<K, Integer> latest = new HashMap<>();
+        for (int i = 0; i < batch.size(); i++) {
+            latest.put(batch.get(i).getKey(), i);
+        }
+
+        List<Entry<K, V>> result = new ArrayList<>(Collections.nCopies(batch.size(), null));
+        int excluded = 0;
+        for (int i : latest.values()) {
+            Entry<K, V> entry = batch.get(i);
+            if (include.test(entry.getValue())) {
+                result.set(i, entry);
+            } else {
+                excluded++;
+            }
+        }
+
+        if (LOGGER.isDebugEnabled() && batch.size() > 1) {
+            LOGGER.debug("Batch of {}, {} coalesced, {} excluded",
+                    batch.size(), batch.size() - latest.size(), excluded);
+        }
+        return result;
+    }
+}
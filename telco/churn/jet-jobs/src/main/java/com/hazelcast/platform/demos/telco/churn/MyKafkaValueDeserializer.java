@@ -19,18 +19,37 @@ package com.hazelcast.platform.demos.telco.churn;
 import java.nio.charset.StandardCharsets;
 
 import org.apache.kafka.common.serialization.Deserializer;
+import org.json.JSONObject;
 
-import com.hazelcast.core.HazelcastJsonValue;
+import com.hazelcast.platform.demos.telco.churn.domain.CallDataRecordMetadata;
+import com.hazelcast.platform.demos.telco.churn.domain.CallDataRecordValue;
 
 /**
- * <p>A deserializer that can handle {@link HazelcastJsonValue} from a String.
+ * <p>A deserializer that turns the JSON String sent by "{@code data-feed}"
+ * into a {@link CallDataRecordValue}. This is the only place the JSON
+ * is parsed, the Jet job and the map only see the typed value.
  * </p>
  */
-public class MyKafkaValueDeserializer implements Deserializer<HazelcastJsonValue> {
+public class MyKafkaValueDeserializer implements Deserializer<CallDataRecordValue> {
 
     @Override
-    public HazelcastJsonValue deserialize(String topic, byte[] data) {
-        return new HazelcastJsonValue(new String(data, StandardCharsets.UTF_8));
+    public CallDataRecordValue deserialize(String topic, byte[] data) {
+        JSONObject json = new JSONObject(new String(data, StandardCharsets.UTF_8));
+
+        CallDataRecordValue callDataRecordValue = new CallDataRecordValue();
+        callDataRecordValue.setId(json.getString(CallDataRecordMetadata.ID));
+        callDataRecordValue.setCallerTelno(json.getString(CallDataRecordMetadata.CALLER_TELNO));
+        callDataRecordValue.setCallerMastId(json.getString(CallDataRecordMetadata.CALLER_MAST_ID));
+        callDataRecordValue.setCalleeTelno(json.getString(CallDataRecordMetadata.CALLEE_TELNO));
+        callDataRecordValue.setCalleeMastId(json.getString(CallDataRecordMetadata.CALLEE_MAST_ID));
+        callDataRecordValue.setStartTimestamp(json.getLong(CallDataRecordMetadata.START_TIMESTAMP));
+        callDataRecordValue.setDurationSeconds(json.getInt(CallDataRecordMetadata.DURATION_SECONDS));
+        callDataRecordValue.setCallSuccessful(json.getBoolean(CallDataRecordMetadata.CALL_SUCCESSFUL));
+        callDataRecordValue.setCreatedBy(json.getString(CallDataRecordMetadata.CREATED_BY));
+        callDataRecordValue.setCreatedDate(json.getLong(CallDataRecordMetadata.CREATED_DATE));
+        callDataRecordValue.setLastModifiedBy(json.getString(CallDataRecordMetadata.LAST_MODIFIED_BY));
+        callDataRecordValue.setLastModifiedDate(json.getLong(CallDataRecordMetadata.LAST_MODIFIED_DATE));
+        return callDataRecordValue;
     }
 
 }
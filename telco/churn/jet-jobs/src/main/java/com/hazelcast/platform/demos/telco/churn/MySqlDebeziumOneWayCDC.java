@@ -20,7 +20,6 @@ import java.util.AbstractMap.SimpleImmutableEntry;
 import java.util.Date;
 import java.util.Map;
 
-import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -28,6 +27,7 @@ import com.hazelcast.core.HazelcastJsonValue;
 import com.hazelcast.jet.cdc.ChangeRecord;
 import com.hazelcast.jet.cdc.Operation;
 import com.hazelcast.jet.cdc.mysql.MySqlCdcSources;
+import com.hazelcast.jet.config.JobConfig;
 import com.hazelcast.jet.pipeline.Pipeline;
 import com.hazelcast.jet.pipeline.Sinks;
 import com.hazelcast.jet.pipeline.StreamSource;
@@ -55,6 +55,12 @@ import com.hazelcast.platform.demos.telco.churn.domain.TariffMetadata;
  *                         |
  *                         |
  *                +------( 3 )------+
+ *                |    Coalesce     |
+ *                +-----------------+
+ *                         |
+ *                         |
+ *                         |
+ *                +------( 4 )------+
  *                |    IMap Sink    |
  *                +-----------------+
  * </pre>
@@ -80,9 +86,16 @@ import com.hazelcast.platform.demos.telco.churn.domain.TariffMetadata;
  * </li>
  * <li>
  * <p>
+ * Coalesce
+ * </p>
+ * <p>Keep only the latest change for each key in a batch, see {@link MyCdcCoalescer}.
+ * </p>
+ * </li>
+ * <li>
+ * <p>
  * Map sink
  * </p>
- * <p>Save everything read into a map.
+ * <p>Save everything remaining into a map, which is written in bulk.
  * </p>
  * </li>
  * </ol>
@@ -94,11 +107,13 @@ public class MySqlDebeziumOneWayCDC extends MyJobWrapper {
     private String mySqlHost;
     private String mySqlUsername;
     private String mySqlPassword;
+    private int batchSize;
 
     MySqlDebeziumOneWayCDC(long timestamp, String username, String password) {
         super(timestamp);
         this.mySqlUsername = username;
         this.mySqlPassword = password;
+        this.batchSize = Integer.getInteger(MyCdcCoalescer.BATCH_SIZE_PROPERTY, MyCdcCoalescer.DEFAULT_BATCH_SIZE);
 
         // Configure expected MySql address for Docker or Kubernetes
         if (System.getProperty("my.kubernetes.enabled", "").equals("true")) {
@@ -112,6 +127,20 @@ public class MySqlDebeziumOneWayCDC extends MyJobWrapper {
         }
     }
 
+    /**
+     * <p>Job configuration, mainly which classes need to be distributed
+     * to execution nodes.
+     * </p>
+     */
+    @Override
+    JobConfig getJobConfig() {
+        JobConfig jobConfig = super.getJobConfig();
+
+        jobConfig.addClass(MyCdcCoalescer.class);
+
+        return jobConfig;
+    }
+
     /**
      * <p>Create the pipeline.
      * </p>
@@ -121,10 +150,14 @@ public class MySqlDebeziumOneWayCDC extends MyJobWrapper {
 
         StreamSource<ChangeRecord> mySqlCdcStreamSource = buildMySqlCdcStreamSource();
 
+        // Changes for a key stay in order, for coalescing
+        pipeline.setPreserveOrder(true);
+
         pipeline
         .readFrom(mySqlCdcStreamSource).withoutTimestamps()
         .map(changeRecord ->
             cdcToEntry(changeRecord.operation(), changeRecord.timestamp(), changeRecord.value().toJson()))
+        .apply(MyCdcCoalescer.<String, HazelcastJsonValue>coalesce(this.batchSize, __ -> true))
         .writeTo(Sinks.map(MyConstants.IMAP_NAME_TARIFF));
 
         return pipeline;
@@ -153,7 +186,8 @@ public class MySqlDebeziumOneWayCDC extends MyJobWrapper {
     }
 
     /**
-     * <p>Reformat a CDC value into the map entry. Don't need to validate
+     * <p>Reformat a CDC value into the map entry, reading fields from the
+     * JSON without building a parsed copy. Don't need to validate
      * as this is done already in {@link TariffMapLoader}, and we're
      * assuming not columns added while running. Also, it may have
      * extra unexpected metadata columns.
@@ -172,7 +206,6 @@ public class MySqlDebeziumOneWayCDC extends MyJobWrapper {
             long timestamp, String valueAsJson) {
         LOGGER.debug("cdcToEntry({}, {}, '{}')", operation, new Date(timestamp), valueAsJson);
 
-        JSONObject json = new JSONObject(valueAsJson);
         String key = null;
 
         StringBuilder stringBuilder = new StringBuilder("{ ");
@@ -187,11 +220,14 @@ public class MySqlDebeziumOneWayCDC extends MyJobWrapper {
             switch (name) {
                 case TariffMetadata.ID:
                 case TariffMetadata.NAME:
-                    stringBuilder.append("\"" + json.get(name).toString() + "\"");
+                    // Copied as is, so any escaping is retained
+                    String raw = MyJsonScanner.rawValue(valueAsJson,
+                            MyJsonScanner.requireValueStart(valueAsJson, 0, name));
+                    stringBuilder.append(raw.startsWith("\"") ? raw : "\"" + raw + "\"");
                     break;
                 case TariffMetadata.INTERNATIONAL:
                     // MySql uses 0 & 1
-                    int j = json.getInt(name);
+                    long j = MyJsonScanner.requireLong(valueAsJson, 0, name);
                     if (j == 0) {
                         stringBuilder.append("false");
                     } else {
@@ -199,11 +235,11 @@ public class MySqlDebeziumOneWayCDC extends MyJobWrapper {
                     }
                     break;
                 case TariffMetadata.YEAR:
-                    stringBuilder.append(json.getInt(name));
+                    stringBuilder.append((int) MyJsonScanner.requireLong(valueAsJson, 0, name));
                     break;
                 case TariffMetadata.RATE_PER_MINUTE:
                     // Field in JSON is not same as column name in MySql
-                    stringBuilder.append(json.getDouble("rate"));
+                    stringBuilder.append(MyJsonScanner.requireDouble(valueAsJson, 0, "rate"));
                     break;
                 default:
                     LOGGER.error("Field '{}' unexpected in '{}'", name, valueAsJson);
@@ -211,7 +247,7 @@ public class MySqlDebeziumOneWayCDC extends MyJobWrapper {
             }
 
             if (TariffMetadata.ID.equals(name)) {
-                key = json.get(name).toString();
+                key = MyJsonScanner.requireString(valueAsJson, 0, name);
             }
         }
         stringBuilder.append(" }");
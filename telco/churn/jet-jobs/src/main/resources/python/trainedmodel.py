@@ -13,16 +13,48 @@
 # See the License for the specific language governing permissions and
 # limitations under the License.
 #
+import json
 import random
+import sys
+
+# Jet sends a batch of call data records as one item, one CSV line per record
+LINE_SEPARATOR = "\n"
+
+# The trained model, a linear function of current and previous sentiment,
+# chosen by whether the call dropped, plus noise so all data is not the
+# exact same. Export to "churnmodel.json" for the Java scorer with
+#   python3 trainedmodel.py > churnmodel.json
+MODEL = {
+  "name": "churn-annoyance",
+  "version": 1,
+  "features": ["current", "previous"],
+  "dropped": {"intercept": 3.1, "coefficients": [2.0, -1.0], "noise": 1.0},
+  "completed": {"intercept": 0.0, "coefficients": [1.0, 0.0], "noise": 0.0},
+  "max": 100.0
+}
 
 def assess(items):
 
     results = []
 
+    for item in items:
+      results.append(LINE_SEPARATOR.join(assess_batch(item.split(LINE_SEPARATOR))))
+
+    return results
+
+def assess_batch(lines):
+
+    results = []
+
+    # Sentiment assessed earlier in this batch, by customer, as the sentiment
+    # map won't have it yet. Lines are in call order for each customer.
+    latest = {}
+
     # Simple ML, each dropped call doubles the churn likelyhood.
     # Better algorithms exist, substitute your own.
-    for item in items:
-      csv = item.split(",")
+    for line in lines:
+      csv = line.split(",")
+      key = csv[0]
 
       # Call dropped
       dropped_str = csv[5]
@@ -31,19 +63,22 @@ def assess(items):
       else:
         dropped = False
 
-      # Current sentiment
-      current_str = csv[21]
-      if current_str == "":
-        current_pct = float(0.0)
+      if key in latest:
+        current_pct, previous_pct = latest[key]
       else:
-        current_pct = float(current_str)
+        # Current sentiment
+        current_str = csv[21]
+        if current_str == "":
+          current_pct = float(0.0)
+        else:
+          current_pct = float(current_str)
 
-      # Previous sentiment
-      previous_str = csv[22]
-      if previous_str == "":
-        previous_pct = float(0.0)
-      else:
-        previous_pct = float(previous_str)
+        # Previous sentiment
+        previous_str = csv[22]
+        if previous_str == "":
+          previous_pct = float(0.0)
+        else:
+          previous_pct = float(previous_str)
 
       #####################################
       # Business logic
@@ -51,20 +86,27 @@ def assess(items):
       # Step up by more annoyance each time
       # a call is dropped. Don't yet reduce
       # level if lots of successful calls.
-      # Add some randomness so all data
-      # not the exact same.
+      # Evaluated in this order in Java too,
+      # so results are the same.
       #####################################
-      if dropped:
-        old_annoyance = current_pct - previous_pct
-        new_annoyance = float(3.1) + old_annoyance + current_pct + random.random()
-      else:
-        new_annoyance = current_pct
+      model = MODEL["dropped"] if dropped else MODEL["completed"]
+      new_annoyance = model["intercept"]
+      new_annoyance += model["coefficients"][0] * current_pct
+      new_annoyance += model["coefficients"][1] * previous_pct
+      if model["noise"] != 0.0:
+        new_annoyance += model["noise"] * random.random()
       #####################################
-      if new_annoyance > float(100.0):
-        new_annoyance = float(100.0)
+      if new_annoyance > MODEL["max"]:
+        new_annoyance = MODEL["max"]
       #####################################
 
+      latest[key] = (new_annoyance, current_pct)
+
       # Append new_annoyance level to original input, plus the input current annoyance becomes output previous annoyance
-      results.append(item +  "," + str(new_annoyance) + "," + str(current_pct))
+      results.append(line +  "," + str(new_annoyance) + "," + str(current_pct))
 
     return results
+
+if __name__ == "__main__":
+    json.dump(MODEL, sys.stdout, indent=2)
+    print()
@@ -0,0 +1,265 @@
+/*
+ * Copyright (c) 2008-2022, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hazelcast.platform.demos.telco.churn;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.hazelcast.jet.datamodel.Tuple2;
+import com.hazelcast.platform.demos.telco.churn.domain.CallDataRecordValue;
+import com.hazelcast.platform.demos.telco.churn.domain.Sentiment;
+
+/**
+ * <p>Test the Java evaluation of the churn model against Python, if
+ * Python is available.
+ * </p>
+ */
+public class ChurnModelTest {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ChurnModelTest.class);
+
+    private static final String BATCH_SEPARATOR = "\n\n";
+    private static final String PYTHON_SCRIPT = "import random, sys, time\n"
+            + "sys.path.insert(0, sys.argv[1])\n"
+            + "import trainedmodel\n"
+            + "if len(sys.argv) > 2:\n"
+            + "  random.random = lambda: float(sys.argv[2])\n"
+            + "items = sys.stdin.read().split('" + BATCH_SEPARATOR.replace("\n", "\\n") + "')\n"
+            + "start = time.perf_counter()\n"
+            + "results = trainedmodel.assess(items)\n"
+            + "sys.stderr.write(str(time.perf_counter() - start))\n"
+            + "sys.stdout.write('" + BATCH_SEPARATOR.replace("\n", "\\n") + "'.join(results))\n";
+    private static final int CUSTOMERS = 50;
+    private static final int BATCH_SIZE = 256;
+    private static final int DROPPED_PCT = 30;
+    private static final int ONE_HUNDRED = 100;
+    private static final long PYTHON_TIMEOUT_SECONDS = 60L;
+    private static final int WARM_UP = 5;
+
+    private static ChurnModel churnModel;
+    private static File pythonDir;
+
+    @BeforeAll
+    static void setUpBeforeClass() throws Exception {
+        churnModel = ChurnModel.fromClasspath(ChurnModel.MODEL_RESOURCE);
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        pythonDir = new File(classLoader.getResource(ChurnModel.MODEL_RESOURCE).toURI()).getParentFile();
+    }
+
+    /**
+     * <p>Batches of CSV lines, as would be sent to the model, with some
+     * customers appearing more than once in a batch.
+     * </p>
+     */
+    private static List<String> batches(int count, long seed) {
+        Random random = new Random(seed);
+        List<String> result = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            List<Tuple2<String, CallDataRecordValue>> batch = new ArrayList<>();
+            Map<String, Sentiment> sentiments = new HashMap<>();
+            for (int j = 0; j < BATCH_SIZE; j++) {
+                String key = "telno-" + random.nextInt(CUSTOMERS);
+                CallDataRecordValue callDataRecordValue = new CallDataRecordValue();
+                callDataRecordValue.setId(i + "-" + j);
+                callDataRecordValue.setCallerTelno(key);
+                callDataRecordValue.setCallSuccessful(random.nextInt(ONE_HUNDRED) < DROPPED_PCT);
+                batch.add(Tuple2.tuple2(key, callDataRecordValue));
+                if (random.nextBoolean()) {
+                    Sentiment sentiment = new Sentiment();
+                    sentiment.setCurrent(random.nextDouble() * ONE_HUNDRED);
+                    sentiment.setPrevious(random.nextDouble() * ONE_HUNDRED);
+                    sentiment.setUpdated(LocalDateTime.now());
+                    sentiments.put(key, sentiment);
+                }
+            }
+            result.add(ChurnBatchEnricher.toBatch(batch, Map.of(), sentiments));
+        }
+        return result;
+    }
+
+    /**
+     * <p>Run the Python module on the batches.
+     * </p>
+     *
+     * @param batches Input
+     * @param noise Fixed value for Python's random, or null for random
+     * @param output Python's output batches
+     * @return Seconds Python took, excluding startup
+     */
+    private static double python(List<String> batches, String noise, List<String> output) throws Exception {
+        List<String> command = new ArrayList<>(List.of("python3", "-c", PYTHON_SCRIPT, pythonDir.toString()));
+        if (noise != null) {
+            command.add(noise);
+        }
+        Process process = new ProcessBuilder(command).start();
+        try (OutputStream outputStream = process.getOutputStream()) {
+            outputStream.write(String.join(BATCH_SEPARATOR, batches).getBytes(StandardCharsets.UTF_8));
+        }
+        String stdout;
+        String stderr;
+        try (InputStream inputStream = process.getInputStream();
+                InputStream errorStream = process.getErrorStream()) {
+            stdout = new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+            stderr = new String(errorStream.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        assertThat(process.waitFor(PYTHON_TIMEOUT_SECONDS, TimeUnit.SECONDS)).isTrue();
+        assertThat(process.exitValue()).as(stderr).isEqualTo(0);
+        output.addAll(List.of(stdout.split(BATCH_SEPARATOR)));
+        return Double.parseDouble(stderr.trim());
+    }
+
+    private static boolean isPythonAvailable() {
+        try {
+            Process process = new ProcessBuilder("python3", "--version").start();
+            return process.waitFor(PYTHON_TIMEOUT_SECONDS, TimeUnit.SECONDS) && process.exitValue() == 0;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    @DisplayName("Exported model loads")
+    @Test
+    public void testLoad() throws Exception {
+        assertThat(churnModel.getName()).isEqualTo("churn-annoyance");
+        assertThat(churnModel.getVersion()).isEqualTo(1);
+    }
+
+    @DisplayName("Dropped calls raise sentiment, carried forward in a batch")
+    @Test
+    public void testCarryForward() throws Exception {
+        String dropped = "a,,,,,true,,,,,,,,,,,,,,,,10.0,5.0,";
+        String completed = "a,,,,,false,,,,,,,,,,,,,,,,10.0,5.0,";
+
+        String[] output = churnModel.assess(dropped + "\n" + completed + "\n" + dropped, () -> 0.5d).split("\n");
+
+        // 3.1 + 2 * 10 - 5 + 0.5
+        assertThat(output[0]).isEqualTo(dropped + ",18.6,10.0");
+        assertThat(output[1]).isEqualTo(completed + ",18.6,18.6");
+        // 3.1 + 2 * 18.6 - 18.6 + 0.5
+        assertThat(output[2]).startsWith(dropped + ",22.2");
+        assertThat(output[2]).endsWith(",18.6");
+    }
+
+    @DisplayName("Sentiment carried forward across batches, over a stale input")
+    @Test
+    public void testCarryForwardAcrossBatches() throws Exception {
+        String dropped = "a,,,,,true,,,,,,,,,,,,,,,,10.0,5.0,";
+        Map<String, double[]> latest = new HashMap<>();
+
+        String first = churnModel.assess(dropped, () -> 0.5d, latest);
+        // Second batch read the sentiment before the first was saved
+        String second = churnModel.assess(dropped, () -> 0.5d, latest);
+
+        // 3.1 + 2 * 10 - 5 + 0.5
+        assertThat(first).isEqualTo(dropped + ",18.6,10.0");
+        // 3.1 + 2 * 18.6 - 10 + 0.5, not 18.6 again from the stale 10.0 and 5.0
+        assertThat(second).startsWith(dropped + ",30.8");
+        assertThat(second).endsWith(",18.6");
+    }
+
+    @DisplayName("Scorer remembers a bounded number of customers")
+    @Test
+    public void testScorerBounded() throws Exception {
+        ChurnModelScorer churnModelScorer = new ChurnModelScorer(churnModel);
+        StringBuilder stringBuilder = new StringBuilder();
+        for (int i = 0; i < ChurnModelScorer.MAX_CUSTOMERS + CUSTOMERS; i++) {
+            if (i > 0) {
+                stringBuilder.append(ChurnBatchEnricher.LINE_SEPARATOR);
+            }
+            stringBuilder.append("telno-").append(i).append(",,,,,true,,,,,,,,,,,,,,,,10.0,5.0,");
+        }
+
+        String output = churnModelScorer.assess(stringBuilder.toString());
+
+        assertThat(output.split(ChurnBatchEnricher.LINE_SEPARATOR).length)
+            .isEqualTo(ChurnModelScorer.MAX_CUSTOMERS + CUSTOMERS);
+        assertThat(churnModelScorer.size()).isEqualTo(ChurnModelScorer.MAX_CUSTOMERS);
+    }
+
+    @DisplayName("Same sentiments as Python")
+    @Test
+    public void testParity() throws Exception {
+        assumeTrue(isPythonAvailable(), "python3 not available");
+        String noise = "0.25";
+        List<String> input = batches(10, 1L);
+
+        List<String> python = new ArrayList<>();
+        python(input, noise, python);
+
+        assertThat(python.size()).isEqualTo(input.size());
+        for (int i = 0; i < input.size(); i++) {
+            String[] javaLines = churnModel.assess(input.get(i), () -> Double.parseDouble(noise)).split("\n");
+            String[] pythonLines = python.get(i).split("\n");
+            assertThat(javaLines.length).isEqualTo(pythonLines.length);
+            for (int j = 0; j < javaLines.length; j++) {
+                String[] javaTokens = javaLines[j].split(",", -1);
+                String[] pythonTokens = pythonLines[j].split(",", -1);
+                assertThat(javaTokens.length).isEqualTo(pythonTokens.length);
+                assertThat(javaTokens[0]).isEqualTo(pythonTokens[0]);
+                for (int k = javaTokens.length - 2; k < javaTokens.length; k++) {
+                    assertThat(Double.parseDouble(javaTokens[k])).as(javaLines[j])
+                        .isEqualTo(Double.parseDouble(pythonTokens[k]));
+                }
+            }
+        }
+    }
+
+    @DisplayName("Throughput logged against Python, every record scored")
+    @Test
+    public void testThroughput() throws Exception {
+        assumeTrue(isPythonAvailable(), "python3 not available");
+        List<String> input = batches(200, 2L);
+        int records = input.size() * BATCH_SIZE;
+
+        for (int i = 0; i < WARM_UP; i++) {
+            input.forEach(churnModel::assess);
+        }
+        List<String> java = new ArrayList<>();
+        long start = System.nanoTime();
+        input.forEach(batch -> java.add(churnModel.assess(batch)));
+        double javaSeconds = (System.nanoTime() - start) / (double) TimeUnit.SECONDS.toNanos(1);
+
+        List<String> python = new ArrayList<>();
+        double pythonSeconds = python(input, null, python);
+
+        LOGGER.info("{} records, Java {} per second, Python {} per second (excluding gRPC)",
+                records, String.format("%,.0f", records / javaSeconds), String.format("%,.0f", records / pythonSeconds));
+        // Timings depend on the machine so are only logged, output sizes don't
+        assertThat(java.size()).isEqualTo(input.size());
+        assertThat(python.size()).isEqualTo(input.size());
+        assertThat(java.stream().mapToInt(batch -> batch.split("\n").length).sum()).isEqualTo(records);
+        assertThat(python.stream().mapToInt(batch -> batch.split("\n").length).sum()).isEqualTo(records);
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2008-2022, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hazelcast.platform.demos.telco.churn;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.hazelcast.core.HazelcastJsonValue;
+import com.hazelcast.jet.datamodel.Tuple2;
+import com.hazelcast.platform.demos.telco.churn.domain.CallDataRecordValue;
+import com.hazelcast.platform.demos.telco.churn.domain.Sentiment;
+
+/**
+ * <p>Test batches to and from Python, without Python.
+ * </p>
+ */
+public class MLChurnDetectorTest {
+
+    private static final String CUSTOMER = "{\"accountType\":\"Consumer\",\"createdBy\":\"test\","
+            + "\"createdDate\":0,\"firstName\":\"First\",\"id\":\"%s\",\"lastModifiedBy\":\"test\","
+            + "\"lastModifiedDate\":0,\"lastName\":\"Last\"}";
+
+    private static CallDataRecordValue cdr(String telno, long lastModifiedDate) {
+        CallDataRecordValue callDataRecordValue = new CallDataRecordValue();
+        callDataRecordValue.setId(telno + "-" + lastModifiedDate);
+        callDataRecordValue.setCallerTelno(telno);
+        callDataRecordValue.setLastModifiedBy("churn-data-feed");
+        callDataRecordValue.setLastModifiedDate(lastModifiedDate);
+        return callDataRecordValue;
+    }
+
+    /**
+     * <p>As Python would, append the new and previous sentiment.
+     * </p>
+     */
+    private static String fakePython(String batch) {
+        StringBuilder stringBuilder = new StringBuilder();
+        for (String line : batch.split(ChurnBatchEnricher.LINE_SEPARATOR)) {
+            if (stringBuilder.length() > 0) {
+                stringBuilder.append(ChurnBatchEnricher.LINE_SEPARATOR);
+            }
+            stringBuilder.append(line).append(",50.0,25.0");
+        }
+        return stringBuilder.toString();
+    }
+
+    @DisplayName("One line per record, in order")
+    @Test
+    public void testToBatch() throws Exception {
+        Sentiment sentiment = new Sentiment();
+        sentiment.setCurrent(25.0d);
+        sentiment.setPrevious(10.0d);
+        sentiment.setUpdated(LocalDateTime.now());
+
+        List<Tuple2<String, CallDataRecordValue>> input = List.of(
+                Tuple2.tuple2("a", cdr("a", 1L)),
+                Tuple2.tuple2("b", cdr("b", 2L)),
+                Tuple2.tuple2("a", cdr("a", 3L)));
+
+        String batch = ChurnBatchEnricher.toBatch(input,
+                Map.of("a", new HazelcastJsonValue(String.format(CUSTOMER, "a"))),
+                Map.of("a", sentiment));
+
+        String[] lines = batch.split(ChurnBatchEnricher.LINE_SEPARATOR);
+        assertThat(lines.length).isEqualTo(3);
+        assertThat(lines[0]).startsWith("a,");
+        assertThat(lines[1]).startsWith("b,");
+        assertThat(lines[2]).startsWith("a,");
+        assertThat(lines[0]).contains(",25.0,10.0,");
+        assertThat(lines[0]).contains(",First,a,");
+        assertThat(lines[2]).contains(",a-3,");
+    }
+
+    @DisplayName("Batch back to sentiments, in order")
+    @Test
+    public void testMakeSentimentEntries() throws Exception {
+        long now = System.currentTimeMillis();
+        List<Tuple2<String, CallDataRecordValue>> input = List.of(
+                Tuple2.tuple2("a", cdr("a", now)),
+                Tuple2.tuple2("b", cdr("b", now)),
+                Tuple2.tuple2("a", cdr("a", now)));
+        String batch = ChurnBatchEnricher.toBatch(input,
+                Map.of("a", new HazelcastJsonValue(String.format(CUSTOMER, "a")),
+                        "b", new HazelcastJsonValue(String.format(CUSTOMER, "b"))),
+                Map.of());
+
+        ChurnLatencyBudget churnLatencyBudget = new ChurnLatencyBudget(Long.MAX_VALUE, input.size());
+        List<Map.Entry<String, Sentiment>> output =
+                MLChurnDetector.makeSentimentEntries(churnLatencyBudget, fakePython(batch));
+
+        assertThat(output.size()).isEqualTo(3);
+        assertThat(output.get(0).getKey()).isEqualTo("a");
+        assertThat(output.get(1).getKey()).isEqualTo("b");
+        assertThat(output.get(2).getKey()).isEqualTo("a");
+        assertThat(output.get(0).getValue().getCurrent()).isEqualTo(50.0d);
+        assertThat(output.get(0).getValue().getPrevious()).isEqualTo(25.0d);
+    }
+
+    @DisplayName("Latency over budget is counted")
+    @Test
+    public void testLatencyBudget() throws Exception {
+        ChurnLatencyBudget churnLatencyBudget = new ChurnLatencyBudget(100L, 1);
+        churnLatencyBudget.report(0L);
+
+        churnLatencyBudget.recordLatency(1_000L, 950L);
+        churnLatencyBudget.recordLatency(1_000L, 850L);
+        churnLatencyBudget.recordBatch(2);
+
+        assertThat(churnLatencyBudget.getOverBudget()).isEqualTo(1L);
+        assertThat(churnLatencyBudget.getMaxMs()).isEqualTo(150L);
+        assertThat(churnLatencyBudget.getRecords()).isEqualTo(2L);
+        assertThat(churnLatencyBudget.report(1_000L)).isFalse();
+        assertThat(churnLatencyBudget.report(60_000L)).isTrue();
+        assertThat(churnLatencyBudget.getOverBudget()).isEqualTo(0L);
+    }
+}
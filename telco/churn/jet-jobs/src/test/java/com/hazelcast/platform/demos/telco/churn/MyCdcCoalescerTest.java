@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2008-2022, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hazelcast.platform.demos.telco.churn;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Objects;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.hazelcast.core.HazelcastJsonValue;
+import com.hazelcast.jet.datamodel.Tuple2;
+import com.hazelcast.platform.demos.telco.churn.domain.CallDataRecordKey;
+import com.hazelcast.platform.demos.telco.churn.domain.CallDataRecordValue;
+
+/**
+ * <p>Test CDC records are converted and coalesced, with echoes
+ * of changes from Hazelcast excluded.
+ * </p>
+ */
+public class MyCdcCoalescerTest {
+    private static final String ECHO = "churn-hazelcast-node";
+    private static final String LEGACY = "churn-update-legacy";
+
+    private static String cassandra(String id, int durationSeconds, Object lastModifiedBy) {
+        JSONObject after = new JSONObject();
+        after.put("id", field(id));
+        after.put("call_successful", field(true));
+        after.put("callee_mast_id", field("MAST1"));
+        after.put("callee_telno", field("(111)-111-1111"));
+        after.put("caller_mast_id", field("MAST2"));
+        after.put("caller_telno", field("(222)-222-2222"));
+        after.put("created_by", field("test"));
+        after.put("created_date", field(1600000000000L));
+        after.put("duration_seconds", field(durationSeconds));
+        after.put("last_modified_by", field(lastModifiedBy));
+        after.put("last_modified_date", field(1600000000001L));
+        after.put("start_timestamp", field(1600000000002L));
+        return new JSONObject().put("op", "u").put("after", after).toString();
+    }
+
+    private static JSONObject field(Object value) {
+        return new JSONObject().put("value", value).put("deletion_ts", JSONObject.NULL).put("set", true);
+    }
+
+    private static String mongo(String id, String firstName, Object lastModifiedBy) {
+        JSONObject document = new JSONObject();
+        document.put("_id", id);
+        document.put("firstName", firstName);
+        document.put("lastName", "Last");
+        document.put("accountType", "Consumer");
+        document.put("createdBy", "test");
+        document.put("createdDate", new JSONObject().put("$numberLong", "1600000000000"));
+        document.put("lastModifiedBy", lastModifiedBy);
+        document.put("lastModifiedDate", new JSONObject().put("$numberLong", "1600000000001"));
+        document.put("notes", new JSONArray().put("said \"hello\""));
+        JSONObject payload = new JSONObject().put("after", document.toString()).put("patch", JSONObject.NULL);
+        return new JSONObject().put("payload", payload).toString();
+    }
+
+    private static <K, V> List<Entry<K, V>> nonNull(List<Entry<K, V>> list) {
+        List<Entry<K, V>> result = new ArrayList<>(list);
+        result.removeIf(Objects::isNull);
+        return result;
+    }
+
+    @DisplayName("Latest per key, in original order")
+    @Test
+    public void testLatestPerKey() throws Exception {
+        List<Entry<String, String>> input = List.of(
+                Tuple2.tuple2("a", "1"), Tuple2.tuple2("b", "1"), Tuple2.tuple2("a", "2"),
+                Tuple2.tuple2("c", "1"), Tuple2.tuple2("b", "2"));
+
+        List<Entry<String, String>> output = MyCdcCoalescer.latestPerKey(input, __ -> true);
+
+        assertThat(output.size()).isEqualTo(input.size());
+        assertThat(nonNull(output)).isEqualTo(List.of(
+                Tuple2.tuple2("a", "2"), Tuple2.tuple2("c", "1"), Tuple2.tuple2("b", "2")));
+    }
+
+    @DisplayName("Cassandra, external change then echo writes nothing")
+    @Test
+    public void testCassandraEcho() throws Exception {
+        List<Entry<CallDataRecordKey, CallDataRecordValue>> input = new ArrayList<>();
+        input.add(CassandraDebeziumTwoWayCDC.convert(Tuple2.tuple2("k1", cassandra("id1", 1, LEGACY))));
+        input.add(CassandraDebeziumTwoWayCDC.convert(Tuple2.tuple2("k1", cassandra("id1", 2, ECHO))));
+        input.add(CassandraDebeziumTwoWayCDC.convert(Tuple2.tuple2("k2", cassandra("id2", 3, ECHO))));
+        input.add(CassandraDebeziumTwoWayCDC.convert(Tuple2.tuple2("k2", cassandra("id2", 4, LEGACY))));
+
+        List<Entry<CallDataRecordKey, CallDataRecordValue>> output =
+                nonNull(MyCdcCoalescer.latestPerKey(input, CassandraDebeziumTwoWayCDC::isExternalChange));
+
+        assertThat(output.size()).isEqualTo(1);
+        assertThat(output.get(0).getKey().getId()).isEqualTo("id2");
+        assertThat(output.get(0).getKey().getCallerTelno()).isEqualTo("(222)-222-2222");
+        assertThat(output.get(0).getValue().getDurationSeconds()).isEqualTo(4);
+        assertThat(output.get(0).getValue().isCallSuccessful()).isTrue();
+        assertThat(output.get(0).getValue().getStartTimestamp()).isEqualTo(1600000000002L);
+    }
+
+    @DisplayName("Mongo, latest external change kept")
+    @Test
+    public void testMongo() throws Exception {
+        List<Entry<String, HazelcastJsonValue>> input = new ArrayList<>();
+        input.add(MongoDebeziumTwoWayCDC.convert(Tuple2.tuple2("k1", mongo("c1", "Old", LEGACY))));
+        input.add(MongoDebeziumTwoWayCDC.convert(Tuple2.tuple2("k1", mongo("c1", "New", LEGACY))));
+        input.add(MongoDebeziumTwoWayCDC.convert(Tuple2.tuple2("k2", mongo("c2", "Echo", ECHO))));
+
+        List<Entry<String, HazelcastJsonValue>> output =
+                nonNull(MyCdcCoalescer.latestPerKey(input, MongoDebeziumTwoWayCDC::isExternalChange));
+
+        assertThat(output.size()).isEqualTo(1);
+        assertThat(output.get(0).getKey()).isEqualTo("c1");
+        JSONObject json = new JSONObject(output.get(0).getValue().toString());
+        assertThat(json.getString("firstName")).isEqualTo("New");
+        assertThat(json.getLong("createdDate")).isEqualTo(1600000000000L);
+        assertThat(json.getJSONArray("notes").getString(0)).isEqualTo("said \"hello\"");
+    }
+
+    @DisplayName("No modifier is discarded, not an exception")
+    @Test
+    public void testNullLastModifiedBy() throws Exception {
+        List<Entry<CallDataRecordKey, CallDataRecordValue>> cassandraInput = new ArrayList<>();
+        cassandraInput.add(CassandraDebeziumTwoWayCDC.convert(
+                Tuple2.tuple2("k1", cassandra("id1", 1, JSONObject.NULL))));
+        List<Entry<String, HazelcastJsonValue>> mongoInput = new ArrayList<>();
+        mongoInput.add(MongoDebeziumTwoWayCDC.convert(
+                Tuple2.tuple2("k1", mongo("c1", "First", JSONObject.NULL))));
+        assertThat(cassandraInput.get(0)).isNotNull();
+        assertThat(mongoInput.get(0)).isNotNull();
+
+        assertThat(nonNull(MyCdcCoalescer.latestPerKey(cassandraInput,
+                CassandraDebeziumTwoWayCDC::isExternalChange)).size()).isEqualTo(0);
+        assertThat(nonNull(MyCdcCoalescer.latestPerKey(mongoInput,
+                MongoDebeziumTwoWayCDC::isExternalChange)).size()).isEqualTo(0);
+    }
+}
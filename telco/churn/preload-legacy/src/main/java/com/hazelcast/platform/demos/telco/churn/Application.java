@@ -43,13 +43,15 @@ public class Application {
                     "churn-mongo.default.svc.cluster.local");
             properties.put("spring.datasource.url",
                     "jdbc:mysql://churn-mysql.default.svc.cluster.local:3306/churn"
-                    + "?useSSL=false&allowPublicKeyRetrieval=true&serverTimezone=UTC");
+                    + "?useSSL=false&allowPublicKeyRetrieval=true&serverTimezone=UTC"
+                    + "&rewriteBatchedStatements=true");
         } else {
             properties.put("spring.data.cassandra.contact-points", "cassandra");
             properties.put("spring.data.mongodb.host", "mongo");
             properties.put("spring.datasource.url",
                     "jdbc:mysql://mysql:3306/churn"
-                    + "?useSSL=false&allowPublicKeyRetrieval=true&serverTimezone=UTC");
+                    + "?useSSL=false&allowPublicKeyRetrieval=true&serverTimezone=UTC"
+                    + "&rewriteBatchedStatements=true");
         }
         for (Entry<Object, Object> entry : properties.entrySet()) {
             LOGGER.info("'{}'=='{}'", entry.getKey(), entry.getValue());
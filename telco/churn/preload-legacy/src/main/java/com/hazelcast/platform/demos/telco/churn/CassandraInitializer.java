@@ -19,7 +19,11 @@ package com.hazelcast.platform.demos.telco.churn;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -27,14 +31,26 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.cassandra.core.AsyncCassandraTemplate;
+import org.springframework.data.cassandra.core.CassandraOperations;
 import org.springframework.data.cassandra.repository.config.EnableCassandraRepositories;
+import org.springframework.util.concurrent.ListenableFuture;
 
+import com.datastax.oss.driver.api.core.CqlSession;
 import com.hazelcast.platform.demos.telco.churn.domain.CallDataRecord;
 import com.hazelcast.platform.demos.telco.churn.domain.CallDataRecordRepository;
-import com.hazelcast.platform.demos.telco.churn.testdata.CustomerTestdata;
 
 /**
  * <p>Insert data records into Cassandra, average 1000 per customer.</p>
+ * <p>Accounts are generated in parallel, and each batch of rows written
+ * as concurrent asynchronous inserts, waiting for all to complete
+ * before the next batch. Rows are for different Cassandra partitions,
+ * so a CQL "{@code BATCH}" wouldn't help.
+ * </p>
+ * <p>Inserts in flight across all workers are capped at {@link #MAX_IN_FLIGHT},
+ * below the driver's default of 1024 requests per connection, so
+ * adding threads can't overload the connection.
+ * </p>
  */
 @Configuration
 @EnableCassandraRepositories(basePackageClasses = CallDataRecordRepository.class)
@@ -44,6 +60,7 @@ public class CassandraInitializer implements CommandLineRunner {
     // Each caller makes between 900 and 1100 calls.
     private static final int AVERAGE_CALLS = 1000;
     private static final int AVERAGE_VARIANCE = 100;
+    private static final int MAX_IN_FLIGHT = 512;
 
     private static final int TEN = 10;
     private static final int TWENTY_FOUR_HOURS = 24;
@@ -51,6 +68,10 @@ public class CassandraInitializer implements CommandLineRunner {
 
     @Autowired
     private CallDataRecordRepository callDataRecordRepository;
+    @Autowired
+    private CassandraOperations cassandraOperations;
+    @Autowired
+    private CqlSession cqlSession;
     @Value("${spring.application.name}")
     private String springApplicationName;
 
@@ -63,16 +84,19 @@ public class CassandraInitializer implements CommandLineRunner {
     @Override
     public void run(String... args) throws Exception {
         long now = System.currentTimeMillis();
+        LocalDate today = LocalDate.now();
         long before = this.callDataRecordRepository.count();
         LOGGER.info("BEFORE: count()=={}", before);
 
-        int accounts = CustomerTestdata.getFirstNames().length
-                * CustomerTestdata.getLastNames().length;
-        int insert = 0;
+        int accounts = MyPreloader.getAccounts();
+        AsyncCassandraTemplate asyncCassandraTemplate =
+                new AsyncCassandraTemplate(this.cqlSession, this.cassandraOperations.getConverter());
+        Semaphore inFlight = new Semaphore(MAX_IN_FLIGHT);
 
-        for (int account = 0 ; account < accounts ; account++) {
-            insert += this.insertCdrsForAccount(account, accounts, now, LocalDate.now());
-        }
+        MyPreloader myPreloader = MyPreloader.fromSystemProperties("Cassandra");
+        long insert = myPreloader.run(accounts,
+                account -> generateCdrsForAccount(account, accounts, now, today, this.springApplicationName),
+                batch -> insertAsync(asyncCassandraTemplate, inFlight, batch));
 
         long after = this.callDataRecordRepository.count();
         if ((before + insert) == after) {
@@ -82,21 +106,58 @@ public class CassandraInitializer implements CommandLineRunner {
         }
     }
 
+    /**
+     * <p>Send all inserts for the batch without waiting, other than for
+     * a permit if too many are in flight, then wait for all to complete.
+     * </p>
+     *
+     * @param asyncCassandraTemplate Non-blocking inserts
+     * @param inFlight Permits shared by all workers
+     * @param batch Rows to insert
+     */
+    private static void insertAsync(AsyncCassandraTemplate asyncCassandraTemplate, Semaphore inFlight,
+            List<CallDataRecord> batch) {
+        List<ListenableFuture<CallDataRecord>> futures = new ArrayList<>(batch.size());
+        try {
+            for (CallDataRecord cdr : batch) {
+                inFlight.acquire();
+                ListenableFuture<CallDataRecord> future;
+                try {
+                    future = asyncCassandraTemplate.insert(cdr);
+                } catch (RuntimeException e) {
+                    inFlight.release();
+                    throw e;
+                }
+                future.addCallback(__ -> inFlight.release(), __ -> inFlight.release());
+                futures.add(future);
+            }
+            for (ListenableFuture<CallDataRecord> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("insertAsync()", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("insertAsync()", e.getCause());
+        }
+    }
+
     /**
      * <p>Generate between 900 and 1100 calls for each account,
      * using pseudo-random callers. The numbers look random but
      * are deterministic, so know what data to expect on output.
      * </p>
      */
-    private int insertCdrsForAccount(int account, int accounts, long timestamp, LocalDate today) {
+    static List<CallDataRecord> generateCdrsForAccount(int account, int accounts, long timestamp,
+            LocalDate today, String createdBy) {
         int plusMinus = (account % 2 == 0) ? 1 : -1;
-        int range = (account * AVERAGE_VARIANCE) / AVERAGE_VARIANCE;
+        int range = account % (AVERAGE_VARIANCE + 1);
         int calls = AVERAGE_CALLS + plusMinus * range;
-        int insert = 0;
         String myTelno = MyUtils.getTelno(account);
+        List<CallDataRecord> result = new ArrayList<>(calls);
 
         if (account % TEN == 0) {
-            LOGGER.debug("Account '{}', generating {} calls", account, calls);
+            LOGGER.trace("Account '{}', generating {} calls", account, calls);
         }
 
         for (int call = 0 ; call < calls ; call++) {
@@ -134,16 +195,15 @@ public class CassandraInitializer implements CommandLineRunner {
                 cdr.setCallSuccessful(true);
             }
 
-            cdr.setCreatedBy(this.springApplicationName);
+            cdr.setCreatedBy(createdBy);
             cdr.setCreatedDate(timestamp);
-            cdr.setLastModifiedBy(this.springApplicationName);
+            cdr.setLastModifiedBy(createdBy);
             cdr.setLastModifiedDate(timestamp);
 
-            this.callDataRecordRepository.save(cdr);
-            insert++;
+            result.add(cdr);
         }
 
-        return insert;
+        return result;
     }
 
 }
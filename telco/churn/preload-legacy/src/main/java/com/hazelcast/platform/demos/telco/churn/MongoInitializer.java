@@ -18,6 +18,7 @@ package com.hazelcast.platform.demos.telco.churn;
 
 import java.time.LocalDateTime;
 import java.util.Collections;
+import java.util.List;
 import java.util.TreeSet;
 
 import org.slf4j.Logger;
@@ -36,6 +37,9 @@ import com.hazelcast.platform.demos.telco.churn.testdata.TariffTestdata;
 /**
  * <p>Inserts 100 customer records into Mongo
  * </p>
+ * <p>Customers are generated in parallel, and written in batches
+ * with "{@code insertMany}".
+ * </p>
  */
 @Configuration
 @EnableMongoRepositories(basePackageClasses = CustomerRepository.class)
@@ -65,25 +69,10 @@ public class MongoInitializer implements CommandLineRunner {
         tariffName[0] = tariffs[0][1].toString();
         tariffName[1] = tariffs[1][1].toString();
 
-        int insert = 0;
-        int maxNotes = CustomerTestdata.getFirstNames().length;
-        for (String firstName : CustomerTestdata.getFirstNames()) {
-            for (String lastName : CustomerTestdata.getLastNames()) {
-                Customer customer = new Customer();
-                customer.setAccountType(tariffName[insert % 2]);
-                customer.setFirstName(firstName);
-                customer.setLastName(lastName);
-                customer.setId(MyUtils.getTelno(insert));
-                customer.setCreatedBy(this.springApplicationName);
-                customer.setCreatedDate(now);
-                customer.setLastModifiedBy(this.springApplicationName);
-                customer.setLastModifiedDate(now);
-
-                customer.setNotes(this.createNotes(insert, 1 + (insert % maxNotes)));
-                this.customerRepository.save(customer);
-                insert++;
-            }
-        }
+        MyPreloader myPreloader = MyPreloader.fromSystemProperties("Mongo");
+        long insert = myPreloader.run(MyPreloader.getAccounts(),
+                account -> List.of(this.createCustomer(account, tariffName, now)),
+                batch -> this.customerRepository.insert(batch));
 
         long after = this.customerRepository.count();
         if ((before + insert) == after) {
@@ -93,6 +82,35 @@ public class MongoInitializer implements CommandLineRunner {
         }
     }
 
+    /**
+     * <p>Names cycle through first names then last names, so the default
+     * number of accounts gives each combination once.
+     * </p>
+     *
+     * @param account Account number
+     * @param tariffName Alternated
+     * @param now Creation time
+     * @return A customer
+     */
+    Customer createCustomer(int account, String[] tariffName, long now) {
+        String[] firstNames = CustomerTestdata.getFirstNames();
+        String[] lastNames = CustomerTestdata.getLastNames();
+        int maxNotes = firstNames.length;
+
+        Customer customer = new Customer();
+        customer.setAccountType(tariffName[account % 2]);
+        customer.setFirstName(firstNames[(account / lastNames.length) % firstNames.length]);
+        customer.setLastName(lastNames[account % lastNames.length]);
+        customer.setId(MyUtils.getTelno(account));
+        customer.setCreatedBy(this.springApplicationName);
+        customer.setCreatedDate(now);
+        customer.setLastModifiedBy(this.springApplicationName);
+        customer.setLastModifiedDate(now);
+
+        customer.setNotes(this.createNotes(account, 1 + (account % maxNotes)));
+        return customer;
+    }
+
     /**
      * <p>Create some notes on the customer, to simulate what Call Center
      * staff members may have logged each time the customer calls.
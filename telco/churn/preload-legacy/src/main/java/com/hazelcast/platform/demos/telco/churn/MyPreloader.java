@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2008-2022, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.platform.demos.telco.churn;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.hazelcast.platform.demos.telco.churn.testdata.CustomerTestdata;
+
+/**
+ * <p>Bulk preload for a legacy store. Accounts are shared out across
+ * several threads, each generating the rows for an account and writing
+ * them in batches of a fixed size.
+ * </p>
+ * <p>Rows for an account are derived only from the account number,
+ * so the data is the same whatever the number of threads or the order
+ * accounts are processed.
+ * </p>
+ * <p>Tunable with system properties "{@code my.preload.accounts}",
+ * "{@code my.preload.threads}" and "{@code my.preload.batch.size}".
+ * </p>
+ */
+public class MyPreloader {
+    public static final String PROPERTY_ACCOUNTS = "my.preload.accounts";
+    public static final String PROPERTY_THREADS = "my.preload.threads";
+    public static final String PROPERTY_BATCH_SIZE = "my.preload.batch.size";
+    public static final int DEFAULT_BATCH_SIZE = 500;
+    private static final Logger LOGGER = LoggerFactory.getLogger(MyPreloader.class);
+    private static final int PROGRESS_PERCENT = 10;
+    private static final int ONE_HUNDRED = 100;
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final String store;
+    private final int threads;
+    private final int batchSize;
+
+    MyPreloader(String arg0, int arg1, int arg2) {
+        this.store = arg0;
+        this.threads = arg1;
+        this.batchSize = arg2;
+    }
+
+    /**
+     * <p>Settings from system properties, or defaults.
+     * </p>
+     *
+     * @param store For logging
+     * @return A preloader
+     */
+    static MyPreloader fromSystemProperties(String store) {
+        int threads = Integer.getInteger(PROPERTY_THREADS, Runtime.getRuntime().availableProcessors());
+        int batchSize = Integer.getInteger(PROPERTY_BATCH_SIZE, DEFAULT_BATCH_SIZE);
+        return new MyPreloader(store, threads, batchSize);
+    }
+
+    /**
+     * <p>One per combination of first and last name unless overridden.
+     * Other modules assume the default.
+     * </p>
+     *
+     * @return How many accounts to preload
+     */
+    static int getAccounts() {
+        return Integer.getInteger(PROPERTY_ACCOUNTS,
+                CustomerTestdata.getFirstNames().length * CustomerTestdata.getLastNames().length);
+    }
+
+    /**
+     * <p>Generate and write rows for accounts "{@code 0}" to "{@code accounts - 1}".
+     * Any failure stops the run, as a partial preload isn't useful.
+     * </p>
+     *
+     * @param accounts How many accounts
+     * @param generator Rows for one account
+     * @param writer Writes one batch, blocking until done
+     * @return Rows written
+     */
+    <T> long run(int accounts, IntFunction<List<T>> generator, Consumer<List<T>> writer) throws Exception {
+        long start = System.nanoTime();
+        AtomicInteger nextAccount = new AtomicInteger();
+        AtomicInteger accountsDone = new AtomicInteger();
+        AtomicLong rows = new AtomicLong();
+        AtomicLong batches = new AtomicLong();
+        int workers = Math.max(1, Math.min(this.threads, accounts));
+
+        ExecutorService executorService = Executors.newFixedThreadPool(workers);
+        try {
+            List<Future<?>> futures = new ArrayList<>(workers);
+            for (int i = 0; i < workers; i++) {
+                futures.add(executorService.submit(() -> {
+                    List<T> batch = new ArrayList<>(this.batchSize);
+                    for (int account = nextAccount.getAndIncrement(); account < accounts;
+                            account = nextAccount.getAndIncrement()) {
+                        for (T row : generator.apply(account)) {
+                            batch.add(row);
+                            if (batch.size() == this.batchSize) {
+                                rows.addAndGet(this.write(writer, batch));
+                                batches.incrementAndGet();
+                                batch = new ArrayList<>(this.batchSize);
+                            }
+                        }
+                        this.progress(accountsDone.incrementAndGet(), accounts, rows.get(), start);
+                    }
+                    if (!batch.isEmpty()) {
+                        rows.addAndGet(this.write(writer, batch));
+                        batches.incrementAndGet();
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    throw (e.getCause() instanceof Exception) ? (Exception) e.getCause() : e;
+                }
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+
+        this.report(rows.get(), batches.get(), System.nanoTime() - start);
+        return rows.get();
+    }
+
+    private <T> int write(Consumer<List<T>> writer, List<T> batch) {
+        writer.accept(batch);
+        return batch.size();
+    }
+
+    private void progress(int done, int accounts, long rows, long start) {
+        int step = Math.max(1, accounts * PROGRESS_PERCENT / ONE_HUNDRED);
+        if (done % step == 0 && done < accounts) {
+            LOGGER.debug("{}: {}/{} accounts, {} rows/sec", this.store, done, accounts,
+                    rate(rows, System.nanoTime() - start));
+        }
+    }
+
+    /**
+     * <p>Log the overall throughput.
+     * </p>
+     *
+     * @param rows Rows written
+     * @param batches Write calls
+     * @param elapsedNanos Time taken
+     */
+    void report(long rows, long batches, long elapsedNanos) {
+        LOGGER.info("{}: {} rows in {} batches, {}ms, {} rows/sec, {} threads, batch size {}",
+                this.store, rows, batches, TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+                rate(rows, elapsedNanos), this.threads, this.batchSize);
+    }
+
+    static long rate(long rows, long elapsedNanos) {
+        return elapsedNanos == 0 ? 0 : Math.round(rows * NANOS_PER_SECOND / elapsedNanos);
+    }
+
+    int getBatchSize() {
+        return this.batchSize;
+    }
+}
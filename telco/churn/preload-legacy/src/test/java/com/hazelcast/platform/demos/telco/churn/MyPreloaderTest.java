@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2008-2022, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.platform.demos.telco.churn;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.hazelcast.platform.demos.telco.churn.domain.CallDataRecord;
+
+/**
+ * <p>Test {@link MyPreloader} writes the same rows whatever the
+ * number of threads, in batches no bigger than the batch size,
+ * and compare writes against a row at a time.
+ * </p>
+ */
+public class MyPreloaderTest {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MyPreloaderTest.class);
+    private static final int ACCOUNTS = 20;
+    private static final int BATCH_SIZE = 500;
+    private static final int THREADS = 4;
+    private static final long TIMESTAMP = 1600000000000L;
+    private static final LocalDate TODAY = LocalDate.of(2022, 1, 1);
+    private static final long ROUND_TRIP_MICROS = 200L;
+
+    @Test
+    public void testDeterministic(TestInfo testInfo) throws Exception {
+        List<String> sequential = this.preload(1, BATCH_SIZE, new AtomicInteger());
+        List<String> parallel = this.preload(THREADS, BATCH_SIZE, new AtomicInteger());
+        LOGGER.info("{} :: {} rows", testInfo.getDisplayName(), parallel.size());
+
+        assertThat(parallel.size()).isGreaterThan(ACCOUNTS * 900 - 1);
+        assertThat(parallel).isEqualTo(sequential);
+        // Ids unique, as Cassandra would overwrite otherwise
+        List<String> ids = new ArrayList<>();
+        for (int account = 0; account < ACCOUNTS; account++) {
+            CassandraInitializer.generateCdrsForAccount(account, ACCOUNTS, TIMESTAMP, TODAY, "test")
+                .forEach(cdr -> ids.add(cdr.getId()));
+        }
+        assertThat(new TreeSet<>(ids).size()).isEqualTo(ids.size());
+    }
+
+    @Test
+    public void testCallsPerAccount(TestInfo testInfo) {
+        // More accounts than the default still gives 900 to 1100 calls
+        for (int account = 0; account < 1000; account += 37) {
+            int calls = CassandraInitializer.generateCdrsForAccount(account, 1000, TIMESTAMP, TODAY, "test").size();
+            assertThat(calls).isGreaterThan(899);
+            assertThat(calls).isLessThan(1101);
+        }
+    }
+
+    @Test
+    public void testRoundTrips(TestInfo testInfo) throws Exception {
+        AtomicInteger writes = new AtomicInteger();
+        long start = System.nanoTime();
+        List<String> rows = this.preload(1, 1, writes);
+        long singleNanos = System.nanoTime() - start;
+        int singleWrites = writes.getAndSet(0);
+
+        start = System.nanoTime();
+        this.preload(THREADS, BATCH_SIZE, writes);
+        long batchNanos = System.nanoTime() - start;
+        int batchWrites = writes.get();
+
+        LOGGER.info("{} :: single {} writes {} rows/sec, batched {} writes {} rows/sec",
+                testInfo.getDisplayName(),
+                singleWrites, MyPreloader.rate(rows.size(), singleNanos),
+                batchWrites, MyPreloader.rate(rows.size(), batchNanos));
+
+        assertThat(singleWrites).isEqualTo(rows.size());
+        // Timings depend on the machine so are only logged, write counts don't
+        assertThat(batchWrites).isGreaterThan((rows.size() - 1) / BATCH_SIZE);
+        assertThat(batchWrites).isLessThan(rows.size() / BATCH_SIZE + THREADS + 1);
+    }
+
+    /**
+     * <p>Preload CDRs into a list, with a fixed delay per write.
+     * </p>
+     */
+    private List<String> preload(int threads, int batchSize, AtomicInteger writes) throws Exception {
+        List<String> result = Collections.synchronizedList(new ArrayList<>());
+        MyPreloader myPreloader = new MyPreloader("test", threads, batchSize);
+        long count = myPreloader.run(ACCOUNTS,
+                account -> CassandraInitializer.generateCdrsForAccount(account, ACCOUNTS, TIMESTAMP, TODAY, "test"),
+                batch -> {
+                    assertThat(batch.size()).isLessThan(batchSize + 1);
+                    writes.incrementAndGet();
+                    for (CallDataRecord cdr : batch) {
+                        result.add(cdr.toString());
+                    }
+                    try {
+                        TimeUnit.MICROSECONDS.sleep(ROUND_TRIP_MICROS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+        assertThat(count).isEqualTo(Long.valueOf(result.size()));
+        Collections.sort(result);
+        return result;
+    }
+}